@@ -0,0 +1,33 @@
+#!/bin/bash
+
+# 🇧🇷 Gera o snapshot compactado de municípios usado pelo CitySnapshotImporter
+#   Fonte: API de localidades do IBGE
+#   Saída: src/main/resources/data/ibge-cities.tsv.gz (ibge_code, nome, estado, sigla_uf)
+#
+# Requer: curl, jq, gzip. Rode na raiz do projeto e commite o arquivo gerado.
+
+set -e
+
+IBGE_URL="https://servicodados.ibge.gov.br/api/v1/localidades/municipios"
+OUTPUT="src/main/resources/data/ibge-cities.tsv.gz"
+
+echo "📡 Baixando municípios do IBGE..."
+mkdir -p "$(dirname "$OUTPUT")"
+
+# Alguns municípios novos vêm sem microrregião — nesse caso usa a região imediata
+curl -sf "$IBGE_URL" \
+  | jq -r '.[]
+      | (.microrregiao.mesorregiao.UF // .["regiao-imediata"]["regiao-intermediaria"].UF) as $uf
+      | select($uf != null)
+      | [(.id | tostring), .nome, $uf.nome, $uf.sigla]
+      | @tsv' \
+  | sort -n \
+  | gzip -9n > "$OUTPUT"
+
+COUNT=$(gzip -dc "$OUTPUT" | wc -l | tr -d ' ')
+echo "✅ Snapshot gerado: $OUTPUT ($COUNT municípios)"
+
+if [ "$COUNT" -lt 5570 ]; then
+  echo "⚠️  Esperado >= 5570 municípios — verifique a resposta do IBGE"
+  exit 1
+fi
@@ -0,0 +1,101 @@
+package com.mvt.mvt_events.pricing;
+
+import com.mvt.mvt_events.jpa.Delivery;
+import com.mvt.mvt_events.jpa.SiteConfiguration;
+import com.mvt.mvt_events.jpa.SpecialZone;
+import com.mvt.mvt_events.service.SiteConfigurationService;
+import com.mvt.mvt_events.service.SpecialZoneService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cotação de frete em memória ({@link FeeQuoteEngine}) com um snapshot fixo: 200 zonas
+ * especiais e rotas de 2 a 5 pontos, tudo gerado com seed fixa.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FeeQuoteBenchmark {
+
+    private static final int ROUTES = 256;
+    private static final int ZONES = 200;
+
+    private FeeQuoteEngine engine;
+    private List<List<GeoPoint>> routes;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+
+        SiteConfiguration config = new SiteConfiguration();
+        config.setPricePerKm(BigDecimal.valueOf(2.50));
+        config.setMinimumShippingFee(BigDecimal.valueOf(5.00));
+        config.setCarPricePerKm(BigDecimal.valueOf(3.50));
+        config.setCarMinimumShippingFee(BigDecimal.valueOf(8.00));
+        config.setAdditionalStopFee(BigDecimal.valueOf(2.00));
+        config.setDangerFeePercentage(BigDecimal.valueOf(20));
+        config.setHighIncomeFeePercentage(BigDecimal.valueOf(10));
+
+        List<SpecialZone> zones = new ArrayList<>(ZONES);
+        for (int i = 0; i < ZONES; i++) {
+            SpecialZone z = new SpecialZone();
+            z.setId((long) i);
+            z.setZoneType(i % 2 == 0 ? SpecialZone.ZoneType.DANGER : SpecialZone.ZoneType.HIGH_INCOME);
+            z.setLatitude(-3.85 + (random.nextDouble() - 0.5) * 0.2);
+            z.setLongitude(-40.92 + (random.nextDouble() - 0.5) * 0.2);
+            z.setRadiusMeters(200.0 + random.nextInt(800));
+            z.setAddress("Zona " + i);
+            zones.add(z);
+        }
+
+        SiteConfigurationService configs = new SiteConfigurationService() {
+            @Override
+            public SiteConfiguration getActiveConfiguration() {
+                return config;
+            }
+        };
+        SpecialZoneService zoneService = new SpecialZoneService() {
+            @Override
+            public List<SpecialZone> findActiveZones() {
+                return zones;
+            }
+        };
+        engine = new FeeQuoteEngine(configs, zoneService);
+        engine.refresh();
+
+        routes = new ArrayList<>(ROUTES);
+        for (int r = 0; r < ROUTES; r++) {
+            int points = 2 + random.nextInt(4);
+            List<GeoPoint> route = new ArrayList<>(points);
+            for (int p = 0; p < points; p++) {
+                route.add(new GeoPoint(-3.85 + (random.nextDouble() - 0.5) * 0.2,
+                        -40.92 + (random.nextDouble() - 0.5) * 0.2));
+            }
+            routes.add(route);
+        }
+    }
+
+    @Benchmark
+    public FeeQuote quoteMotorcycle() {
+        cursor = (cursor + 1) & (ROUTES - 1);
+        return engine.quote(routes.get(cursor), Delivery.PreferredVehicleType.MOTORCYCLE);
+    }
+}
@@ -0,0 +1,65 @@
+package com.mvt.mvt_events.service;
+
+import com.mvt.mvt_events.pricing.GeoPoint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Haversine over seeded coordinate pairs inside a ~10 km box.
+ *
+ * The private Haversine copies in DeliveryService, StoreController and FoodOrderService are
+ * the same formula as {@link StopSequenceOptimizer#haversineKm}, measured here.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeoBenchmark {
+
+    private static final int POINTS = 1024;
+
+    private double[] lats;
+    private double[] lngs;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        lats = new double[POINTS];
+        lngs = new double[POINTS];
+        for (int i = 0; i < POINTS; i++) {
+            lats[i] = -3.85 + (random.nextDouble() - 0.5) * 0.1;
+            lngs[i] = -40.92 + (random.nextDouble() - 0.5) * 0.1;
+        }
+    }
+
+    private int next() {
+        cursor = (cursor + 1) & (POINTS - 1);
+        return cursor;
+    }
+
+    @Benchmark
+    public double haversineKm() {
+        int i = next();
+        return StopSequenceOptimizer.haversineKm(lats[i], lngs[i], lats[POINTS - 1 - i], lngs[POINTS - 1 - i]);
+    }
+
+    @Benchmark
+    public double geoPointDistanceMeters() {
+        int i = next();
+        return GeoPoint.distanceMeters(lats[i], lngs[i], lats[POINTS - 1 - i], lngs[POINTS - 1 - i]);
+    }
+}
@@ -0,0 +1,55 @@
+package com.mvt.mvt_events.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Courier × delivery assignment solved by BatchDispatchService on every batch cycle
+ * (delivery.dispatch.interval-ms). Square matrices of pickup distances in km with 20% of the
+ * pairs forbidden (out of radius / wrong vehicle), as in the dispatch cost matrix. The solver
+ * is O(n³): at n=200 the score has to stay well under the dispatch interval.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HungarianBenchmark {
+
+    private static final double FORBIDDEN_RATE = 0.2;
+
+    @Param({"50", "100", "200"})
+    public int size;
+
+    private double[][] cost;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        cost = new double[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                cost[i][j] = random.nextDouble() < FORBIDDEN_RATE
+                        ? HungarianAssignment.FORBIDDEN : random.nextDouble() * 5.0;
+            }
+        }
+    }
+
+    @Benchmark
+    public int[] solve() {
+        return HungarianAssignment.solve(cost);
+    }
+}
@@ -0,0 +1,71 @@
+package com.mvt.mvt_events.service;
+
+import com.mvt.mvt_events.jpa.SiteConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cálculo de split do {@link PaymentSplitCalculator} (courier/organizer/plataforma), feito
+ * por delivery na criação do pagamento e nos relatórios. Fretes gerados com seed fixa.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaymentSplitBenchmark {
+
+    private static final int FEES = 1024;
+
+    private final PaymentSplitCalculator calculator = new PaymentSplitCalculator();
+    private SiteConfiguration config;
+    private BigDecimal[] feesInReais;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        config = new SiteConfiguration();
+        config.setOrganizerPercentage(BigDecimal.valueOf(5));
+        config.setPlatformPercentage(BigDecimal.valueOf(8));
+
+        Random random = new Random(42);
+        feesInReais = new BigDecimal[FEES];
+        for (int i = 0; i < FEES; i++) {
+            feesInReais[i] = BigDecimal.valueOf(500 + random.nextInt(5000), 2); // R$ 5,00 – R$ 54,99
+        }
+    }
+
+    /** Split completo de uma delivery com organizer: reais → centavos → três partes. */
+    @Benchmark
+    public void splitWithOrganizer(Blackhole bh) {
+        cursor = (cursor + 1) & (FEES - 1);
+        BigDecimal cents = calculator.toCents(feesInReais[cursor]);
+        BigDecimal courier = calculator.calculateCourierAmount(cents, config);
+        BigDecimal organizer = calculator.calculateOrganizerAmount(cents, config);
+        bh.consume(calculator.calculatePlatformAmount(cents, courier, organizer));
+    }
+
+    /** Sem organizer a plataforma absorve a parte dele. */
+    @Benchmark
+    public void splitWithoutOrganizer(Blackhole bh) {
+        cursor = (cursor + 1) & (FEES - 1);
+        BigDecimal cents = calculator.toCents(feesInReais[cursor]);
+        BigDecimal courier = calculator.calculateCourierAmount(cents, config);
+        bh.consume(calculator.calculatePlatformAmount(cents, courier, BigDecimal.ZERO));
+        bh.consume(calculator.calculatePlatformPercentage(config, false));
+    }
+}
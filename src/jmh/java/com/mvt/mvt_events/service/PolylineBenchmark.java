@@ -0,0 +1,106 @@
+package com.mvt.mvt_events.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Route geometry on the GPS path: {@link GoogleDirectionsService#decodePolyline}, building
+ * the {@link RoutePolyline} cache entry and the per-ping deviation query. The route is a
+ * seeded random walk; queries are courier positions up to ~150 m off a random vertex.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PolylineBenchmark {
+
+    private static final int QUERIES = 1024;
+
+    @Param({"200", "1000"})
+    public int polylinePoints;
+
+    private String encodedPolyline;
+    private RoutePolyline route;
+    private double[][] queries;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        List<double[]> path = new ArrayList<>(polylinePoints);
+        double lat = -3.85;
+        double lng = -40.92;
+        for (int i = 0; i < polylinePoints; i++) {
+            lat += (random.nextDouble() - 0.3) * 0.0005;
+            lng += (random.nextDouble() - 0.5) * 0.0005;
+            path.add(new double[]{lat, lng});
+        }
+        encodedPolyline = encode(path);
+        route = RoutePolyline.of(GoogleDirectionsService.decodePolyline(encodedPolyline));
+
+        queries = new double[QUERIES][];
+        for (int i = 0; i < QUERIES; i++) {
+            double[] vertex = path.get(random.nextInt(path.size()));
+            queries[i] = new double[]{vertex[0] + (random.nextDouble() - 0.5) * 0.0027,
+                    vertex[1] + (random.nextDouble() - 0.5) * 0.0027};
+        }
+    }
+
+    @Benchmark
+    public List<double[]> decodePolyline() {
+        return GoogleDirectionsService.decodePolyline(encodedPolyline);
+    }
+
+    @Benchmark
+    public RoutePolyline buildRoutePolyline() {
+        return RoutePolyline.of(GoogleDirectionsService.decodePolyline(encodedPolyline));
+    }
+
+    @Benchmark
+    public double deviationMeters() {
+        cursor = (cursor + 1) & (QUERIES - 1);
+        double[] q = queries[cursor];
+        return route.distanceMeters(q[0], q[1]);
+    }
+
+    /** Google encoded polyline algorithm (inverse of decodePolyline). */
+    private static String encode(List<double[]> path) {
+        StringBuilder sb = new StringBuilder();
+        long prevLat = 0;
+        long prevLng = 0;
+        for (double[] p : path) {
+            long lat = Math.round(p[0] * 1e5);
+            long lng = Math.round(p[1] * 1e5);
+            encodeValue(sb, lat - prevLat);
+            encodeValue(sb, lng - prevLng);
+            prevLat = lat;
+            prevLng = lng;
+        }
+        return sb.toString();
+    }
+
+    private static void encodeValue(StringBuilder sb, long value) {
+        long v = value < 0 ? ~(value << 1) : value << 1;
+        while (v >= 0x20) {
+            sb.append((char) ((0x20 | (v & 0x1f)) + 63));
+            v >>= 5;
+        }
+        sb.append((char) (v + 63));
+    }
+}
@@ -0,0 +1,59 @@
+package com.mvt.mvt_events.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-transit stop ordering used by PlannedRouteService: the nearest-neighbor seed and the
+ * full 2-opt/Or-opt pass. The optimizer gets the production budget (30 ms), so a score
+ * close to it means the local search is hitting the deadline instead of converging.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StopOrderingBenchmark {
+
+    private static final long BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(30);
+
+    @Param({"5", "10", "20"})
+    public int stopCount;
+
+    private double[] courier;
+    private double[][] stops;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        courier = new double[]{-3.850, -40.920};
+        stops = new double[stopCount][];
+        for (int i = 0; i < stopCount; i++) {
+            stops[i] = new double[]{courier[0] + (random.nextDouble() - 0.5) * 0.05,
+                    courier[1] + (random.nextDouble() - 0.5) * 0.05};
+        }
+    }
+
+    @Benchmark
+    public int[] nearestNeighbor() {
+        return StopSequenceOptimizer.nearestNeighbor(courier, stops);
+    }
+
+    @Benchmark
+    public int[] optimize() {
+        return StopSequenceOptimizer.optimize(courier, stops, BUDGET_NANOS);
+    }
+}
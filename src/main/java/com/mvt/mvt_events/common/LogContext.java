@@ -0,0 +1,46 @@
+package com.mvt.mvt_events.common;
+
+import org.slf4j.MDC;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Campos de MDC que vão em toda linha de log (no JSON de produção viram atributos
+ * {@code tenant}, {@code user} e {@code deliveryId}).
+ *
+ * O TenantFilter preenche os campos do request; o DeliveryLifecycleEventBus preenche
+ * {@code deliveryId} nas threads assíncronas dos listeners.
+ */
+public final class LogContext {
+
+    public static final String TENANT = "tenant";
+    public static final String USER = "user";
+    public static final String DELIVERY_ID = "deliveryId";
+
+    private static final Pattern DELIVERY_PATH = Pattern.compile("^/api/deliveries/(\\d+)(?:/|$)");
+
+    private LogContext() {
+    }
+
+    /** Id da delivery em rotas {@code /api/deliveries/{id}/...}, ou null. */
+    public static String deliveryIdFromPath(String path) {
+        if (path == null) {
+            return null;
+        }
+        Matcher matcher = DELIVERY_PATH.matcher(path);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    public static void putDeliveryId(Object deliveryId) {
+        if (deliveryId != null) {
+            MDC.put(DELIVERY_ID, deliveryId.toString());
+        }
+    }
+
+    public static void clear() {
+        MDC.remove(TENANT);
+        MDC.remove(USER);
+        MDC.remove(DELIVERY_ID);
+    }
+}
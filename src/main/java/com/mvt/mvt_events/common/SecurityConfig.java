@@ -1,6 +1,7 @@
 package com.mvt.mvt_events.common;
 
 import com.mvt.mvt_events.tenant.TenantFilter;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -34,6 +35,8 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable())
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(authz -> authz
+                        // Dispatch assíncrono dos streams SSE (/api/support/*-stream): o request original já foi autorizado
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/auth/**").permitAll() // Permitir acesso sem /api prefix
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/api/metadata", "/api/metadata/**").permitAll() // Permitir acesso público aos
@@ -44,6 +47,7 @@ public class SecurityConfig {
                         .requestMatchers("/webhooks/**").permitAll() // Permitir webhooks (path sem /api)
                         .requestMatchers("/api/payments/methods").permitAll() // Permitir consulta de métodos
                         .requestMatchers("/api/payments/calculate-fee").permitAll() // Permitir cálculo de taxa
+                        .requestMatchers("/api/pricing/quote").permitAll() // Cotação de frete (pin arrastando no app)
                         .requestMatchers("/swagger-ui/**", "/v3/api-docs/**", "/swagger-ui.html").permitAll() // Swagger
                         .requestMatchers("/api/debug/**").permitAll() // Debug endpoints
                         .requestMatchers("/api/tracking/**").permitAll() // Rastreamento público (link WhatsApp)
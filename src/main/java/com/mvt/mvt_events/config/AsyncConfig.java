@@ -1,5 +1,7 @@
 package com.mvt.mvt_events.config;
 
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.AsyncConfigurer;
@@ -11,13 +13,30 @@ import java.util.concurrent.Executor;
 /**
  * Configuração para processamento assíncrono
  * Otimizado para o sistema de notificações push de delivery
+ *
+ * Com {@code async.virtual-threads.enabled=true} num runtime Java 21+, os executores de I/O
+ * (notificationTaskExecutor e taskExecutor) viram uma virtual thread por tarefa
+ * ({@link BoundedThreadPerTaskExecutor}): sem fila nem CallerRunsPolicy, a concorrência
+ * por integração fica com os bulkheads do OutboundGuard. Em Java 17 os pools abaixo seguem
+ * valendo.
  */
 @Configuration
 @EnableAsync
+@Slf4j
 public class AsyncConfig implements AsyncConfigurer {
 
+    @Value("${async.virtual-threads.enabled:false}")
+    private boolean virtualThreadsEnabled = false;
+
+    /** Tarefas simultâneas por executor de virtual threads (o banco e a memória, não as APIs). */
+    @Value("${async.virtual-threads.max-concurrency:200}")
+    private int virtualThreadsMaxConcurrency = 200;
+
     @Bean(name = "notificationTaskExecutor")
     public Executor notificationTaskExecutor() {
+        if (useVirtualThreads()) {
+            return BoundedThreadPerTaskExecutor.virtual("notification-", virtualThreadsMaxConcurrency);
+        }
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(2); // Threads mínimas
         executor.setMaxPoolSize(5); // Threads máximas
@@ -28,9 +47,32 @@ public class AsyncConfig implements AsyncConfigurer {
         return executor;
     }
 
+    /**
+     * Pool do billing mensal em lote: uma thread por partição (billing.batch.parallelism).
+     * Limita a concorrência contra o Pagar.me e o pool de conexões. Uma rodada submete no
+     * máximo {@code parallelism} partições; a fila do mesmo tamanho absorve uma rodada
+     * sobreposta e o excedente é rejeitado (AbortPolicy) — a partição fica PENDING e o
+     * checkpoint retoma na próxima rodada, sem rodar na thread do scheduler.
+     */
+    @Bean(name = "billingTaskExecutor")
+    public Executor billingTaskExecutor(@Value("${billing.batch.parallelism:4}") int parallelism) {
+        int threads = Math.max(1, parallelism);
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(threads);
+        executor.setThreadNamePrefix("billing-");
+        executor.setRejectedExecutionHandler(new java.util.concurrent.ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
     @Override
     @Bean(name = "taskExecutor")
     public Executor getAsyncExecutor() {
+        if (useVirtualThreads()) {
+            return BoundedThreadPerTaskExecutor.virtual("async-", virtualThreadsMaxConcurrency);
+        }
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(3);
         executor.setMaxPoolSize(10);
@@ -40,4 +82,16 @@ public class AsyncConfig implements AsyncConfigurer {
         executor.initialize();
         return executor;
     }
-}
\ No newline at end of file
+
+    private boolean useVirtualThreads() {
+        if (!virtualThreadsEnabled) {
+            return false;
+        }
+        if (!BoundedThreadPerTaskExecutor.virtualThreadsSupported()) {
+            log.warn("⚠️ async.virtual-threads.enabled=true, mas o runtime é Java {} — usando pools de threads",
+                    Runtime.version().feature());
+            return false;
+        }
+        return true;
+    }
+}
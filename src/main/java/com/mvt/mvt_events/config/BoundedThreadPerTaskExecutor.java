@@ -0,0 +1,104 @@
+package com.mvt.mvt_events.config;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executor de uma thread por tarefa, com limite de concorrência por semáforo.
+ *
+ * Feito para tarefas de I/O bloqueante (push Expo, e-mail, Pagar.me, Google...): em vez
+ * de um pool pequeno com fila + CallerRunsPolicy (que devolve o trabalho para a thread do
+ * request quando enche), toda tarefa ganha a sua thread na hora e espera a vaga dentro
+ * dela. Quem chama nunca bloqueia.
+ *
+ * Com Java 21+ as threads são virtuais ({@link #virtual}); o limite real por integração
+ * continua nos bulkheads do OutboundGuard, e o semáforo daqui só protege o resto
+ * (pool de conexões do banco, memória).
+ */
+@Slf4j
+public class BoundedThreadPerTaskExecutor implements Executor, AutoCloseable {
+
+    private final ExecutorService delegate;
+    private final Semaphore permits;
+
+    public BoundedThreadPerTaskExecutor(ThreadFactory threadFactory, int maxConcurrency) {
+        this.delegate = Executors.newCachedThreadPool(threadFactory);
+        this.permits = new Semaphore(Math.max(1, maxConcurrency));
+    }
+
+    private BoundedThreadPerTaskExecutor(ExecutorService delegate, int maxConcurrency) {
+        this.delegate = delegate;
+        this.permits = new Semaphore(Math.max(1, maxConcurrency));
+    }
+
+    /** Virtual threads estão disponíveis no runtime atual (Java 21+). */
+    public static boolean virtualThreadsSupported() {
+        return Runtime.version().feature() >= 21;
+    }
+
+    /**
+     * Executor de virtual threads nomeadas {@code <prefix>N}. O build compila para Java 17,
+     * então a API do Java 21 é acessada por reflexão.
+     *
+     * @throws IllegalStateException se o runtime não suporta virtual threads
+     */
+    public static BoundedThreadPerTaskExecutor virtual(String threadNamePrefix, int maxConcurrency) {
+        if (!virtualThreadsSupported()) {
+            throw new IllegalStateException("Virtual threads exigem Java 21+ (runtime: " + Runtime.version() + ")");
+        }
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> ofVirtual = Class.forName("java.lang.Thread$Builder$OfVirtual");
+            builder = ofVirtual.getMethod("name", String.class, long.class).invoke(builder, threadNamePrefix, 0L);
+            ThreadFactory factory = (ThreadFactory) Class.forName("java.lang.Thread$Builder")
+                    .getMethod("factory").invoke(builder);
+            ExecutorService executor = (ExecutorService) Executors.class
+                    .getMethod("newThreadPerTaskExecutor", ThreadFactory.class).invoke(null, factory);
+            return new BoundedThreadPerTaskExecutor(executor, maxConcurrency);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Falha ao criar executor de virtual threads", e);
+        }
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        delegate.execute(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                task.run();
+            } finally {
+                permits.release();
+            }
+        });
+    }
+
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    /** Para de aceitar tarefas e espera as em andamento por até 30s. */
+    @Override
+    public void close() {
+        delegate.shutdown();
+        try {
+            if (!delegate.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("⚠️ Tarefas de I/O ainda rodando no shutdown — interrompendo");
+                delegate.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            delegate.shutdownNow();
+        }
+    }
+}
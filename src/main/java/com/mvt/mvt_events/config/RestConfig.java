@@ -1,21 +1,21 @@
 package com.mvt.mvt_events.config;
 
-import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.client5.http.impl.classic.HttpClients;
+import com.mvt.mvt_events.http.OutboundHttpClients;
+import com.mvt.mvt_events.http.OutboundProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
 @Configuration
 public class RestConfig {
 
+    /**
+     * RestTemplate do Pagar.me (PagarMeService). Vem da plataforma de HTTP de
+     * saída: timeouts, bulkhead, circuit breaker e retry configurados em
+     * outbound.http.providers.pagarme.* — o JDK HttpClient também suporta PATCH.
+     */
     @Bean
-    public RestTemplate restTemplate() {
-        // Usar Apache HttpClient que suporta PATCH
-        CloseableHttpClient httpClient = HttpClients.createDefault();
-        HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
-        requestFactory.setConnectTimeout(5000);
-        return new RestTemplate(requestFactory);
+    public RestTemplate restTemplate(OutboundHttpClients outboundHttpClients) {
+        return outboundHttpClients.restTemplate(OutboundProvider.PAGARME);
     }
-}
\ No newline at end of file
+}
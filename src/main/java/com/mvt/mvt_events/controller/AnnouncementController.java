@@ -3,9 +3,8 @@ package com.mvt.mvt_events.controller;
 import com.mvt.mvt_events.jpa.Announcement;
 import com.mvt.mvt_events.jpa.AnnouncementRead;
 import com.mvt.mvt_events.jpa.User;
-import com.mvt.mvt_events.repository.AnnouncementReadRepository;
 import com.mvt.mvt_events.repository.AnnouncementRepository;
-import com.mvt.mvt_events.repository.UserRepository;
+import com.mvt.mvt_events.service.AnnouncementFeedService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -14,21 +13,24 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
-import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
 
 /**
  * CRUD admin de anúncios + endpoints de consumo pro app (active list + mark read).
  *
  * Persistência da leitura é por-usuário via {@link AnnouncementRead}, então
  * usuário lê uma vez e não vê mais em nenhum dispositivo.
+ *
+ * O feed do app sai da memória ({@link AnnouncementFeedService}) com ETag; toda escrita
+ * do admin recarrega o snapshot.
  */
 @RestController
 @RequestMapping("/api/announcements")
@@ -36,8 +38,7 @@ import java.util.UUID;
 public class AnnouncementController {
 
     @Autowired private AnnouncementRepository announcementRepository;
-    @Autowired private AnnouncementReadRepository readRepository;
-    @Autowired private UserRepository userRepository;
+    @Autowired private AnnouncementFeedService feedService;
 
     // ─── ADMIN: CRUD ──────────────────────────────────────────────────────
 
@@ -65,7 +66,9 @@ public class AnnouncementController {
     @Operation(summary = "Criar anúncio (admin)")
     public ResponseEntity<Announcement> create(@RequestBody @Valid Announcement payload) {
         payload.setId(null);
-        return ResponseEntity.ok(announcementRepository.save(payload));
+        Announcement saved = announcementRepository.save(payload);
+        feedService.refresh();
+        return ResponseEntity.ok(saved);
     }
 
     @PutMapping("/{id}")
@@ -80,7 +83,9 @@ public class AnnouncementController {
                     existing.setPublishedAt(payload.getPublishedAt());
                     existing.setExpiresAt(payload.getExpiresAt());
                     existing.setIsActive(payload.getIsActive());
-                    return ResponseEntity.ok(announcementRepository.save(existing));
+                    Announcement saved = announcementRepository.save(existing);
+                    feedService.refresh();
+                    return ResponseEntity.ok(saved);
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -91,6 +96,7 @@ public class AnnouncementController {
     public ResponseEntity<Void> delete(@PathVariable Long id) {
         if (!announcementRepository.existsById(id)) return ResponseEntity.notFound().build();
         announcementRepository.deleteById(id);
+        feedService.refresh();
         return ResponseEntity.noContent().build();
     }
 
@@ -98,38 +104,28 @@ public class AnnouncementController {
 
     @GetMapping("/active")
     @Operation(summary = "Lista anúncios ativos não-lidos pelo usuário logado",
-               description = "Filtra por role do usuário, publishedAt, expiresAt e leitura prévia")
-    public ResponseEntity<List<Announcement>> activeForCurrentUser(Authentication authentication) {
-        User user = currentUser(authentication);
+               description = "Filtra por role do usuário, publishedAt, expiresAt e leitura prévia. " +
+                       "Responde 304 quando o If-None-Match bate com o ETag da lista")
+    public ResponseEntity<List<Announcement>> activeForCurrentUser(
+            Authentication authentication,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        User user = (User) authentication.getPrincipal();
         if (user.getRole() == null) return ResponseEntity.ok(List.of());
-        List<Announcement> list = announcementRepository.findActiveUnreadFor(
-                user.getId(), user.getRole().name(), OffsetDateTime.now());
-        return ResponseEntity.ok(list);
+        AnnouncementFeedService.Feed feed = feedService.feedFor(user.getId(), user.getRole().name());
+        if (feed.etag().equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(feed.etag()).build();
+        }
+        return ResponseEntity.ok().eTag(feed.etag()).body(feed.announcements());
     }
 
     @PostMapping("/{id}/read")
     @Operation(summary = "Marca anúncio como lido pelo usuário logado")
     public ResponseEntity<?> markRead(@PathVariable Long id, Authentication authentication) {
-        User user = currentUser(authentication);
-        Announcement announcement = announcementRepository.findById(id).orElse(null);
-        if (announcement == null) return ResponseEntity.notFound().build();
-
-        if (readRepository.existsByAnnouncementIdAndUserId(id, user.getId())) {
-            return ResponseEntity.ok(Map.of("alreadyRead", true));
-        }
-        AnnouncementRead read = AnnouncementRead.builder()
-                .announcement(announcement)
-                .user(user)
-                .build();
-        readRepository.save(read);
-        return ResponseEntity.ok(Map.of("alreadyRead", false));
-    }
-
-    // ─── helpers ──────────────────────────────────────────────────────────
-
-    private User currentUser(Authentication authentication) {
-        String email = authentication.getName();
-        return userRepository.findByUsername(email)
-                .orElseThrow(() -> new RuntimeException("Usuário não encontrado"));
+        User user = (User) authentication.getPrincipal();
+        return switch (feedService.markRead(id, user.getId())) {
+            case NOT_FOUND -> ResponseEntity.notFound().build();
+            case ALREADY_READ -> ResponseEntity.ok(Map.of("alreadyRead", true));
+            case MARKED -> ResponseEntity.ok(Map.of("alreadyRead", false));
+        };
     }
 }
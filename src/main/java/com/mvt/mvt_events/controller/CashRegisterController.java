@@ -13,7 +13,6 @@ import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
-import java.time.OffsetDateTime;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
@@ -39,7 +38,7 @@ public class CashRegisterController {
         return service.getOpenSession(resolved)
                 .map(s -> {
                     Map<String, Object> body = serialize(s);
-                    body.put("expectedBalance", service.computeExpected(s, OffsetDateTime.now()));
+                    body.put("expectedBalance", s.getExpectedBalance());
                     return ResponseEntity.ok(body);
                 })
                 .orElse(ResponseEntity.ok(Map.of("status", "NONE")));
@@ -83,6 +82,36 @@ public class CashRegisterController {
         return ResponseEntity.status(HttpStatus.CREATED).body(m);
     }
 
+    @GetMapping("/verify")
+    @Operation(summary = "Conferir totais do caixa",
+            description = "Recalcula vendas em dinheiro e movimentações da sessão (OPEN por padrão) "
+                    + "e compara com os totais correntes. Somente leitura.")
+    public CashRegisterService.Reconciliation verify(
+            @RequestParam(required = false) UUID clientId,
+            @RequestParam(required = false) Long sessionId,
+            Authentication authentication) {
+        User user = (User) authentication.getPrincipal();
+        UUID resolved = resolveClientId(clientId, user);
+        return service.verify(resolved, sessionId, false);
+    }
+
+    @PostMapping("/verify/repair")
+    @Operation(summary = "Corrigir totais do caixa",
+            description = "Confere como GET /verify e sobrescreve os totais correntes com os recalculados "
+                    + "quando divergem. Apenas o próprio estabelecimento (CLIENT) ou ADMIN.")
+    public ResponseEntity<?> repair(
+            @RequestParam(required = false) UUID clientId,
+            @RequestParam(required = false) Long sessionId,
+            Authentication authentication) {
+        User user = (User) authentication.getPrincipal();
+        if (user.getRole() != User.Role.CLIENT && user.getRole() != User.Role.ADMIN) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("error", "Apenas o estabelecimento ou ADMIN podem corrigir o caixa"));
+        }
+        UUID resolved = resolveClientId(clientId, user);
+        return ResponseEntity.ok(service.verify(resolved, sessionId, true));
+    }
+
     private UUID resolveClientId(UUID clientId, User user) {
         if (user.getRole() == User.Role.CLIENT) return user.getId();
         if (clientId != null && (user.getRole() == User.Role.ADMIN || user.getRole() == User.Role.WAITER)) {
@@ -102,6 +131,9 @@ public class CashRegisterController {
         m.put("closedByName", s.getClosedByName());
         m.put("closingBalanceActual", s.getClosingBalanceActual());
         m.put("closingBalanceExpected", s.getClosingBalanceExpected());
+        m.put("cashSales", s.getCashSales());
+        m.put("additionsTotal", s.getAdditionsTotal());
+        m.put("withdrawalsTotal", s.getWithdrawalsTotal());
         m.put("notes", s.getNotes());
         m.put("movements", s.getMovements());
         return m;
@@ -2,6 +2,7 @@ package com.mvt.mvt_events.controller;
 
 import com.mvt.mvt_events.common.JwtUtil;
 import com.mvt.mvt_events.dto.*;
+import com.mvt.mvt_events.exception.DeliveryAlreadyAcceptedException;
 import com.mvt.mvt_events.jpa.Delivery;
 import com.mvt.mvt_events.jpa.DeliveryStop;
 import com.mvt.mvt_events.jpa.SiteConfiguration;
@@ -318,6 +319,14 @@ public class DeliveryController {
             response.setPaymentStatus(calculatePaymentStatus(paymentSummaries));
 
             return ResponseEntity.ok(response);
+        } catch (DeliveryAlreadyAcceptedException e) {
+            // Corrida perdida no aceite: resposta rápida, sem stack trace
+            java.util.Map<String, String> errorResponse = new java.util.HashMap<>();
+            errorResponse.put("error", "Delivery já aceita");
+            errorResponse.put("message", e.getMessage());
+            errorResponse.put("timestamp", java.time.OffsetDateTime.now(java.time.ZoneId.of("America/Fortaleza")).toString());
+
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
         } catch (RuntimeException e) {
             // Log detalhado do erro (já está sendo feito no Service, mas repetimos aqui para contexto HTTP)
             log.error("❌ Erro ao aceitar delivery #{}: {}", id, e.getMessage(), e);
@@ -10,9 +10,11 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 import java.util.Map;
@@ -174,6 +176,15 @@ public class FoodOrderController {
         return ResponseEntity.ok(orderService.findActiveByWaiter(user.getId(), clientId));
     }
 
+    @GetMapping(value = "/board/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Quadro ao vivo de pedidos (SSE)",
+            description = "CLIENT/WAITER/ADMIN: snapshot inicial + deltas compactos (order/table) a cada mudança. clientId opcional para CLIENT")
+    public SseEmitter boardStream(Authentication authentication,
+                                  @RequestParam(required = false) UUID clientId) {
+        User user = (User) authentication.getPrincipal();
+        return orderService.subscribeBoard(user, clientId);
+    }
+
     @GetMapping("/tables-status")
     @Operation(summary = "Status dos pedidos por mesa", description = "Retorna mapa tableId → status do pedido ativo para todas as mesas de um client")
     public ResponseEntity<java.util.Map<Long, String>> tablesOrderStatus(@RequestParam java.util.UUID clientId) {
@@ -2,7 +2,6 @@ package com.mvt.mvt_events.controller;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.mvt.mvt_events.jpa.Delivery;
 import com.mvt.mvt_events.jpa.Payment;
 import com.mvt.mvt_events.jpa.PaymentMethod;
 import com.mvt.mvt_events.jpa.PaymentStatus;
@@ -307,22 +306,16 @@ log.info("🔔 Webhook recebido em /api/webhooks/order");
      * @param captured true se o pagamento foi capturado, false caso contrário
      */
     private void updateDeliveriesPaymentCaptured(Payment payment, boolean captured) {
-        if (payment.getDeliveries() == null || payment.getDeliveries().isEmpty()) {
-            log.warn("⚠️ Payment {} não possui deliveries associadas", payment.getId());
+        // UPDATE único via payment_deliveries — pagamento consolidado pode ter centenas de deliveries
+        int updated = deliveryRepository.markPaymentCapturedByPaymentId(
+                payment.getId(), captured, OffsetDateTime.now(ZoneId.of("America/Fortaleza")));
+
+        if (updated == 0) {
+            log.warn("⚠️ Payment {} sem deliveries a atualizar (nenhuma associada ou já marcadas)", payment.getId());
             return;
         }
-        
-        for (Delivery delivery : payment.getDeliveries()) {
-            Boolean previousStatus = delivery.getPaymentCaptured();
-            delivery.setPaymentCaptured(captured);
-            deliveryRepository.save(delivery);
-            
-            log.info("✅ Delivery #{} - paymentCaptured: {} → {}", 
-                    delivery.getId(), previousStatus, captured);
-        }
-        
-        log.info("💳 {} deliveries atualizadas com paymentCaptured = {}", 
-                payment.getDeliveries().size(), captured);
+
+        log.info("💳 {} deliveries atualizadas com paymentCaptured = {}", updated, captured);
     }
     
     /**
@@ -45,20 +45,23 @@ public class PagarmeTransferController {
         return repository.findByStatusWithRecipient(st);
     }
 
+    /** Ainda não pagos: PENDING e PROCESSING (reivindicado por um lote, aguardando o provedor). */
+    private static final Set<PagarmeTransfer.Status> OPEN =
+            EnumSet.of(PagarmeTransfer.Status.PENDING, PagarmeTransfer.Status.PROCESSING);
+
     /**
-     * Total e detalhes de transfers PENDING do usuário logado.
+     * Total e detalhes de transfers ainda não pagos (PENDING ou PROCESSING) do usuário logado.
      * <p>Usado pela tela "Minha Carteira" do mobile (courier/organizer): mostra dinheiro
      * já garantido (cliente pagou) mas ainda na conta da plataforma, esperando PIX-out.
      * <p>Acessível por COURIER e ORGANIZER (não só ADMIN).
      */
     @GetMapping("/my-pending")
     @PreAuthorize("hasAnyRole('COURIER', 'ORGANIZER', 'ADMIN')")
-    @Operation(summary = "Meus transfers PENDING (a receber via PIX-out da plataforma)")
+    @Operation(summary = "Meus transfers PENDING/PROCESSING (a receber via PIX-out da plataforma)")
     public MyPendingTransfersResponse myPending(
             org.springframework.security.core.Authentication authentication) {
         User currentUser = (User) authentication.getPrincipal();
-        List<PagarmeTransfer> transfers = repository.findByRecipientIdAndStatus(
-                currentUser.getId(), PagarmeTransfer.Status.PENDING);
+        List<PagarmeTransfer> transfers = repository.findByRecipientIdAndStatusIn(currentUser.getId(), OPEN);
 
         long totalCents = transfers.stream().mapToLong(PagarmeTransfer::getAmountCents).sum();
 
@@ -68,6 +71,7 @@ public class PagarmeTransferController {
             item.foodOrderId = t.getFoodOrder() != null ? t.getFoodOrder().getId() : null;
             item.deliveryId = t.getDeliveryId();
             item.amountCents = t.getAmountCents();
+            item.status = t.getStatus().name();
             item.createdAt = t.getCreatedAt();
             return item;
         }).collect(Collectors.toList());
@@ -81,9 +85,9 @@ public class PagarmeTransferController {
     }
 
     @GetMapping("/by-recipient")
-    @Operation(summary = "Agregado por destinatário (total PENDING por pessoa — motoboy ou gerente)")
+    @Operation(summary = "Agregado por destinatário (total PENDING/PROCESSING por pessoa — motoboy ou gerente)")
     public List<RecipientDebt> byRecipient() {
-        List<PagarmeTransfer> pending = repository.findByStatusWithRecipient(PagarmeTransfer.Status.PENDING);
+        List<PagarmeTransfer> pending = repository.findByStatusInWithRecipient(OPEN);
         Map<UUID, RecipientDebt> byRecipient = new LinkedHashMap<>();
         for (PagarmeTransfer t : pending) {
             User c = t.getRecipient();
@@ -104,6 +108,8 @@ public class PagarmeTransferController {
             ts.foodOrderId = t.getFoodOrder() != null ? t.getFoodOrder().getId() : null;
             ts.deliveryId = t.getDeliveryId();
             ts.amountCents = t.getAmountCents();
+            ts.status = t.getStatus().name();
+            ts.errorMessage = t.getErrorMessage();
             ts.createdAt = t.getCreatedAt();
             d.transfers.add(ts);
             d.totalCents += t.getAmountCents();
@@ -134,9 +140,7 @@ public class PagarmeTransferController {
     public PagarmeTransfer markPaid(@PathVariable Long id, @RequestBody(required = false) NoteRequest body) {
         PagarmeTransfer t = repository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Transfer não encontrado"));
-        if (t.getStatus() != PagarmeTransfer.Status.PENDING) {
-            throw new RuntimeException("Transfer não está PENDING");
-        }
+        requireOpenForManualClose(t);
         t.setStatus(PagarmeTransfer.Status.SUCCEEDED);
         t.setExecutedAt(OffsetDateTime.now());
         if (body != null && body.note != null && !body.note.isBlank()) {
@@ -152,15 +156,23 @@ public class PagarmeTransferController {
     public PagarmeTransfer markFailed(@PathVariable Long id, @RequestBody(required = false) NoteRequest body) {
         PagarmeTransfer t = repository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Transfer não encontrado"));
-        if (t.getStatus() != PagarmeTransfer.Status.PENDING) {
-            throw new RuntimeException("Transfer não está PENDING");
-        }
+        requireOpenForManualClose(t);
         t.setStatus(PagarmeTransfer.Status.FAILED);
         t.setExecutedAt(OffsetDateTime.now());
         t.setErrorMessage(body != null && body.note != null ? body.note : "Cancelado por admin");
         return repository.save(t);
     }
 
+    /**
+     * Fechamento manual só vale para PENDING ou PROCESSING (enviado ao provedor sem
+     * confirmação — admin confere e fecha na mão).
+     */
+    private static void requireOpenForManualClose(PagarmeTransfer t) {
+        if (t.getStatus() != PagarmeTransfer.Status.PENDING && t.getStatus() != PagarmeTransfer.Status.PROCESSING) {
+            throw new RuntimeException("Transfer não está PENDING nem PROCESSING (status atual: " + t.getStatus() + ")");
+        }
+    }
+
     @Data
     public static class NoteRequest {
         public String note;
@@ -181,6 +193,8 @@ public class PagarmeTransferController {
         public Long foodOrderId;
         public Long deliveryId;
         public Long amountCents;
+        public String status;
+        public String errorMessage;
         public OffsetDateTime createdAt;
     }
 
@@ -197,6 +211,7 @@ public class PagarmeTransferController {
         public Long foodOrderId;
         public Long deliveryId;
         public Long amountCents;
+        public String status;
         public OffsetDateTime createdAt;
     }
 }
@@ -7,6 +7,7 @@ import com.mvt.mvt_events.payment.dto.PaymentReportResponse;
 import com.mvt.mvt_events.payment.dto.RecipientBalanceResponse;
 import com.mvt.mvt_events.payment.service.PagarMeService;
 import com.mvt.mvt_events.jpa.Payment;
+import com.mvt.mvt_events.jpa.PaymentPayload;
 import com.mvt.mvt_events.jpa.PaymentStatus;
 import com.mvt.mvt_events.jpa.User;
 import com.mvt.mvt_events.repository.PaymentRepository;
@@ -244,7 +245,13 @@ public class PaymentController {
     )
     public ResponseEntity<PaymentResponse> getById(@PathVariable Long id) {
         return paymentRepository.findById(id)
-                .map(PaymentResponse::from)
+                .map(payment -> {
+                    // Payloads do gateway só no detalhe — listagens não carregam o arquivo
+                    payment.attachPayloads(
+                            paymentRepository.findPayload(id, PaymentPayload.Kind.REQUEST).orElse(null),
+                            paymentRepository.findPayload(id, PaymentPayload.Kind.RESPONSE).orElse(null));
+                    return PaymentResponse.from(payment);
+                })
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
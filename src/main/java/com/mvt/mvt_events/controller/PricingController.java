@@ -0,0 +1,64 @@
+package com.mvt.mvt_events.controller;
+
+import com.mvt.mvt_events.jpa.Delivery;
+import com.mvt.mvt_events.pricing.FeeQuote;
+import com.mvt.mvt_events.pricing.FeeQuoteEngine;
+import com.mvt.mvt_events.pricing.GeoPoint;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cotação pública de frete — chamada pelos apps enquanto o usuário arrasta o pin.
+ * Responde do snapshot em memória do {@link FeeQuoteEngine}, sem consulta ao banco.
+ */
+@RestController
+@RequestMapping("/api/pricing")
+@Tag(name = "Pricing", description = "Cotação de frete")
+@RequiredArgsConstructor
+public class PricingController {
+
+    /** Origem + paradas aceitas por cotação; o endpoint é público e cada ponto custa uma busca de zona. */
+    static final int MAX_STOPS = 20;
+
+    private final FeeQuoteEngine feeQuoteEngine;
+
+    @PostMapping("/quote")
+    @Operation(summary = "Cota o frete para origem + paradas (distância do app ou linha reta)")
+    public ResponseEntity<?> quote(@RequestBody @Valid QuoteRequest request) {
+        if (request.getStops() == null || request.getStops().size() < 2) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Informe a origem e pelo menos uma parada"));
+        }
+        List<GeoPoint> stops = request.getStops();
+        Delivery.PreferredVehicleType vehicleType = request.getVehicleType() != null
+                ? request.getVehicleType() : Delivery.PreferredVehicleType.ANY;
+
+        FeeQuote quote;
+        if (request.getDistanceKm() != null && request.getDistanceKm().compareTo(BigDecimal.ZERO) > 0) {
+            List<GeoPoint> destinations = stops.subList(1, stops.size());
+            quote = feeQuoteEngine.quote(request.getDistanceKm(), destinations, vehicleType, destinations.size() - 1);
+        } else {
+            quote = feeQuoteEngine.quote(stops, vehicleType);
+        }
+        return ResponseEntity.ok(quote);
+    }
+
+    @Data
+    public static class QuoteRequest {
+        /** stops[0] = origem; demais = paradas na ordem de entrega */
+        @Size(max = MAX_STOPS, message = "Máximo de " + MAX_STOPS + " pontos (origem + paradas) por cotação")
+        private List<GeoPoint> stops;
+        private Delivery.PreferredVehicleType vehicleType;
+        /** Distância de rota já calculada pelo app (opcional; sem ela usa linha reta) */
+        private BigDecimal distanceKm;
+    }
+}
@@ -8,10 +8,12 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.OffsetDateTime;
 import java.util.List;
@@ -24,6 +26,8 @@ import java.util.UUID;
  * <ul>
  *   <li>{@code /my-*} endpoints: usuário autenticado vê/envia em seu próprio thread</li>
  *   <li>{@code /conversations*} endpoints: ADMIN vê todos os threads</li>
+ *   <li>{@code /my-stream} e {@code /admin-stream}: SSE com mensagens novas e badge;
+ *       ao reconectar, o app busca o que perdeu com {@code ?sinceId=<último id>}</li>
  * </ul>
  */
 @RestController
@@ -40,10 +44,18 @@ public class SupportController {
 
     @GetMapping("/my-messages")
     @PreAuthorize("isAuthenticated()")
-    @Operation(summary = "Lista as mensagens do thread do usuário logado")
-    public List<MessageDto> myMessages(Authentication auth) {
+    @Operation(summary = "Lista as mensagens do thread do usuário logado (sinceId = só as mais novas)")
+    public List<MessageDto> myMessages(Authentication auth, @RequestParam(required = false) Long sinceId) {
         UUID userId = ((User) auth.getPrincipal()).getId();
-        return service.listMyMessages(userId).stream().map(MessageDto::from).toList();
+        return service.listMyMessages(userId, sinceId).stream().map(MessageDto::from).toList();
+    }
+
+    @GetMapping(value = "/my-stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("isAuthenticated()")
+    @Operation(summary = "Stream SSE do thread do usuário (eventos message/unread/ping)")
+    public SseEmitter myStream(Authentication auth) {
+        UUID userId = ((User) auth.getPrincipal()).getId();
+        return service.subscribeUser(userId);
     }
 
     @PostMapping("/my-messages")
@@ -85,9 +97,10 @@ public class SupportController {
 
     @GetMapping("/conversations/{userId}")
     @PreAuthorize("hasRole('ADMIN')")
-    @Operation(summary = "Thread completo da conversa de um usuário específico")
-    public List<MessageDto> getConversation(@PathVariable UUID userId) {
-        return service.getConversation(userId).stream().map(MessageDto::from).toList();
+    @Operation(summary = "Thread da conversa de um usuário específico (sinceId = só as mais novas)")
+    public List<MessageDto> getConversation(@PathVariable UUID userId,
+                                            @RequestParam(required = false) Long sinceId) {
+        return service.getConversation(userId, sinceId).stream().map(MessageDto::from).toList();
     }
 
     @PostMapping("/conversations/{userId}")
@@ -130,6 +143,13 @@ public class SupportController {
         return Map.of("count", service.countAdminUnreadConversations());
     }
 
+    @GetMapping(value = "/admin-stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Stream SSE da inbox admin (eventos message/unread/ping)")
+    public SseEmitter adminStream() {
+        return service.subscribeAdmin();
+    }
+
     // ============================================================
     // DTOs
     // ============================================================
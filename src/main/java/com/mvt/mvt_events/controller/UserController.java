@@ -12,6 +12,7 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import jakarta.validation.Valid;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -28,6 +29,7 @@ import java.util.UUID;
 @CrossOrigin(origins = "*")
 @Tag(name = "Usuários", description = "Gerenciamento de usuários")
 @SecurityRequirement(name = "bearerAuth")
+@Slf4j
 public class UserController {
 
     @Autowired
@@ -408,7 +410,7 @@ public class UserController {
             updatedUser = userService.updateUserLocation(id, point.getGpsLatitude(), point.getGpsLongitude(),
                     point.getUpdatedAt(), authentication);
         }
-        System.out.println("📍 Batch GPS: " + points.size() + " pontos offline aplicados para user " + id);
+        log.debug("📍 Batch GPS: {} pontos offline aplicados para user {}", points.size(), id);
         return ResponseEntity.ok(new UserResponse(updatedUser));
     }
 
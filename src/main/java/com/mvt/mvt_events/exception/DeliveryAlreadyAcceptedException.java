@@ -0,0 +1,21 @@
+package com.mvt.mvt_events.exception;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception lançada quando outro motoboy já aceitou a delivery (corrida no aceite).
+ * Retorna HTTP 409 Conflict — o app só precisa tirar a oferta da tela.
+ */
+@Getter
+@ResponseStatus(HttpStatus.CONFLICT) // HTTP 409
+public class DeliveryAlreadyAcceptedException extends RuntimeException {
+
+    private final Long deliveryId;
+
+    public DeliveryAlreadyAcceptedException(Long deliveryId) {
+        super("Esta Delivery já foi aceita por outro motoboy");
+        this.deliveryId = deliveryId;
+    }
+}
@@ -0,0 +1,75 @@
+package com.mvt.mvt_events.http;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker por falhas consecutivas.
+ *
+ * CLOSED → (failureThreshold falhas seguidas) → OPEN → (openStateMs) →
+ * HALF_OPEN: libera uma única chamada de teste; sucesso fecha, falha reabre.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openStateMs;
+    private final LongSupplier clock;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    public CircuitBreaker(int failureThreshold, long openStateMs) {
+        this(failureThreshold, openStateMs, System::currentTimeMillis);
+    }
+
+    CircuitBreaker(int failureThreshold, long openStateMs, LongSupplier clock) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openStateMs = openStateMs;
+        this.clock = clock;
+    }
+
+    /**
+     * @return true se a chamada pode seguir; false se o circuito está aberto
+     */
+    public synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (clock.getAsLong() - openedAt < openStateMs) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                trialInFlight = true;
+                return true;
+            default:
+                if (trialInFlight) {
+                    return false;
+                }
+                trialInFlight = true;
+                return true;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        trialInFlight = false;
+        state = State.CLOSED;
+    }
+
+    public synchronized void onFailure() {
+        trialInFlight = false;
+        if (state == State.HALF_OPEN || ++consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = clock.getAsLong();
+            consecutiveFailures = 0;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+}
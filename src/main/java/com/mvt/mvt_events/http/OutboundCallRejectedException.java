@@ -0,0 +1,19 @@
+package com.mvt.mvt_events.http;
+
+/**
+ * Chamada externa recusada localmente, sem tocar a rede: circuito aberto ou
+ * bulkhead do provider sem vagas.
+ */
+public class OutboundCallRejectedException extends RuntimeException {
+
+    private final OutboundProvider provider;
+
+    public OutboundCallRejectedException(OutboundProvider provider, String message) {
+        super(provider.key() + ": " + message);
+        this.provider = provider;
+    }
+
+    public OutboundProvider getProvider() {
+        return provider;
+    }
+}
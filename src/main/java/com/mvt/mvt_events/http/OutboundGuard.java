@@ -0,0 +1,129 @@
+package com.mvt.mvt_events.http;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Proteção comum das chamadas externas: bulkhead (limite de chamadas
+ * simultâneas por provider), circuit breaker e latência por provider/endpoint.
+ *
+ * Usado pelo {@link OutboundHttpInterceptor} nos RestTemplates e diretamente
+ * pelas integrações via SDK (Stark Bank, Cloudinary, Resend/SES), que não
+ * passam por RestTemplate.
+ *
+ * Métricas (actuator /metrics):
+ *  - outbound.http.requests{provider,endpoint,outcome} — timer com histograma
+ *  - outbound.http.bulkhead.available{provider}
+ *  - outbound.http.circuit.open{provider} — 1 quando aberto/meio-aberto
+ */
+@Component
+@Slf4j
+public class OutboundGuard {
+
+    public static final String METRIC_REQUESTS = "outbound.http.requests";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<OutboundProvider, Semaphore> bulkheads = new EnumMap<>(OutboundProvider.class);
+    private final Map<OutboundProvider, CircuitBreaker> breakers = new EnumMap<>(OutboundProvider.class);
+    private final Map<OutboundProvider, Long> maxWaitMs = new EnumMap<>(OutboundProvider.class);
+
+    public OutboundGuard(OutboundHttpProperties properties, MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        for (OutboundProvider provider : OutboundProvider.values()) {
+            OutboundHttpProperties.Settings settings = properties.resolve(provider);
+            Semaphore bulkhead = new Semaphore(settings.getMaxConcurrentCalls());
+            CircuitBreaker breaker = new CircuitBreaker(settings.getFailureThreshold(), settings.getOpenStateMs());
+            bulkheads.put(provider, bulkhead);
+            breakers.put(provider, breaker);
+            maxWaitMs.put(provider, settings.getMaxWaitMs().longValue());
+
+            Gauge.builder("outbound.http.bulkhead.available", bulkhead, Semaphore::availablePermits)
+                    .tag("provider", provider.key())
+                    .register(meterRegistry);
+            Gauge.builder("outbound.http.circuit.open", breaker,
+                            b -> b.getState() == CircuitBreaker.State.CLOSED ? 0 : 1)
+                    .tag("provider", provider.key())
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Executa a chamada sob bulkhead + circuit breaker, registrando a latência.
+     * Qualquer exceção conta como falha no circuit breaker.
+     */
+    public <T> T execute(OutboundProvider provider, String endpoint, Callable<T> call) throws Exception {
+        return execute(provider, endpoint, call, result -> true);
+    }
+
+    /**
+     * Variante em que o resultado também pode ser falha (ex.: HTTP 5xx devolvido
+     * sem exceção pelo cliente).
+     */
+    public <T> T execute(OutboundProvider provider, String endpoint, Callable<T> call,
+                         Predicate<T> isSuccess) throws Exception {
+        Semaphore bulkhead = bulkheads.get(provider);
+        if (!bulkhead.tryAcquire(maxWaitMs.get(provider), TimeUnit.MILLISECONDS)) {
+            record(provider, endpoint, "rejected", 0);
+            log.warn("🚧 Bulkhead cheio para {} ({}) — chamada rejeitada", provider.key(), endpoint);
+            throw new OutboundCallRejectedException(provider, "bulkhead cheio");
+        }
+        try {
+            CircuitBreaker breaker = breakers.get(provider);
+            if (!breaker.tryAcquire()) {
+                record(provider, endpoint, "circuit_open", 0);
+                throw new OutboundCallRejectedException(provider, "circuito aberto");
+            }
+
+            long start = System.nanoTime();
+            try {
+                T result = call.call();
+                boolean success = isSuccess.test(result);
+                if (success) {
+                    breaker.onSuccess();
+                } else {
+                    onFailure(provider, breaker);
+                }
+                record(provider, endpoint, success ? "success" : "error", System.nanoTime() - start);
+                return result;
+            } catch (Exception e) {
+                onFailure(provider, breaker);
+                record(provider, endpoint, "error", System.nanoTime() - start);
+                throw e;
+            }
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    public CircuitBreaker.State circuitState(OutboundProvider provider) {
+        return breakers.get(provider).getState();
+    }
+
+    private void onFailure(OutboundProvider provider, CircuitBreaker breaker) {
+        CircuitBreaker.State before = breaker.getState();
+        breaker.onFailure();
+        if (before != CircuitBreaker.State.OPEN && breaker.getState() == CircuitBreaker.State.OPEN) {
+            log.warn("⚡ Circuito aberto para {}", provider.key());
+        }
+    }
+
+    private void record(OutboundProvider provider, String endpoint, String outcome, long nanos) {
+        Timer.builder(METRIC_REQUESTS)
+                .tag("provider", provider.key())
+                .tag("endpoint", endpoint)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
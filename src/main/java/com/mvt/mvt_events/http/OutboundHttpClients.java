@@ -0,0 +1,91 @@
+package com.mvt.mvt_events.http;
+
+import com.mvt.mvt_events.payment.config.PagarMeConfig;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import javax.net.ssl.SSLContext;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Fábrica dos RestTemplates de saída, um por provider.
+ *
+ * Cada cliente usa o java.net.http.HttpClient (pool de conexões keep-alive,
+ * HTTP/2 via ALPN com fallback para HTTP/1.1, suporte a PATCH) com os
+ * timeouts de {@link OutboundHttpProperties}, e o {@link OutboundHttpInterceptor}
+ * para bulkhead, circuit breaker, retry e métricas.
+ *
+ * Substitui os {@code new RestTemplate()} sem timeout espalhados pelos services.
+ */
+@Component
+public class OutboundHttpClients {
+
+    private static final int DEFAULT_MAX_ATTEMPTS = 3;
+    private static final long DEFAULT_INITIAL_BACKOFF_MS = 1000;
+
+    private final OutboundHttpProperties properties;
+    private final OutboundGuard guard;
+    private final PagarMeConfig pagarMeConfig;
+    private final Map<OutboundProvider, RestTemplate> restTemplates = new ConcurrentHashMap<>();
+
+    public OutboundHttpClients(OutboundHttpProperties properties, OutboundGuard guard, PagarMeConfig pagarMeConfig) {
+        this.properties = properties;
+        this.guard = guard;
+        this.pagarMeConfig = pagarMeConfig;
+    }
+
+    /**
+     * RestTemplate compartilhado do provider (criado na primeira chamada).
+     */
+    public RestTemplate restTemplate(OutboundProvider provider) {
+        return restTemplates.computeIfAbsent(provider, p -> build(p, null));
+    }
+
+    /**
+     * RestTemplate dedicado com SSLContext próprio (mTLS, ex.: Banco Inter).
+     * Não é cacheado — guarde a instância no chamador.
+     */
+    public RestTemplate restTemplate(OutboundProvider provider, SSLContext sslContext) {
+        return build(provider, sslContext);
+    }
+
+    public OutboundGuard guard() {
+        return guard;
+    }
+
+    private RestTemplate build(OutboundProvider provider, SSLContext sslContext) {
+        OutboundHttpProperties.Settings settings = properties.resolve(provider);
+
+        HttpClient.Builder httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(settings.getConnectTimeoutMs()))
+                .followRedirects(HttpClient.Redirect.NORMAL);
+        if (sslContext != null) {
+            httpClient.sslContext(sslContext);
+        }
+
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient.build());
+        requestFactory.setReadTimeout(Duration.ofMillis(settings.getReadTimeoutMs()));
+
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
+        restTemplate.getInterceptors().add(new OutboundHttpInterceptor(provider, guard,
+                retryMaxAttempts(), retryInitialBackoffMs()));
+        return restTemplate;
+    }
+
+    private int retryMaxAttempts() {
+        PagarMeConfig.Retry retry = pagarMeConfig.getRetry();
+        return retry != null && retry.getMaxAttempts() != null ? retry.getMaxAttempts() : DEFAULT_MAX_ATTEMPTS;
+    }
+
+    private long retryInitialBackoffMs() {
+        PagarMeConfig.Retry retry = pagarMeConfig.getRetry();
+        return retry != null && retry.getInitialBackoffMs() != null
+                ? retry.getInitialBackoffMs()
+                : DEFAULT_INITIAL_BACKOFF_MS;
+    }
+}
@@ -0,0 +1,123 @@
+package com.mvt.mvt_events.http;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Interceptor dos RestTemplates de saída: passa cada tentativa pelo
+ * {@link OutboundGuard} e refaz com backoff exponencial + jitter.
+ *
+ * Só métodos idempotentes são refeitos (POST/PATCH podem gerar cobrança ou
+ * transferência duplicada), e apenas em erro de I/O ou HTTP 429/502/503/504.
+ * Precisa ser o último interceptor da cadeia para poder reexecutar o request.
+ */
+@Slf4j
+public class OutboundHttpInterceptor implements ClientHttpRequestInterceptor {
+
+    private static final Set<HttpMethod> IDEMPOTENT = Set.of(
+            HttpMethod.GET, HttpMethod.HEAD, HttpMethod.OPTIONS, HttpMethod.PUT, HttpMethod.DELETE);
+    private static final Set<Integer> RETRYABLE_STATUS = Set.of(429, 502, 503, 504);
+
+    private final OutboundProvider provider;
+    private final OutboundGuard guard;
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+
+    public OutboundHttpInterceptor(OutboundProvider provider, OutboundGuard guard,
+                                   int maxAttempts, long initialBackoffMs) {
+        this.provider = provider;
+        this.guard = guard;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoffMs = Math.max(0, initialBackoffMs);
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        String endpoint = request.getMethod().name() + " " + normalizePath(request.getURI().getPath());
+        int attempts = IDEMPOTENT.contains(request.getMethod()) ? maxAttempts : 1;
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                ClientHttpResponse response = guard.execute(provider, endpoint,
+                        () -> execution.execute(request, body),
+                        r -> !isServerError(r));
+                if (attempt < attempts && RETRYABLE_STATUS.contains(response.getStatusCode().value())) {
+                    log.warn("🔁 {} {} → HTTP {} (tentativa {}/{})", provider.key(), endpoint,
+                            response.getStatusCode().value(), attempt, attempts);
+                    response.close();
+                    sleepBackoff(attempt);
+                    continue;
+                }
+                return response;
+            } catch (OutboundCallRejectedException e) {
+                throw e;
+            } catch (IOException e) {
+                if (attempt >= attempts) {
+                    throw e;
+                }
+                log.warn("🔁 {} {} → {} (tentativa {}/{})", provider.key(), endpoint, e.getMessage(),
+                        attempt, attempts);
+                sleepBackoff(attempt);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException(e);
+            }
+        }
+    }
+
+    /**
+     * Backoff exponencial com jitter: espera aleatória entre metade e o total
+     * de initialBackoffMs * 2^(attempt-1).
+     */
+    private void sleepBackoff(int attempt) throws IOException {
+        long backoff = initialBackoffMs << Math.min(attempt - 1, 10);
+        long jittered = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+        try {
+            Thread.sleep(jittered);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Retry interrompido", e);
+        }
+    }
+
+    private static boolean isServerError(ClientHttpResponse response) {
+        try {
+            return response.getStatusCode().is5xxServerError();
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Troca segmentos que parecem ids (or_abc123, re_xyz9, 42) por {id} para
+     * manter a cardinalidade da tag "endpoint" baixa. Versões curtas (v2, v5) ficam.
+     */
+    static String normalizePath(String path) {
+        if (path == null || path.isEmpty()) {
+            return "/";
+        }
+        StringBuilder sb = new StringBuilder(path.length());
+        for (String segment : path.split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            sb.append('/').append(isIdSegment(segment) ? "{id}" : segment);
+        }
+        return sb.length() == 0 ? "/" : sb.toString();
+    }
+
+    private static boolean isIdSegment(String segment) {
+        boolean hasDigit = segment.chars().anyMatch(Character::isDigit);
+        return hasDigit && (segment.length() > 3 || segment.chars().allMatch(Character::isDigit));
+    }
+}
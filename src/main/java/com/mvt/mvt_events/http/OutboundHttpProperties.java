@@ -0,0 +1,82 @@
+package com.mvt.mvt_events.http;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Timeouts, bulkhead e circuit breaker das chamadas HTTP de saída.
+ *
+ * Carrega as configurações com prefixo "outbound.http". Cada provider herda
+ * {@link #defaults} e pode sobrescrever campo a campo em
+ * outbound.http.providers.&lt;key&gt;.* (ver {@link OutboundProvider#key()}).
+ *
+ * Retry não fica aqui: usa {@code pagarme.retry.*} (PagarMeConfig.Retry) para
+ * todas as integrações.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "outbound.http")
+@Getter
+@Setter
+public class OutboundHttpProperties {
+
+    private Settings defaults = Settings.defaults();
+
+    private Map<String, Settings> providers = new HashMap<>();
+
+    /**
+     * Configuração efetiva do provider: defaults + overrides não nulos.
+     */
+    public Settings resolve(OutboundProvider provider) {
+        Settings override = providers.get(provider.key());
+        return override == null ? defaults : defaults.merge(override);
+    }
+
+    @Getter
+    @Setter
+    public static class Settings {
+        /** Timeout para abrir conexão (ms) */
+        private Integer connectTimeoutMs;
+
+        /** Timeout de resposta por requisição (ms) */
+        private Integer readTimeoutMs;
+
+        /** Chamadas simultâneas permitidas por provider (bulkhead) */
+        private Integer maxConcurrentCalls;
+
+        /** Tempo máximo aguardando vaga no bulkhead antes de rejeitar (ms) */
+        private Integer maxWaitMs;
+
+        /** Falhas consecutivas que abrem o circuito */
+        private Integer failureThreshold;
+
+        /** Tempo que o circuito fica aberto antes de liberar uma chamada de teste (ms) */
+        private Integer openStateMs;
+
+        static Settings defaults() {
+            Settings s = new Settings();
+            s.connectTimeoutMs = 5000;
+            s.readTimeoutMs = 15000;
+            s.maxConcurrentCalls = 20;
+            s.maxWaitMs = 500;
+            s.failureThreshold = 5;
+            s.openStateMs = 30000;
+            return s;
+        }
+
+        Settings merge(Settings override) {
+            Settings s = new Settings();
+            s.connectTimeoutMs = override.connectTimeoutMs != null ? override.connectTimeoutMs : connectTimeoutMs;
+            s.readTimeoutMs = override.readTimeoutMs != null ? override.readTimeoutMs : readTimeoutMs;
+            s.maxConcurrentCalls = override.maxConcurrentCalls != null ? override.maxConcurrentCalls : maxConcurrentCalls;
+            s.maxWaitMs = override.maxWaitMs != null ? override.maxWaitMs : maxWaitMs;
+            s.failureThreshold = override.failureThreshold != null ? override.failureThreshold : failureThreshold;
+            s.openStateMs = override.openStateMs != null ? override.openStateMs : openStateMs;
+            return s;
+        }
+    }
+}
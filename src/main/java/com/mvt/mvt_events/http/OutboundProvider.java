@@ -0,0 +1,28 @@
+package com.mvt.mvt_events.http;
+
+/**
+ * Integrações externas chamadas pelo backend.
+ *
+ * A {@link #key()} é usada nas properties (outbound.http.providers.&lt;key&gt;.*)
+ * e como tag "provider" nas métricas.
+ */
+public enum OutboundProvider {
+    PAGARME("pagarme"),
+    EXPO("expo"),
+    GOOGLE("google"),
+    INTER("inter"),
+    STARK("stark"),
+    CLOUDINARY("cloudinary"),
+    EMAIL("email"),
+    IBGE("ibge");
+
+    private final String key;
+
+    OutboundProvider(String key) {
+        this.key = key;
+    }
+
+    public String key() {
+        return key;
+    }
+}
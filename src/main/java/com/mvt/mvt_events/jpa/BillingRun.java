@@ -0,0 +1,54 @@
+package com.mvt.mvt_events.jpa;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+
+/**
+ * Execução do billing mensal para um dia de geração + billing_due_day.
+ * O progresso por subscription fica em {@link BillingRunItem} (checkpoint).
+ */
+@Entity
+@Table(name = "billing_runs")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BillingRun {
+
+    public enum Status { RUNNING, COMPLETED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /** Dia de geração — base do período faturado, mesmo se a execução for retomada depois. */
+    @Column(name = "run_date", nullable = false)
+    private LocalDate runDate;
+
+    @Column(name = "due_day", nullable = false)
+    private Integer dueDay;
+
+    @Builder.Default
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status = Status.RUNNING;
+
+    @Builder.Default
+    @Column(name = "total_items", nullable = false)
+    private Integer totalItems = 0;
+
+    @Column(name = "started_at", nullable = false)
+    private OffsetDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private OffsetDateTime finishedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if (startedAt == null) startedAt = OffsetDateTime.now();
+    }
+}
@@ -0,0 +1,55 @@
+package com.mvt.mvt_events.jpa;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Checkpoint de uma subscription dentro de um {@link BillingRun}.
+ *
+ * PENDING → PROCESSING (claim atômico) → GENERATED | SKIPPED | FAILED.
+ * As transições são feitas por UPDATE no repositório; a entidade é só leitura.
+ */
+@Entity
+@Table(name = "billing_run_items")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BillingRunItem {
+
+    public enum Status { PENDING, PROCESSING, GENERATED, SKIPPED, FAILED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "run_id", nullable = false)
+    private Long runId;
+
+    @Column(name = "subscription_id", nullable = false)
+    private Long subscriptionId;
+
+    @Builder.Default
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status = Status.PENDING;
+
+    @Builder.Default
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "claimed_at")
+    private OffsetDateTime claimedAt;
+
+    @Column(name = "finished_at")
+    private OffsetDateTime finishedAt;
+
+    @Column(name = "payment_id")
+    private Long paymentId;
+
+    @Column(columnDefinition = "TEXT")
+    private String error;
+}
@@ -47,6 +47,23 @@ public class CashRegisterSession {
     @Column(name = "closing_balance_expected", precision = 10, scale = 2)
     private BigDecimal closingBalanceExpected;
 
+    /*
+     * Totais correntes da sessão — mantidos por UPDATE atômico no repositório
+     * (venda em dinheiro concluída / movimentação adicionada), nunca pelo save da entidade.
+     * Saldo esperado = fundo + cashSales + additionsTotal − withdrawalsTotal.
+     */
+    @Builder.Default
+    @Column(name = "cash_sales", nullable = false, precision = 10, scale = 2, updatable = false)
+    private BigDecimal cashSales = BigDecimal.ZERO;
+
+    @Builder.Default
+    @Column(name = "additions_total", nullable = false, precision = 10, scale = 2, updatable = false)
+    private BigDecimal additionsTotal = BigDecimal.ZERO;
+
+    @Builder.Default
+    @Column(name = "withdrawals_total", nullable = false, precision = 10, scale = 2, updatable = false)
+    private BigDecimal withdrawalsTotal = BigDecimal.ZERO;
+
     @Column(name = "opened_at", nullable = false)
     private OffsetDateTime openedAt;
 
@@ -77,6 +94,19 @@ public class CashRegisterSession {
         if (openedAt == null) openedAt = OffsetDateTime.now();
     }
 
+    /** Saldo esperado na gaveta a partir dos totais correntes — O(1), sem varrer pedidos. */
+    @com.fasterxml.jackson.annotation.JsonGetter("expectedBalance")
+    public BigDecimal getExpectedBalance() {
+        return zeroIfNull(openingBalance)
+                .add(zeroIfNull(cashSales))
+                .add(zeroIfNull(additionsTotal))
+                .subtract(zeroIfNull(withdrawalsTotal));
+    }
+
+    private static BigDecimal zeroIfNull(BigDecimal v) {
+        return v != null ? v : BigDecimal.ZERO;
+    }
+
     @com.fasterxml.jackson.annotation.JsonGetter("clientId")
     public String getClientIdValue() {
         return client != null ? client.getId().toString() : null;
@@ -0,0 +1,68 @@
+package com.mvt.mvt_events.jpa;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Agregado das avaliações CLIENT_TO_COURIER recebidas por um courier.
+ *
+ * <p>Atualizado pelo {@code EvaluationService} na mesma transação de cada avaliação
+ * criada e recalculado do zero pelo job {@code courier-rating-rebuild} — rating médio e
+ * distribuição viram lookup por PK em vez de agregação sobre {@code evaluations}.
+ */
+@Entity
+@Table(name = "courier_rating_aggregates")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CourierRatingAggregate {
+
+    @Id
+    @Column(name = "courier_id")
+    private UUID courierId;
+
+    /** Total de avaliações recebidas. */
+    @Column(name = "rating_count", nullable = false)
+    private Integer ratingCount;
+
+    /** Soma das notas (média = ratingSum / ratingCount). */
+    @Column(name = "rating_sum", nullable = false)
+    private Long ratingSum;
+
+    @Column(name = "stars_1", nullable = false)
+    private Integer stars1;
+
+    @Column(name = "stars_2", nullable = false)
+    private Integer stars2;
+
+    @Column(name = "stars_3", nullable = false)
+    private Integer stars3;
+
+    @Column(name = "stars_4", nullable = false)
+    private Integer stars4;
+
+    @Column(name = "stars_5", nullable = false)
+    private Integer stars5;
+
+    @Column(name = "updated_at", nullable = false)
+    private OffsetDateTime updatedAt;
+
+    /** Quantidade de avaliações com a nota informada (1 a 5). */
+    public int countFor(int rating) {
+        return switch (rating) {
+            case 1 -> stars1;
+            case 2 -> stars2;
+            case 3 -> stars3;
+            case 4 -> stars4;
+            case 5 -> stars5;
+            default -> throw new IllegalArgumentException("Rating deve estar entre 1 e 5");
+        };
+    }
+}
@@ -22,8 +22,10 @@ import java.util.Set;
 @Builder
 public class OrderItem {
 
+    /** Sequence com passo 50 (V144): ids pré-alocados permitem INSERT em batch JDBC. */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_item_seq")
+    @SequenceGenerator(name = "order_item_seq", sequenceName = "order_items_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
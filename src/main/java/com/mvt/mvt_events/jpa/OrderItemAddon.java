@@ -24,8 +24,10 @@ import java.math.BigDecimal;
 @Builder
 public class OrderItemAddon {
 
+    /** Sequence com passo 50 (V144): ids pré-alocados permitem INSERT em batch JDBC. */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_item_addon_seq")
+    @SequenceGenerator(name = "order_item_addon_seq", sequenceName = "order_item_addons_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -60,7 +60,16 @@ public class PagarmeTransfer {
     @Column(name = "executed_at")
     private OffsetDateTime executedAt;
 
-    public enum Status { PENDING, SUCCEEDED, FAILED }
+    /** Quando um lote reivindicou o transfer (PENDING → PROCESSING); base da reconciliação. */
+    @Column(name = "batch_claimed_at")
+    private OffsetDateTime batchClaimedAt;
+
+    /**
+     * PENDING → PROCESSING (reivindicado pelo lote / enviado ao provedor, aguardando
+     * confirmação) → SUCCEEDED | FAILED. PROCESSING nunca é reenviado às cegas: lote sem resposta
+     * volta a PENDING só se o provedor confirmar que não recebeu o envio.
+     */
+    public enum Status { PENDING, PROCESSING, SUCCEEDED, FAILED }
 
     @PrePersist
     protected void onCreate() {
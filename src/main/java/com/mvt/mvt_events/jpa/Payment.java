@@ -144,6 +144,12 @@ public class Payment extends BaseEntity {
     @Visible(table = false, form = false, filter = false)
     private Boolean prorata = false;
 
+    /** Chave da fatura mensal ("billing:{subscription}:{billingPeriodStart}"), única. */
+    @Column(name = "idempotency_key", length = 80)
+    @JsonIgnore
+    @Visible(table = false, form = false, filter = false)
+    private String idempotencyKey;
+
     // ============================================================================
     // METADATA
     // ============================================================================
@@ -181,24 +187,67 @@ public class Payment extends BaseEntity {
 
     /**
      * Request completo enviado para criar o pagamento no gateway (Pagar.me, Iugu, etc.)
-     * Armazena o payload completo da requisição enviada ao gateway de pagamento
-     * para fins de auditoria e debugging.
-     * IMPORTANTE: Já é uma String JSON serializada, não precisa de @JdbcTypeCode
+     * para fins de auditoria e debugging. Já é uma String JSON serializada.
+     *
+     * <p>Não fica na tabela {@code payments}: o {@code PaymentRepository.save} grava o valor
+     * pendente no arquivo comprimido ({@link PaymentPayload}). Entidade carregada do banco
+     * vem com null — leitura explícita via {@code PaymentRepository.findPayload}.
      */
-    @Column(name = "request", columnDefinition = "TEXT")
+    @Transient
     @Visible(table = false, form = false, filter = false)
     private String request;
 
     /**
      * Response completo retornado pelo gateway de pagamento (Pagar.me, Iugu, etc.)
-     * Armazena o payload completo da resposta recebida do gateway após criar o pagamento.
      * Inclui todos os dados: order ID, status, charges, PIX data, timestamps, etc.
-     * IMPORTANTE: Já é uma String JSON serializada, não precisa de @JdbcTypeCode
+     * Mesmo armazenamento do {@link #request}.
      */
-    @Column(name = "response", columnDefinition = "TEXT")
+    @Transient
     @Visible(table = false, form = false, filter = false)
     private String response;
 
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    private boolean requestPending;
+
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    private boolean responsePending;
+
+    public void setRequest(String request) {
+        this.request = request;
+        this.requestPending = request != null;
+    }
+
+    public void setResponse(String response) {
+        this.response = response;
+        this.responsePending = response != null;
+    }
+
+    /** Request ainda não arquivado (e marca como arquivado). */
+    public String takePendingRequest() {
+        if (!requestPending) return null;
+        requestPending = false;
+        return request;
+    }
+
+    /** Response ainda não arquivado (e marca como arquivado). */
+    public String takePendingResponse() {
+        if (!responsePending) return null;
+        responsePending = false;
+        return response;
+    }
+
+    /** Preenche os payloads já arquivados (detalhe/relatório), sem marcá-los como pendentes. */
+    public void attachPayloads(String request, String response) {
+        this.request = request;
+        this.response = response;
+    }
+
     // ============================================================================
     // HELPER METHODS
     // ============================================================================
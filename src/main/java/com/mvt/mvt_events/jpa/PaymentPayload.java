@@ -0,0 +1,94 @@
+package com.mvt.mvt_events.jpa;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Payload bruto trocado com o gateway (request enviado / response recebido) de um {@link Payment}.
+ *
+ * <p>Arquivo append-only fora da tabela {@code payments}: cada gravação é uma linha nova,
+ * comprimida com gzip. O payload vigente de um pagamento é a linha mais recente do tipo.
+ * Só é lido nos endpoints de detalhe/relatório — listagens nunca tocam nesta tabela.
+ */
+@Entity
+@Table(name = "payment_payloads")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaymentPayload {
+
+    public static final String GZIP = "gzip";
+    /** Linhas migradas de payments.request/response (V143), sem compressão. */
+    public static final String IDENTITY = "identity";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "payment_id", nullable = false, updatable = false)
+    private Long paymentId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10, updatable = false)
+    private Kind kind;
+
+    @Column(nullable = false, length = 10, updatable = false)
+    private String encoding;
+
+    @Column(nullable = false, updatable = false)
+    private byte[] body;
+
+    @Column(name = "raw_size", nullable = false, updatable = false)
+    private Integer rawSize;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private OffsetDateTime createdAt;
+
+    public enum Kind { REQUEST, RESPONSE }
+
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) createdAt = OffsetDateTime.now();
+    }
+
+    /** Comprime o JSON e monta a linha do arquivo. */
+    public static PaymentPayload gzip(Long paymentId, Kind kind, String json) {
+        byte[] raw = json.getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(raw);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return PaymentPayload.builder()
+                .paymentId(paymentId)
+                .kind(kind)
+                .encoding(GZIP)
+                .body(out.toByteArray())
+                .rawSize(raw.length)
+                .build();
+    }
+
+    /** JSON original (descomprime se necessário). */
+    public String json() {
+        if (!GZIP.equals(encoding)) {
+            return new String(body, StandardCharsets.UTF_8);
+        }
+        try (GZIPInputStream gz = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return new String(gz.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
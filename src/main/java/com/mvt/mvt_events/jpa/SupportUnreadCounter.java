@@ -0,0 +1,38 @@
+package com.mvt.mvt_events.jpa;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Contadores de não-lidas de um thread do chat de suporte.
+ *
+ * <p>Atualizados pelo {@code SupportMessageService} na mesma transação de cada
+ * envio/mark-read — os badges viram lookup por PK em vez de COUNT sobre
+ * {@code support_messages}.
+ */
+@Entity
+@Table(name = "support_unread_counters")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SupportUnreadCounter {
+
+    /** Dono do thread (mesmo {@code user_id} de {@link SupportMessage}). */
+    @Id
+    @Column(name = "user_id")
+    private UUID userId;
+
+    /** Mensagens do admin que o usuário ainda não leu. */
+    @Column(name = "user_unread", nullable = false)
+    private Integer userUnread;
+
+    /** Mensagens do usuário que o admin ainda não leu. */
+    @Column(name = "admin_unread", nullable = false)
+    private Integer adminUnread;
+}
@@ -24,6 +24,12 @@ public class PaymentReportResponse {
     private String pixQrCode;
     private String pixQrCodeUrl;
     private OffsetDateTime expiresAt;
+
+    /** Request enviado ao gateway (JSON), lido do arquivo de payloads */
+    private String request;
+
+    /** Response retornado pelo gateway (JSON), lido do arquivo de payloads */
+    private String response;
     
     private List<DeliveryItem> deliveries;
     private List<SplitItem> consolidatedSplits;
@@ -5,20 +5,18 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mvt.mvt_events.jpa.User;
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.hc.client5.http.classic.methods.HttpPost;
-import org.apache.hc.client5.http.config.RequestConfig;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.client5.http.impl.classic.HttpClients;
-import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
-import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
-import org.apache.hc.client5.http.ssl.SSLConnectionSocketFactoryBuilder;
-import org.apache.hc.core5.http.ContentType;
-import org.apache.hc.core5.http.io.entity.EntityUtils;
-import org.apache.hc.core5.http.io.entity.StringEntity;
-import org.apache.hc.core5.util.Timeout;
+import com.mvt.mvt_events.http.OutboundHttpClients;
+import com.mvt.mvt_events.http.OutboundProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestTemplate;
 
 import javax.net.ssl.SSLContext;
 import java.io.FileInputStream;
@@ -65,13 +63,19 @@ public class InterPixOutProvider implements PixOutProvider {
     @Value("${pix.out.inter.account:}")
     private String contaCorrente;
 
+    private final OutboundHttpClients outboundHttpClients;
+
     private String baseUrl;
-    private CloseableHttpClient http;
+    private RestTemplate http;
     private final ObjectMapper json = new ObjectMapper();
 
     private volatile String cachedToken;
     private volatile long tokenExpiresAtEpochMs;
 
+    public InterPixOutProvider(OutboundHttpClients outboundHttpClients) {
+        this.outboundHttpClients = outboundHttpClients;
+    }
+
     @PostConstruct
     void init() {
         this.baseUrl = "production".equalsIgnoreCase(environment)
@@ -93,21 +97,8 @@ public class InterPixOutProvider implements PixOutProvider {
                     .loadKeyMaterial(keyStore, pkcs12Password.toCharArray())
                     .build();
 
-            PoolingHttpClientConnectionManager cm = PoolingHttpClientConnectionManagerBuilder.create()
-                    .setSSLSocketFactory(SSLConnectionSocketFactoryBuilder.create()
-                            .setSslContext(sslContext)
-                            .build())
-                    .build();
-
-            RequestConfig rc = RequestConfig.custom()
-                    .setConnectTimeout(Timeout.ofSeconds(10))
-                    .setResponseTimeout(Timeout.ofSeconds(30))
-                    .build();
-
-            this.http = HttpClients.custom()
-                    .setConnectionManager(cm)
-                    .setDefaultRequestConfig(rc)
-                    .build();
+            // Cliente dedicado (mTLS) com timeouts/bulkhead/circuit breaker de outbound.http.providers.inter.*
+            this.http = outboundHttpClients.restTemplate(OutboundProvider.INTER, sslContext);
 
             log.info("✅ InterPixOutProvider inicializado (env={}, baseUrl={}, conta={})",
                     environment, baseUrl, contaCorrente.isBlank() ? "(default)" : contaCorrente);
@@ -150,33 +141,36 @@ public class InterPixOutProvider implements PixOutProvider {
                     )
             ));
 
-            HttpPost post = new HttpPost(baseUrl + "/banking/v2/pix");
-            post.setHeader("Authorization", "Bearer " + token);
-            post.setHeader("Content-Type", "application/json");
+            HttpHeaders headers = new HttpHeaders();
+            headers.setBearerAuth(token);
+            headers.setContentType(MediaType.APPLICATION_JSON);
             if (!contaCorrente.isBlank()) {
-                post.setHeader("x-conta-corrente", contaCorrente);
+                headers.set("x-conta-corrente", contaCorrente);
+            }
+
+            ResponseEntity<String> resp;
+            try {
+                resp = http.exchange(baseUrl + "/banking/v2/pix", HttpMethod.POST,
+                        new HttpEntity<>(body, headers), String.class);
+            } catch (HttpStatusCodeException e) {
+                log.error("❌ Inter PIX falhou status={} body={} externalId={}",
+                        e.getStatusCode().value(), e.getResponseBodyAsString(), externalId);
+                return PixOutResult.failed("Inter HTTP " + e.getStatusCode().value() + ": "
+                        + truncate(e.getResponseBodyAsString(), 200));
             }
-            post.setEntity(new StringEntity(body, ContentType.APPLICATION_JSON));
-
-            return http.execute(post, resp -> {
-                int status = resp.getCode();
-                String respBody = resp.getEntity() == null ? "" : EntityUtils.toString(resp.getEntity());
-                if (status < 200 || status >= 300) {
-                    log.error("❌ Inter PIX falhou status={} body={} externalId={}", status, respBody, externalId);
-                    return PixOutResult.failed("Inter HTTP " + status + ": " + truncate(respBody, 200));
-                }
-                JsonNode node = json.readTree(respBody);
-                String codigoSolicitacao = node.path("codigoSolicitacao").asText(null);
-                String tipoRetorno = node.path("tipoRetorno").asText("");
-                if (codigoSolicitacao == null || codigoSolicitacao.isBlank()) {
-                    return PixOutResult.failed("Inter resposta sem codigoSolicitacao: " + truncate(respBody, 200));
-                }
-                log.info("✅ Inter PIX aceito: codigoSolicitacao={} tipoRetorno={} externalId={}",
-                        codigoSolicitacao, tipoRetorno, externalId);
-                // tipoRetorno=EXECUCAO → processa direto; APROVACAO → aguarda aprovação manual
-                // Em ambos casos, status final vem assíncrono (consultar /banking/v2/pix/{id})
-                return PixOutResult.pending(codigoSolicitacao);
-            });
+
+            String respBody = resp.getBody() == null ? "" : resp.getBody();
+            JsonNode node = json.readTree(respBody);
+            String codigoSolicitacao = node.path("codigoSolicitacao").asText(null);
+            String tipoRetorno = node.path("tipoRetorno").asText("");
+            if (codigoSolicitacao == null || codigoSolicitacao.isBlank()) {
+                return PixOutResult.failed("Inter resposta sem codigoSolicitacao: " + truncate(respBody, 200));
+            }
+            log.info("✅ Inter PIX aceito: codigoSolicitacao={} tipoRetorno={} externalId={}",
+                    codigoSolicitacao, tipoRetorno, externalId);
+            // tipoRetorno=EXECUCAO → processa direto; APROVACAO → aguarda aprovação manual
+            // Em ambos casos, status final vem assíncrono (consultar /banking/v2/pix/{id})
+            return PixOutResult.pending(codigoSolicitacao);
         } catch (Exception e) {
             log.error("❌ Erro no POST Inter /banking/v2/pix (externalId={}): {}", externalId, e.getMessage(), e);
             return PixOutResult.failed("Inter erro: " + e.getMessage());
@@ -194,27 +188,29 @@ public class InterPixOutProvider implements PixOutProvider {
                 + "&scope=" + URLEncoder.encode(
                         "pagamento-pix.write pagamento-pix.read extrato.read", StandardCharsets.UTF_8);
 
-        HttpPost post = new HttpPost(baseUrl + "/oauth/v2/token");
-        post.setHeader("Content-Type", "application/x-www-form-urlencoded");
-        post.setEntity(new StringEntity(form, ContentType.APPLICATION_FORM_URLENCODED));
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
 
-        return http.execute(post, resp -> {
-            int status = resp.getCode();
-            String respBody = resp.getEntity() == null ? "" : EntityUtils.toString(resp.getEntity());
-            if (status < 200 || status >= 300) {
-                throw new RuntimeException("Inter OAuth2 HTTP " + status + ": " + truncate(respBody, 300));
-            }
-            JsonNode node = json.readTree(respBody);
-            String token = node.path("access_token").asText(null);
-            long expiresIn = node.path("expires_in").asLong(3600);
-            if (token == null || token.isBlank()) {
-                throw new RuntimeException("Inter OAuth2 resposta sem access_token: " + truncate(respBody, 200));
-            }
-            this.cachedToken = token;
-            this.tokenExpiresAtEpochMs = System.currentTimeMillis() + expiresIn * 1000;
-            log.debug("🔑 Inter access_token renovado (expires_in={}s)", expiresIn);
-            return token;
-        });
+        ResponseEntity<String> resp;
+        try {
+            resp = http.exchange(baseUrl + "/oauth/v2/token", HttpMethod.POST,
+                    new HttpEntity<>(form, headers), String.class);
+        } catch (HttpStatusCodeException e) {
+            throw new RuntimeException("Inter OAuth2 HTTP " + e.getStatusCode().value() + ": "
+                    + truncate(e.getResponseBodyAsString(), 300));
+        }
+
+        String respBody = resp.getBody() == null ? "" : resp.getBody();
+        JsonNode node = json.readTree(respBody);
+        String token = node.path("access_token").asText(null);
+        long expiresIn = node.path("expires_in").asLong(3600);
+        if (token == null || token.isBlank()) {
+            throw new RuntimeException("Inter OAuth2 resposta sem access_token: " + truncate(respBody, 200));
+        }
+        this.cachedToken = token;
+        this.tokenExpiresAtEpochMs = System.currentTimeMillis() + expiresIn * 1000;
+        log.debug("🔑 Inter access_token renovado (expires_in={}s)", expiresIn);
+        return token;
     }
 
     private static String truncate(String s, int max) {
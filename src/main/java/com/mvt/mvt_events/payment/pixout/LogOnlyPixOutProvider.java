@@ -5,6 +5,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
+import java.util.Optional;
+
 /**
  * Implementação stub — apenas loga e retorna SUCCEEDED fake.
  *
@@ -34,6 +36,12 @@ public class LogOnlyPixOutProvider implements PixOutProvider {
         return PixOutResult.succeeded("log-" + externalId);
     }
 
+    /** Stub não envia nada de verdade: nenhum externalId existe "no provedor". */
+    @Override
+    public Optional<PixOutResult> lookup(String externalId) {
+        return Optional.empty();
+    }
+
     private String mask(String key) {
         if (key == null || key.length() <= 4) return key;
         return key.substring(0, 3) + "***" + key.substring(key.length() - 2);
@@ -2,6 +2,10 @@ package com.mvt.mvt_events.payment.pixout;
 
 import com.mvt.mvt_events.jpa.User;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
 /**
  * Abstração de provedor de PIX out (saída de dinheiro para chave PIX de terceiro).
  *
@@ -24,12 +28,45 @@ public interface PixOutProvider {
      */
     PixOutResult send(User to, long amountCents, String externalId);
 
+    /**
+     * Envia um lote de PIX. O resultado i corresponde ao item i.
+     *
+     * Padrão: um {@link #send} por item — provedores com API de lote (Stark Bank aceita
+     * lista de transfers) sobrescrevem pra fazer uma chamada só.
+     */
+    default List<PixOutResult> sendBatch(List<PixOutItem> items) {
+        List<PixOutResult> results = new ArrayList<>(items.size());
+        for (PixOutItem item : items) {
+            PixOutResult result;
+            try {
+                result = send(item.to(), item.amountCents(), item.externalId());
+            } catch (Exception e) {
+                result = PixOutResult.failed(e.getMessage());
+            }
+            results.add(result);
+        }
+        return results;
+    }
+
+    /**
+     * Consulta um envio pelo externalId — reconciliação de lotes que ficaram sem resposta.
+     *
+     * @return estado atual no provedor; vazio se o provedor não recebeu esse externalId
+     * @throws UnsupportedOperationException se o provedor não oferece consulta
+     */
+    default Optional<PixOutResult> lookup(String externalId) {
+        throw new UnsupportedOperationException("Provedor PIX-out sem consulta por externalId");
+    }
+
     enum Status {
         PENDING,    // Aceito, aguarda confirmação assíncrona
         SUCCEEDED,  // Confirmado
         FAILED      // Rejeitado (ver errorMessage)
     }
 
+    /** Item de um lote: destinatário, valor em centavos e ID interno de correlação. */
+    record PixOutItem(User to, long amountCents, String externalId) {}
+
     record PixOutResult(Status status, String providerTransactionId, String errorMessage) {
         public static PixOutResult pending(String id) { return new PixOutResult(Status.PENDING, id, null); }
         public static PixOutResult succeeded(String id) { return new PixOutResult(Status.SUCCEEDED, id, null); }
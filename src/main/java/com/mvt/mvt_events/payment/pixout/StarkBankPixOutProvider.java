@@ -1,5 +1,7 @@
 package com.mvt.mvt_events.payment.pixout;
 
+import com.mvt.mvt_events.http.OutboundGuard;
+import com.mvt.mvt_events.http.OutboundProvider;
 import com.mvt.mvt_events.jpa.User;
 import com.starkbank.DictKey;
 import com.starkbank.Project;
@@ -21,7 +23,8 @@ import java.util.Map;
  *
  * Fluxo:
  *  1. {@link DictKey#get} resolve a chave PIX em dados da conta (ispb, agência, conta, nome, taxId)
- *  2. {@link Transfer#create} cria a transferência com os dados resolvidos
+ *  2. {@link Transfer#create} cria a transferência com os dados resolvidos — em lote,
+ *     uma chamada só pra todas as transfers do chunk ({@link #sendBatch})
  *
  * Ativa via `pix.out.provider=stark`. Requer:
  *  - pix.out.stark.environment (sandbox|production)
@@ -44,6 +47,12 @@ public class StarkBankPixOutProvider implements PixOutProvider {
 
     private Project project;
 
+    private final OutboundGuard outboundGuard;
+
+    public StarkBankPixOutProvider(OutboundGuard outboundGuard) {
+        this.outboundGuard = outboundGuard;
+    }
+
     @PostConstruct
     public void init() {
         if (projectId == null || projectId.isBlank() || privateKey == null || privateKey.isBlank()) {
@@ -62,22 +71,81 @@ public class StarkBankPixOutProvider implements PixOutProvider {
 
     @Override
     public PixOutResult send(User to, long amountCents, String externalId) {
+        return sendBatch(List.of(new PixOutItem(to, amountCents, externalId))).get(0);
+    }
+
+    /**
+     * Lote: resolve cada chave no DICT (não tem lookup em lote) e cria todas as
+     * transferências resolvidas num único {@link Transfer#create}. Itens que falham na
+     * validação ou no DICT saem FAILED sem derrubar o resto do lote.
+     */
+    @Override
+    public List<PixOutResult> sendBatch(List<PixOutItem> items) {
+        PixOutResult[] results = new PixOutResult[items.size()];
         if (project == null) {
-            return PixOutResult.failed("Stark Bank não configurado (credenciais ausentes)");
+            Arrays.fill(results, PixOutResult.failed("Stark Bank não configurado (credenciais ausentes)"));
+            return Arrays.asList(results);
+        }
+
+        // 1. Resolver chaves PIX → dados da conta do recebedor
+        List<Object> transfers = new ArrayList<>();
+        Map<String, Integer> indexByExternalId = new HashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            PixOutItem item = items.get(i);
+            Object resolved = resolve(item);
+            if (resolved instanceof PixOutResult failure) {
+                results[i] = failure;
+            } else {
+                transfers.add(resolved);
+                indexByExternalId.put(item.externalId(), i);
+            }
+        }
+        if (transfers.isEmpty()) {
+            return Arrays.asList(results);
+        }
+
+        // 2. Criar todas as Transfers numa chamada só
+        try {
+            List<Transfer> created = outboundGuard.execute(OutboundProvider.STARK, "transfer.create",
+                    () -> Transfer.create(transfers, project));
+            log.info("✅ Lote Stark criado: {} transfers", created.size());
+
+            for (Transfer t : created) {
+                Integer i = indexByExternalId.get(t.externalId);
+                if (i != null) {
+                    results[i] = toResult(t);
+                }
+            }
+        } catch (Exception e) {
+            log.error("❌ Erro no Stark Transfer.create (lote de {}): {}", transfers.size(), e.getMessage(), e);
+            PixOutResult failure = PixOutResult.failed("Stark erro: " + e.getMessage());
+            indexByExternalId.values().forEach(i -> results[i] = failure);
+        }
+
+        for (Map.Entry<String, Integer> e : indexByExternalId.entrySet()) {
+            if (results[e.getValue()] == null) {
+                results[e.getValue()] = PixOutResult.failed("Stark Bank não retornou a transfer " + e.getKey());
+            }
         }
+        return Arrays.asList(results);
+    }
+
+    /** Valida o item e resolve a chave no DICT: devolve a {@link Transfer} pronta ou o FAILED. */
+    private Object resolve(PixOutItem item) {
+        User to = item.to();
         if (to == null || to.getPixKey() == null || to.getPixKey().isBlank()) {
             return PixOutResult.failed("Destinatário sem chave PIX");
         }
-        if (amountCents <= 0) {
+        if (item.amountCents() <= 0) {
             return PixOutResult.failed("Valor inválido");
         }
 
         String formattedKey = formatPixKey(to.getPixKey(), to.getPixKeyType());
 
-        // 1. Resolver chave PIX → dados da conta do recebedor
         DictKey dict;
         try {
-            dict = DictKey.get(formattedKey, project);
+            dict = outboundGuard.execute(OutboundProvider.STARK, "dict-key.get",
+                    () -> DictKey.get(formattedKey, project));
         } catch (Exception e) {
             log.error("❌ Falha ao resolver chave PIX '{}' no DICT: {}", mask(formattedKey), e.getMessage());
             return PixOutResult.failed("Chave PIX não encontrada no DICT: " + e.getMessage());
@@ -92,44 +160,34 @@ public class StarkBankPixOutProvider implements PixOutProvider {
         log.info("🔍 Chave resolvida: name={} bank={} branch={} account={}",
                 dict.name, dict.ispb, dict.branchCode, dict.accountNumber);
 
-        // 2. Criar Transfer usando ispb (bankCode)
         try {
             Map<String, Object> data = new HashMap<>();
-            data.put("amount", amountCents);
+            data.put("amount", item.amountCents());
             data.put("name", dict.name);
             data.put("taxId", dict.taxId);
             data.put("bankCode", dict.ispb);
             data.put("branchCode", dict.branchCode);
             data.put("accountNumber", dict.accountNumber);
             data.put("accountType", dict.accountType);
-            data.put("externalId", externalId);
+            data.put("externalId", item.externalId());
             data.put("description", "Zapi-Food courier payout");
-
-            Transfer t = new Transfer(data);
-            List<Transfer> created = Transfer.create(
-                    new ArrayList<Object>(Arrays.asList(t)), project);
-
-            if (created.isEmpty()) {
-                return PixOutResult.failed("Stark Bank retornou lista vazia");
-            }
-            Transfer created0 = created.get(0);
-            log.info("✅ Transfer Stark criado: id={} status={} externalId={}",
-                    created0.id, created0.status, externalId);
-
-            // Status inicial: "created" → "processing" → "success" (assíncrono)
-            if ("success".equalsIgnoreCase(created0.status)) {
-                return PixOutResult.succeeded(created0.id);
-            } else if ("failed".equalsIgnoreCase(created0.status)) {
-                return PixOutResult.failed("Stark retornou failed");
-            }
-            return PixOutResult.pending(created0.id);
-
+            return new Transfer(data);
         } catch (Exception e) {
-            log.error("❌ Erro no Stark Transfer.create (externalId={}): {}", externalId, e.getMessage(), e);
             return PixOutResult.failed("Stark erro: " + e.getMessage());
         }
     }
 
+    private static PixOutResult toResult(Transfer t) {
+        log.info("✅ Transfer Stark criado: id={} status={} externalId={}", t.id, t.status, t.externalId);
+        // Status inicial: "created" → "processing" → "success" (assíncrono)
+        if ("success".equalsIgnoreCase(t.status)) {
+            return PixOutResult.succeeded(t.id);
+        } else if ("failed".equalsIgnoreCase(t.status)) {
+            return PixOutResult.failed("Stark retornou failed");
+        }
+        return PixOutResult.pending(t.id);
+    }
+
     /**
      * Formata a chave PIX pro padrão que o DICT aceita.
      *  - CPF/CNPJ: apenas dígitos
@@ -1004,10 +1004,23 @@ public class PagarMeService {
      * @return OrderResponse completo do gateway
      */
     public com.mvt.mvt_events.payment.dto.OrderResponse createOrderWithFullResponse(OrderRequest orderRequest) {
+        return createOrderWithFullResponse(orderRequest, null);
+    }
+
+    /**
+     * Igual a {@link #createOrderWithFullResponse(OrderRequest)}, enviando o header
+     * {@code Idempotency-Key}: repetir a chamada com a mesma chave devolve a mesma order
+     * em vez de criar outra (retomada de lote após queda no meio da chamada).
+     */
+    public com.mvt.mvt_events.payment.dto.OrderResponse createOrderWithFullResponse(OrderRequest orderRequest,
+                                                                                   String idempotencyKey) {
         log.info("📦 Criando order no Pagar.me");
 
         try {
             HttpHeaders headers = createHeaders();
+            if (idempotencyKey != null) {
+                headers.set("Idempotency-Key", idempotencyKey);
+            }
             HttpEntity<OrderRequest> entity = new HttpEntity<>(orderRequest, headers);
 
             String url = config.getApi().getUrl() + "/orders";
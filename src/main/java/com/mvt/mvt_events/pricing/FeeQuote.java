@@ -0,0 +1,33 @@
+package com.mvt.mvt_events.pricing;
+
+import com.mvt.mvt_events.jpa.SpecialZone;
+
+import java.math.BigDecimal;
+
+/**
+ * Resultado de uma cotação de frete, com a composição do valor.
+ *
+ * @param distanceKm           distância usada no cálculo
+ * @param baseFee              distância × preço/km, respeitando o mínimo
+ * @param zoneId               zona especial aplicada (null se nenhuma)
+ * @param zoneType             tipo da zona aplicada (null se nenhuma)
+ * @param zoneAddress          endereço descritivo da zona aplicada
+ * @param zoneSurchargePercent percentual da zona aplicada
+ * @param zoneSurcharge        valor da sobretaxa de zona
+ * @param extraStops           paradas cobradas além da primeira
+ * @param stopFee              valor total das paradas extras
+ * @param total                frete final (escala 2, HALF_UP)
+ */
+public record FeeQuote(
+        BigDecimal distanceKm,
+        BigDecimal baseFee,
+        Long zoneId,
+        SpecialZone.ZoneType zoneType,
+        String zoneAddress,
+        BigDecimal zoneSurchargePercent,
+        BigDecimal zoneSurcharge,
+        int extraStops,
+        BigDecimal stopFee,
+        BigDecimal total
+) {
+}
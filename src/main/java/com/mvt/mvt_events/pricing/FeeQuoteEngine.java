@@ -0,0 +1,166 @@
+package com.mvt.mvt_events.pricing;
+
+import com.mvt.mvt_events.jpa.Delivery;
+import com.mvt.mvt_events.jpa.SpecialZone;
+import com.mvt.mvt_events.service.SiteConfigurationService;
+import com.mvt.mvt_events.service.SpecialZoneService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Motor de cotação de frete em memória.
+ *
+ * <p>Mantém um {@link FeeSchedule} compilado (configuração ativa + índice espacial
+ * das zonas especiais) e responde cotações sem tocar no banco. O snapshot é
+ * recompilado e trocado atomicamente quando:
+ * <ul>
+ *   <li>{@link PricingRulesChangedEvent} — edição de configuração/zona nesta instância (após commit)</li>
+ *   <li>a cada {@code pricing.snapshot.refresh-ms} — pega edições feitas em outras instâncias</li>
+ * </ul>
+ *
+ * <p>Regras (as mesmas de {@code DeliveryService.create}):
+ * <ol>
+ *   <li>distância × preço/km do veículo, respeitando o mínimo do veículo</li>
+ *   <li>+ % da zona especial: parada única → zona mais próxima do destino;
+ *       multi-stop → a PIOR zona (maior %) entre todas as paradas</li>
+ *   <li>+ taxa fixa por parada extra</li>
+ * </ol>
+ */
+@Service
+@Slf4j
+public class FeeQuoteEngine {
+
+    private static final BigDecimal ONE_HUNDRED = BigDecimal.valueOf(100);
+
+    private final SiteConfigurationService siteConfigurationService;
+    private final SpecialZoneService specialZoneService;
+    private final AtomicReference<FeeSchedule> schedule = new AtomicReference<>();
+
+    public FeeQuoteEngine(SiteConfigurationService siteConfigurationService,
+                          SpecialZoneService specialZoneService) {
+        this.siteConfigurationService = siteConfigurationService;
+        this.specialZoneService = specialZoneService;
+    }
+
+    /** Snapshot atual (compila na primeira chamada). */
+    public FeeSchedule schedule() {
+        FeeSchedule current = schedule.get();
+        if (current == null) {
+            current = compile();
+            if (!schedule.compareAndSet(null, current)) {
+                current = schedule.get();
+            }
+        }
+        return current;
+    }
+
+    /** Recompila e troca o snapshot. */
+    public FeeSchedule refresh() {
+        FeeSchedule compiled = compile();
+        schedule.set(compiled);
+        return compiled;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPricingRulesChanged(PricingRulesChangedEvent event) {
+        refresh();
+        log.info("💲 Regras de frete recompiladas ({}): {} zonas ativas", event.source(), schedule().zones().size());
+    }
+
+    @Scheduled(fixedDelayString = "${pricing.snapshot.refresh-ms:60000}",
+               initialDelayString = "${pricing.snapshot.refresh-ms:60000}")
+    public void scheduledRefresh() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            log.warn("⚠️ Falha ao recompilar regras de frete (mantendo snapshot anterior): {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Cotação a partir dos pontos da rota: {@code stops[0]} é a origem, o resto são
+     * as paradas na ordem. Distância = soma dos trechos em linha reta.
+     */
+    public FeeQuote quote(List<GeoPoint> stops, Delivery.PreferredVehicleType vehicleType) {
+        if (stops == null || stops.size() < 2) {
+            throw new IllegalArgumentException("Informe a origem e pelo menos uma parada");
+        }
+        double meters = 0;
+        for (int i = 1; i < stops.size(); i++) {
+            meters += stops.get(i - 1).distanceMetersTo(stops.get(i));
+        }
+        BigDecimal distanceKm = BigDecimal.valueOf(meters / 1000.0).setScale(2, RoundingMode.HALF_UP);
+        List<GeoPoint> destinations = stops.subList(1, stops.size());
+        return quote(distanceKm, destinations, vehicleType, destinations.size() - 1);
+    }
+
+    /**
+     * Cotação com distância já conhecida (rota do app ou rota real do PostGIS).
+     *
+     * @param destinations paradas usadas pra zona especial (1 = zona mais próxima; N = pior zona)
+     * @param extraStops   paradas cobradas além da primeira
+     */
+    public FeeQuote quote(BigDecimal distanceKm, List<GeoPoint> destinations,
+                          Delivery.PreferredVehicleType vehicleType, int extraStops) {
+        FeeSchedule rules = schedule();
+
+        BigDecimal fee = distanceKm.multiply(rules.pricePerKm(vehicleType));
+        BigDecimal minimumFee = rules.minimumFee(vehicleType);
+        if (fee.compareTo(minimumFee) < 0) {
+            fee = minimumFee;
+        }
+        BigDecimal baseFee = fee;
+
+        // Zona especial: a de maior % vence (com 1 parada é simplesmente a mais próxima)
+        ZoneIndex zones = rules.zones();
+        int zone = -1;
+        BigDecimal zonePct = BigDecimal.ZERO;
+        if (zones.size() > 0 && destinations != null) {
+            for (GeoPoint p : destinations) {
+                int candidate = zones.nearest(p.latitude(), p.longitude());
+                if (candidate < 0) continue;
+                BigDecimal pct = rules.zonePercentage(zones.type(candidate));
+                if (zone < 0 || pct.compareTo(zonePct) > 0) {
+                    zone = candidate;
+                    zonePct = pct;
+                }
+            }
+        }
+
+        BigDecimal surcharge = BigDecimal.ZERO;
+        if (zonePct.compareTo(BigDecimal.ZERO) > 0) {
+            surcharge = fee.multiply(zonePct).divide(ONE_HUNDRED, 2, RoundingMode.HALF_UP);
+            fee = fee.add(surcharge);
+        }
+
+        BigDecimal stopFee = BigDecimal.ZERO;
+        if (extraStops > 0) {
+            stopFee = rules.additionalStopFee().multiply(BigDecimal.valueOf(extraStops));
+            fee = fee.add(stopFee);
+        }
+
+        return new FeeQuote(
+                distanceKm,
+                baseFee,
+                zone >= 0 ? zones.id(zone) : null,
+                zone >= 0 ? zones.type(zone) : null,
+                zone >= 0 ? zones.address(zone) : null,
+                zonePct,
+                surcharge,
+                Math.max(extraStops, 0),
+                stopFee,
+                fee.setScale(2, RoundingMode.HALF_UP));
+    }
+
+    private FeeSchedule compile() {
+        List<SpecialZone> zones = specialZoneService.findActiveZones();
+        return FeeSchedule.compile(siteConfigurationService.getActiveConfiguration(), zones);
+    }
+}
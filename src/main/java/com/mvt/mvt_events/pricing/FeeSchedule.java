@@ -0,0 +1,74 @@
+package com.mvt.mvt_events.pricing;
+
+import com.mvt.mvt_events.jpa.Delivery;
+import com.mvt.mvt_events.jpa.SiteConfiguration;
+import com.mvt.mvt_events.jpa.SpecialZone;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Snapshot imutável das regras de frete: valores da {@link SiteConfiguration} ativa
+ * já resolvidos (fallbacks de carro, nulos → zero) + {@link ZoneIndex} das zonas ativas.
+ *
+ * <p>Compilado uma vez e trocado por inteiro pelo {@link FeeQuoteEngine} — nenhuma
+ * cotação enxerga metade de uma edição.
+ */
+public final class FeeSchedule {
+
+    private final BigDecimal pricePerKm;
+    private final BigDecimal carPricePerKm;
+    private final BigDecimal minimumFee;
+    private final BigDecimal carMinimumFee;
+    private final BigDecimal dangerFeePercentage;
+    private final BigDecimal highIncomeFeePercentage;
+    private final BigDecimal additionalStopFee;
+    private final int minOrderDistanceMeters;
+    private final ZoneIndex zones;
+
+    private FeeSchedule(SiteConfiguration config, ZoneIndex zones) {
+        this.pricePerKm = orZero(config.getPricePerKm());
+        this.carPricePerKm = config.getCarPricePerKm() != null ? config.getCarPricePerKm() : pricePerKm;
+        this.minimumFee = orZero(config.getMinimumShippingFee());
+        this.carMinimumFee = config.getCarMinimumShippingFee() != null ? config.getCarMinimumShippingFee() : minimumFee;
+        this.dangerFeePercentage = orZero(config.getDangerFeePercentage());
+        this.highIncomeFeePercentage = orZero(config.getHighIncomeFeePercentage());
+        this.additionalStopFee = orZero(config.getAdditionalStopFee());
+        this.minOrderDistanceMeters = config.getMinOrderDistanceMeters() != null ? config.getMinOrderDistanceMeters() : 0;
+        this.zones = zones;
+    }
+
+    public static FeeSchedule compile(SiteConfiguration config, List<SpecialZone> activeZones) {
+        return new FeeSchedule(config, activeZones.isEmpty() ? ZoneIndex.EMPTY : new ZoneIndex(activeZones));
+    }
+
+    public BigDecimal pricePerKm(Delivery.PreferredVehicleType vehicleType) {
+        return vehicleType == Delivery.PreferredVehicleType.CAR ? carPricePerKm : pricePerKm;
+    }
+
+    public BigDecimal minimumFee(Delivery.PreferredVehicleType vehicleType) {
+        return vehicleType == Delivery.PreferredVehicleType.CAR ? carMinimumFee : minimumFee;
+    }
+
+    public BigDecimal zonePercentage(SpecialZone.ZoneType type) {
+        if (type == SpecialZone.ZoneType.DANGER) return dangerFeePercentage;
+        if (type == SpecialZone.ZoneType.HIGH_INCOME) return highIncomeFeePercentage;
+        return BigDecimal.ZERO;
+    }
+
+    public BigDecimal additionalStopFee() {
+        return additionalStopFee;
+    }
+
+    public int minOrderDistanceMeters() {
+        return minOrderDistanceMeters;
+    }
+
+    public ZoneIndex zones() {
+        return zones;
+    }
+
+    private static BigDecimal orZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+}
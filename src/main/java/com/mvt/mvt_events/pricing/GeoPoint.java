@@ -0,0 +1,23 @@
+package com.mvt.mvt_events.pricing;
+
+/**
+ * Coordenada WGS84 (graus decimais).
+ */
+public record GeoPoint(double latitude, double longitude) {
+
+    private static final double EARTH_RADIUS_METERS = 6_371_000.0;
+
+    /** Distância em linha reta (Haversine), em metros. */
+    public static double distanceMeters(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return EARTH_RADIUS_METERS * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    public double distanceMetersTo(GeoPoint other) {
+        return distanceMeters(latitude, longitude, other.latitude, other.longitude);
+    }
+}
@@ -0,0 +1,8 @@
+package com.mvt.mvt_events.pricing;
+
+/**
+ * Publicado quando a configuração de preços ou uma zona especial muda.
+ * O {@link FeeQuoteEngine} recompila o snapshot após o commit.
+ */
+public record PricingRulesChangedEvent(String source) {
+}
@@ -0,0 +1,119 @@
+package com.mvt.mvt_events.pricing;
+
+import com.mvt.mvt_events.jpa.SpecialZone;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Índice espacial imutável das zonas especiais ativas.
+ *
+ * <p>Grade fixa de {@value #CELL_DEGREES}° (~1,1km): cada zona é registrada em todas as
+ * células que o círculo (centro + raio) toca. A consulta vai direto na célula do ponto
+ * e só calcula Haversine pros poucos candidatos — mesma regra do
+ * {@code SpecialZoneRepository.findNearestZoneWithinRadius}: zona mais próxima cujo
+ * raio contém o ponto.
+ */
+public final class ZoneIndex {
+
+    static final double CELL_DEGREES = 0.01;
+    private static final double METERS_PER_DEGREE_LAT = 111_320.0;
+    private static final int[] NO_CANDIDATES = new int[0];
+
+    public static final ZoneIndex EMPTY = new ZoneIndex(List.of());
+
+    private final long[] ids;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final double[] radii;
+    private final SpecialZone.ZoneType[] types;
+    private final String[] addresses;
+    private final Map<Long, int[]> cells;
+
+    public ZoneIndex(List<SpecialZone> zones) {
+        List<SpecialZone> valid = new ArrayList<>(zones.size());
+        for (SpecialZone z : zones) {
+            if (z.getLatitude() != null && z.getLongitude() != null && z.getZoneType() != null
+                    && !Boolean.FALSE.equals(z.getIsActive())) {
+                valid.add(z);
+            }
+        }
+
+        int n = valid.size();
+        ids = new long[n];
+        latitudes = new double[n];
+        longitudes = new double[n];
+        radii = new double[n];
+        types = new SpecialZone.ZoneType[n];
+        addresses = new String[n];
+
+        Map<Long, List<Integer>> building = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            SpecialZone z = valid.get(i);
+            ids[i] = z.getId() != null ? z.getId() : -1L;
+            latitudes[i] = z.getLatitude();
+            longitudes[i] = z.getLongitude();
+            radii[i] = z.getRadiusMeters() != null ? z.getRadiusMeters() : 300.0;
+            types[i] = z.getZoneType();
+            addresses[i] = z.getAddress();
+
+            double dLat = radii[i] / METERS_PER_DEGREE_LAT;
+            double cosLat = Math.max(Math.cos(Math.toRadians(latitudes[i])), 0.01);
+            double dLng = radii[i] / (METERS_PER_DEGREE_LAT * cosLat);
+            int minRow = cell(latitudes[i] - dLat), maxRow = cell(latitudes[i] + dLat);
+            int minCol = cell(longitudes[i] - dLng), maxCol = cell(longitudes[i] + dLng);
+            for (int row = minRow; row <= maxRow; row++) {
+                for (int col = minCol; col <= maxCol; col++) {
+                    building.computeIfAbsent(key(row, col), k -> new ArrayList<>(2)).add(i);
+                }
+            }
+        }
+
+        Map<Long, int[]> compiled = new HashMap<>(Math.max(16, building.size() * 2));
+        building.forEach((k, list) -> compiled.put(k, list.stream().mapToInt(Integer::intValue).toArray()));
+        cells = compiled;
+    }
+
+    /**
+     * @return índice interno da zona mais próxima que contém o ponto, ou -1
+     */
+    public int nearest(double latitude, double longitude) {
+        int[] candidates = cells.getOrDefault(key(cell(latitude), cell(longitude)), NO_CANDIDATES);
+        int best = -1;
+        double bestDistance = Double.MAX_VALUE;
+        for (int i : candidates) {
+            double d = GeoPoint.distanceMeters(latitude, longitude, latitudes[i], longitudes[i]);
+            if (d <= radii[i] && d < bestDistance) {
+                bestDistance = d;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public long id(int index) {
+        return ids[index];
+    }
+
+    public SpecialZone.ZoneType type(int index) {
+        return types[index];
+    }
+
+    public String address(int index) {
+        return addresses[index];
+    }
+
+    private static int cell(double degrees) {
+        return (int) Math.floor(degrees / CELL_DEGREES);
+    }
+
+    private static long key(int row, int col) {
+        return ((long) row << 32) | (col & 0xFFFFFFFFL);
+    }
+}
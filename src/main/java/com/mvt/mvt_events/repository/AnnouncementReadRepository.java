@@ -2,8 +2,13 @@ package com.mvt.mvt_events.repository;
 
 import com.mvt.mvt_events.jpa.AnnouncementRead;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -14,4 +19,19 @@ public interface AnnouncementReadRepository extends JpaRepository<AnnouncementRe
     boolean existsByAnnouncementIdAndUserId(Long announcementId, UUID userId);
 
     Optional<AnnouncementRead> findByAnnouncementIdAndUserId(Long announcementId, UUID userId);
+
+    /** Ids dos anúncios que o usuário já leu (conjunto de leitura do feed em memória). */
+    @Query("SELECT r.announcement.id FROM AnnouncementRead r WHERE r.user.id = :userId")
+    List<Long> findAnnouncementIdsByUserId(@Param("userId") UUID userId);
+
+    /**
+     * Marca como lido num INSERT só; idempotente (uk_announcement_user).
+     * 0 = já lido ou anúncio inexistente.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO announcement_reads (announcement_id, user_id) " +
+            "SELECT a.id, :userId FROM announcements a WHERE a.id = :announcementId " +
+            "ON CONFLICT (announcement_id, user_id) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("announcementId") Long announcementId, @Param("userId") UUID userId);
 }
@@ -8,29 +8,20 @@ import org.springframework.stereotype.Repository;
 
 import java.time.OffsetDateTime;
 import java.util.List;
-import java.util.UUID;
 
 @Repository
 public interface AnnouncementRepository extends JpaRepository<Announcement, Long> {
 
     /**
-     * Anúncios ativos, já publicados, não expirados, cujo CSV de roles
-     * contém o role do usuário, e que ele ainda não marcou como lido.
-     * Mais recente primeiro.
+     * Anúncios ativos e não expirados, de todos os roles, mais recente primeiro.
+     * Inclui os agendados (publishedAt no futuro): o AnnouncementFeedService confere
+     * publishedAt/expiresAt a cada request sobre o snapshot em memória.
      */
     @Query("""
         SELECT a FROM Announcement a
         WHERE a.isActive = true
-          AND a.publishedAt <= :now
           AND (a.expiresAt IS NULL OR a.expiresAt > :now)
-          AND CONCAT(',', a.rolesCsv, ',') LIKE CONCAT('%,', :role, ',%')
-          AND NOT EXISTS (
-            SELECT 1 FROM AnnouncementRead r
-            WHERE r.announcement = a AND r.user.id = :userId
-          )
         ORDER BY a.publishedAt DESC
     """)
-    List<Announcement> findActiveUnreadFor(@Param("userId") UUID userId,
-                                           @Param("role") String role,
-                                           @Param("now") OffsetDateTime now);
+    List<Announcement> findActiveNotExpired(@Param("now") OffsetDateTime now);
 }
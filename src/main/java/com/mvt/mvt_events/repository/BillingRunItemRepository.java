@@ -0,0 +1,56 @@
+package com.mvt.mvt_events.repository;
+
+import com.mvt.mvt_events.jpa.BillingRunItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+@Repository
+public interface BillingRunItemRepository extends JpaRepository<BillingRunItem, Long> {
+
+    /**
+     * Cria os checkpoints da execução a partir das subscriptions ativas do vencimento,
+     * num INSERT só. Reexecutar é inofensivo (ON CONFLICT).
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO billing_run_items (run_id, subscription_id) " +
+            "SELECT :runId, s.id FROM client_subscriptions s " +
+            "WHERE s.active = true AND s.billing_due_day = :dueDay " +
+            "ON CONFLICT (run_id, subscription_id) DO NOTHING", nativeQuery = true)
+    int seedItems(@Param("runId") Long runId, @Param("dueDay") Integer dueDay);
+
+    List<BillingRunItem> findByRunIdAndStatusOrderByIdAsc(Long runId, BillingRunItem.Status status);
+
+    /** Reivindica o item (PENDING → PROCESSING). 0 = outro worker/instância já pegou. */
+    @Modifying
+    @Transactional
+    @Query("UPDATE BillingRunItem i SET i.status = 'PROCESSING', i.attempts = i.attempts + 1, i.claimedAt = :now " +
+            "WHERE i.id = :id AND i.status = 'PENDING'")
+    int claim(@Param("id") Long id, @Param("now") OffsetDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE BillingRunItem i SET i.status = :status, i.paymentId = :paymentId, i.error = :error, " +
+            "i.finishedAt = :now WHERE i.id = :id")
+    int finish(@Param("id") Long id, @Param("status") BillingRunItem.Status status,
+               @Param("paymentId") Long paymentId, @Param("error") String error,
+               @Param("now") OffsetDateTime now);
+
+    /** Itens que ficaram PROCESSING por queda da instância voltam pra fila. */
+    @Modifying
+    @Transactional
+    @Query("UPDATE BillingRunItem i SET i.status = 'PENDING' " +
+            "WHERE i.runId = :runId AND i.status = 'PROCESSING' AND i.claimedAt < :staleBefore")
+    int releaseStale(@Param("runId") Long runId, @Param("staleBefore") OffsetDateTime staleBefore);
+
+    /** [status, count] da execução. */
+    @Query("SELECT i.status, COUNT(i) FROM BillingRunItem i WHERE i.runId = :runId GROUP BY i.status")
+    List<Object[]> countByStatus(@Param("runId") Long runId);
+}
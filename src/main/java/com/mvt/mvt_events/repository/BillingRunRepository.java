@@ -0,0 +1,18 @@
+package com.mvt.mvt_events.repository;
+
+import com.mvt.mvt_events.jpa.BillingRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BillingRunRepository extends JpaRepository<BillingRun, Long> {
+
+    Optional<BillingRun> findByRunDateAndDueDay(LocalDate runDate, Integer dueDay);
+
+    /** Execuções interrompidas (instância caiu antes de fechar) — retomadas pelo BillingScheduler. */
+    List<BillingRun> findByStatusOrderByIdAsc(BillingRun.Status status);
+}
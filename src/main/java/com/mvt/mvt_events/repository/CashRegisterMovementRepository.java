@@ -2,6 +2,8 @@ package com.mvt.mvt_events.repository;
 
 import com.mvt.mvt_events.jpa.CashRegisterMovement;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -9,4 +11,11 @@ import java.util.List;
 @Repository
 public interface CashRegisterMovementRepository extends JpaRepository<CashRegisterMovement, Long> {
     List<CashRegisterMovement> findBySessionIdOrderByCreatedAtAsc(Long sessionId);
+
+    /** [adições, retiradas+sangrias] da sessão — usado só na conferência dos totais correntes. */
+    @Query("SELECT " +
+           "COALESCE(SUM(CASE WHEN m.type = 'ADDITION' THEN m.amount ELSE 0 END), 0), " +
+           "COALESCE(SUM(CASE WHEN m.type <> 'ADDITION' THEN m.amount ELSE 0 END), 0) " +
+           "FROM CashRegisterMovement m WHERE m.session.id = :sessionId")
+    List<Object[]> sumTotalsBySessionId(@Param("sessionId") Long sessionId);
 }
@@ -1,11 +1,15 @@
 package com.mvt.mvt_events.repository;
 
 import com.mvt.mvt_events.jpa.CashRegisterSession;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -20,7 +24,12 @@ public interface CashRegisterSessionRepository extends JpaRepository<CashRegiste
            "WHERE s.client.id = :clientId AND s.status = 'OPEN'")
     Optional<CashRegisterSession> findOpenWithMovements(@Param("clientId") UUID clientId);
 
-    @Query("SELECT s FROM CashRegisterSession s LEFT JOIN FETCH s.movements " +
+    /** Sessão OPEN com lock de linha — o fechamento serializa com os incrementos concorrentes. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM CashRegisterSession s WHERE s.client.id = :clientId AND s.status = 'OPEN'")
+    Optional<CashRegisterSession> findOpenForUpdate(@Param("clientId") UUID clientId);
+
+    @Query("SELECT s FROM CashRegisterSession s " +
            "WHERE s.client.id = :clientId " +
            "AND ((s.openedAt < :end) AND (s.closedAt IS NULL OR s.closedAt >= :start)) " +
            "ORDER BY s.openedAt DESC")
@@ -30,4 +39,31 @@ public interface CashRegisterSessionRepository extends JpaRepository<CashRegiste
             @Param("end") OffsetDateTime end);
 
     List<CashRegisterSession> findByClientIdOrderByOpenedAtDesc(UUID clientId);
+
+    // ========== Totais correntes (UPDATE atômico, sem read-modify-write) ==========
+
+    /** Soma uma venda em dinheiro na sessão OPEN do client. Retorna 0 se não há caixa aberto. */
+    @Modifying
+    @Query("UPDATE CashRegisterSession s SET s.cashSales = s.cashSales + :amount " +
+           "WHERE s.client.id = :clientId AND s.status = 'OPEN'")
+    int addCashSale(@Param("clientId") UUID clientId, @Param("amount") BigDecimal amount);
+
+    @Modifying
+    @Query("UPDATE CashRegisterSession s SET " +
+           "s.additionsTotal = s.additionsTotal + :additions, " +
+           "s.withdrawalsTotal = s.withdrawalsTotal + :withdrawals " +
+           "WHERE s.id = :sessionId")
+    int addMovementTotals(@Param("sessionId") Long sessionId,
+                          @Param("additions") BigDecimal additions,
+                          @Param("withdrawals") BigDecimal withdrawals);
+
+    /** Sobrescreve os totais com os valores recalculados na conferência. */
+    @Modifying
+    @Query("UPDATE CashRegisterSession s SET s.cashSales = :cashSales, " +
+           "s.additionsTotal = :additions, s.withdrawalsTotal = :withdrawals " +
+           "WHERE s.id = :sessionId")
+    int overwriteTotals(@Param("sessionId") Long sessionId,
+                        @Param("cashSales") BigDecimal cashSales,
+                        @Param("additions") BigDecimal additions,
+                        @Param("withdrawals") BigDecimal withdrawals);
 }
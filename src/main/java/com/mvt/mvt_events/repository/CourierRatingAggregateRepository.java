@@ -0,0 +1,96 @@
+package com.mvt.mvt_events.repository;
+
+import com.mvt.mvt_events.jpa.CourierRatingAggregate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+@Repository
+public interface CourierRatingAggregateRepository extends JpaRepository<CourierRatingAggregate, UUID> {
+
+    /** +1 avaliação com a nota informada (cria a linha na primeira avaliação do courier). */
+    @Modifying
+    @Query(value = """
+        INSERT INTO courier_rating_aggregates
+            (courier_id, rating_count, rating_sum, stars_1, stars_2, stars_3, stars_4, stars_5, updated_at)
+        VALUES (:courierId, 1, :rating,
+                CASE WHEN :rating = 1 THEN 1 ELSE 0 END,
+                CASE WHEN :rating = 2 THEN 1 ELSE 0 END,
+                CASE WHEN :rating = 3 THEN 1 ELSE 0 END,
+                CASE WHEN :rating = 4 THEN 1 ELSE 0 END,
+                CASE WHEN :rating = 5 THEN 1 ELSE 0 END,
+                now())
+        ON CONFLICT (courier_id) DO UPDATE
+            SET rating_count = courier_rating_aggregates.rating_count + 1,
+                rating_sum   = courier_rating_aggregates.rating_sum + EXCLUDED.rating_sum,
+                stars_1      = courier_rating_aggregates.stars_1 + EXCLUDED.stars_1,
+                stars_2      = courier_rating_aggregates.stars_2 + EXCLUDED.stars_2,
+                stars_3      = courier_rating_aggregates.stars_3 + EXCLUDED.stars_3,
+                stars_4      = courier_rating_aggregates.stars_4 + EXCLUDED.stars_4,
+                stars_5      = courier_rating_aggregates.stars_5 + EXCLUDED.stars_5,
+                updated_at   = now()
+        """, nativeQuery = true)
+    int increment(@Param("courierId") UUID courierId, @Param("rating") int rating);
+
+    /**
+     * Bloqueia incrementos concorrentes durante o rebuild: quem já incrementou termina antes
+     * (e entra no recálculo); quem chega depois espera e soma por cima do resultado.
+     */
+    @Modifying
+    @Query(value = "LOCK TABLE courier_rating_aggregates IN SHARE ROW EXCLUSIVE MODE", nativeQuery = true)
+    void lockForRebuild();
+
+    /** Recalcula todos os agregados a partir de evaluations (só grava as linhas que mudaram). */
+    @Modifying
+    @Query(value = """
+        INSERT INTO courier_rating_aggregates
+            (courier_id, rating_count, rating_sum, stars_1, stars_2, stars_3, stars_4, stars_5, updated_at)
+        SELECT d.courier_id,
+               COUNT(*),
+               SUM(e.rating),
+               COUNT(*) FILTER (WHERE e.rating = 1),
+               COUNT(*) FILTER (WHERE e.rating = 2),
+               COUNT(*) FILTER (WHERE e.rating = 3),
+               COUNT(*) FILTER (WHERE e.rating = 4),
+               COUNT(*) FILTER (WHERE e.rating = 5),
+               now()
+        FROM evaluations e
+        JOIN deliveries d ON d.id = e.delivery_id
+        WHERE e.evaluation_type = 'CLIENT_TO_COURIER'
+          AND d.courier_id IS NOT NULL
+        GROUP BY d.courier_id
+        ON CONFLICT (courier_id) DO UPDATE
+            SET rating_count = EXCLUDED.rating_count,
+                rating_sum   = EXCLUDED.rating_sum,
+                stars_1      = EXCLUDED.stars_1,
+                stars_2      = EXCLUDED.stars_2,
+                stars_3      = EXCLUDED.stars_3,
+                stars_4      = EXCLUDED.stars_4,
+                stars_5      = EXCLUDED.stars_5,
+                updated_at   = now()
+            WHERE (courier_rating_aggregates.rating_count, courier_rating_aggregates.rating_sum,
+                   courier_rating_aggregates.stars_1, courier_rating_aggregates.stars_2,
+                   courier_rating_aggregates.stars_3, courier_rating_aggregates.stars_4,
+                   courier_rating_aggregates.stars_5)
+                IS DISTINCT FROM
+                  (EXCLUDED.rating_count, EXCLUDED.rating_sum, EXCLUDED.stars_1, EXCLUDED.stars_2,
+                   EXCLUDED.stars_3, EXCLUDED.stars_4, EXCLUDED.stars_5)
+        """, nativeQuery = true)
+    int rebuildAll();
+
+    /** Remove agregados de couriers que não têm mais avaliações recebidas. */
+    @Modifying
+    @Query(value = """
+        DELETE FROM courier_rating_aggregates a
+        WHERE NOT EXISTS (
+            SELECT 1 FROM evaluations e
+            JOIN deliveries d ON d.id = e.delivery_id
+            WHERE e.evaluation_type = 'CLIENT_TO_COURIER'
+              AND d.courier_id = a.courier_id)
+        """, nativeQuery = true)
+    int deleteOrphans();
+}
@@ -1,14 +1,17 @@
 package com.mvt.mvt_events.repository;
 
 import com.mvt.mvt_events.jpa.Delivery;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -245,11 +248,62 @@ public interface DeliveryRepository
         List<Delivery> findPendingForCustomerClients();
 
         /**
-         * Busca deliveries PENDING sem courier há mais de X minutos (para expiração automática).
+         * Aceite atômico: atribui o courier só se a delivery ainda está livre, num único
+         * UPDATE condicional. Com dois aceites simultâneos o segundo espera o lock da linha,
+         * reavalia o WHERE após o commit do primeiro e não altera nada.
+         * WAITING_PAYMENT sem courier (ou do próprio courier) segue aceitável, como antes.
+         *
+         * @return 1 se este courier venceu, 0 se a delivery já foi aceita
          */
-        @Query("SELECT d FROM Delivery d WHERE d.status = 'PENDING' AND d.courier IS NULL " +
-               "AND d.createdAt < :expirationCutoff")
-        List<Delivery> findStalePendingDeliveries(@Param("expirationCutoff") OffsetDateTime expirationCutoff);
+        @Modifying
+        @Query(value = "UPDATE deliveries SET courier_id = :courierId, status = 'ACCEPTED', " +
+                       "accepted_at = :acceptedAt, updated_at = :acceptedAt " +
+                       "WHERE id = :deliveryId AND (status = 'PENDING' OR (status = 'WAITING_PAYMENT' " +
+                       "AND (courier_id IS NULL OR courier_id = :courierId)))", nativeQuery = true)
+        int claimForCourier(@Param("deliveryId") Long deliveryId,
+                            @Param("courierId") UUID courierId,
+                            @Param("acceptedAt") OffsetDateTime acceptedAt);
+
+        /**
+         * Cancela em um único UPDATE as deliveries PENDING sem courier criadas antes do corte
+         * (expiração automática). Retorna quantas foram canceladas.
+         */
+        @Modifying
+        @Query("UPDATE Delivery d SET d.status = 'CANCELLED', d.cancelledAt = :now, " +
+               "d.cancellationReason = :reason, d.updatedAt = :now " +
+               "WHERE d.status = 'PENDING' AND d.courier IS NULL AND d.createdAt < :expirationCutoff")
+        int cancelStalePendingDeliveries(@Param("expirationCutoff") OffsetDateTime expirationCutoff,
+                                         @Param("now") OffsetDateTime now,
+                                         @Param("reason") String reason);
+
+        /**
+         * Deliveries PENDING sem courier e com ponto de coleta, mais antigas primeiro
+         * (entrada do dispatch em lote). Cliente já carregado para os filtros de veículo.
+         */
+        @Query("SELECT d FROM Delivery d LEFT JOIN FETCH d.client " +
+               "WHERE d.status = 'PENDING' AND d.courier IS NULL " +
+               "AND d.fromLatitude IS NOT NULL AND d.fromLongitude IS NOT NULL " +
+               "ORDER BY d.createdAt ASC")
+        List<Delivery> findPendingForDispatch(Pageable pageable);
+
+        /** Entregas concluídas por courier desde {@code since} — [courierId, count] (carga do dia no dispatch). */
+        @Query("SELECT d.courier.id, COUNT(d) FROM Delivery d " +
+               "WHERE d.courier.id IN :courierIds AND d.status = 'COMPLETED' AND d.completedAt >= :since " +
+               "GROUP BY d.courier.id")
+        List<Object[]> countCompletedByCourierSince(@Param("courierIds") Collection<UUID> courierIds,
+                                                    @Param("since") OffsetDateTime since);
+
+        /**
+         * Marca paymentCaptured em todas as deliveries de um pagamento (consolidado ou não)
+         * com um único UPDATE, sem carregar a coleção. Retorna quantas linhas mudaram.
+         */
+        @Modifying
+        @Query(value = "UPDATE deliveries SET payment_captured = :captured, updated_at = :now " +
+                       "WHERE id IN (SELECT delivery_id FROM payment_deliveries WHERE payment_id = :paymentId) " +
+                       "AND payment_captured <> :captured", nativeQuery = true)
+        int markPaymentCapturedByPaymentId(@Param("paymentId") Long paymentId,
+                                           @Param("captured") boolean captured,
+                                           @Param("now") OffsetDateTime now);
 
         /**
          * NÍVEL 1 — Busca deliveries PENDING de clientes vinculados por contrato ativo ao courier.
@@ -533,6 +587,7 @@ public interface DeliveryRepository
          * Updates planned_route from a WKT LINESTRING (e.g. "LINESTRING(lng lat, lng lat, ...)").
          */
         @Modifying
+        @Transactional
         @Query(value = "UPDATE deliveries SET planned_route = ST_GeomFromText(:wkt, 4326) WHERE id = :deliveryId", nativeQuery = true)
         void updatePlannedRoute(@Param("deliveryId") Long deliveryId, @Param("wkt") String wkt);
 
@@ -549,12 +604,67 @@ public interface DeliveryRepository
         String getApproachPlannedRouteAsGeoJson(@Param("deliveryId") Long deliveryId);
 
         @Modifying
+        @Transactional
         @Query(value = "UPDATE deliveries SET approach_planned_route = ST_GeomFromText(:wkt, 4326) WHERE id = :deliveryId", nativeQuery = true)
         void updateApproachPlannedRoute(@Param("deliveryId") Long deliveryId, @Param("wkt") String wkt);
 
         @Query(value = "SELECT ST_Distance(approach_planned_route::geography, ST_SetSRID(ST_MakePoint(:lng, :lat), 4326)::geography) FROM deliveries WHERE id = :deliveryId AND approach_planned_route IS NOT NULL", nativeQuery = true)
         Double getDistanceFromApproachPlannedRouteMeters(@Param("deliveryId") Long deliveryId, @Param("lat") double lat, @Param("lng") double lng);
 
+        // ── route_recalc_claims (single-flight do recálculo entre instâncias) ────
+
+        /**
+         * Reserva o recálculo da rota ({@code routeKind} 'planned' ou 'approach') para esta
+         * instância: 1 se a linha não existia ou o claim anterior é mais antigo que o cooldown,
+         * 0 se outra instância recalculou há pouco. Chamado fora de transação
+         * (PlannedRouteService não é @Transactional): commita na hora, na mesma conexão, e o
+         * lock da linha não fica preso durante a chamada ao Google.
+         */
+        @Modifying
+        @Transactional
+        @Query(value = "INSERT INTO route_recalc_claims AS c (delivery_id, route_kind, claimed_at) " +
+                        "VALUES (:deliveryId, :routeKind, now()) " +
+                        "ON CONFLICT (delivery_id, route_kind) DO UPDATE SET claimed_at = now() " +
+                        "WHERE c.claimed_at < now() - :cooldownSeconds * interval '1 second'", nativeQuery = true)
+        int claimRouteRecalculation(@Param("deliveryId") Long deliveryId, @Param("routeKind") String routeKind,
+                        @Param("cooldownSeconds") long cooldownSeconds);
+
+        /** Libera o claim (recálculo falhou): o próximo ping de qualquer instância pode tentar. */
+        @Modifying
+        @Transactional
+        @Query(value = "DELETE FROM route_recalc_claims WHERE delivery_id = :deliveryId AND route_kind = :routeKind", nativeQuery = true)
+        void releaseRouteRecalculation(@Param("deliveryId") Long deliveryId, @Param("routeKind") String routeKind);
+
+        /** Remove os claims da delivery (concluída/cancelada). */
+        @Modifying
+        @Transactional
+        @Query(value = "DELETE FROM route_recalc_claims WHERE delivery_id = :deliveryId", nativeQuery = true)
+        void deleteRouteRecalculationClaims(@Param("deliveryId") Long deliveryId);
+
+        // ── dispatch_offers (ofertas em aberto do dispatch em lote) ──────────────
+
+        /** Apaga as ofertas vencidas: delivery e motoboy voltam para o matching. */
+        @Modifying
+        @Transactional
+        @Query(value = "DELETE FROM dispatch_offers WHERE expires_at <= now()", nativeQuery = true)
+        int deleteExpiredDispatchOffers();
+
+        /** Ofertas em aberto — [deliveryId, courierId]. */
+        @Query(value = "SELECT delivery_id, courier_id FROM dispatch_offers WHERE expires_at > now()", nativeQuery = true)
+        List<Object[]> findActiveDispatchOffers();
+
+        /**
+         * Registra a oferta por {@code ttlSeconds}: 1 se gravou, 0 se a delivery ou o motoboy
+         * já têm oferta em aberto (gravada por outra instância).
+         */
+        @Modifying
+        @Transactional
+        @Query(value = "INSERT INTO dispatch_offers (delivery_id, courier_id, expires_at) " +
+                        "VALUES (:deliveryId, :courierId, now() + :ttlSeconds * interval '1 second') " +
+                        "ON CONFLICT DO NOTHING", nativeQuery = true)
+        int insertDispatchOffer(@Param("deliveryId") Long deliveryId, @Param("courierId") UUID courierId,
+                        @Param("ttlSeconds") long ttlSeconds);
+
         /**
          * Comprimento da {@code actual_route} em metros (geodésico).
          * Após {@code complete()}, a geometria é a rota real de billing (origem, pós-pickup, trilha,
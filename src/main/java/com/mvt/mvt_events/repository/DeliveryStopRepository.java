@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.OffsetDateTime;
 import java.util.List;
@@ -41,6 +42,7 @@ public interface DeliveryStopRepository extends JpaRepository<DeliveryStop, Long
      * Only updates if the stop is still PENDING (completionOrder not yet locked).
      */
     @Modifying(clearAutomatically = true)
+    @Transactional
     @Query("UPDATE DeliveryStop s SET s.completionOrder = :order " +
            "WHERE s.id = :stopId AND s.status = 'PENDING'")
     void updatePlannedOrder(@Param("stopId") Long stopId, @Param("order") int order);
@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -62,6 +63,42 @@ public interface FoodOrderRepository extends JpaRepository<FoodOrder, Long> {
            "ORDER BY o.createdAt DESC")
     List<FoodOrder> findActiveByClientId(@Param("clientId") UUID clientId);
 
+    /**
+     * Carga do quadro ao vivo (OrderBoardService): todos os pedidos não finalizados do
+     * estabelecimento, só com as associações to-one usadas no card — sem itens.
+     */
+    @Query("SELECT o FROM FoodOrder o " +
+           "LEFT JOIN FETCH o.customer LEFT JOIN FETCH o.waiter LEFT JOIN FETCH o.table " +
+           "WHERE o.client.id = :clientId " +
+           "AND o.status NOT IN ('COMPLETED', 'CANCELLED') " +
+           "ORDER BY o.createdAt ASC")
+    List<FoodOrder> findBoardOrdersByClientId(@Param("clientId") UUID clientId);
+
+    /** Quantidade de itens por pedido não finalizado do estabelecimento: [orderId, soma das quantidades]. */
+    @Query("SELECT i.order.id, SUM(i.quantity) FROM OrderItem i " +
+           "WHERE i.order.client.id = :clientId " +
+           "AND i.order.status NOT IN ('COMPLETED', 'CANCELLED') " +
+           "GROUP BY i.order.id")
+    List<Object[]> sumBoardItemQuantitiesByClientId(@Param("clientId") UUID clientId);
+
+    /**
+     * Poll do quadro ao vivo entre instâncias: pedidos do estabelecimento alterados depois de
+     * {@code since}, inclusive os finalizados (saem do quadro). Usa idx_orders_client_updated.
+     */
+    @Query("SELECT o FROM FoodOrder o " +
+           "LEFT JOIN FETCH o.customer LEFT JOIN FETCH o.waiter LEFT JOIN FETCH o.table " +
+           "WHERE o.client.id = :clientId " +
+           "AND o.updatedAt > :since " +
+           "ORDER BY o.updatedAt ASC")
+    List<FoodOrder> findBoardChangesByClientId(@Param("clientId") UUID clientId,
+                                               @Param("since") OffsetDateTime since);
+
+    /** Quantidade de itens dos pedidos informados: [orderId, soma das quantidades]. */
+    @Query("SELECT i.order.id, SUM(i.quantity) FROM OrderItem i " +
+           "WHERE i.order.id IN :orderIds " +
+           "GROUP BY i.order.id")
+    List<Object[]> sumItemQuantitiesByOrderIds(@Param("orderIds") List<Long> orderIds);
+
     /** Todos os pedidos de uma mesa (incluindo finalizados) */
     @Query("SELECT o FROM FoodOrder o LEFT JOIN FETCH o.items i LEFT JOIN FETCH i.product " +
            "WHERE o.table.id = :tableId " +
@@ -119,4 +156,20 @@ public interface FoodOrderRepository extends JpaRepository<FoodOrder, Long> {
             @Param("clientId") UUID clientId,
             @Param("start") java.time.OffsetDateTime start,
             @Param("end") java.time.OffsetDateTime end);
+
+    /**
+     * Pedidos COMPLETED de um client pagos (ou concluídos, se sem paidAt) num intervalo.
+     * Usado só na conferência do caixa — mesmo fetch do relatório pra achar a forma de pagamento.
+     */
+    @Query("SELECT DISTINCT o FROM FoodOrder o " +
+           "LEFT JOIN FETCH o.items i " +
+           "LEFT JOIN FETCH i.command " +
+           "WHERE o.client.id = :clientId " +
+           "AND o.status = 'COMPLETED' " +
+           "AND COALESCE(o.paidAt, o.completedAt) >= :start " +
+           "AND COALESCE(o.paidAt, o.completedAt) < :end")
+    List<FoodOrder> findPaidBetween(
+            @Param("clientId") UUID clientId,
+            @Param("start") java.time.OffsetDateTime start,
+            @Param("end") java.time.OffsetDateTime end);
 }
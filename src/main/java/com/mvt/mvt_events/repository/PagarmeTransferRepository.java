@@ -2,10 +2,13 @@ package com.mvt.mvt_events.repository;
 
 import com.mvt.mvt_events.jpa.PagarmeTransfer;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -21,6 +24,14 @@ public interface PagarmeTransferRepository extends JpaRepository<PagarmeTransfer
            "ORDER BY r.id, t.createdAt")
     List<PagarmeTransfer> findByStatusWithRecipient(@Param("status") PagarmeTransfer.Status status);
 
+    /** Transfers em qualquer dos status, com destinatário e FoodOrder carregados. */
+    @Query("SELECT t FROM PagarmeTransfer t " +
+           "LEFT JOIN FETCH t.recipient r " +
+           "LEFT JOIN FETCH t.foodOrder f " +
+           "WHERE t.status IN :statuses " +
+           "ORDER BY r.id, t.createdAt")
+    List<PagarmeTransfer> findByStatusInWithRecipient(@Param("statuses") Collection<PagarmeTransfer.Status> statuses);
+
     /** Transfers de um destinatário específico, em algum status, com FoodOrder carregado. */
     @Query("SELECT t FROM PagarmeTransfer t " +
            "LEFT JOIN FETCH t.foodOrder f " +
@@ -28,4 +39,42 @@ public interface PagarmeTransferRepository extends JpaRepository<PagarmeTransfer
            "ORDER BY t.createdAt DESC")
     List<PagarmeTransfer> findByRecipientIdAndStatus(@Param("recipientId") UUID recipientId,
                                                      @Param("status") PagarmeTransfer.Status status);
+
+    /** Transfers de um destinatário em qualquer dos status, com FoodOrder carregado. */
+    @Query("SELECT t FROM PagarmeTransfer t " +
+           "LEFT JOIN FETCH t.foodOrder f " +
+           "WHERE t.recipient.id = :recipientId AND t.status IN :statuses " +
+           "ORDER BY t.createdAt DESC")
+    List<PagarmeTransfer> findByRecipientIdAndStatusIn(@Param("recipientId") UUID recipientId,
+                                                       @Param("statuses") Collection<PagarmeTransfer.Status> statuses);
+
+    /**
+     * Reivindica um chunk do lote de PIX-out num UPDATE só: PENDING → PROCESSING com o
+     * marcador do lote em pagarme_transfer_id. Linhas já reivindicadas por outra execução
+     * (ou PENDINGs legados já enviados, com id do provedor) ficam de fora.
+     */
+    @Modifying
+    @Query("UPDATE PagarmeTransfer t SET t.status = 'PROCESSING', t.pagarmeTransferId = :batchId, " +
+           "t.batchClaimedAt = CURRENT_TIMESTAMP " +
+           "WHERE t.id IN :ids AND t.status = 'PENDING' AND t.pagarmeTransferId IS NULL")
+    int claimForBatch(@Param("ids") List<Long> ids, @Param("batchId") String batchId);
+
+    /** Transfers reivindicados por um lote ({@link #claimForBatch}), com destinatário carregado. */
+    @Query("SELECT t FROM PagarmeTransfer t " +
+           "JOIN FETCH t.recipient r " +
+           "WHERE t.pagarmeTransferId = :batchId " +
+           "ORDER BY t.id")
+    List<PagarmeTransfer> findClaimedByBatch(@Param("batchId") String batchId);
+
+    /**
+     * Reivindicações de lote sem resposta do provedor há mais de {@code claimedBefore}: ainda
+     * PROCESSING com o marcador "batch:" (o id do provedor nunca chegou). Usa
+     * idx_pagarme_transfers_batch_claimed.
+     */
+    @Query("SELECT t FROM PagarmeTransfer t " +
+           "JOIN FETCH t.recipient r " +
+           "WHERE t.status = 'PROCESSING' AND t.pagarmeTransferId LIKE 'batch:%' " +
+           "AND t.batchClaimedAt < :claimedBefore " +
+           "ORDER BY t.id")
+    List<PagarmeTransfer> findStaleBatchClaims(@Param("claimedBefore") OffsetDateTime claimedBefore);
 }
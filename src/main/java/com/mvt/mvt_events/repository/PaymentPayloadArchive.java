@@ -0,0 +1,22 @@
+package com.mvt.mvt_events.repository;
+
+import com.mvt.mvt_events.jpa.Payment;
+import com.mvt.mvt_events.jpa.PaymentPayload;
+
+import java.util.Optional;
+
+/**
+ * Fragmento do {@link PaymentRepository}: {@code save} também grava no arquivo
+ * ({@code payment_payloads}) o request/response pendente do pagamento, e as leituras
+ * dos payloads são explícitas por id. Assim todos os fluxos que já fazem
+ * {@code payment.setRequest(...)} + {@code paymentRepository.save(payment)} continuam iguais.
+ */
+public interface PaymentPayloadArchive<T extends Payment> {
+
+    <S extends T> S save(S payment);
+
+    <S extends T> S saveAndFlush(S payment);
+
+    /** JSON vigente do tipo pedido (descomprimido), se houver. */
+    Optional<String> findPayload(Long paymentId, PaymentPayload.Kind kind);
+}
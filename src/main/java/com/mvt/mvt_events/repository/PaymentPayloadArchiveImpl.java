@@ -0,0 +1,67 @@
+package com.mvt.mvt_events.repository;
+
+import com.mvt.mvt_events.jpa.Payment;
+import com.mvt.mvt_events.jpa.PaymentPayload;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * Implementação do fragmento {@link PaymentPayloadArchive}. Mesma semântica de
+ * persist/merge do {@code SimpleJpaRepository.save} (id gerado = entidade nova).
+ */
+public class PaymentPayloadArchiveImpl implements PaymentPayloadArchive<Payment> {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final PaymentPayloadRepository payloadRepository;
+
+    public PaymentPayloadArchiveImpl(PaymentPayloadRepository payloadRepository) {
+        this.payloadRepository = payloadRepository;
+    }
+
+    @Override
+    @Transactional
+    public <S extends Payment> S save(S payment) {
+        String request = payment.takePendingRequest();
+        String response = payment.takePendingResponse();
+
+        S saved;
+        if (payment.getId() == null) {
+            entityManager.persist(payment);
+            saved = payment;
+        } else {
+            saved = entityManager.merge(payment);
+        }
+
+        if (request != null) {
+            payloadRepository.save(PaymentPayload.gzip(saved.getId(), PaymentPayload.Kind.REQUEST, request));
+        }
+        if (response != null) {
+            payloadRepository.save(PaymentPayload.gzip(saved.getId(), PaymentPayload.Kind.RESPONSE, response));
+        }
+        if (saved != payment) {
+            // merge devolve outra instância: mantém os payloads visíveis em memória pra quem chamou
+            saved.attachPayloads(payment.getRequest(), payment.getResponse());
+        }
+        return saved;
+    }
+
+    @Override
+    @Transactional
+    public <S extends Payment> S saveAndFlush(S payment) {
+        S saved = save(payment);
+        entityManager.flush();
+        return saved;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<String> findPayload(Long paymentId, PaymentPayload.Kind kind) {
+        return payloadRepository.findFirstByPaymentIdAndKindOrderByIdDesc(paymentId, kind)
+                .map(PaymentPayload::json);
+    }
+}
@@ -0,0 +1,14 @@
+package com.mvt.mvt_events.repository;
+
+import com.mvt.mvt_events.jpa.PaymentPayload;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface PaymentPayloadRepository extends JpaRepository<PaymentPayload, Long> {
+
+    /** Payload vigente (última gravação) de um tipo. */
+    Optional<PaymentPayload> findFirstByPaymentIdAndKindOrderByIdDesc(Long paymentId, PaymentPayload.Kind kind);
+}
@@ -14,7 +14,15 @@ import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface PaymentRepository extends JpaRepository<Payment, Long>, JpaSpecificationExecutor<Payment> {
+public interface PaymentRepository extends JpaRepository<Payment, Long>, JpaSpecificationExecutor<Payment>,
+        PaymentPayloadArchive<Payment> {
+
+        /** Implementado em {@link PaymentPayloadArchiveImpl}: persiste e arquiva request/response pendentes. */
+        @Override
+        <S extends Payment> S save(S payment);
+
+        @Override
+        <S extends Payment> S saveAndFlush(S payment);
 
         /**
          * Busca pagamento por transaction ID
@@ -154,6 +162,9 @@ public interface PaymentRepository extends JpaRepository<Payment, Long>, JpaSpec
          */
         List<Payment> findBySubscriptionAndStatus(com.mvt.mvt_events.jpa.ClientSubscription subscription, PaymentStatus status);
 
+        /** Fatura de billing já gerada com esta chave (qualquer status). */
+        boolean existsByIdempotencyKey(String idempotencyKey);
+
         /**
          * Busca pagamentos PIX PENDING cujo QR Code expirou (expiresAt < now).
          * Usado pelo cron de expiração PIX (PixExpirationService).
@@ -164,4 +175,17 @@ public interface PaymentRepository extends JpaRepository<Payment, Long>, JpaSpec
                 "AND p.expiresAt IS NOT NULL " +
                 "AND p.expiresAt < :now")
         List<Payment> findExpiredPendingPixPayments(@Param("now") OffsetDateTime now);
+
+        /**
+         * Mesma busca de {@link #findExpiredPendingPixPayments}, só da partição
+         * MOD(id, partitions) = partition (PixExpirationService com várias réplicas).
+         */
+        @Query("SELECT p FROM Payment p " +
+                "WHERE p.status = 'PENDING' " +
+                "AND p.paymentMethod = 'PIX' " +
+                "AND p.expiresAt IS NOT NULL " +
+                "AND p.expiresAt < :now " +
+                "AND MOD(p.id, :partitions) = :partition")
+        List<Payment> findExpiredPendingPixPaymentsInPartition(@Param("now") OffsetDateTime now,
+                        @Param("partitions") int partitions, @Param("partition") int partition);
 }
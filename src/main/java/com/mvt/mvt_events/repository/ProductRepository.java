@@ -18,6 +18,10 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category WHERE p.id = :id")
     java.util.Optional<Product> findByIdWithCategory(@Param("id") Long id);
 
+    /** Produtos e adicionais de um carrinho numa query só, já restrita ao estabelecimento. */
+    @Query("SELECT p FROM Product p WHERE p.client.id = :clientId AND p.id IN :ids")
+    List<Product> findByClientIdAndIdIn(@Param("clientId") UUID clientId, @Param("ids") java.util.Collection<Long> ids);
+
     @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category WHERE p.client.id = :clientId ORDER BY p.displayOrder")
     List<Product> findByClientIdOrderByDisplayOrderAsc(@Param("clientId") UUID clientId);
 
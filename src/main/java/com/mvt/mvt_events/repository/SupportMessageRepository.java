@@ -17,6 +17,12 @@ public interface SupportMessageRepository extends JpaRepository<SupportMessage,
     /** Thread completo de um usuário, do mais antigo pro mais recente (ordem natural de chat). */
     List<SupportMessage> findByUserIdOrderByCreatedAtAsc(UUID userId);
 
+    /**
+     * Fetch incremental do thread: só as mensagens com id > {@code sinceId}.
+     * Usado pelo app ao reconectar o stream, em vez de baixar o histórico inteiro.
+     */
+    List<SupportMessage> findByUserIdAndIdGreaterThanOrderByIdAsc(UUID userId, Long sinceId);
+
     /**
      * Conta mensagens não lidas em uma direção específica.
      * <p>Para badge do usuário: {@code countUnread(userId, fromAdmin=true)} = quantas o admin
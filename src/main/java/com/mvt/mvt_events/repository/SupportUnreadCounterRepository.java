@@ -0,0 +1,55 @@
+package com.mvt.mvt_events.repository;
+
+import com.mvt.mvt_events.jpa.SupportUnreadCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface SupportUnreadCounterRepository extends JpaRepository<SupportUnreadCounter, UUID> {
+
+    /** +1 em mensagens do user não lidas pelo admin (cria a linha no primeiro envio). */
+    @Modifying
+    @Query(value = """
+        INSERT INTO support_unread_counters (user_id, user_unread, admin_unread)
+        VALUES (:userId, 0, 1)
+        ON CONFLICT (user_id) DO UPDATE
+            SET admin_unread = support_unread_counters.admin_unread + 1
+        """, nativeQuery = true)
+    int incrementAdminUnread(@Param("userId") UUID userId);
+
+    /** +1 em mensagens do admin não lidas pelo user. */
+    @Modifying
+    @Query(value = """
+        INSERT INTO support_unread_counters (user_id, user_unread, admin_unread)
+        VALUES (:userId, 1, 0)
+        ON CONFLICT (user_id) DO UPDATE
+            SET user_unread = support_unread_counters.user_unread + 1
+        """, nativeQuery = true)
+    int incrementUserUnread(@Param("userId") UUID userId);
+
+    @Modifying
+    @Query(value = "UPDATE support_unread_counters SET user_unread = 0 WHERE user_id = :userId AND user_unread <> 0",
+           nativeQuery = true)
+    int resetUserUnread(@Param("userId") UUID userId);
+
+    @Modifying
+    @Query(value = "UPDATE support_unread_counters SET admin_unread = 0 WHERE user_id = :userId AND admin_unread <> 0",
+           nativeQuery = true)
+    int resetAdminUnread(@Param("userId") UUID userId);
+
+    @Query(value = "SELECT user_unread FROM support_unread_counters WHERE user_id = :userId", nativeQuery = true)
+    Optional<Integer> findUserUnread(@Param("userId") UUID userId);
+
+    @Query(value = "SELECT admin_unread FROM support_unread_counters WHERE user_id = :userId", nativeQuery = true)
+    Optional<Integer> findAdminUnread(@Param("userId") UUID userId);
+
+    /** Threads com mensagem do user pendente pro admin — varre só o partial index. */
+    @Query(value = "SELECT COUNT(*) FROM support_unread_counters WHERE admin_unread > 0", nativeQuery = true)
+    long countConversationsWithAdminUnread();
+}
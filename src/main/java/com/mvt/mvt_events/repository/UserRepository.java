@@ -177,33 +177,51 @@ public interface UserRepository extends JpaRepository<User, UUID>, JpaSpecificat
               "AND u.deletedAt IS NULL AND u.blocked = false")
        java.util.List<User> findActiveAdmins();
 
+       // ============================================================================
+       // TYPEAHEAD — trechos comuns das buscas abaixo
+       // ============================================================================
+       // O termo chega normalizado do UserService (minúsculo, trim; só dígitos se parecer
+       // telefone) e com pelo menos o tamanho mínimo. As expressões são as mesmas dos índices
+       // GIN trigram do V147 (parciais em enabled/blocked), então cada LIKE '%termo%' vira
+       // um bitmap scan em vez de seq scan. O telefone gravado é comparado só pelos dígitos,
+       // como o termo. Ordem: prefixo do nome, depois similaridade trigram.
+
+       String TYPEAHEAD_MATCH =
+              "AND (immutable_unaccent(LOWER(u.name)) LIKE '%' || immutable_unaccent(LOWER(:search)) || '%' " +
+              "OR immutable_unaccent(LOWER(u.username)) LIKE '%' || immutable_unaccent(LOWER(:search)) || '%' " +
+              "OR regexp_replace(COALESCE(u.phone_ddd, '') || COALESCE(u.phone_number, ''), '\\D', '', 'g') LIKE '%' || :search || '%') ";
+
+       String TYPEAHEAD_ORDER =
+              "ORDER BY immutable_unaccent(LOWER(u.name)) LIKE immutable_unaccent(LOWER(:search)) || '%' DESC, " +
+              "GREATEST(similarity(immutable_unaccent(LOWER(u.name)), immutable_unaccent(LOWER(:search))), " +
+              "similarity(immutable_unaccent(LOWER(u.username)), immutable_unaccent(LOWER(:search)))) DESC, " +
+              "u.name ASC ";
+
        // ============================================================================
        // COURIER SEARCH (typeahead para mobile)
        // ============================================================================
 
        /**
-        * Busca motoboys por nome ou email que NÃO estão na organização especificada
+        * Busca motoboys por nome, email ou telefone que NÃO estão na organização especificada
         * Para typeahead mobile do gerente ao adicionar motoboys no grupo
-        * Usa immutable_unaccent para busca insensível a acentos
         */
        @Query(value = "SELECT * FROM users u WHERE u.role = 'COURIER' " +
               "AND u.enabled = true AND u.blocked = false " +
-              "AND (immutable_unaccent(LOWER(u.name)) LIKE immutable_unaccent(LOWER(CONCAT('%', :search, '%'))) OR immutable_unaccent(LOWER(u.username)) LIKE immutable_unaccent(LOWER(CONCAT('%', :search, '%')))) " +
+              TYPEAHEAD_MATCH +
               "AND NOT EXISTS (SELECT 1 FROM employment_contracts ec WHERE ec.courier_id = u.id AND ec.organization_id = :organizationId AND ec.is_active = true) " +
-              "ORDER BY u.name ASC " +
+              TYPEAHEAD_ORDER +
               "LIMIT :limit", nativeQuery = true)
        List<User> searchCouriersNotInOrganization(@Param("search") String search, 
                                                    @Param("organizationId") Long organizationId, 
                                                    @Param("limit") Integer limit);
 
        /**
-        * Busca motoboys por nome ou email (sem filtro de organização)
-        * Usa immutable_unaccent para busca insensível a acentos
+        * Busca motoboys por nome, email ou telefone (sem filtro de organização)
         */
        @Query(value = "SELECT * FROM users u WHERE u.role = 'COURIER' " +
               "AND u.enabled = true AND u.blocked = false " +
-              "AND (immutable_unaccent(LOWER(u.name)) LIKE immutable_unaccent(LOWER(CONCAT('%', :search, '%'))) OR immutable_unaccent(LOWER(u.username)) LIKE immutable_unaccent(LOWER(CONCAT('%', :search, '%')))) " +
-              "ORDER BY u.name ASC " +
+              TYPEAHEAD_MATCH +
+              TYPEAHEAD_ORDER +
               "LIMIT :limit", nativeQuery = true)
        List<User> searchCouriersWithLimit(@Param("search") String search, 
                                           @Param("limit") Integer limit);
@@ -213,13 +231,13 @@ public interface UserRepository extends JpaRepository<User, UUID>, JpaSpecificat
        // ============================================================================
 
        /**
-        * Busca garçons por nome ou email que NÃO estão vinculados ao CLIENT especificado
+        * Busca garçons por nome, email ou telefone que NÃO estão vinculados ao CLIENT especificado
         */
        @Query(value = "SELECT * FROM users u WHERE u.role = 'WAITER' " +
               "AND u.enabled = true AND u.blocked = false " +
-              "AND (immutable_unaccent(LOWER(u.name)) LIKE immutable_unaccent(LOWER(CONCAT('%', :search, '%'))) OR immutable_unaccent(LOWER(u.username)) LIKE immutable_unaccent(LOWER(CONCAT('%', :search, '%')))) " +
+              TYPEAHEAD_MATCH +
               "AND NOT EXISTS (SELECT 1 FROM client_waiters cw WHERE cw.waiter_id = u.id AND cw.client_id = :clientId AND cw.active = true) " +
-              "ORDER BY u.name ASC " +
+              TYPEAHEAD_ORDER +
               "LIMIT :limit", nativeQuery = true)
        List<User> searchWaitersNotLinkedToClient(@Param("search") String search,
                                                   @Param("clientId") java.util.UUID clientId,
@@ -230,28 +248,26 @@ public interface UserRepository extends JpaRepository<User, UUID>, JpaSpecificat
        // ============================================================================
 
        /**
-        * Busca clientes por nome ou email que NÃO estão na organização especificada
+        * Busca clientes por nome, email ou telefone que NÃO estão na organização especificada
         * Para typeahead mobile do gerente ao adicionar clientes no grupo
-        * Usa immutable_unaccent para busca insensível a acentos
         */
        @Query(value = "SELECT * FROM users u WHERE u.role IN ('CLIENT', 'CUSTOMER') " +
               "AND u.enabled = true AND u.blocked = false " +
-              "AND (immutable_unaccent(LOWER(u.name)) LIKE immutable_unaccent(LOWER(CONCAT('%', :search, '%'))) OR immutable_unaccent(LOWER(u.username)) LIKE immutable_unaccent(LOWER(CONCAT('%', :search, '%')))) " +
+              TYPEAHEAD_MATCH +
               "AND NOT EXISTS (SELECT 1 FROM client_contracts cc WHERE cc.client_id = u.id AND cc.organization_id = :organizationId AND cc.status = 'ACTIVE') " +
-              "ORDER BY u.name ASC " +
+              TYPEAHEAD_ORDER +
               "LIMIT :limit", nativeQuery = true)
        List<User> searchClientsNotInOrganization(@Param("search") String search, 
                                                   @Param("organizationId") Long organizationId, 
                                                   @Param("limit") Integer limit);
 
        /**
-        * Busca clientes por nome ou email (sem filtro de organização)
-        * Usa immutable_unaccent para busca insensível a acentos
+        * Busca clientes por nome, email ou telefone (sem filtro de organização)
         */
        @Query(value = "SELECT * FROM users u WHERE u.role IN ('CLIENT', 'CUSTOMER') " +
               "AND u.enabled = true AND u.blocked = false " +
-              "AND (immutable_unaccent(LOWER(u.name)) LIKE immutable_unaccent(LOWER(CONCAT('%', :search, '%'))) OR immutable_unaccent(LOWER(u.username)) LIKE immutable_unaccent(LOWER(CONCAT('%', :search, '%')))) " +
-              "ORDER BY u.name ASC " +
+              TYPEAHEAD_MATCH +
+              TYPEAHEAD_ORDER +
               "LIMIT :limit", nativeQuery = true)
        List<User> searchClientsWithLimit(@Param("search") String search, 
                                          @Param("limit") Integer limit);
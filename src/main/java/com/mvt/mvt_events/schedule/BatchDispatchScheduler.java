@@ -0,0 +1,36 @@
+package com.mvt.mvt_events.schedule;
+
+import com.mvt.mvt_events.service.BatchDispatchService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Ciclo do dispatch em lote ({@link BatchDispatchService}).
+ *
+ * ⚠️ Opt-in: só existe com `delivery.dispatch.mode=batch`. No modo padrão (broadcast)
+ * cada delivery nova dispara a escalação em 3 níveis do DeliveryNotificationService.
+ *
+ * O lease pode trocar de réplica a cada ciclo: as ofertas em aberto ficam em
+ * {@code dispatch_offers}, não em memória, então a réplica seguinte respeita as reservas.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "delivery.dispatch.mode", havingValue = "batch")
+public class BatchDispatchScheduler {
+
+    private final BatchDispatchService dispatchService;
+
+    @Scheduled(fixedDelayString = "${delivery.dispatch.interval-ms:5000}")
+    @LeasedJob("batch-dispatch")
+    public void dispatchPendingDeliveries() {
+        try {
+            dispatchService.dispatch();
+        } catch (Exception e) {
+            log.error("❌ [BatchDispatch] ciclo falhou: {}", e.getMessage(), e);
+        }
+    }
+}
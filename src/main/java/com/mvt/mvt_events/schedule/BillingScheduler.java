@@ -1,8 +1,7 @@
 package com.mvt.mvt_events.schedule;
 
-import com.mvt.mvt_events.jpa.ClientSubscription;
-import com.mvt.mvt_events.repository.ClientSubscriptionRepository;
-import com.mvt.mvt_events.service.BillingService;
+import com.mvt.mvt_events.jpa.BillingRunItem;
+import com.mvt.mvt_events.service.BillingBatchService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -11,7 +10,6 @@ import org.springframework.stereotype.Component;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
 import java.util.Map;
 
 /**
@@ -28,6 +26,9 @@ import java.util.Map;
  *   15 → 10
  *   20 → 15
  *   25 → 20
+ *
+ * As subscriptions do vencimento são faturadas em paralelo e com checkpoint pelo
+ * {@link BillingBatchService}; execução interrompida é retomada por {@link #resumeUnfinishedRuns()}.
  */
 @Component
 @Slf4j
@@ -49,13 +50,13 @@ public class BillingScheduler {
             20, 25
     );
 
-    private final ClientSubscriptionRepository subscriptionRepository;
-    private final BillingService billingService;
+    private final BillingBatchService billingBatchService;
 
     /**
      * Roda todo dia às 06:00. Verifica se hoje é dia de geração.
      */
     @Scheduled(cron = "0 0 6 * * *")
+    @LeasedJob(value = "billing-generation", minIntervalSeconds = 3600)
     public void generateBillingInvoices() {
         int today = LocalDate.now(TZ).getDayOfMonth();
         Integer dueDayToGenerate = GENERATION_TO_DUE.get(today);
@@ -71,34 +72,27 @@ public class BillingScheduler {
                 LocalDate.now(TZ).format(DateTimeFormatter.ofPattern("dd/MM/yyyy")), dueDayToGenerate);
         log.info("╚════════════════════════════════════════════════════════════════╝");
 
-        List<ClientSubscription> subscriptions = subscriptionRepository
-                .findByActiveTrueAndBillingDueDay(dueDayToGenerate);
-
-        if (subscriptions.isEmpty()) {
-            log.info("📋 Nenhuma subscription ativa com vencimento dia {}", dueDayToGenerate);
-            return;
-        }
-
-        int generated = 0;
-        int skipped = 0;
-        int errors = 0;
-
-        for (ClientSubscription sub : subscriptions) {
-            try {
-                billingService.generateMonthlyInvoice(sub);
-                generated++;
-            } catch (Exception e) {
-                errors++;
-                log.error("❌ Erro ao gerar fatura para subscription {}: {}", sub.getId(), e.getMessage(), e);
-            }
-        }
+        BillingBatchService.RunSummary summary = billingBatchService.run(LocalDate.now(TZ), dueDayToGenerate);
+        if (summary == null) return;
 
         log.info("═══════════════════════════════════════════════════════════════");
         log.info("📊 RESULTADO DO BILLING");
         log.info("═══════════════════════════════════════════════════════════════");
-        log.info("  📋 Subscriptions processadas: {}", subscriptions.size());
-        log.info("  ✅ Faturas geradas: {}", generated);
-        log.info("  ❌ Erros: {}", errors);
+        log.info("  📋 Execução #{} ({})", summary.runId(), summary.completed() ? "concluída" : "incompleta");
+        log.info("  ✅ Faturas geradas: {}", summary.count(BillingRunItem.Status.GENERATED));
+        log.info("  ⏭️  Já existentes: {}", summary.count(BillingRunItem.Status.SKIPPED));
+        log.info("  ❌ Erros: {}", summary.count(BillingRunItem.Status.FAILED));
+        log.info("  ⏱️  Duração: {} ms", summary.durationMs());
         log.info("═══════════════════════════════════════════════════════════════");
     }
+
+    /**
+     * Retoma execuções de billing que ficaram incompletas (queda da instância no meio do lote).
+     */
+    @Scheduled(fixedDelayString = "${billing.batch.resume-check-ms:600000}",
+               initialDelayString = "${billing.batch.resume-check-ms:600000}")
+    @LeasedJob(value = "billing-resume", minIntervalSeconds = 300)
+    public void resumeUnfinishedRuns() {
+        billingBatchService.resumeUnfinished();
+    }
 }
@@ -32,6 +32,7 @@ public class CashReportScheduler {
     private final EmailService emailService;
 
     @Scheduled(cron = "0 50 0 * * *", zone = "America/Fortaleza")
+    @LeasedJob(value = "cash-report", minIntervalSeconds = 3600)
     public void sendDailyCashReports() {
         LocalDate yesterday = LocalDate.now(TZ).minusDays(1);
         log.info("📊 [CashReport] Iniciando envio do relatório de {}", yesterday);
@@ -34,6 +34,7 @@ public class ConsolidatedPaymentReminderScheduler {
      * Roda às 16:05 todo dia.
      */
     @Scheduled(cron = "0 5 16 * * *")
+    @LeasedJob(value = "consolidated-payment-reminder", minIntervalSeconds = 3600)
     public void sendPaymentReminders() {
         log.info("╔════════════════════════════════════════════════════════════════╗");
         log.info("║ 🔔 CRONJOB: Lembretes de Pagamento Consolidado (16:05)          ║");
@@ -26,15 +26,22 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class ConsolidatedPaymentScheduler {
 
+    static final String JOB = "consolidated-payments";
+    static final long MIN_INTERVAL_SECONDS = 600;
+
     private final ConsolidatedPaymentService consolidatedPaymentService;
+    private final JobLeaseService jobLeaseService;
 
     /**
      * Executa uma rodada na subida da aplicação usando o mesmo fluxo do scheduler.
+     * Usa o mesmo lease do cron: num deploy com várias réplicas só a primeira a subir consolida.
      */
     @PostConstruct
     public void consolidatePaymentsOnStartup() {
         log.info("🚀 STARTUP: disparando consolidação inicial de PIX");
-        consolidatePayments();
+        if (!jobLeaseService.runExclusive(JOB, MIN_INTERVAL_SECONDS, this::consolidatePayments)) {
+            log.info("⏭️ STARTUP: consolidação já rodou em outra instância");
+        }
     }
 
     /**
@@ -42,6 +49,7 @@ public class ConsolidatedPaymentScheduler {
      * Roda 6x/dia: 00:00, 04:00, 08:00, 12:00, 16:00, 20:00. PIX expira em 3h55 (antes da próxima rodada).
      */
     @Scheduled(cron = "0 0 0,4,8,12,16,20 * * *")
+    @LeasedJob(value = JOB, minIntervalSeconds = MIN_INTERVAL_SECONDS)
     public void consolidatePayments() {
         String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
         log.info("╔════════════════════════════════════════════════════════════════╗");
@@ -0,0 +1,101 @@
+package com.mvt.mvt_events.schedule;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * Lease de job (ou de uma partição) que esta instância segura no momento.
+ *
+ * Fica disponível em {@link #current()} durante a execução do método {@link LeasedJob}.
+ * {@link #assertHeld()} é a checagem de fencing: confere no banco que o fencing token
+ * ainda é o vigente antes de um efeito externo (PIX, cobrança) e lança
+ * {@link LostException} se outra réplica assumiu o job.
+ */
+@Getter
+public class JobLease {
+
+    private static final ThreadLocal<JobLease> CURRENT = new ThreadLocal<>();
+
+    private final String jobName;
+    private final String leaseName;
+    private final int partition;
+    private final int partitions;
+    private final long fencingToken;
+    private final long minIntervalSeconds;
+    @Getter(AccessLevel.NONE)
+    private final JobLeaseService service;
+    private volatile boolean lost;
+
+    JobLease(String jobName, int partition, int partitions, long fencingToken, long minIntervalSeconds,
+            JobLeaseService service) {
+        this.jobName = jobName;
+        this.leaseName = leaseName(jobName, partition, partitions);
+        this.partition = partition;
+        this.partitions = partitions;
+        this.fencingToken = fencingToken;
+        this.minIntervalSeconds = minIntervalSeconds;
+        this.service = service;
+    }
+
+    static String leaseName(String jobName, int partition, int partitions) {
+        return partitions > 1 ? jobName + "#" + partition : jobName;
+    }
+
+    /** Lease do job em execução na thread atual, ou null fora de um {@link LeasedJob}. */
+    public static JobLease current() {
+        return CURRENT.get();
+    }
+
+    static JobLease bind(JobLease lease) {
+        JobLease previous = CURRENT.get();
+        CURRENT.set(lease);
+        return previous;
+    }
+
+    static void restore(JobLease previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * Checagem de fencing do job em execução na thread atual. Fora de um {@link LeasedJob}
+     * (ex.: disparo manual pelo admin) não faz nada.
+     */
+    public static void assertCurrentHeld() {
+        JobLease lease = CURRENT.get();
+        if (lease != null) {
+            lease.assertHeld();
+        }
+    }
+
+    /** A chave pertence a esta partição (sempre true para jobs não particionados). */
+    public boolean owns(Object key) {
+        return partitions <= 1 || Math.floorMod(key.hashCode(), partitions) == partition;
+    }
+
+    /** Primeira partição: onde fica a parte não particionável do job. */
+    public boolean isFirstPartition() {
+        return partition == 0;
+    }
+
+    public void assertHeld() {
+        if (lost || !service.isHeld(this)) {
+            lost = true;
+            throw new LostException(this);
+        }
+    }
+
+    void markLost() {
+        lost = true;
+    }
+
+    /** Outra réplica assumiu o lease (expirou sem heartbeat); o job deve parar. */
+    public static class LostException extends IllegalStateException {
+        public LostException(JobLease lease) {
+            super("Lease " + lease.getLeaseName() + " (token " + lease.getFencingToken() + ") não pertence mais a esta instância");
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.mvt.mvt_events.schedule;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Leases dos jobs agendados, guardados no Postgres (scheduled_job_leases, V148), para que
+ * réplicas extras dividam o trabalho em vez de duplicá-lo.
+ *
+ * - Aquisição: um único INSERT ... ON CONFLICT DO UPDATE que só vence se o lease atual
+ *   expirou; cada aquisição incrementa o fencing token.
+ * - Heartbeat: thread própria (não depende do pool do @Scheduled, que pode estar ocupado
+ *   com o próprio job) renova os leases em uso e o registro da instância em
+ *   scheduler_instances. Se a instância travar, o lease expira em {@code ttl-seconds}.
+ * - Partições: a instância começa pela sua faixa de partições (posição na lista de
+ *   instâncias vivas) e depois tenta as demais, que só estarão livres se a dona não rodou.
+ */
+@Service
+@Slf4j
+public class JobLeaseService {
+
+    /** Corpo de um job sob lease (o aspect passa o {@code proceed()} do join point). */
+    @FunctionalInterface
+    public interface LeasedTask {
+        void run() throws Throwable;
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${scheduling.leases.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${scheduling.leases.ttl-seconds:60}")
+    private long ttlSeconds = 60;
+
+    @Value("${scheduling.leases.heartbeat-ms:15000}")
+    private long heartbeatMs = 15000;
+
+    @Value("${scheduling.leases.instance-id:}")
+    private String instanceId = "";
+
+    private final Set<JobLease> held = ConcurrentHashMap.newKeySet();
+    private TransactionTemplate requiresNew;
+    private ScheduledExecutorService heartbeat;
+
+    @PostConstruct
+    public void start() {
+        if (instanceId == null || instanceId.isBlank()) {
+            instanceId = hostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        }
+        requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        if (!enabled) {
+            log.warn("⚠️ Leases de jobs desabilitados (scheduling.leases.enabled=false) — toda réplica roda todos os jobs");
+            return;
+        }
+
+        registerInstance();
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("job-lease-heartbeat-");
+        threadFactory.setDaemon(true);
+        heartbeat = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        heartbeat.scheduleWithFixedDelay(this::heartbeat, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+        log.info("🔒 Leases de jobs ativos — instância {}", instanceId);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (heartbeat == null) {
+            return;
+        }
+        heartbeat.shutdownNow();
+        try {
+            jdbcTemplate.update("DELETE FROM scheduler_instances WHERE instance_id = ?", instanceId);
+        } catch (Exception e) {
+            log.debug("Falha ao remover instância {} no shutdown: {}", instanceId, e.getMessage());
+        }
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Roda o job (ou cada partição conquistada) sob lease. Partições/jobs com lease de outra
+     * réplica são puladas. Se o lease se perder no meio ({@link JobLease.LostException}), a
+     * execução daquela partição é abandonada.
+     *
+     * @return quantas partições rodaram nesta instância (0 = outra réplica está com o job)
+     */
+    public int run(String job, long minIntervalSeconds, int partitions, LeasedTask task) throws Throwable {
+        if (!enabled) {
+            task.run();
+            return 1;
+        }
+        int executed = 0;
+        for (int partition : partitionOrder(Math.max(1, partitions))) {
+            JobLease lease = tryAcquire(job, partition, Math.max(1, partitions), minIntervalSeconds);
+            if (lease == null) {
+                continue;
+            }
+            executed++;
+            held.add(lease);
+            JobLease previous = JobLease.bind(lease);
+            try {
+                task.run();
+            } catch (JobLease.LostException e) {
+                log.warn("⚠️ [JobLease] {} — interrompendo", e.getMessage());
+            } finally {
+                JobLease.restore(previous);
+                held.remove(lease);
+                release(lease);
+            }
+        }
+        if (executed == 0 && log.isDebugEnabled()) {
+            log.debug("⏭️ [JobLease] {} já está com outra instância — pulando", job);
+        }
+        return executed;
+    }
+
+    /** {@link #run} para chamadas fora do aspect (ex.: rodada de startup via @PostConstruct). */
+    public boolean runExclusive(String job, long minIntervalSeconds, Runnable task) {
+        try {
+            return run(job, minIntervalSeconds, 1, task::run) > 0;
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Tenta adquirir o lease; null se outra réplica segura ou ele ainda está no intervalo mínimo. */
+    JobLease tryAcquire(String job, int partition, int partitions, long minIntervalSeconds) {
+        String leaseName = JobLease.leaseName(job, partition, partitions);
+        Long token = requiresNew.execute(status -> jdbcTemplate.query("""
+                INSERT INTO scheduled_job_leases AS l
+                       (job_name, owner_id, fencing_token, acquired_at, heartbeat_at, expires_at)
+                VALUES (?, ?, 1, now(), now(), now() + ? * interval '1 second')
+                ON CONFLICT (job_name) DO UPDATE
+                   SET owner_id = EXCLUDED.owner_id,
+                       fencing_token = l.fencing_token + 1,
+                       acquired_at = now(),
+                       heartbeat_at = now(),
+                       expires_at = EXCLUDED.expires_at
+                 WHERE l.expires_at <= now()
+                RETURNING fencing_token
+                """, rs -> rs.next() ? rs.getLong(1) : null, leaseName, instanceId, ttlSeconds));
+        if (token == null) {
+            return null;
+        }
+        return new JobLease(job, partition, partitions, token, minIntervalSeconds, this);
+    }
+
+    /** Checagem de fencing: o token ainda é o vigente e o lease não expirou. */
+    boolean isHeld(JobLease lease) {
+        Integer count = jdbcTemplate.queryForObject("""
+                SELECT count(*) FROM scheduled_job_leases
+                 WHERE job_name = ? AND owner_id = ? AND fencing_token = ? AND expires_at > now()
+                """, Integer.class, lease.getLeaseName(), instanceId, lease.getFencingToken());
+        return count != null && count > 0;
+    }
+
+    /** Devolve o lease, mantendo-o preso até acquired_at + intervalo mínimo. */
+    void release(JobLease lease) {
+        try {
+            requiresNew.executeWithoutResult(status -> jdbcTemplate.update("""
+                    UPDATE scheduled_job_leases
+                       SET expires_at = GREATEST(now(), acquired_at + ? * interval '1 second')
+                     WHERE job_name = ? AND owner_id = ? AND fencing_token = ?
+                    """, lease.getMinIntervalSeconds(), lease.getLeaseName(), instanceId, lease.getFencingToken()));
+        } catch (Exception e) {
+            // Sem release o lease expira sozinho em ttl-seconds
+            log.warn("⚠️ [JobLease] falha ao liberar {}: {}", lease.getLeaseName(), e.getMessage());
+        }
+    }
+
+    /** Renova os leases em uso e o registro da instância. */
+    void heartbeat() {
+        try {
+            registerInstance();
+            for (JobLease lease : held) {
+                int renewed = jdbcTemplate.update("""
+                        UPDATE scheduled_job_leases
+                           SET heartbeat_at = now(), expires_at = now() + ? * interval '1 second'
+                         WHERE job_name = ? AND owner_id = ? AND fencing_token = ?
+                        """, ttlSeconds, lease.getLeaseName(), instanceId, lease.getFencingToken());
+                if (renewed == 0) {
+                    lease.markLost();
+                    log.warn("⚠️ [JobLease] lease {} (token {}) assumido por outra instância",
+                            lease.getLeaseName(), lease.getFencingToken());
+                }
+            }
+            jdbcTemplate.update("DELETE FROM scheduler_instances WHERE heartbeat_at < now() - ? * interval '1 second'",
+                    ttlSeconds * 10);
+        } catch (Exception e) {
+            log.warn("⚠️ [JobLease] heartbeat falhou: {}", e.getMessage());
+        }
+    }
+
+    private void registerInstance() {
+        jdbcTemplate.update("""
+                INSERT INTO scheduler_instances (instance_id) VALUES (?)
+                ON CONFLICT (instance_id) DO UPDATE SET heartbeat_at = now()
+                """, instanceId);
+    }
+
+    /** Instâncias com heartbeat dentro do TTL, em ordem estável. */
+    List<String> liveInstances() {
+        return jdbcTemplate.queryForList("""
+                SELECT instance_id FROM scheduler_instances
+                 WHERE heartbeat_at > now() - ? * interval '1 second'
+                 ORDER BY instance_id
+                """, String.class, ttlSeconds);
+    }
+
+    private List<Integer> partitionOrder(int partitions) {
+        if (partitions <= 1) {
+            return List.of(0);
+        }
+        List<String> live = liveInstances();
+        return partitionOrder(partitions, Math.max(0, live.indexOf(instanceId)), Math.max(1, live.size()));
+    }
+
+    /**
+     * Ordem em que a instância {@code index} de {@code instances} tenta as partições: primeiro
+     * a sua faixa contígua, depois as demais em sequência (partições de instâncias que caíram).
+     */
+    static List<Integer> partitionOrder(int partitions, int index, int instances) {
+        int n = Math.min(Math.max(1, instances), partitions);
+        int start = (int) ((long) Math.min(index, n - 1) * partitions / n);
+        List<Integer> order = new ArrayList<>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            order.add((start + i) % partitions);
+        }
+        return order;
+    }
+
+    private static String hostName() {
+        String env = System.getenv("HOSTNAME");
+        if (env != null && !env.isBlank()) {
+            return env;
+        }
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "instance";
+        }
+    }
+}
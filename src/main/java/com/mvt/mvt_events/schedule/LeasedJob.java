@@ -0,0 +1,35 @@
+package com.mvt.mvt_events.schedule;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marca um método {@code @Scheduled} que deve rodar em uma réplica só por vez, coordenado
+ * pela tabela scheduled_job_leases ({@link JobLeaseService}). Réplicas que não pegam o lease
+ * simplesmente pulam a rodada.
+ *
+ * Com {@link #partitions()} > 1 o trabalho é dividido em N partições por hash, cada uma com
+ * o seu lease: o método é chamado uma vez por partição conquistada e filtra o que processa
+ * com {@link JobLease#current()}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface LeasedJob {
+
+    /** Nome do lease, único no cluster. */
+    String value();
+
+    /**
+     * Depois de terminar, o lease continua preso até acquired_at + este intervalo: evita que
+     * outra réplica (com o relógio alguns segundos atrás) repita a mesma rodada do cron.
+     * Deve ser menor que o período do job.
+     */
+    long minIntervalSeconds() default 0;
+
+    /** Número de partições por hash; 1 = job exclusivo. */
+    int partitions() default 1;
+}
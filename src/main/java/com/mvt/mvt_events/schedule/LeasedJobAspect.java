@@ -0,0 +1,31 @@
+package com.mvt.mvt_events.schedule;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Envolve métodos {@link LeasedJob} com o lease do {@link JobLeaseService}. Roda antes de
+ * {@code @Transactional}: cada partição ganha a sua própria transação, e a aquisição do
+ * lease nunca fica presa dentro da transação do job.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class LeasedJobAspect {
+
+    private final JobLeaseService leases;
+
+    public LeasedJobAspect(JobLeaseService leases) {
+        this.leases = leases;
+    }
+
+    @Around("@annotation(leasedJob)")
+    public Object runLeased(ProceedingJoinPoint pjp, LeasedJob leasedJob) throws Throwable {
+        leases.run(leasedJob.value(), leasedJob.minIntervalSeconds(), leasedJob.partitions(), pjp::proceed);
+        return null;
+    }
+}
@@ -1,7 +1,6 @@
 package com.mvt.mvt_events.schedule;
 
 import com.mvt.mvt_events.jpa.PagarmeTransfer;
-import com.mvt.mvt_events.jpa.User;
 import com.mvt.mvt_events.repository.PagarmeTransferRepository;
 import com.mvt.mvt_events.service.CourierTransferService;
 import lombok.RequiredArgsConstructor;
@@ -12,11 +11,14 @@ import org.springframework.stereotype.Component;
 import java.util.List;
 
 /**
- * Processa transfers PENDING via PixOutProvider.
+ * Processa transfers PENDING via PixOutProvider, em lotes ({@link CourierTransferService#executeInBatches}).
  *
  * ⚠️ DESABILITADO por padrão — fluxo atual é SEMI-AUTOMÁTICO:
  * admin dispara manualmente via "Dívidas com Couriers".
  * Para ativar modo automático, setar `pix.out.scheduler.enabled=true`.
+ *
+ * Com várias réplicas, as transfers são divididas por courier (hash do recipient) em
+ * {@value #PARTITIONS} partições sob lease; o envio checa o fencing token antes de cada lote.
  */
 @Component
 @Slf4j
@@ -25,32 +27,24 @@ import java.util.List;
         name = "pix.out.scheduler.enabled", havingValue = "true")
 public class PixOutTransferScheduler {
 
+    static final int PARTITIONS = 4;
+
     private final PagarmeTransferRepository transferRepository;
     private final CourierTransferService transferService;
 
     @Scheduled(cron = "0 */5 * * * *")
+    @LeasedJob(value = "pix-out-transfers", minIntervalSeconds = 120, partitions = PARTITIONS)
     public void processPendingTransfers() {
-        List<PagarmeTransfer> pending = transferRepository.findByStatus(PagarmeTransfer.Status.PENDING);
+        JobLease lease = JobLease.current();
+        List<PagarmeTransfer> pending = transferRepository.findByStatusWithRecipient(PagarmeTransfer.Status.PENDING)
+                .stream()
+                .filter(t -> lease == null || t.getRecipient() == null || lease.owns(t.getRecipient().getId()))
+                .toList();
         if (pending.isEmpty()) return;
 
         log.info("💸 [PixOutScheduler] processando {} transfers PENDING", pending.size());
-        int sent = 0, skipped = 0, failed = 0;
-        for (PagarmeTransfer t : pending) {
-            User courier = t.getRecipient();
-            if (courier == null || courier.getPixKey() == null || courier.getPixKey().isBlank()) {
-                skipped++;
-                continue;
-            }
-            try {
-                transferService.executeTransfer(t, courier);
-                if (t.getStatus() == PagarmeTransfer.Status.SUCCEEDED) sent++;
-                else if (t.getStatus() == PagarmeTransfer.Status.FAILED) failed++;
-            } catch (Exception e) {
-                log.error("❌ Falha processando transfer #{}: {}", t.getId(), e.getMessage(), e);
-                failed++;
-            }
-        }
-        log.info("💸 [PixOutScheduler] resultado — sent: {}, skipped (sem pixKey): {}, failed: {}",
-                sent, skipped, failed);
+        CourierTransferService.BatchSummary r = transferService.executeInBatches(pending);
+        log.info("💸 [PixOutScheduler] resultado — lotes: {}, sent: {}, aguardando confirmação: {}, skipped (sem pixKey): {}, failed: {}",
+                r.batches(), r.succeeded(), r.processing(), r.skipped(), r.failed());
     }
 }
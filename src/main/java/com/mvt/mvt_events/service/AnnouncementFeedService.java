@@ -0,0 +1,186 @@
+package com.mvt.mvt_events.service;
+
+import com.mvt.mvt_events.jpa.Announcement;
+import com.mvt.mvt_events.repository.AnnouncementReadRepository;
+import com.mvt.mvt_events.repository.AnnouncementRepository;
+import com.mvt.mvt_events.util.LruCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Feed de anúncios ativos do app, servido da memória.
+ *
+ * <p>Anúncios mudam pouco e a tela abre a cada entrada no app, então:
+ * <ul>
+ *   <li>os anúncios ativos e não expirados ficam num snapshot agrupado por role, trocado
+ *       atomicamente após create/update/delete nesta instância e a cada
+ *       {@code announcements.snapshot.refresh-ms} (edições feitas em outras instâncias);</li>
+ *   <li>cada usuário tem o conjunto de ids já lidos (array ordenado), carregado uma vez e
+ *       atualizado pelo {@link #markRead}; expira em {@code announcements.read-cache-ttl-ms}
+ *       para pegar leituras feitas por outro dispositivo em outra instância.</li>
+ * </ul>
+ * Com os dois aquecidos, o feed não vai ao banco; publishedAt/expiresAt são conferidos na
+ * hora, então anúncio agendado aparece e expirado some sem recarga.
+ */
+@Service
+@Slf4j
+public class AnnouncementFeedService {
+
+    private static final int READ_CACHE_MAX_USERS = 50_000;
+
+    @Autowired
+    private AnnouncementRepository announcementRepository;
+
+    @Autowired
+    private AnnouncementReadRepository readRepository;
+
+    @Value("${announcements.read-cache-ttl-ms:300000}")
+    private long readCacheTtlMs = 300_000L;
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    private final LruCache<UUID, ReadIds> readIds = new LruCache<>(READ_CACHE_MAX_USERS);
+
+    /** Anúncios visíveis para o usuário (mais recente primeiro) e o ETag dessa lista. */
+    public record Feed(List<Announcement> announcements, String etag) {
+    }
+
+    public enum ReadResult { MARKED, ALREADY_READ, NOT_FOUND }
+
+    /** Ativos não expirados por role, e o conjunto de ids para checagens rápidas. */
+    private record Snapshot(Map<String, List<Announcement>> byRole, Set<Long> ids) {
+
+        static Snapshot of(List<Announcement> active) {
+            Map<String, List<Announcement>> byRole = new HashMap<>();
+            Set<Long> ids = new HashSet<>();
+            for (Announcement a : active) {
+                ids.add(a.getId());
+                for (String role : a.getRolesCsv().split(",")) {
+                    if (!role.isBlank()) {
+                        byRole.computeIfAbsent(role.trim(), r -> new ArrayList<>()).add(a);
+                    }
+                }
+            }
+            byRole.replaceAll((role, list) -> List.copyOf(list));
+            return new Snapshot(Map.copyOf(byRole), Set.copyOf(ids));
+        }
+    }
+
+    /** Ids lidos pelo usuário, ordenados (busca binária), com validade. */
+    private record ReadIds(long[] ids, long expiresAt) {
+
+        boolean contains(long id) {
+            return Arrays.binarySearch(ids, id) >= 0;
+        }
+
+        ReadIds with(long id) {
+            if (contains(id)) return this;
+            long[] copy = Arrays.copyOf(ids, ids.length + 1);
+            copy[ids.length] = id;
+            Arrays.sort(copy);
+            return new ReadIds(copy, expiresAt);
+        }
+    }
+
+    public Feed feedFor(UUID userId, String role) {
+        List<Announcement> candidates = snapshot().byRole().getOrDefault(role, List.of());
+        if (candidates.isEmpty()) {
+            return new Feed(List.of(), etag(List.of()));
+        }
+        ReadIds read = readIds(userId);
+        OffsetDateTime now = OffsetDateTime.now();
+        List<Announcement> visible = new ArrayList<>(candidates.size());
+        for (Announcement a : candidates) {
+            if (a.getPublishedAt() != null && a.getPublishedAt().isAfter(now)) continue;
+            if (a.getExpiresAt() != null && !a.getExpiresAt().isAfter(now)) continue;
+            if (read.contains(a.getId())) continue;
+            visible.add(a);
+        }
+        return new Feed(visible, etag(visible));
+    }
+
+    /**
+     * Marca como lido com um único INSERT ... ON CONFLICT DO NOTHING. Só quando nada foi
+     * inserido e o id não está no snapshot é que se confere se o anúncio existe.
+     */
+    public ReadResult markRead(Long announcementId, UUID userId) {
+        ReadIds cached = readIds.get(userId);
+        if (cached != null && cached.expiresAt() > System.currentTimeMillis() && cached.contains(announcementId)) {
+            return ReadResult.ALREADY_READ;
+        }
+        int inserted = readRepository.insertIfAbsent(announcementId, userId);
+        if (inserted == 0 && !snapshot().ids().contains(announcementId)
+                && !announcementRepository.existsById(announcementId)) {
+            return ReadResult.NOT_FOUND;
+        }
+        readIds.computeIfPresent(userId, (id, read) -> read.with(announcementId));
+        return inserted > 0 ? ReadResult.MARKED : ReadResult.ALREADY_READ;
+    }
+
+    /** Snapshot atual (carrega na primeira chamada). */
+    private Snapshot snapshot() {
+        Snapshot current = snapshot.get();
+        if (current == null) {
+            current = load();
+            if (!snapshot.compareAndSet(null, current)) {
+                current = snapshot.get();
+            }
+        }
+        return current;
+    }
+
+    /** Recarrega e troca o snapshot (chamado após create/update/delete). */
+    public void refresh() {
+        snapshot.set(load());
+    }
+
+    @Scheduled(fixedDelayString = "${announcements.snapshot.refresh-ms:60000}",
+               initialDelayString = "${announcements.snapshot.refresh-ms:60000}")
+    public void scheduledRefresh() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            log.warn("⚠️ Falha ao recarregar anúncios ativos (mantendo snapshot anterior): {}", e.getMessage());
+        }
+    }
+
+    private Snapshot load() {
+        return Snapshot.of(announcementRepository.findActiveNotExpired(OffsetDateTime.now()));
+    }
+
+    private ReadIds readIds(UUID userId) {
+        long now = System.currentTimeMillis();
+        ReadIds cached = readIds.get(userId);
+        if (cached != null && cached.expiresAt() > now) {
+            return cached;
+        }
+        long[] ids = readRepository.findAnnouncementIdsByUserId(userId).stream()
+                .mapToLong(Long::longValue).sorted().toArray();
+        ReadIds loaded = new ReadIds(ids, now + readCacheTtlMs);
+        readIds.put(userId, loaded);
+        return loaded;
+    }
+
+    /** ETag forte: ids e updatedAt dos anúncios da lista, na ordem. */
+    private static String etag(List<Announcement> visible) {
+        long hash = 17;
+        for (Announcement a : visible) {
+            hash = 31 * hash + a.getId();
+            hash = 31 * hash + (a.getUpdatedAt() != null ? a.getUpdatedAt().toInstant().toEpochMilli() : 0);
+        }
+        return "\"a" + visible.size() + "-" + Long.toHexString(hash) + "\"";
+    }
+}
@@ -0,0 +1,220 @@
+package com.mvt.mvt_events.service;
+
+import com.mvt.mvt_events.jpa.Delivery;
+import com.mvt.mvt_events.jpa.User;
+import com.mvt.mvt_events.jpa.VehicleType;
+import com.mvt.mvt_events.repository.DeliveryRepository;
+import com.mvt.mvt_events.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Dispatch em lote (opt-in via {@code delivery.dispatch.mode=batch}): a cada ciclo junta as
+ * deliveries PENDING e os motoboys livres próximos, monta a matriz de custo e resolve a
+ * atribuição ótima com {@link HungarianAssignment}. Cada motoboy recebe no máximo uma oferta
+ * direcionada por vez — no lugar da escalação em 3 níveis com broadcast por delivery.
+ *
+ * Custo do par (motoboy, delivery), em km equivalentes:
+ *   distância até a coleta + peso × entregas concluídas hoje − peso × minutos de espera.
+ * Pares fora do raio, de veículo/serviço incompatível ou sem motoboy elegível são proibidos.
+ *
+ * A oferta fica reservada por {@code delivery.dispatch.offer-ttl-seconds} em
+ * {@code dispatch_offers}; nesse tempo nem a delivery nem o motoboy entram no matching — em
+ * qualquer réplica, já que o lease do job pode mudar de dono a cada ciclo. O aceite continua
+ * pelo fluxo normal (UPDATE condicional) — se o motoboy não aceitar, a delivery volta pro
+ * próximo ciclo.
+ */
+@Service
+@Slf4j
+public class BatchDispatchService {
+
+    public static final String MODE_BATCH = "batch";
+
+    @Value("${delivery.dispatch.radius-km:5.0}")
+    private double radiusKm = 5.0;
+
+    @Value("${delivery.dispatch.max-deliveries:200}")
+    private int maxDeliveries = 200;
+
+    @Value("${delivery.dispatch.offer-ttl-seconds:30}")
+    private long offerTtlSeconds = 30;
+
+    /** Km equivalentes por entrega concluída hoje (espalha o trabalho entre os motoboys). */
+    @Value("${delivery.dispatch.load-weight-km:0.5}")
+    private double loadWeightKm = 0.5;
+
+    /** Km equivalentes por minuto de espera da delivery (evita que as mais antigas fiquem sempre de fora). */
+    @Value("${delivery.dispatch.wait-weight-km-per-min:0.1}")
+    private double waitWeightKmPerMin = 0.1;
+
+    @Autowired
+    private DeliveryRepository deliveryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PushNotificationService pushNotificationService;
+
+    public record DispatchResult(int deliveries, int couriers, int offers) {}
+
+    /** Um ciclo de dispatch. */
+    public DispatchResult dispatch() {
+        Instant now = Instant.now();
+        deliveryRepository.deleteExpiredDispatchOffers();
+        Set<Long> offeredDeliveries = new HashSet<>();
+        Set<UUID> reservedCouriers = new HashSet<>();
+        for (Object[] row : deliveryRepository.findActiveDispatchOffers()) {
+            offeredDeliveries.add(((Number) row[0]).longValue());
+            reservedCouriers.add((UUID) row[1]);
+        }
+
+        List<Delivery> deliveries = deliveryRepository.findPendingForDispatch(PageRequest.of(0, maxDeliveries))
+                .stream()
+                .filter(d -> !offeredDeliveries.contains(d.getId()))
+                .toList();
+        if (deliveries.isEmpty()) {
+            return new DispatchResult(0, 0, 0);
+        }
+
+        // Motoboys candidatos: uma busca por grupo de filtros (veículo + serviço), cobrindo
+        // todas as coletas do grupo — não uma por delivery.
+        Map<UUID, User> couriers = new LinkedHashMap<>();
+        Map<Long, Set<UUID>> eligibleByDelivery = new HashMap<>();
+        Map<String, List<Delivery>> groups = new LinkedHashMap<>();
+        for (Delivery d : deliveries) {
+            groups.computeIfAbsent(groupKey(d), k -> new ArrayList<>()).add(d);
+        }
+        for (List<Delivery> group : groups.values()) {
+            Set<UUID> groupCouriers = new HashSet<>();
+            for (User courier : findCouriersCovering(group)) {
+                if (reservedCouriers.contains(courier.getId())) continue;
+                couriers.putIfAbsent(courier.getId(), courier);
+                groupCouriers.add(courier.getId());
+            }
+            group.forEach(d -> eligibleByDelivery.put(d.getId(), groupCouriers));
+        }
+        if (couriers.isEmpty()) {
+            log.debug("🎯 Dispatch: {} deliveries PENDING, nenhum motoboy livre", deliveries.size());
+            return new DispatchResult(deliveries.size(), 0, 0);
+        }
+
+        List<User> courierList = new ArrayList<>(couriers.values());
+        Map<UUID, Long> completedToday = completedToday(couriers.keySet());
+        double[][] cost = costMatrix(courierList, deliveries, eligibleByDelivery, completedToday, now);
+
+        int[] assignment = HungarianAssignment.solve(cost);
+
+        int sent = 0;
+        for (int i = 0; i < assignment.length; i++) {
+            if (assignment[i] < 0) continue;
+            User courier = courierList.get(i);
+            Delivery delivery = deliveries.get(assignment[i]);
+            if (deliveryRepository.insertDispatchOffer(delivery.getId(), courier.getId(), offerTtlSeconds) == 0) {
+                log.debug("🎯 Oferta da delivery #{} já reservada por outra instância", delivery.getId());
+                continue;
+            }
+            sendOffer(courier, delivery, cost[i][assignment[i]]);
+            sent++;
+        }
+        log.info("🎯 Dispatch: {} deliveries × {} motoboys → {} ofertas", deliveries.size(), courierList.size(), sent);
+        return new DispatchResult(deliveries.size(), courierList.size(), sent);
+    }
+
+    double[][] costMatrix(List<User> couriers, List<Delivery> deliveries, Map<Long, Set<UUID>> eligibleByDelivery,
+                          Map<UUID, Long> completedToday, Instant now) {
+        double[][] cost = new double[couriers.size()][deliveries.size()];
+        for (int i = 0; i < couriers.size(); i++) {
+            User courier = couriers.get(i);
+            double load = loadWeightKm * completedToday.getOrDefault(courier.getId(), 0L);
+            for (int j = 0; j < deliveries.size(); j++) {
+                Delivery d = deliveries.get(j);
+                Set<UUID> eligible = eligibleByDelivery.get(d.getId());
+                double km = StopSequenceOptimizer.haversineKm(courier.getGpsLatitude(), courier.getGpsLongitude(),
+                        d.getFromLatitude(), d.getFromLongitude());
+                if (eligible == null || !eligible.contains(courier.getId()) || km > radiusKm) {
+                    cost[i][j] = HungarianAssignment.FORBIDDEN;
+                } else {
+                    cost[i][j] = km + load - waitWeightKmPerMin * waitingMinutes(d, now);
+                }
+            }
+        }
+        return cost;
+    }
+
+    private List<User> findCouriersCovering(List<Delivery> group) {
+        double lat = 0, lng = 0;
+        for (Delivery d : group) {
+            lat += d.getFromLatitude();
+            lng += d.getFromLongitude();
+        }
+        lat /= group.size();
+        lng /= group.size();
+        double spread = 0;
+        for (Delivery d : group) {
+            spread = Math.max(spread, StopSequenceOptimizer.haversineKm(lat, lng, d.getFromLatitude(), d.getFromLongitude()));
+        }
+
+        Delivery sample = group.get(0);
+        VehicleType vehicleType = DeliveryNotificationService.resolveVehicleTypeFilter(sample);
+        List<String> serviceTypes = DeliveryNotificationService.resolveServiceTypes(sample);
+        return vehicleType != null
+                ? userRepository.findAvailableCouriersNearbyWithVehicleType(lat, lng, spread + radiusKm, vehicleType, serviceTypes)
+                : userRepository.findAvailableCouriersNearby(lat, lng, spread + radiusKm, serviceTypes);
+    }
+
+    private Map<UUID, Long> completedToday(Set<UUID> courierIds) {
+        OffsetDateTime startOfDay = LocalDate.now(ZoneId.systemDefault()).atStartOfDay(ZoneId.systemDefault()).toOffsetDateTime();
+        Map<UUID, Long> counts = new HashMap<>();
+        for (Object[] row : deliveryRepository.countCompletedByCourierSince(courierIds, startOfDay)) {
+            counts.put((UUID) row[0], ((Number) row[1]).longValue());
+        }
+        return counts;
+    }
+
+    private void sendOffer(User courier, Delivery delivery, double cost) {
+        log.info("🎯 Oferta: delivery #{} → motoboy {} (custo {} km eq.)",
+                delivery.getId(), courier.getId(), String.format("%.2f", cost));
+        try {
+            String body = String.format("Entrega de R$ %.2f - %s", delivery.getTotalAmount(), delivery.getClientName());
+            Map<String, Object> data = Map.of(
+                    "type", "delivery_offer",
+                    "deliveryId", delivery.getId().toString(),
+                    "expiresInSeconds", String.valueOf(offerTtlSeconds),
+                    "address", delivery.getFromAddress() != null ? delivery.getFromAddress() : "",
+                    "pickupLatitude", delivery.getFromLatitude().toString(),
+                    "pickupLongitude", delivery.getFromLongitude().toString());
+            pushNotificationService.sendHybridNotificationToUser(courier.getId(),
+                    "🎯 Entrega reservada para você", body, data);
+        } catch (Exception e) {
+            log.error("Erro ao enviar oferta da delivery {} ao motoboy {}: {}",
+                    delivery.getId(), courier.getId(), e.getMessage());
+        }
+    }
+
+    private static String groupKey(Delivery d) {
+        return DeliveryNotificationService.resolveVehicleTypeFilter(d) + "|" + DeliveryNotificationService.resolveServiceTypes(d);
+    }
+
+    private static double waitingMinutes(Delivery d, Instant now) {
+        if (d.getCreatedAt() == null) return 0;
+        return Math.max(0, Duration.between(d.getCreatedAt().toInstant(), now).toSeconds() / 60.0);
+    }
+}
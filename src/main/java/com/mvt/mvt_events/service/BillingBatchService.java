@@ -0,0 +1,242 @@
+package com.mvt.mvt_events.service;
+
+import com.mvt.mvt_events.jpa.BillingRun;
+import com.mvt.mvt_events.jpa.BillingRunItem;
+import com.mvt.mvt_events.jpa.Payment;
+import com.mvt.mvt_events.repository.BillingRunItemRepository;
+import com.mvt.mvt_events.repository.BillingRunRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Motor do billing mensal em lote.
+ *
+ * <p>Fluxo de uma execução ({@link #run}):
+ * <ol>
+ *   <li>abre (ou reabre) o {@link BillingRun} do dia de geração + vencimento e cria um
+ *       checkpoint {@link BillingRunItem} por subscription ativa, num INSERT só</li>
+ *   <li>divide os itens PENDING em {@code billing.batch.parallelism} partições, processadas
+ *       em paralelo no {@code billingTaskExecutor}</li>
+ *   <li>cada item é reivindicado com UPDATE condicional (PENDING → PROCESSING), faturado numa
+ *       transação própria ({@link BillingService#generateMonthlyInvoice(Long, LocalDate)}) e
+ *       fechado com o resultado</li>
+ *   <li>sem itens em aberto, a execução vira COMPLETED</li>
+ * </ol>
+ *
+ * <p>Queda no meio: a execução fica RUNNING e {@link #resumeUnfinished()} continua dos
+ * itens PENDING; itens PROCESSING há mais de {@code billing.batch.stale-claim-ms} voltam
+ * pra fila. A chave de idempotência da fatura (subscription + início do período) garante
+ * que um item reprocessado não gera segunda cobrança.
+ *
+ * <p>Métricas: {@code billing.batch.duration} (execução), {@code billing.batch.invoice}
+ * (por fatura, tag outcome=generated|skipped|failed).
+ */
+@Service
+@Slf4j
+public class BillingBatchService {
+
+    private final BillingRunRepository runRepository;
+    private final BillingRunItemRepository itemRepository;
+    private final BillingService billingService;
+    private final Executor executor;
+    private final MeterRegistry meterRegistry;
+    private final int parallelism;
+    private final Duration staleClaim;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public BillingBatchService(BillingRunRepository runRepository,
+                               BillingRunItemRepository itemRepository,
+                               BillingService billingService,
+                               @Qualifier("billingTaskExecutor") Executor executor,
+                               MeterRegistry meterRegistry,
+                               @Value("${billing.batch.parallelism:4}") int parallelism,
+                               @Value("${billing.batch.stale-claim-ms:900000}") long staleClaimMs) {
+        this.runRepository = runRepository;
+        this.itemRepository = itemRepository;
+        this.billingService = billingService;
+        this.executor = executor;
+        this.meterRegistry = meterRegistry;
+        this.parallelism = Math.max(1, parallelism);
+        this.staleClaim = Duration.ofMillis(staleClaimMs);
+    }
+
+    /** Contagem final por status de uma execução. */
+    public record RunSummary(Long runId, LocalDate runDate, int dueDay, boolean completed,
+                             Map<BillingRunItem.Status, Long> counts, long durationMs) {
+
+        public long count(BillingRunItem.Status status) {
+            return counts.getOrDefault(status, 0L);
+        }
+    }
+
+    /**
+     * Fatura as subscriptions com vencimento {@code dueDay} para o dia de geração
+     * {@code runDate}. Execução já COMPLETED não é refeita.
+     */
+    public RunSummary run(LocalDate runDate, int dueDay) {
+        if (!running.compareAndSet(false, true)) {
+            log.warn("⏳ Billing em lote já em execução nesta instância — ignorando disparo ({}, dia {})", runDate, dueDay);
+            return null;
+        }
+        try {
+            return execute(openRun(runDate, dueDay));
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /** Retoma execuções que ficaram RUNNING (instância caiu no meio do lote). */
+    public void resumeUnfinished() {
+        if (!running.compareAndSet(false, true)) return;
+        try {
+            for (BillingRun run : runRepository.findByStatusOrderByIdAsc(BillingRun.Status.RUNNING)) {
+                log.info("🔁 Retomando billing em lote #{} ({}, vencimento dia {})", run.getId(), run.getRunDate(), run.getDueDay());
+                execute(run);
+            }
+        } finally {
+            running.set(false);
+        }
+    }
+
+    // ================================================================
+    // EXECUÇÃO
+    // ================================================================
+
+    private BillingRun openRun(LocalDate runDate, int dueDay) {
+        BillingRun run = runRepository.findByRunDateAndDueDay(runDate, dueDay).orElse(null);
+        if (run == null) {
+            try {
+                run = runRepository.save(BillingRun.builder().runDate(runDate).dueDay(dueDay).build());
+            } catch (DataIntegrityViolationException e) {
+                // Outra instância abriu a mesma execução ao mesmo tempo
+                run = runRepository.findByRunDateAndDueDay(runDate, dueDay).orElseThrow(() -> e);
+            }
+        }
+        if (run.getStatus() == BillingRun.Status.RUNNING) {
+            int seeded = itemRepository.seedItems(run.getId(), dueDay);
+            if (seeded > 0) {
+                run.setTotalItems(run.getTotalItems() + seeded);
+                run = runRepository.save(run);
+            }
+        }
+        return run;
+    }
+
+    private RunSummary execute(BillingRun run) {
+        if (run.getStatus() == BillingRun.Status.COMPLETED) {
+            log.info("📋 Billing em lote #{} ({}, dia {}) já concluído", run.getId(), run.getRunDate(), run.getDueDay());
+            return summarize(run, 0);
+        }
+
+        long start = System.nanoTime();
+        itemRepository.releaseStale(run.getId(), OffsetDateTime.now().minus(staleClaim));
+        List<BillingRunItem> pending = itemRepository
+                .findByRunIdAndStatusOrderByIdAsc(run.getId(), BillingRunItem.Status.PENDING);
+
+        log.info("💰 Billing em lote #{}: {} subscriptions pendentes de {} ({} partições)",
+                run.getId(), pending.size(), run.getTotalItems(), Math.min(parallelism, Math.max(pending.size(), 1)));
+
+        List<CompletableFuture<Void>> workers = new ArrayList<>();
+        for (List<BillingRunItem> partition : partition(pending, parallelism)) {
+            try {
+                workers.add(CompletableFuture.runAsync(() -> partition.forEach(item -> process(run, item)), executor));
+            } catch (RejectedExecutionException e) {
+                // Pool cheio: os itens seguem PENDING e a próxima rodada retoma do checkpoint
+                log.warn("⚠️ Billing em lote #{}: partição de {} itens rejeitada pelo pool — fica para a próxima rodada",
+                        run.getId(), partition.size());
+            }
+        }
+        CompletableFuture.allOf(workers.toArray(CompletableFuture[]::new)).join();
+
+        long elapsedNanos = System.nanoTime() - start;
+        Timer.builder("billing.batch.duration")
+                .tag("due_day", String.valueOf(run.getDueDay()))
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+
+        RunSummary summary = summarize(run, TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        if (summary.count(BillingRunItem.Status.PENDING) == 0 && summary.count(BillingRunItem.Status.PROCESSING) == 0) {
+            run.setStatus(BillingRun.Status.COMPLETED);
+            run.setFinishedAt(OffsetDateTime.now());
+            runRepository.save(run);
+            summary = new RunSummary(run.getId(), run.getRunDate(), run.getDueDay(), true,
+                    summary.counts(), summary.durationMs());
+        }
+
+        double seconds = Math.max(elapsedNanos / 1e9, 0.001);
+        log.info("📊 Billing em lote #{}: {} geradas, {} já existentes, {} erros em {} ms ({} faturas/s){}",
+                run.getId(), summary.count(BillingRunItem.Status.GENERATED), summary.count(BillingRunItem.Status.SKIPPED),
+                summary.count(BillingRunItem.Status.FAILED), summary.durationMs(),
+                String.format("%.1f", pending.size() / seconds), summary.completed() ? "" : " — incompleto, será retomado");
+        return summary;
+    }
+
+    /** Processa um checkpoint. Nunca lança: falha vira FAILED no item. */
+    void process(BillingRun run, BillingRunItem item) {
+        if (itemRepository.claim(item.getId(), OffsetDateTime.now()) == 0) {
+            return; // outra instância pegou
+        }
+        long start = System.nanoTime();
+        BillingRunItem.Status outcome;
+        Long paymentId = null;
+        String error = null;
+        try {
+            Payment payment = billingService.generateMonthlyInvoice(item.getSubscriptionId(), run.getRunDate());
+            outcome = payment != null ? BillingRunItem.Status.GENERATED : BillingRunItem.Status.SKIPPED;
+            paymentId = payment != null ? payment.getId() : null;
+        } catch (Exception e) {
+            outcome = BillingRunItem.Status.FAILED;
+            error = e.getMessage();
+            log.error("❌ Erro ao gerar fatura para subscription {}: {}", item.getSubscriptionId(), e.getMessage(), e);
+        }
+        try {
+            itemRepository.finish(item.getId(), outcome, paymentId, error, OffsetDateTime.now());
+        } catch (Exception e) {
+            // Item fica PROCESSING e volta pra fila após billing.batch.stale-claim-ms; a chave evita duplicar
+            log.error("❌ Falha ao gravar checkpoint do item {} (subscription {}): {}",
+                    item.getId(), item.getSubscriptionId(), e.getMessage());
+        }
+        Timer.builder("billing.batch.invoice")
+                .tag("outcome", outcome.name().toLowerCase())
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private RunSummary summarize(BillingRun run, long durationMs) {
+        Map<BillingRunItem.Status, Long> counts = new EnumMap<>(BillingRunItem.Status.class);
+        for (Object[] row : itemRepository.countByStatus(run.getId())) {
+            counts.put((BillingRunItem.Status) row[0], ((Number) row[1]).longValue());
+        }
+        return new RunSummary(run.getId(), run.getRunDate(), run.getDueDay(),
+                run.getStatus() == BillingRun.Status.COMPLETED, counts, durationMs);
+    }
+
+    /** Divide em até {@code parts} partições intercaladas (cargas parecidas). */
+    static <T> List<List<T>> partition(List<T> items, int parts) {
+        int n = Math.min(parts, items.size());
+        List<List<T>> partitions = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) partitions.add(new ArrayList<>());
+        for (int i = 0; i < items.size(); i++) {
+            partitions.get(i % n).add(items.get(i));
+        }
+        return partitions;
+    }
+}
@@ -142,33 +142,63 @@ public class BillingService {
 
         String refMonth = nextDueDate.format(DateTimeFormatter.ofPattern("yyyy-MM"));
 
-        createBillingPayment(subscription, startDate, nextDueDate, nextDueDate, refMonth, amount, true);
+        createBillingPayment(subscription, startDate, nextDueDate, nextDueDate, refMonth, amount, true, null);
         log.info("📄 1ª fatura pro-rata: {} → {}, valor=R$ {}", startDate, nextDueDate, amount);
     }
 
     /**
-     * Gera fatura mensal cheia (chamado pelo scheduler).
+     * Gera fatura mensal cheia com base em hoje.
      */
     @Transactional
-    public void generateMonthlyInvoice(ClientSubscription subscription) {
-        LocalDate dueDate = LocalDate.now(TZ)
-                .withDayOfMonth(Math.min(subscription.getBillingDueDay(),
-                        LocalDate.now(TZ).lengthOfMonth()));
+    public Payment generateMonthlyInvoice(ClientSubscription subscription) {
+        return generateMonthlyInvoice(subscription.getId(), LocalDate.now(TZ));
+    }
+
+    /**
+     * Gera a fatura mensal cheia da subscription para o próximo vencimento após
+     * {@code generationDate} (chamado pelo lote do {@link BillingBatchService}, uma transação
+     * por subscription). O período depende só da data de geração, então retomar o lote
+     * em outro dia fatura o mesmo período.
+     *
+     * @return Payment gerado; null se a fatura já existe ou a subscription não está ativa
+     * @throws IllegalStateException se o gateway falhar (o lote marca o item como FAILED)
+     */
+    @Transactional
+    public Payment generateMonthlyInvoice(Long subscriptionId, LocalDate generationDate) {
+        ClientSubscription subscription = subscriptionRepository.findById(subscriptionId)
+                .orElseThrow(() -> new IllegalArgumentException("Subscription não encontrada: " + subscriptionId));
+        if (!Boolean.TRUE.equals(subscription.getActive())) {
+            log.info("📋 Subscription {} não está mais ativa — fatura não gerada", subscriptionId);
+            return null;
+        }
 
         // Período: do vencimento anterior até este vencimento
+        LocalDate dueDate = subscription.getNextDueDate(generationDate);
         LocalDate periodStart = dueDate.minusMonths(1);
         String refMonth = dueDate.format(DateTimeFormatter.ofPattern("yyyy-MM"));
+        String idempotencyKey = monthlyInvoiceKey(subscriptionId, periodStart);
 
-        // Verificar se já existe fatura para este mês
-        if (subscriptionRepository.existsInvoiceForMonth(subscription.getId(), refMonth)) {
-            log.info("📋 Fatura já existe para subscription={}, mês={}", subscription.getId(), refMonth);
-            return;
+        // Verificar se já existe fatura para este período
+        if (paymentRepository.existsByIdempotencyKey(idempotencyKey)
+                || subscriptionRepository.existsInvoiceForMonth(subscriptionId, refMonth)) {
+            log.info("📋 Fatura já existe para subscription={}, mês={}", subscriptionId, refMonth);
+            return null;
         }
 
         BigDecimal amount = subscription.getMonthlyPrice();
 
-        createBillingPayment(subscription, periodStart, dueDate, dueDate, refMonth, amount, false);
+        Payment payment = createBillingPayment(subscription, periodStart, dueDate, dueDate, refMonth, amount, false,
+                idempotencyKey);
+        if (payment == null) {
+            throw new IllegalStateException("Falha ao gerar PIX billing da subscription " + subscriptionId);
+        }
         log.info("📄 Fatura mensal: {} → {}, valor=R$ {}", periodStart, dueDate, amount);
+        return payment;
+    }
+
+    /** Chave determinística da fatura mensal: (subscription, início do período). */
+    public static String monthlyInvoiceKey(Long subscriptionId, LocalDate periodStart) {
+        return "billing:" + subscriptionId + ":" + periodStart;
     }
 
     /**
@@ -188,7 +218,7 @@ public class BillingService {
 
         String refMonth = today.format(DateTimeFormatter.ofPattern("yyyy-MM"));
 
-        createBillingPayment(subscription, lastDueDate, today, today, refMonth, amount, true);
+        createBillingPayment(subscription, lastDueDate, today, today, refMonth, amount, true, null);
         log.info("📄 Fatura final pro-rata: {} → {}, valor=R$ {}", lastDueDate, today, amount);
     }
 
@@ -198,15 +228,19 @@ public class BillingService {
 
     /**
      * Cria o Payment local e gera PIX no Pagar.me.
+     *
+     * @param idempotencyKey chave da fatura (também enviada ao Pagar.me); null = sem chave
+     * @return Payment salvo, ou null se o gateway falhou (erro já logado)
      */
-    private void createBillingPayment(
+    private Payment createBillingPayment(
             ClientSubscription subscription,
             LocalDate periodStart,
             LocalDate periodEnd,
             LocalDate dueDate,
             String referenceMonth,
             BigDecimal amount,
-            boolean prorata
+            boolean prorata,
+            String idempotencyKey
     ) {
         User client = subscription.getClient();
         PlatformService service = subscription.getService();
@@ -216,7 +250,7 @@ public class BillingService {
 
         try {
             // Chamar Pagar.me
-            OrderResponse orderResponse = pagarMeService.createOrderWithFullResponse(orderRequest);
+            OrderResponse orderResponse = pagarMeService.createOrderWithFullResponse(orderRequest, idempotencyKey);
             log.info("✅ PIX billing criado no Pagar.me - Order ID: {}", orderResponse.getId());
 
             // Criar Payment
@@ -228,6 +262,7 @@ public class BillingService {
             payment.setDueDate(dueDate);
             payment.setReferenceMonth(referenceMonth);
             payment.setProrata(prorata);
+            payment.setIdempotencyKey(idempotencyKey);
 
             payment.setProviderPaymentId(orderResponse.getId());
             payment.setAmount(amount);
@@ -252,9 +287,11 @@ public class BillingService {
             paymentRepository.save(payment);
             log.info("💾 Payment billing salvo: id={}, amount=R$ {}, type={}, ref={}",
                     payment.getId(), amount, service.getCode(), referenceMonth);
+            return payment;
 
         } catch (Exception e) {
             log.error("❌ Erro ao gerar PIX billing para subscription {}: {}", subscription.getId(), e.getMessage(), e);
+            return null;
         }
     }
 
@@ -7,6 +7,7 @@ import com.mvt.mvt_events.repository.FoodOrderRepository;
 import com.mvt.mvt_events.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -19,6 +20,11 @@ import java.util.UUID;
 /**
  * Gerencia sessões de caixa do estabelecimento.
  * Regra: 1 sessão OPEN por client por vez (índice parcial único garante).
+ *
+ * <p>O saldo esperado sai dos totais correntes da sessão ({@code cashSales},
+ * {@code additionsTotal}, {@code withdrawalsTotal}), incrementados por UPDATE atômico
+ * quando um pedido em dinheiro é concluído ({@link #recordCashSale}) ou uma movimentação
+ * é lançada. A conferência contra pedidos/movimentações é explícita: {@link #verify}.
  */
 @Service
 @RequiredArgsConstructor
@@ -59,23 +65,22 @@ public class CashRegisterService {
     }
 
     /**
-     * Fecha a sessão OPEN do client. Calcula o saldo esperado a partir das vendas em dinheiro
-     * + fundo + adições - retiradas/sangrias durante a sessão.
+     * Fecha a sessão OPEN do client. O saldo esperado (fundo + vendas em dinheiro + adições
+     * − retiradas/sangrias) vem dos totais correntes; a linha fica travada até o commit pra
+     * nenhuma venda/movimentação concorrente entrar depois do snapshot.
      */
     public CashRegisterSession close(UUID clientId, UUID closedById, BigDecimal closingBalanceActual, String notes) {
         if (closingBalanceActual == null || closingBalanceActual.signum() < 0) {
             throw new RuntimeException("Saldo de fechamento inválido");
         }
-        CashRegisterSession session = sessionRepo.findOpenWithMovements(clientId)
+        CashRegisterSession session = sessionRepo.findOpenForUpdate(clientId)
                 .orElseThrow(() -> new RuntimeException("Não há caixa aberto para fechar"));
-
-        OffsetDateTime now = OffsetDateTime.now();
-        BigDecimal expected = computeExpected(session, now);
+        Hibernate.initialize(session.getMovements()); // resposta serializa as movimentações
 
         session.setStatus(CashRegisterSession.Status.CLOSED);
-        session.setClosedAt(now);
+        session.setClosedAt(OffsetDateTime.now());
         session.setClosingBalanceActual(closingBalanceActual);
-        session.setClosingBalanceExpected(expected);
+        session.setClosingBalanceExpected(session.getExpectedBalance());
         if (closedById != null) {
             session.setClosedBy(userRepo.findById(closedById).orElse(null));
         }
@@ -86,7 +91,8 @@ public class CashRegisterService {
     }
 
     /**
-     * Adiciona movimentação manual (suprimento, retirada ou sangria) à sessão OPEN.
+     * Adiciona movimentação manual (suprimento, retirada ou sangria) à sessão OPEN
+     * e soma o valor no total corrente correspondente.
      */
     public CashRegisterMovement addMovement(UUID clientId, UUID createdById,
                                              CashRegisterMovement.Type type,
@@ -94,7 +100,7 @@ public class CashRegisterService {
         if (amount == null || amount.signum() <= 0) {
             throw new RuntimeException("Valor inválido");
         }
-        CashRegisterSession session = sessionRepo.findByClientIdAndStatus(clientId, CashRegisterSession.Status.OPEN)
+        CashRegisterSession session = sessionRepo.findOpenForUpdate(clientId)
                 .orElseThrow(() -> new RuntimeException("Não há caixa aberto"));
 
         CashRegisterMovement m = CashRegisterMovement.builder()
@@ -105,7 +111,30 @@ public class CashRegisterService {
                 .createdAt(OffsetDateTime.now())
                 .createdBy(createdById != null ? userRepo.findById(createdById).orElse(null) : null)
                 .build();
-        return movementRepo.save(m);
+        CashRegisterMovement saved = movementRepo.save(m);
+
+        boolean addition = type == CashRegisterMovement.Type.ADDITION;
+        sessionRepo.addMovementTotals(session.getId(),
+                addition ? amount : BigDecimal.ZERO,
+                addition ? BigDecimal.ZERO : amount);
+        return saved;
+    }
+
+    /**
+     * Registra a venda no caixa aberto se o pedido (recém COMPLETED) foi pago em dinheiro.
+     * Chamado pelo {@link FoodOrderService} na transição pra COMPLETED, na mesma transação.
+     */
+    public void recordCashSale(FoodOrder order) {
+        if (order == null || order.getClient() == null) return;
+        if (pickPaymentMethod(order) != PaymentMethod.CASH) return;
+        BigDecimal total = order.getTotal() != null ? order.getTotal() : BigDecimal.ZERO;
+        if (total.signum() <= 0) return;
+
+        int updated = sessionRepo.addCashSale(order.getClient().getId(), total);
+        if (updated == 0) {
+            log.warn("💵 Pedido #{} pago em dinheiro (R$ {}) sem caixa aberto — fora do saldo da gaveta",
+                    order.getId(), total);
+        }
     }
 
     @Transactional(readOnly = true)
@@ -127,31 +156,56 @@ public class CashRegisterService {
         return sessionRepo.findOverlapping(clientId, start, end).stream().findFirst();
     }
 
+    // ================================================================
+    // CONFERÊNCIA
+    // ================================================================
+
+    /** Totais de uma sessão: gravados (correntes) ou recalculados dos dados de origem. */
+    public record Totals(BigDecimal cashSales, BigDecimal additions, BigDecimal withdrawals) {}
+
+    /** Resultado da conferência. {@code consistent=false} indica drift nos totais correntes. */
+    public record Reconciliation(Long sessionId, Totals stored, Totals computed,
+                                 boolean consistent, boolean repaired) {}
+
     /**
-     * Calcula o saldo esperado: fundo + vendas em dinheiro + adições − retiradas/sangrias.
-     * Vendas em dinheiro: pedidos COMPLETED do client entre opened_at e nowOrEnd com payment=CASH.
+     * Recalcula os totais da sessão a partir dos pedidos pagos em dinheiro e das movimentações,
+     * e compara com os totais correntes. Com {@code repair=true}, sobrescreve os correntes.
+     *
+     * @param sessionId sessão a conferir; null = sessão OPEN do client
      */
-    public BigDecimal computeExpected(CashRegisterSession session, OffsetDateTime asOf) {
-        BigDecimal fundo = session.getOpeningBalance() != null ? session.getOpeningBalance() : BigDecimal.ZERO;
-
-        BigDecimal additions = BigDecimal.ZERO;
-        BigDecimal withdrawals = BigDecimal.ZERO;
-        if (session.getMovements() != null) {
-            for (CashRegisterMovement m : session.getMovements()) {
-                if (m.getType() == CashRegisterMovement.Type.ADDITION) {
-                    additions = additions.add(m.getAmount());
-                } else {
-                    withdrawals = withdrawals.add(m.getAmount());
-                }
+    public Reconciliation verify(UUID clientId, Long sessionId, boolean repair) {
+        CashRegisterSession session = (sessionId != null
+                ? sessionRepo.findById(sessionId).filter(s -> s.getClient().getId().equals(clientId))
+                : sessionRepo.findByClientIdAndStatus(clientId, CashRegisterSession.Status.OPEN))
+                .orElseThrow(() -> new RuntimeException("Sessão de caixa não encontrada"));
+
+        Totals stored = new Totals(session.getCashSales(), session.getAdditionsTotal(), session.getWithdrawalsTotal());
+
+        OffsetDateTime end = session.getClosedAt() != null ? session.getClosedAt() : OffsetDateTime.now();
+        BigDecimal cashSales = computeCashSales(clientId, session.getOpenedAt(), end);
+        Object[] movements = movementRepo.sumTotalsBySessionId(session.getId()).get(0);
+        Totals computed = new Totals(cashSales, toBigDecimal(movements[0]), toBigDecimal(movements[1]));
+
+        boolean consistent = stored.cashSales().compareTo(computed.cashSales()) == 0
+                && stored.additions().compareTo(computed.additions()) == 0
+                && stored.withdrawals().compareTo(computed.withdrawals()) == 0;
+
+        boolean repaired = false;
+        if (!consistent) {
+            log.warn("⚠️ Caixa #{} com totais divergentes — gravado {} / recalculado {}",
+                    session.getId(), stored, computed);
+            if (repair) {
+                sessionRepo.overwriteTotals(session.getId(),
+                        computed.cashSales(), computed.additions(), computed.withdrawals());
+                repaired = true;
             }
         }
-
-        BigDecimal cashSales = computeCashSales(session.getClient().getId(), session.getOpenedAt(), asOf);
-        return fundo.add(cashSales).add(additions).subtract(withdrawals);
+        return new Reconciliation(session.getId(), stored, computed, consistent, repaired);
     }
 
+    /** Vendas em dinheiro: pedidos COMPLETED do client pagos entre start e end com payment=CASH. */
     private BigDecimal computeCashSales(UUID clientId, OffsetDateTime start, OffsetDateTime end) {
-        List<FoodOrder> orders = foodOrderRepo.findCompletedForReport(clientId, start, end);
+        List<FoodOrder> orders = foodOrderRepo.findPaidBetween(clientId, start, end);
         BigDecimal total = BigDecimal.ZERO;
         for (FoodOrder o : orders) {
             PaymentMethod pm = pickPaymentMethod(o);
@@ -162,6 +216,12 @@ public class CashRegisterService {
         return total;
     }
 
+    private static BigDecimal toBigDecimal(Object value) {
+        if (value == null) return BigDecimal.ZERO;
+        if (value instanceof BigDecimal bd) return bd;
+        return new BigDecimal(value.toString());
+    }
+
     private PaymentMethod pickPaymentMethod(FoodOrder o) {
         if (o.getTablePaymentMethod() != null) return o.getTablePaymentMethod();
         if (o.getMesaPaymentMethod() != null) return o.getMesaPaymentMethod();
@@ -5,7 +5,6 @@ import com.mvt.mvt_events.dto.CashReportDto.CashSummary;
 import com.mvt.mvt_events.dto.CashReportDto.Channel;
 import com.mvt.mvt_events.dto.CashReportDto.ChannelSummary;
 import com.mvt.mvt_events.dto.CashReportDto.ItemRow;
-import com.mvt.mvt_events.jpa.CashRegisterMovement;
 import com.mvt.mvt_events.jpa.CashRegisterSession;
 import com.mvt.mvt_events.jpa.FoodOrder;
 import com.mvt.mvt_events.jpa.OrderItem;
@@ -105,39 +104,20 @@ public class CashReportService {
     }
 
     /**
-     * Resumo de caixa do período. Pega a sessão que cobre o intervalo (geralmente do dia).
-     * Retorna status NONE se não houver sessão.
+     * Resumo de caixa do período. Pega a sessão que cobre o intervalo (geralmente do dia)
+     * e lê os totais correntes dela. Retorna status NONE se não houver sessão.
      */
     private CashSummary buildCashSummary(java.util.UUID clientId, OffsetDateTime start, OffsetDateTime end) {
         return cashRegisterService.findForRange(clientId, start, end)
-                .map(s -> {
-                    BigDecimal additions = BigDecimal.ZERO;
-                    BigDecimal withdrawals = BigDecimal.ZERO;
-                    if (s.getMovements() != null) {
-                        for (CashRegisterMovement m : s.getMovements()) {
-                            if (m.getType() == CashRegisterMovement.Type.ADDITION) {
-                                additions = additions.add(m.getAmount());
-                            } else {
-                                withdrawals = withdrawals.add(m.getAmount());
-                            }
-                        }
-                    }
-                    OffsetDateTime asOf = s.getClosedAt() != null ? s.getClosedAt() : end;
-                    BigDecimal expected = cashRegisterService.computeExpected(s, asOf);
-                    BigDecimal cashSales = expected
-                            .subtract(s.getOpeningBalance() != null ? s.getOpeningBalance() : BigDecimal.ZERO)
-                            .subtract(additions)
-                            .add(withdrawals);
-                    return CashSummary.builder()
-                            .openingBalance(s.getOpeningBalance())
-                            .additions(additions)
-                            .withdrawals(withdrawals)
-                            .cashSales(cashSales)
-                            .expectedBalance(expected)
-                            .actualBalance(s.getClosingBalanceActual())
-                            .status(s.getStatus().name())
-                            .build();
-                })
+                .map(s -> CashSummary.builder()
+                        .openingBalance(s.getOpeningBalance())
+                        .additions(s.getAdditionsTotal())
+                        .withdrawals(s.getWithdrawalsTotal())
+                        .cashSales(s.getCashSales())
+                        .expectedBalance(s.getExpectedBalance())
+                        .actualBalance(s.getClosingBalanceActual())
+                        .status(s.getStatus().name())
+                        .build())
                 .orElse(CashSummary.builder()
                         .openingBalance(BigDecimal.ZERO)
                         .additions(BigDecimal.ZERO)
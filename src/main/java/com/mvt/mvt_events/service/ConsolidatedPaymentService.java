@@ -5,6 +5,7 @@ import com.mvt.mvt_events.jpa.*;
 import com.mvt.mvt_events.payment.service.PagarMeService;
 import com.mvt.mvt_events.payment.dto.OrderRequest;
 import com.mvt.mvt_events.repository.*;
+import com.mvt.mvt_events.schedule.JobLease;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -196,6 +197,8 @@ public class ConsolidatedPaymentService {
 
             // 2. Processar cada cliente
             for (UUID clientId : clientIds) {
+                // Fencing: se o scheduler perdeu o lease para outra réplica, para antes de gerar mais PIX
+                JobLease.assertCurrentHeld();
                 try {
                     Map<String, Object> clientStats = processClientConsolidatedPayments(clientId, pixExpiryMinutes);
                     
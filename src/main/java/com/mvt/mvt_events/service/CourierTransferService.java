@@ -4,13 +4,27 @@ import com.mvt.mvt_events.jpa.*;
 import com.mvt.mvt_events.payment.pixout.PixOutProvider;
 import com.mvt.mvt_events.payment.service.PagarMeService;
 import com.mvt.mvt_events.repository.PagarmeTransferRepository;
+import com.mvt.mvt_events.schedule.JobLease;
+import com.mvt.mvt_events.schedule.LeasedJob;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
 
 /**
  * Registra a transferência da plataforma → courier (87% do frete) quando um
@@ -29,6 +43,18 @@ public class CourierTransferService {
     private final PagarMeService pagarMeService;
     private final PagarmeTransferRepository transferRepository;
     private final PixOutProvider pixOutProvider;
+    private final TransactionTemplate transactionTemplate;
+
+    /** Transfers por chamada ao provedor (Stark Bank aceita até 100 por Transfer.create). */
+    @Value("${pix.out.batch-size:100}")
+    private int batchSize = 100;
+
+    /** Lote sem resposta do provedor por mais que isso entra na reconciliação. */
+    @Value("${pix.out.batch-claim-timeout-ms:1800000}")
+    private long batchClaimTimeoutMs = 1_800_000;
+
+    /** Resultado de uma rodada de {@link #executeInBatches}. */
+    public record BatchSummary(int batches, int succeeded, int processing, int failed, int skipped) {}
 
     /**
      * Registra transfer para courier se a delivery vem de FoodOrder paga no checkout.
@@ -127,12 +153,181 @@ public class CourierTransferService {
 
     /**
      * Tenta executar um transfer via PIX out. Atualiza o status da entidade.
-     * Usado pelo scheduler pra reprocessar PENDINGs.
+     * Usado pelo envio manual do admin ("Dívidas com Couriers").
      */
     public void executeTransfer(PagarmeTransfer transfer, User courier) {
-        String externalId = "transfer-" + transfer.getId();
+        String externalId = externalId(transfer);
         PixOutProvider.PixOutResult result = pixOutProvider.send(courier, transfer.getAmountCents(), externalId);
 
+        apply(transfer, result);
+        transferRepository.save(transfer);
+        log.info("💸 Transfer #{} → {} (FoodOrder #{}, Delivery #{}, amount={}¢)",
+                transfer.getId(), transfer.getStatus(), transfer.getFoodOrder().getId(),
+                transfer.getDeliveryId(), transfer.getAmountCents());
+    }
+
+    /**
+     * Envia transfers PENDING em lotes de {@code pix.out.batch-size}. Por chunk:
+     * <ol>
+     *   <li>um UPDATE reivindica o chunk (PENDING → PROCESSING) — o que outra execução já
+     *       pegou fica de fora</li>
+     *   <li>uma chamada {@link PixOutProvider#sendBatch}, fora de transação</li>
+     *   <li>reconciliação item a item numa transação (updates agrupados pelo batch JDBC)</li>
+     * </ol>
+     * Destinatários sem chave PIX ficam PENDING pro admin. Se o provedor estourar no meio,
+     * o chunk fica PROCESSING — não dá pra saber o que saiu; {@link #reconcileStaleBatchClaims}
+     * consulta o provedor depois do timeout antes de liberar qualquer reenvio.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BatchSummary executeInBatches(List<PagarmeTransfer> pending) {
+        List<Long> eligible = new ArrayList<>();
+        int skipped = 0;
+        for (PagarmeTransfer t : pending) {
+            User recipient = t.getRecipient();
+            if (t.getStatus() != PagarmeTransfer.Status.PENDING || t.getPagarmeTransferId() != null) {
+                continue;
+            }
+            if (recipient == null || recipient.getPixKey() == null || recipient.getPixKey().isBlank()) {
+                skipped++;
+                continue;
+            }
+            eligible.add(t.getId());
+        }
+
+        int size = Math.max(1, batchSize);
+        int batches = 0, succeeded = 0, processing = 0, failed = 0;
+        for (int from = 0; from < eligible.size(); from += size) {
+            // Fencing: se o scheduler perdeu o lease para outra réplica, para antes de enviar mais PIX
+            JobLease.assertCurrentHeld();
+            List<PagarmeTransfer> done = executeChunk(eligible.subList(from, Math.min(from + size, eligible.size())));
+            if (done.isEmpty()) continue;
+            batches++;
+            for (PagarmeTransfer t : done) {
+                switch (t.getStatus()) {
+                    case SUCCEEDED -> succeeded++;
+                    case FAILED -> failed++;
+                    default -> processing++;
+                }
+            }
+        }
+        return new BatchSummary(batches, succeeded, processing, failed, skipped);
+    }
+
+    private List<PagarmeTransfer> executeChunk(List<Long> ids) {
+        String batchId = "batch:" + UUID.randomUUID();
+        List<PagarmeTransfer> claimed = transactionTemplate.execute(status -> {
+            transferRepository.claimForBatch(ids, batchId);
+            return transferRepository.findClaimedByBatch(batchId);
+        });
+        if (claimed == null || claimed.isEmpty()) {
+            log.debug("⏭️  Chunk de {} transfers já reivindicado por outra execução", ids.size());
+            return List.of();
+        }
+
+        List<PixOutProvider.PixOutItem> items = claimed.stream()
+                .map(t -> new PixOutProvider.PixOutItem(t.getRecipient(), t.getAmountCents(), externalId(t)))
+                .toList();
+
+        List<PixOutProvider.PixOutResult> results;
+        try {
+            results = pixOutProvider.sendBatch(items);
+        } catch (Exception e) {
+            log.error("❌ Lote {} ({} transfers) falhou no provedor — ficam PROCESSING pra conferência: {}",
+                    batchId, claimed.size(), e.getMessage(), e);
+            return claimed;
+        }
+        if (results == null || results.size() != claimed.size()) {
+            log.error("❌ Lote {}: provedor devolveu {} resultados pra {} transfers — ficam PROCESSING pra conferência",
+                    batchId, results == null ? 0 : results.size(), claimed.size());
+            return claimed;
+        }
+
+        Map<Long, PixOutProvider.PixOutResult> resultById = new HashMap<>();
+        for (int i = 0; i < claimed.size(); i++) {
+            resultById.put(claimed.get(i).getId(), results.get(i));
+        }
+        List<PagarmeTransfer> reconciled = transactionTemplate.execute(status -> {
+            List<PagarmeTransfer> managed = transferRepository.findAllById(resultById.keySet());
+            managed.forEach(t -> apply(t, resultById.get(t.getId())));
+            return managed;
+        });
+
+        log.info("💸 Lote {}: {} transfers enviados numa chamada", batchId, claimed.size());
+        return reconciled != null ? reconciled : claimed;
+    }
+
+    /**
+     * Reconcilia reivindicações de lote ({@code batch:<uuid>}) sem resposta do provedor há mais
+     * de {@code pix.out.batch-claim-timeout-ms} — provedor estourou, resposta truncada ou a
+     * instância caiu entre o claim e a reconciliação. Para cada transfer, consulta o provedor
+     * pelo externalId (fora de transação):
+     * <ul>
+     *   <li>provedor tem o envio → aplica o estado dele (SUCCEEDED / PROCESSING com id / FAILED)</li>
+     *   <li>provedor não recebeu → libera de volta para PENDING, o próximo lote reenvia</li>
+     *   <li>provedor sem consulta → continua PROCESSING, marcado no errorMessage para o admin
+     *       conferir e fechar via mark-paid / mark-failed (reenviar às cegas pagaria duas vezes)</li>
+     * </ul>
+     */
+    @Scheduled(fixedDelayString = "${pix.out.reconcile-ms:600000}",
+               initialDelayString = "${pix.out.reconcile-ms:600000}")
+    @LeasedJob(value = "pix-out-reconcile", minIntervalSeconds = 60)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void reconcileStaleBatchClaims() {
+        List<PagarmeTransfer> stale = transferRepository.findStaleBatchClaims(
+                OffsetDateTime.now().minus(Duration.ofMillis(batchClaimTimeoutMs)));
+        if (stale.isEmpty()) return;
+
+        Map<Long, String> claimById = new HashMap<>();
+        Map<Long, Optional<PixOutProvider.PixOutResult>> lookups = new HashMap<>();
+        for (PagarmeTransfer t : stale) {
+            claimById.put(t.getId(), t.getPagarmeTransferId());
+            try {
+                lookups.put(t.getId(), pixOutProvider.lookup(externalId(t)));
+            } catch (UnsupportedOperationException e) {
+                lookups.put(t.getId(), null);
+            } catch (Exception e) {
+                log.warn("⚠️ Consulta do transfer #{} no provedor falhou — tenta na próxima rodada: {}",
+                        t.getId(), e.getMessage());
+            }
+        }
+
+        int[] counts = new int[3]; // resolved, released, needsReview
+        transactionTemplate.executeWithoutResult(status -> {
+            for (PagarmeTransfer t : transferRepository.findAllById(lookups.keySet())) {
+                // Fechado na mão (ou por outro lote) enquanto consultávamos: não mexe
+                if (t.getStatus() != PagarmeTransfer.Status.PROCESSING
+                        || !Objects.equals(t.getPagarmeTransferId(), claimById.get(t.getId()))) {
+                    continue;
+                }
+                Optional<PixOutProvider.PixOutResult> current = lookups.get(t.getId());
+                if (current == null) {
+                    if (t.getErrorMessage() == null) {
+                        t.setErrorMessage("Lote " + t.getPagarmeTransferId() + " sem resposta do provedor desde "
+                                + t.getBatchClaimedAt() + " — conferir no provedor e fechar manualmente");
+                    }
+                    counts[2]++;
+                } else if (current.isPresent()) {
+                    apply(t, current.get());
+                    counts[0]++;
+                } else {
+                    t.setStatus(PagarmeTransfer.Status.PENDING);
+                    t.setPagarmeTransferId(null);
+                    t.setBatchClaimedAt(null);
+                    counts[1]++;
+                }
+            }
+        });
+
+        log.info("🔁 Reconciliação de lotes PIX-out: {} resolvidos pelo provedor, {} liberados para reenvio, {} para conferência manual",
+                counts[0], counts[1], counts[2]);
+    }
+
+    private static String externalId(PagarmeTransfer transfer) {
+        return "transfer-" + transfer.getId();
+    }
+
+    /** Aplica o resultado do provedor no transfer. */
+    private static void apply(PagarmeTransfer transfer, PixOutProvider.PixOutResult result) {
         switch (result.status()) {
             case SUCCEEDED -> {
                 transfer.setStatus(PagarmeTransfer.Status.SUCCEEDED);
@@ -140,18 +335,16 @@ public class CourierTransferService {
                 transfer.setExecutedAt(OffsetDateTime.now());
             }
             case PENDING -> {
+                // Aceito pelo provedor, confirmação depois — PROCESSING pra nunca reenviar
+                transfer.setStatus(PagarmeTransfer.Status.PROCESSING);
                 transfer.setPagarmeTransferId(result.providerTransactionId());
-                // status continua PENDING; webhook depois confirma
             }
             case FAILED -> {
                 transfer.setStatus(PagarmeTransfer.Status.FAILED);
+                transfer.setPagarmeTransferId(null);
                 transfer.setErrorMessage(result.errorMessage());
                 transfer.setExecutedAt(OffsetDateTime.now());
             }
         }
-        transferRepository.save(transfer);
-        log.info("💸 Transfer #{} → {} (FoodOrder #{}, Delivery #{}, amount={}¢)",
-                transfer.getId(), transfer.getStatus(), transfer.getFoodOrder().getId(),
-                transfer.getDeliveryId(), transfer.getAmountCents());
     }
 }
@@ -0,0 +1,34 @@
+package com.mvt.mvt_events.service;
+
+import com.mvt.mvt_events.jpa.Delivery;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Publicado pelo {@link DeliveryService} a cada transição de status de uma Delivery
+ * (aceite, coleta, conclusão, cancelamento...). Carrega só valores — os consumidores rodam
+ * fora da transação que gerou o evento e não devem tocar em associações lazy da entidade.
+ */
+public record DeliveryLifecycleEvent(
+        Long deliveryId,
+        Delivery.DeliveryStatus status,
+        UUID clientId,
+        UUID courierId,
+        OffsetDateTime completedAt,
+        OffsetDateTime cancelledAt,
+        String cancellationReason,
+        OffsetDateTime occurredAt
+) {
+    public static DeliveryLifecycleEvent of(Delivery delivery) {
+        return new DeliveryLifecycleEvent(
+                delivery.getId(),
+                delivery.getStatus(),
+                delivery.getClient() != null ? delivery.getClient().getId() : null,
+                delivery.getCourier() != null ? delivery.getCourier().getId() : null,
+                delivery.getCompletedAt(),
+                delivery.getCancelledAt(),
+                delivery.getCancellationReason(),
+                OffsetDateTime.now());
+    }
+}
@@ -0,0 +1,149 @@
+package com.mvt.mvt_events.service;
+
+import com.mvt.mvt_events.common.LogContext;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entrega os {@link DeliveryLifecycleEvent} aos {@link DeliveryLifecycleListener}s depois do
+ * commit da transação do courier, fora da thread da requisição.
+ *
+ * <p>Ordem por delivery: cada evento vai pra uma de {@code delivery.events.lanes} filas de
+ * thread única escolhida pelo id da delivery — ACCEPTED → IN_TRANSIT → COMPLETED da mesma
+ * entrega nunca são processados fora de ordem, e entregas diferentes andam em paralelo.
+ * As filas são limitadas ({@code delivery.events.queue-capacity}); fila cheia bloqueia quem
+ * publicou até abrir vaga na mesma fila (backpressure sem furar a ordem), por no máximo
+ * {@code delivery.events.full-lane-timeout-ms} — passado isso o evento é descartado e contado
+ * em {@code delivery.events.rejected}, para a thread do request não ficar presa indefinidamente.
+ *
+ * <p>Cada listener roda na sua própria transação (REQUIRES_NEW): no modo síncrono a entrega
+ * acontece dentro do callback AFTER_COMMIT, e um {@code @Transactional} REQUIRED ali se
+ * juntaria à transação já commitada — as escritas do listener seriam perdidas.
+ *
+ * <p>{@code delivery.events.async=false} entrega na própria thread após o commit (modo antigo).
+ */
+@Component
+@Slf4j
+public class DeliveryLifecycleEventBus {
+
+    private final List<DeliveryLifecycleListener> listeners;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate requiresNew;
+    private final ExecutorService[] lanes;
+    private final boolean async;
+
+    public DeliveryLifecycleEventBus(List<DeliveryLifecycleListener> listeners,
+                                     MeterRegistry meterRegistry,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${delivery.events.async:true}") boolean async,
+                                     @Value("${delivery.events.lanes:4}") int laneCount,
+                                     @Value("${delivery.events.queue-capacity:1000}") int queueCapacity,
+                                     @Value("${delivery.events.full-lane-timeout-ms:5000}") long fullLaneTimeoutMs) {
+        this.listeners = listeners;
+        this.meterRegistry = meterRegistry;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.async = async;
+        this.lanes = new ExecutorService[Math.max(1, laneCount)];
+        RejectedExecutionHandler blockOnFullLane = blockOnFullLane(fullLaneTimeoutMs);
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                    new CustomizableThreadFactory("delivery-events-" + i + "-"),
+                    blockOnFullLane);
+        }
+    }
+
+    /**
+     * Fila cheia: espera vaga na mesma lane por até {@code timeoutMs}. Executar na thread que
+     * publicou (CallerRuns) passaria o evento na frente dos anteriores da mesma delivery.
+     */
+    private static RejectedExecutionHandler blockOnFullLane(long timeoutMs) {
+        return (task, executor) -> {
+            if (executor.isShutdown()) {
+                throw new RejectedExecutionException("Fila de eventos de delivery encerrada");
+            }
+            try {
+                if (!executor.getQueue().offer(task, timeoutMs, TimeUnit.MILLISECONDS)) {
+                    throw new RejectedExecutionException("Fila de eventos cheia por mais de " + timeoutMs + "ms");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException("Interrompido aguardando vaga na fila de eventos", e);
+            }
+        };
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onDeliveryLifecycle(DeliveryLifecycleEvent event) {
+        if (!async) {
+            deliver(event);
+            return;
+        }
+        try {
+            lane(event.deliveryId()).execute(() -> deliver(event));
+        } catch (RejectedExecutionException e) {
+            meterRegistry.counter("delivery.events.rejected").increment();
+            log.warn("⚠️ Evento da delivery #{} ({}) descartado: {}", event.deliveryId(), event.status(), e.getMessage());
+        }
+    }
+
+    private ExecutorService lane(Long deliveryId) {
+        return lanes[Math.floorMod(Long.hashCode(deliveryId != null ? deliveryId : 0L), lanes.length)];
+    }
+
+    private void deliver(DeliveryLifecycleEvent event) {
+        String previousDeliveryId = MDC.get(LogContext.DELIVERY_ID);
+        LogContext.putDeliveryId(event.deliveryId());
+        try {
+            for (DeliveryLifecycleListener listener : listeners) {
+                try {
+                    requiresNew.executeWithoutResult(status -> listener.onDeliveryLifecycle(event));
+                } catch (Exception e) {
+                    meterRegistry.counter("delivery.events.failed",
+                            "listener", listener.getClass().getSimpleName()).increment();
+                    log.warn("⚠️ Listener {} falhou para delivery #{} ({}): {}",
+                            listener.getClass().getSimpleName(), event.deliveryId(), event.status(), e.getMessage());
+                }
+            }
+        } finally {
+            // No modo síncrono roda na thread do request: devolve o deliveryId que já estava lá
+            if (previousDeliveryId != null) {
+                MDC.put(LogContext.DELIVERY_ID, previousDeliveryId);
+            } else {
+                MDC.remove(LogContext.DELIVERY_ID);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+        for (ExecutorService lane : lanes) {
+            if (!lane.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("⚠️ Fila de eventos de delivery encerrada com eventos pendentes");
+                lane.shutdownNow();
+            }
+        }
+    }
+}
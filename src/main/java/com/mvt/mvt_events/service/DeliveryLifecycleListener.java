@@ -0,0 +1,14 @@
+package com.mvt.mvt_events.service;
+
+/**
+ * Consumidor de {@link DeliveryLifecycleEvent}. Permite que módulos dependentes (ex: FoodOrder)
+ * reajam às transições da Delivery sem criar dependência circular.
+ *
+ * <p>Chamado pelo {@link DeliveryLifecycleEventBus} depois do commit, fora da thread da requisição,
+ * dentro de uma transação nova só deste listener (falha aqui faz rollback só do que ele gravou).
+ * Eventos da mesma delivery chegam em ordem.
+ */
+public interface DeliveryLifecycleListener {
+
+    void onDeliveryLifecycle(DeliveryLifecycleEvent event);
+}
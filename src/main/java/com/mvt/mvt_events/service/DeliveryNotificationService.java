@@ -5,6 +5,7 @@ import com.mvt.mvt_events.jpa.*;
 import com.mvt.mvt_events.repository.*;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
@@ -52,6 +53,10 @@ public class DeliveryNotificationService {
     @Autowired
     private VehicleRepository vehicleRepository;
 
+    /** broadcast (escalação em 3 níveis, padrão) | batch ({@link BatchDispatchService}). */
+    @Value("${delivery.dispatch.mode:broadcast}")
+    private String dispatchMode = "broadcast";
+
     // Configurações do sistema de notificação
     private static final double INITIAL_RADIUS_KM = 5.0;
     /** TODO(teste): voltar para 10.0 após testes em campo */
@@ -64,6 +69,10 @@ public class DeliveryNotificationService {
      */
     @Async("notificationTaskExecutor")
     public CompletableFuture<Void> notifyAvailableDrivers(Delivery delivery) {
+        if (BatchDispatchService.MODE_BATCH.equalsIgnoreCase(dispatchMode)) {
+            log.info("Delivery {} fica para o dispatch em lote (delivery.dispatch.mode=batch)", delivery.getId());
+            return CompletableFuture.completedFuture(null);
+        }
         log.info("Iniciando notificação de motoboys para delivery {}", delivery.getId());
 
         try {
@@ -333,7 +342,7 @@ public class DeliveryNotificationService {
      * - CUSTOMER + preferredVehicleType MOTORCYCLE ou CAR: filtra pelo tipo
      * - CUSTOMER + preferredVehicleType ANY: retorna null (sem filtro)
      */
-    private VehicleType resolveVehicleTypeFilter(Delivery delivery) {
+    static VehicleType resolveVehicleTypeFilter(Delivery delivery) {
         if (delivery.getClient() != null && delivery.getClient().getRole() != null
                 && delivery.getClient().getRole().name().equals("CLIENT")) {
             return VehicleType.MOTORCYCLE;
@@ -354,7 +363,7 @@ public class DeliveryNotificationService {
      * - DELIVERY → couriers com serviceType DELIVERY ou BOTH (ou null)
      * - RIDE → couriers com serviceType PASSENGER_TRANSPORT ou BOTH (ou null)
      */
-    private List<String> resolveServiceTypes(Delivery delivery) {
+    static List<String> resolveServiceTypes(Delivery delivery) {
         if (delivery.getDeliveryType() == Delivery.DeliveryType.RIDE) {
             return List.of("PASSENGER_TRANSPORT", "BOTH");
         }
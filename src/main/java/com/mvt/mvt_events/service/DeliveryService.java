@@ -5,9 +5,15 @@ import com.mvt.mvt_events.jpa.CustomerPaymentPreference.PreferredPaymentType;
 import com.mvt.mvt_events.payment.dto.OrderRequest;
 import com.mvt.mvt_events.payment.dto.OrderResponse;
 import com.mvt.mvt_events.payment.service.PagarMeService;
+import com.mvt.mvt_events.pricing.FeeQuote;
+import com.mvt.mvt_events.pricing.FeeQuoteEngine;
+import com.mvt.mvt_events.pricing.GeoPoint;
 import com.mvt.mvt_events.repository.*;
+import com.mvt.mvt_events.exception.DeliveryAlreadyAcceptedException;
 import com.mvt.mvt_events.specification.DeliverySpecification;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
@@ -74,7 +80,7 @@ public class DeliveryService {
     private SiteConfigurationService siteConfigurationService;
 
     @Autowired
-    private SpecialZoneService specialZoneService;
+    private FeeQuoteEngine feeQuoteEngine;
 
     @Autowired
     private PaymentRepository paymentRepository;
@@ -97,17 +103,15 @@ public class DeliveryService {
     @Autowired
     private DeliveryStopRepository deliveryStopRepository;
 
-    @Autowired(required = false)
-    private java.util.List<DeliveryStatusCallback> statusCallbacks = java.util.Collections.emptyList();
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
+    /** Publica a transição; os listeners rodam após o commit ({@link DeliveryLifecycleEventBus}). */
     private void fireStatusChanged(Delivery delivery) {
-        for (DeliveryStatusCallback cb : statusCallbacks) {
-            try {
-                cb.onDeliveryStatusChanged(delivery);
-            } catch (Exception e) {
-                log.warn("⚠️ Callback de status falhou para delivery #{}: {}", delivery.getId(), e.getMessage());
-            }
-        }
+        eventPublisher.publishEvent(DeliveryLifecycleEvent.of(delivery));
     }
 
     // TODO: ADMProfileRepository não mais usado após remoção de CourierADMLink
@@ -186,8 +190,7 @@ public class DeliveryService {
         // Validar distância mínima entre origem e destino (protege contra ruído de GPS).
         // Limite vem de SiteConfiguration.minOrderDistanceMeters (default 50m). Zero desliga.
         if (delivery.getDistanceKm() != null && delivery.getDistanceKm().compareTo(BigDecimal.ZERO) > 0) {
-            int minDistMeters = siteConfigurationService.getActiveConfiguration()
-                    .getMinOrderDistanceMeters();
+            int minDistMeters = feeQuoteEngine.schedule().minOrderDistanceMeters();
             if (minDistMeters > 0) {
                 int meters = delivery.getDistanceKm()
                         .multiply(BigDecimal.valueOf(1000))
@@ -201,74 +204,32 @@ public class DeliveryService {
 
         // Calcular o frete automaticamente baseado na distância e configuração ativa
         if (delivery.getDistanceKm() != null && delivery.getDistanceKm().compareTo(BigDecimal.ZERO) > 0) {
-            SiteConfiguration activeConfig = siteConfigurationService.getActiveConfiguration();
-            
-            BigDecimal pricePerKm = activeConfig.getPricePerKm();
-            BigDecimal minimumFee = activeConfig.getMinimumShippingFee();
-            if (delivery.getPreferredVehicleType() == Delivery.PreferredVehicleType.CAR) {
-                pricePerKm = activeConfig.getCarPricePerKm() != null 
-                    ? activeConfig.getCarPricePerKm() : activeConfig.getPricePerKm();
-                minimumFee = activeConfig.getCarMinimumShippingFee() != null
-                    ? activeConfig.getCarMinimumShippingFee() : activeConfig.getMinimumShippingFee();
-            }
-            
-            BigDecimal calculatedFee = delivery.getDistanceKm().multiply(pricePerKm);
-            
-            if (calculatedFee.compareTo(minimumFee) < 0) {
-                calculatedFee = minimumFee;
-            }
-            
             // Zona especial: se multi-stop, a PIOR zona entre todos os destinos vence
-            BigDecimal additionalFeePercentage = BigDecimal.ZERO;
+            List<GeoPoint> destinations;
+            int extraStops = 0;
             if (stops != null && stops.size() > 1) {
-                List<double[]> coords = stops.stream()
+                destinations = stops.stream()
                         .filter(s -> s.getLatitude() != null && s.getLongitude() != null)
-                        .map(s -> new double[]{ s.getLatitude(), s.getLongitude() })
+                        .map(s -> new GeoPoint(s.getLatitude(), s.getLongitude()))
                         .toList();
-                var worstZone = specialZoneService.findWorstZoneAcrossStops(coords, activeConfig);
-                if (worstZone.isPresent()) {
-                    SpecialZone zone = worstZone.get();
-                    if (zone.getZoneType() == SpecialZone.ZoneType.DANGER) {
-                        additionalFeePercentage = activeConfig.getDangerFeePercentage();
-                    } else if (zone.getZoneType() == SpecialZone.ZoneType.HIGH_INCOME) {
-                        additionalFeePercentage = activeConfig.getHighIncomeFeePercentage();
-                    }
-                    log.info("Multi-stop: pior zona '{}' ({}), taxa={}%",
-                            zone.getAddress(), zone.getZoneType(), additionalFeePercentage);
-                }
+                extraStops = stops.size() - 1;
             } else if (delivery.getToLatitude() != null && delivery.getToLongitude() != null) {
-                var nearestZone = specialZoneService.findNearestZone(
-                    delivery.getToLatitude(), 
-                    delivery.getToLongitude()
-                );
-                if (nearestZone.isPresent()) {
-                    SpecialZone zone = nearestZone.get();
-                    if (zone.getZoneType() == SpecialZone.ZoneType.DANGER) {
-                        additionalFeePercentage = activeConfig.getDangerFeePercentage();
-                    } else if (zone.getZoneType() == SpecialZone.ZoneType.HIGH_INCOME) {
-                        additionalFeePercentage = activeConfig.getHighIncomeFeePercentage();
-                    }
-                }
+                destinations = List.of(new GeoPoint(delivery.getToLatitude(), delivery.getToLongitude()));
+            } else {
+                destinations = List.of();
             }
 
-            if (additionalFeePercentage.compareTo(BigDecimal.ZERO) > 0) {
-                BigDecimal surcharge = calculatedFee
-                    .multiply(additionalFeePercentage)
-                    .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
-                calculatedFee = calculatedFee.add(surcharge);
-            }
-            
-            // Adicionar taxa fixa por parada adicional (além da primeira)
-            if (stops != null && stops.size() > 1) {
-                int extraStops = stops.size() - 1;
-                BigDecimal stopFee = activeConfig.getAdditionalStopFee()
-                        .multiply(BigDecimal.valueOf(extraStops));
-                calculatedFee = calculatedFee.add(stopFee);
-                log.info("Multi-stop: {} paradas extras × R${} = R${} adicionado ao frete",
-                        extraStops, activeConfig.getAdditionalStopFee(), stopFee);
+            FeeQuote quote = feeQuoteEngine.quote(delivery.getDistanceKm(), destinations,
+                    delivery.getPreferredVehicleType(), extraStops);
+            if (extraStops > 0) {
+                if (quote.zoneType() != null) {
+                    log.info("Multi-stop: pior zona '{}' ({}), taxa={}%",
+                            quote.zoneAddress(), quote.zoneType(), quote.zoneSurchargePercent());
+                }
+                log.info("Multi-stop: {} paradas extras = R${} adicionado ao frete", extraStops, quote.stopFee());
             }
 
-            delivery.setShippingFee(calculatedFee.setScale(2, RoundingMode.HALF_UP));
+            delivery.setShippingFee(quote.total());
             delivery.setEstimatedDistanceKm(delivery.getDistanceKm());
             delivery.setEstimatedShippingFee(delivery.getShippingFee());
         }
@@ -566,9 +527,10 @@ public class DeliveryService {
     public Delivery assignToCourier(Long deliveryId, UUID courierId, Long organizationId) {
         Delivery delivery = findById(deliveryId, organizationId);
 
+        // Caminho rápido: já aceita antes mesmo de validar o courier
         if (delivery.getStatus() != Delivery.DeliveryStatus.PENDING 
                 && delivery.getStatus() != Delivery.DeliveryStatus.WAITING_PAYMENT) {
-            throw new RuntimeException("Esta Delivery já foi aceita por outro motoboy");
+            throw new DeliveryAlreadyAcceptedException(deliveryId);
         }
 
         // Buscar o User do courier
@@ -595,10 +557,19 @@ public class DeliveryService {
             }
         }
 
-        // Atribuir courier
+        // Aceite atômico: o UPDATE condicional decide quem leva quando dois couriers
+        // aceitam a mesma oferta ao mesmo tempo (o status lido acima pode estar velho)
+        OffsetDateTime acceptedAt = OffsetDateTime.now(ZoneId.of("America/Fortaleza"));
+        if (deliveryRepository.claimForCourier(deliveryId, courierId, acceptedAt) == 0) {
+            meterRegistry.counter("delivery.accept.lost_race").increment();
+            log.info("🏁 Delivery #{} já aceita por outro courier — aceite de {} recusado", deliveryId, courierId);
+            throw new DeliveryAlreadyAcceptedException(deliveryId);
+        }
+
+        // Espelha no objeto carregado o que o UPDATE gravou
         delivery.setCourier(courierUser);
         delivery.setStatus(Delivery.DeliveryStatus.ACCEPTED);
-        delivery.setAcceptedAt(OffsetDateTime.now(ZoneId.of("America/Fortaleza")));
+        delivery.setAcceptedAt(acceptedAt);
 
         // Setar o veículo ativo do courier no momento do aceite
         vehicleRepository.findActiveVehicleByOwnerId(courierUser.getId())
@@ -818,71 +789,32 @@ public class DeliveryService {
                         .setScale(2, RoundingMode.HALF_UP);
                 delivery.setDistanceKm(realDistanceKm);
 
-                // Recalcular frete com a distância real
-                SiteConfiguration activeConfig = siteConfigurationService.getActiveConfiguration();
-                BigDecimal pricePerKm = activeConfig.getPricePerKm();
-                BigDecimal minimumFee = activeConfig.getMinimumShippingFee();
-                if (delivery.getPreferredVehicleType() == Delivery.PreferredVehicleType.CAR) {
-                    pricePerKm = activeConfig.getCarPricePerKm() != null
-                            ? activeConfig.getCarPricePerKm() : activeConfig.getPricePerKm();
-                    minimumFee = activeConfig.getCarMinimumShippingFee() != null
-                            ? activeConfig.getCarMinimumShippingFee() : activeConfig.getMinimumShippingFee();
-                }
-
-                BigDecimal calculatedFee = realDistanceKm.multiply(pricePerKm);
-                if (calculatedFee.compareTo(minimumFee) < 0) {
-                    calculatedFee = minimumFee;
-                }
-
-                // Sobretaxa de zona especial (multi-stop: pior zona vence)
-                BigDecimal zonePct = BigDecimal.ZERO;
+                // Recalcular frete com a distância real (multi-stop: pior zona vence)
+                List<GeoPoint> destinations;
                 List<DeliveryStop> completeStops = delivery.getStops();
                 if (completeStops != null && completeStops.size() > 1) {
-                    List<double[]> coords = completeStops.stream()
+                    destinations = completeStops.stream()
                             .filter(s -> s.getLatitude() != null && s.getLongitude() != null)
-                            .map(s -> new double[]{ s.getLatitude(), s.getLongitude() })
+                            .map(s -> new GeoPoint(s.getLatitude(), s.getLongitude()))
                             .toList();
-                    var worstZone = specialZoneService.findWorstZoneAcrossStops(coords, activeConfig);
-                    if (worstZone.isPresent()) {
-                        SpecialZone zone = worstZone.get();
-                        if (zone.getZoneType() == SpecialZone.ZoneType.DANGER) {
-                            zonePct = activeConfig.getDangerFeePercentage();
-                        } else if (zone.getZoneType() == SpecialZone.ZoneType.HIGH_INCOME) {
-                            zonePct = activeConfig.getHighIncomeFeePercentage();
-                        }
-                    }
                 } else if (delivery.getToLatitude() != null && delivery.getToLongitude() != null) {
-                    var nearestZone = specialZoneService.findNearestZone(
-                            delivery.getToLatitude(), delivery.getToLongitude());
-                    if (nearestZone.isPresent()) {
-                        SpecialZone zone = nearestZone.get();
-                        if (zone.getZoneType() == SpecialZone.ZoneType.DANGER) {
-                            zonePct = activeConfig.getDangerFeePercentage();
-                        } else if (zone.getZoneType() == SpecialZone.ZoneType.HIGH_INCOME) {
-                            zonePct = activeConfig.getHighIncomeFeePercentage();
-                        }
-                    }
-                }
-                if (zonePct.compareTo(BigDecimal.ZERO) > 0) {
-                    BigDecimal surcharge = calculatedFee.multiply(zonePct)
-                            .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
-                    calculatedFee = calculatedFee.add(surcharge);
+                    destinations = List.of(new GeoPoint(delivery.getToLatitude(), delivery.getToLongitude()));
+                } else {
+                    destinations = List.of();
                 }
 
                 // Taxa por paradas extras (multi-stop) — SKIPPED não contam
+                int extraStops = 0;
                 if (completeStops != null) {
                     long completedCount = completeStops.stream()
                             .filter(s -> s.getStatus() == DeliveryStop.StopStatus.COMPLETED)
                             .count();
-                    if (completedCount > 1) {
-                        long extraStops = completedCount - 1;
-                        BigDecimal stopFee = activeConfig.getAdditionalStopFee()
-                                .multiply(BigDecimal.valueOf(extraStops));
-                        calculatedFee = calculatedFee.add(stopFee);
-                    }
+                    extraStops = (int) Math.max(completedCount - 1, 0);
                 }
 
-                delivery.setShippingFee(calculatedFee.setScale(2, RoundingMode.HALF_UP));
+                FeeQuote quote = feeQuoteEngine.quote(realDistanceKm, destinations,
+                        delivery.getPreferredVehicleType(), extraStops);
+                delivery.setShippingFee(quote.total());
                 System.out.println("📊 Delivery #" + deliveryId + " recalculada: "
                         + "dist real=" + realDistanceKm + "km (prev=" + delivery.getEstimatedDistanceKm() + "km), "
                         + "frete real=R$" + delivery.getShippingFee() + " (prev=R$" + delivery.getEstimatedShippingFee() + ")");
@@ -1234,13 +1166,12 @@ public class DeliveryService {
      */
     @Transactional(readOnly = true)
     public List<Delivery> findPendingNearbyInPrimaryOrgs(UUID courierId, double radiusKm) {
-        org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(getClass());
-        log.info("🔍 [COURIER PENDINGS] Buscando entregas para courier: {}", courierId);
+        log.debug("🔍 [COURIER PENDINGS] Buscando entregas para courier: {}", courierId);
 
         // Se courier tem entrega ativa, não mostrar pendentes
         List<Delivery> activeDeliveries = deliveryRepository.findActiveByCourierId(courierId);
         if (!activeDeliveries.isEmpty()) {
-            log.info("⚠️ [COURIER PENDINGS] Courier {} possui {} entrega(s) ativa(s) - não retornando pendentes",
+            log.debug("⚠️ [COURIER PENDINGS] Courier {} possui {} entrega(s) ativa(s) - não retornando pendentes",
                     courierId, activeDeliveries.size());
             return java.util.Collections.emptyList();
         }
@@ -1255,7 +1186,7 @@ public class DeliveryService {
 
         Double courierLat = courier.getGpsLatitude();
         Double courierLng = courier.getGpsLongitude();
-        log.info("📍 [COURIER PENDINGS] Courier location: lat={}, lng={}", courierLat, courierLng);
+        log.debug("📍 [COURIER PENDINGS] Courier location: lat={}, lng={}", courierLat, courierLng);
 
         if (courierLat == null || courierLng == null) {
             log.warn("⚠️ [COURIER PENDINGS] Courier sem localização GPS");
@@ -1268,17 +1199,17 @@ public class DeliveryService {
         // ─────────────────────────────────────────────────────────────────────
         final double RADIUS_NIVEL1 = 15.0;
         List<Delivery> contractCandidates = deliveryRepository.findPendingByContractCourier(courierId);
-        log.info("📦 [NÍVEL 1] Candidatas via contrato: {}", contractCandidates.size());
+        log.debug("📦 [NÍVEL 1] Candidatas via contrato: {}", contractCandidates.size());
 
         List<Delivery> nivel1 = contractCandidates.stream()
                 .filter(d -> isWithinRadius(courierLat, courierLng, d, RADIUS_NIVEL1, log))
                 .sorted(java.util.Comparator.comparingDouble(d ->
                         minDistanceTo(courierLat, courierLng, (Delivery) d)))
                 .collect(java.util.stream.Collectors.toList());
-        log.info("✅ [NÍVEL 1] Após filtro {}km (ordenado por proximidade): {}", RADIUS_NIVEL1, nivel1.size());
+        log.debug("✅ [NÍVEL 1] Após filtro {}km (ordenado por proximidade): {}", RADIUS_NIVEL1, nivel1.size());
 
         if (!nivel1.isEmpty()) {
-            log.info("🏁 [COURIER PENDINGS] Nível 1 tem entregas — ignorando nível 2. Total: {}", nivel1.size());
+            log.debug("🏁 [COURIER PENDINGS] Nível 1 tem entregas — ignorando nível 2. Total: {}", nivel1.size());
             for (Delivery delivery : nivel1) {
                 org.hibernate.Hibernate.initialize(delivery.getClient());
                 org.hibernate.Hibernate.initialize(delivery.getCourier());
@@ -1295,16 +1226,16 @@ public class DeliveryService {
         // ─────────────────────────────────────────────────────────────────────
         final double RADIUS_NIVEL2 = 5.0;
         List<Delivery> customerCandidates = deliveryRepository.findPendingForCustomerClients();
-        log.info("📦 [NÍVEL 2] Candidatas CUSTOMER: {}", customerCandidates.size());
+        log.debug("📦 [NÍVEL 2] Candidatas CUSTOMER: {}", customerCandidates.size());
 
         List<Delivery> nivel2 = customerCandidates.stream()
                 .filter(d -> isWithinRadius(courierLat, courierLng, d, RADIUS_NIVEL2, log))
                 .sorted(java.util.Comparator.comparingDouble(d ->
                         minDistanceTo(courierLat, courierLng, (Delivery) d)))
                 .collect(java.util.stream.Collectors.toList());
-        log.info("✅ [NÍVEL 2] Após filtro {}km (ordenado por proximidade): {}", RADIUS_NIVEL2, nivel2.size());
+        log.debug("✅ [NÍVEL 2] Após filtro {}km (ordenado por proximidade): {}", RADIUS_NIVEL2, nivel2.size());
 
-        log.info("🏁 [COURIER PENDINGS] Total final (nível 2): {}", nivel2.size());
+        log.debug("🏁 [COURIER PENDINGS] Total final (nível 2): {}", nivel2.size());
 
         // Inicializar lazy-loaded dentro da transação
         for (Delivery delivery : nivel2) {
@@ -1332,15 +1263,19 @@ public class DeliveryService {
         // Pickup
         if (d.getFromLatitude() != null && d.getFromLongitude() != null) {
             double dist = calculateDistance(courierLat, courierLng, d.getFromLatitude(), d.getFromLongitude());
-            log.info("   📏 Delivery #{} pickup distance: {:.2f}km (limit: {}km) -> {}", 
-                d.getId(), dist, radiusKm, dist <= radiusKm ? "✅ PASS" : "❌ FAIL");
+            if (log.isDebugEnabled()) {
+                log.debug("   📏 Delivery #{} pickup distance: {}km (limit: {}km) -> {}",
+                        d.getId(), String.format("%.2f", dist), radiusKm, dist <= radiusKm ? "✅ PASS" : "❌ FAIL");
+            }
             if (dist <= radiusKm) return true;
         }
         // Destino
         if (d.getToLatitude() != null && d.getToLongitude() != null) {
             double dist = calculateDistance(courierLat, courierLng, d.getToLatitude(), d.getToLongitude());
-            log.info("   📏 Delivery #{} destination distance: {:.2f}km (limit: {}km) -> {}", 
-                d.getId(), dist, radiusKm, dist <= radiusKm ? "✅ PASS" : "❌ FAIL");
+            if (log.isDebugEnabled()) {
+                log.debug("   📏 Delivery #{} destination distance: {}km (limit: {}km) -> {}",
+                        d.getId(), String.format("%.2f", dist), radiusKm, dist <= radiusKm ? "✅ PASS" : "❌ FAIL");
+            }
             if (dist <= radiusKm) return true;
         }
         return false;
@@ -1,11 +1,15 @@
 package com.mvt.mvt_events.service;
 
+import com.mvt.mvt_events.http.OutboundGuard;
+import com.mvt.mvt_events.http.OutboundProvider;
 import com.mvt.mvt_events.jpa.User;
 import com.resend.Resend;
 import com.resend.core.exception.ResendException;
 import com.resend.services.emails.model.CreateEmailOptions;
 import com.resend.services.emails.model.CreateEmailResponse;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
@@ -84,6 +88,13 @@ public class EmailService {
     @Value("${app.name:Zapi10}")
     private String appName;
 
+    @Autowired
+    private OutboundGuard outboundGuard;
+
+    /** Clientes reaproveitados entre envios (antes era um por email) */
+    private volatile Resend resendClient;
+    private volatile SesClient sesClient;
+
     // ============================================================================
     // PROVIDER DETECTION
     // ============================================================================
@@ -204,7 +215,7 @@ public class EmailService {
      */
     private void sendViaResend(String to, String subject, String htmlContent, String emailType) {
         try {
-            Resend resend = new Resend(resendApiKey);
+            Resend resend = resendClient();
 
             String from = String.format("%s <%s>", getFromName(), getFromEmail());
 
@@ -215,7 +226,8 @@ public class EmailService {
                     .html(htmlContent)
                     .build();
 
-            CreateEmailResponse response = resend.emails().send(params);
+            CreateEmailResponse response = outboundGuard.execute(OutboundProvider.EMAIL, "resend.send",
+                    () -> resend.emails().send(params));
             log.info("Email de {} enviado via Resend para: {} (ID: {})", 
                     emailType, to, response.getId());
 
@@ -232,7 +244,8 @@ public class EmailService {
      * Envia email via AWS SES.
      */
     private void sendViaAwsSes(String to, String subject, String htmlContent, String emailType) {
-        try (SesClient sesClient = createSesClient()) {
+        try {
+            SesClient sesClient = sesClient();
             String formattedFrom = String.format("%s <%s>", getFromName(), getFromEmail());
 
             SendEmailRequest emailRequest = SendEmailRequest.builder()
@@ -254,7 +267,8 @@ public class EmailService {
                             .build())
                     .build();
 
-            SendEmailResponse response = sesClient.sendEmail(emailRequest);
+            SendEmailResponse response = outboundGuard.execute(OutboundProvider.EMAIL, "ses.send",
+                    () -> sesClient.sendEmail(emailRequest));
             log.info("Email de {} enviado via AWS SES para: {} (MessageId: {})", 
                     emailType, to, response.messageId());
 
@@ -267,6 +281,39 @@ public class EmailService {
         }
     }
 
+    private Resend resendClient() {
+        Resend client = resendClient;
+        if (client == null) {
+            synchronized (this) {
+                if (resendClient == null) {
+                    resendClient = new Resend(resendApiKey);
+                }
+                client = resendClient;
+            }
+        }
+        return client;
+    }
+
+    private SesClient sesClient() {
+        SesClient client = sesClient;
+        if (client == null) {
+            synchronized (this) {
+                if (sesClient == null) {
+                    sesClient = createSesClient();
+                }
+                client = sesClient;
+            }
+        }
+        return client;
+    }
+
+    @PreDestroy
+    void closeClients() {
+        if (sesClient != null) {
+            sesClient.close();
+        }
+    }
+
     /**
      * Cria o cliente SES com as credenciais configuradas.
      */
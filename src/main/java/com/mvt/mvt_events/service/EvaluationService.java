@@ -1,28 +1,38 @@
 package com.mvt.mvt_events.service;
 
+import com.mvt.mvt_events.jpa.CourierRatingAggregate;
 import com.mvt.mvt_events.jpa.Delivery;
 import com.mvt.mvt_events.jpa.Evaluation;
 import com.mvt.mvt_events.jpa.User;
+import com.mvt.mvt_events.repository.CourierRatingAggregateRepository;
 import com.mvt.mvt_events.repository.DeliveryRepository;
 import com.mvt.mvt_events.repository.EvaluationRepository;
 import com.mvt.mvt_events.repository.UserRepository;
+import com.mvt.mvt_events.schedule.LeasedJob;
 import com.mvt.mvt_events.specification.EvaluationSpecification;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
 /**
  * Service para Evaluation
  * Gerenciamento de avaliações de deliveries
+ *
+ * Rating médio e distribuição do courier vêm de courier_rating_aggregates, incrementado
+ * na mesma transação de cada avaliação CLIENT_TO_COURIER e recalculado diariamente.
  */
 @Service
 @Transactional
+@Slf4j
 public class EvaluationService {
 
     @Autowired
@@ -34,6 +44,9 @@ public class EvaluationService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private CourierRatingAggregateRepository ratingAggregateRepository;
+
     /**
      * Cria avaliação
      * VALIDA: Delivery existe, está completada, não tem avaliação, usuário tem
@@ -75,9 +88,17 @@ public class EvaluationService {
 
         evaluation.setDelivery(delivery);
         evaluation.setEvaluator(evaluator);
+        evaluation.setEvaluated(evaluation.getEvaluationType() == Evaluation.EvaluationType.CLIENT_TO_COURIER
+                ? delivery.getCourier() : delivery.getClient());
 
         Evaluation saved = evaluationRepository.save(evaluation);
 
+        // Agregado do courier na mesma transação: rollback da avaliação desfaz o incremento
+        if (saved.getEvaluationType() == Evaluation.EvaluationType.CLIENT_TO_COURIER
+                && delivery.getCourier() != null) {
+            ratingAggregateRepository.increment(delivery.getCourier().getId(), saved.getRating());
+        }
+
         return saved;
     }
 
@@ -111,15 +132,35 @@ public class EvaluationService {
     }
 
     /**
-     * Calcula rating médio do courier
+     * Rating médio do courier (lookup por PK no agregado; 0.0 sem avaliações)
      */
+    @Transactional(readOnly = true)
     public Double getAverageRatingForCourier(UUID courierId) {
-        Double average = evaluationRepository.calculateAverageRatingForCourier(courierId);
-        return average != null ? average : 0.0;
+        return ratingAggregateRepository.findById(courierId)
+                .filter(a -> a.getRatingCount() > 0)
+                .map(a -> (double) a.getRatingSum() / a.getRatingCount())
+                .orElse(0.0);
     }
 
-    // Método updateCourierRating removido - CourierProfile não existe mais
-    // Se necessário, o rating pode ser calculado diretamente da tabela evaluations
+    /**
+     * Recalcula courier_rating_aggregates a partir de evaluations (backfill e correção de
+     * divergências). Roda diariamente às 3h30, numa única réplica.
+     */
+    @Scheduled(cron = "0 30 3 * * *")
+    @LeasedJob(value = "courier-rating-rebuild", minIntervalSeconds = 3600)
+    public void rebuildCourierRatingAggregates() {
+        long start = System.currentTimeMillis();
+        ratingAggregateRepository.lockForRebuild();
+        int updated = ratingAggregateRepository.rebuildAll();
+        int removed = ratingAggregateRepository.deleteOrphans();
+        if (updated > 0 || removed > 0) {
+            log.warn("⚠️ Agregados de rating recalculados em {}ms: {} corrigidos/criados, {} removidos",
+                    System.currentTimeMillis() - start, updated, removed);
+        } else {
+            log.info("✅ Agregados de rating conferidos em {}ms: nenhuma divergência",
+                    System.currentTimeMillis() - start);
+        }
+    }
 
     /**
      * Busca avaliações ruins (rating <= 2) para análise
@@ -132,9 +173,22 @@ public class EvaluationService {
     }
 
     /**
-     * Distribuição de ratings de um courier
+     * Distribuição de ratings de um courier: pares {rating, count} das notas presentes,
+     * da maior para a menor (mesmo formato de countRatingDistributionForCourier)
      */
+    @Transactional(readOnly = true)
     public List<Object[]> getRatingDistribution(UUID courierId) {
-        return evaluationRepository.countRatingDistributionForCourier(courierId);
+        CourierRatingAggregate aggregate = ratingAggregateRepository.findById(courierId).orElse(null);
+        List<Object[]> distribution = new ArrayList<>(5);
+        if (aggregate == null) {
+            return distribution;
+        }
+        for (int rating = 5; rating >= 1; rating--) {
+            int count = aggregate.countFor(rating);
+            if (count > 0) {
+                distribution.add(new Object[]{rating, (long) count});
+            }
+        }
+        return distribution;
     }
 }
@@ -1,19 +1,25 @@
 package com.mvt.mvt_events.service;
 
 import com.mvt.mvt_events.jpa.*;
+import com.mvt.mvt_events.pricing.FeeQuoteEngine;
 import com.mvt.mvt_events.repository.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.OffsetDateTime;
 import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -23,7 +29,7 @@ import java.util.UUID;
  */
 @Service
 @Transactional
-public class FoodOrderService implements DeliveryStatusCallback {
+public class FoodOrderService implements DeliveryLifecycleListener {
 
     private static final Logger log = LoggerFactory.getLogger(FoodOrderService.class);
     private static final ZoneId ZONE = ZoneId.of("America/Fortaleza");
@@ -35,21 +41,25 @@ public class FoodOrderService implements DeliveryStatusCallback {
     private final DeliveryService deliveryService;
     private final DeliveryStopRepository deliveryStopRepository;
     private final PushNotificationService pushNotificationService;
-    private final SiteConfigurationService siteConfigurationService;
+    private final FeeQuoteEngine feeQuoteEngine;
     private final GoogleDirectionsService googleDirectionsService;
     private final RestaurantTableRepository restaurantTableRepository;
     private final com.mvt.mvt_events.repository.OrderCommandRepository orderCommandRepository;
     private final ClientWaiterRepository clientWaiterRepository;
+    private final OrderBoardService orderBoardService;
+    private final CashRegisterService cashRegisterService;
 
     public FoodOrderService(FoodOrderRepository orderRepository, ProductRepository productRepository,
                             UserRepository userRepository, StoreProfileRepository storeProfileRepository,
                             @Lazy DeliveryService deliveryService, DeliveryStopRepository deliveryStopRepository,
                             PushNotificationService pushNotificationService,
-                            SiteConfigurationService siteConfigurationService,
+                            FeeQuoteEngine feeQuoteEngine,
                             GoogleDirectionsService googleDirectionsService,
                             RestaurantTableRepository restaurantTableRepository,
                             com.mvt.mvt_events.repository.OrderCommandRepository orderCommandRepository,
-                            ClientWaiterRepository clientWaiterRepository) {
+                            ClientWaiterRepository clientWaiterRepository,
+                            OrderBoardService orderBoardService,
+                            CashRegisterService cashRegisterService) {
         this.orderRepository = orderRepository;
         this.productRepository = productRepository;
         this.userRepository = userRepository;
@@ -57,11 +67,13 @@ public class FoodOrderService implements DeliveryStatusCallback {
         this.deliveryStopRepository = deliveryStopRepository;
         this.deliveryService = deliveryService;
         this.pushNotificationService = pushNotificationService;
-        this.siteConfigurationService = siteConfigurationService;
+        this.feeQuoteEngine = feeQuoteEngine;
         this.googleDirectionsService = googleDirectionsService;
         this.restaurantTableRepository = restaurantTableRepository;
         this.orderCommandRepository = orderCommandRepository;
         this.clientWaiterRepository = clientWaiterRepository;
+        this.orderBoardService = orderBoardService;
+        this.cashRegisterService = cashRegisterService;
     }
 
     // ================================================================
@@ -111,8 +123,7 @@ public class FoodOrderService implements DeliveryStatusCallback {
 
         // Validar distância mínima entre destino e restaurante usando rota do Google.
         // O limite vem de SiteConfiguration (default 50m). Zero desliga a validação.
-        int minDistMeters = siteConfigurationService.getActiveConfiguration()
-                .getMinOrderDistanceMeters();
+        int minDistMeters = feeQuoteEngine.schedule().minOrderDistanceMeters();
         if (minDistMeters > 0 && storeLat != null && storeLng != null) {
             int distMeters = googleDirectionsService.getDistanceMeters(
                     destLat, destLng, storeLat, storeLng);
@@ -140,14 +151,10 @@ public class FoodOrderService implements DeliveryStatusCallback {
 
         BigDecimal subtotal = BigDecimal.ZERO;
         int maxPrepTime = 0;
+        Map<Long, Product> catalog = loadCartProducts(clientId, items);
 
         for (OrderItemRequest itemReq : items) {
-            Product product = productRepository.findById(itemReq.productId)
-                    .orElseThrow(() -> new RuntimeException("Produto não encontrado: " + itemReq.productId));
-
-            if (!product.getClient().getId().equals(clientId)) {
-                throw new RuntimeException("Produto " + product.getName() + " não pertence a este restaurante");
-            }
+            Product product = cartProduct(catalog, itemReq.productId, "Produto");
             if (!product.getAvailable()) {
                 throw new RuntimeException("Produto " + product.getName() + " não está disponível no momento");
             }
@@ -159,7 +166,7 @@ public class FoodOrderService implements DeliveryStatusCallback {
             item.setUnitPrice(product.priceFor(order.getOrderType())); // snapshot do preço
             item.setNotes(itemReq.notes);
             item.setObservation(itemReq.observation);
-            BigDecimal addonTotal = attachAddons(item, itemReq.addons, clientId, order.getOrderType());
+            BigDecimal addonTotal = attachAddons(item, itemReq.addons, catalog, order.getOrderType());
             order.getItems().add(item);
 
             subtotal = subtotal.add(product.priceFor(order.getOrderType()).multiply(BigDecimal.valueOf(itemReq.quantity)));
@@ -183,7 +190,7 @@ public class FoodOrderService implements DeliveryStatusCallback {
         order.setTotal(subtotal.add(deliveryFee).setScale(2, RoundingMode.HALF_UP));
         order.setEstimatedPreparationMinutes(maxPrepTime > 0 ? maxPrepTime : null);
 
-        FoodOrder saved = orderRepository.save(order);
+        FoodOrder saved = saveAndPublish(order);
 
         // Notificar restaurante
         try {
@@ -272,14 +279,11 @@ public class FoodOrderService implements DeliveryStatusCallback {
 
         BigDecimal subtotal = BigDecimal.ZERO;
         int maxPrepTime = 0;
+        Map<Long, Product> catalog = loadCartProducts(clientId, items);
+        Map<Long, OrderCommand> commands = loadCartCommands(items);
 
         for (OrderItemRequest itemReq : items) {
-            Product product = productRepository.findById(itemReq.productId)
-                    .orElseThrow(() -> new RuntimeException("Produto não encontrado: " + itemReq.productId));
-
-            if (!product.getClient().getId().equals(clientId)) {
-                throw new RuntimeException("Produto " + product.getName() + " não pertence a este restaurante");
-            }
+            Product product = cartProduct(catalog, itemReq.productId, "Produto");
             if (!product.getAvailable()) {
                 throw new RuntimeException("Produto " + product.getName() + " não está disponível no momento");
             }
@@ -292,10 +296,9 @@ public class FoodOrderService implements DeliveryStatusCallback {
             item.setNotes(itemReq.notes);
             item.setObservation(itemReq.observation);
             if (itemReq.commandId != null) {
-                item.setCommand(orderCommandRepository.findById(itemReq.commandId)
-                        .orElseThrow(() -> new RuntimeException("Comanda não encontrada: " + itemReq.commandId)));
+                item.setCommand(cartCommand(commands, itemReq.commandId));
             }
-            BigDecimal addonTotal = attachAddons(item, itemReq.addons, clientId, order.getOrderType());
+            BigDecimal addonTotal = attachAddons(item, itemReq.addons, catalog, order.getOrderType());
             order.getItems().add(item);
 
             subtotal = subtotal.add(product.priceFor(order.getOrderType()).multiply(BigDecimal.valueOf(itemReq.quantity)));
@@ -311,7 +314,7 @@ public class FoodOrderService implements DeliveryStatusCallback {
         order.setTotal(subtotal.setScale(2, RoundingMode.HALF_UP));
         order.setEstimatedPreparationMinutes(maxPrepTime > 0 ? maxPrepTime : null);
 
-        FoodOrder saved = orderRepository.save(order);
+        FoodOrder saved = saveAndPublish(order);
 
         log.info("🍽️ Pedido de mesa #{} criado: {} ({}) → mesa {} do {}, R$ {}",
                 saved.getId(), author.getName(), author.getRole(),
@@ -341,14 +344,11 @@ public class FoodOrderService implements DeliveryStatusCallback {
                 .orElse(0) + 1;
 
         BigDecimal addedSubtotal = BigDecimal.ZERO;
+        Map<Long, Product> catalog = loadCartProducts(clientId, newItems);
+        Map<Long, OrderCommand> commands = loadCartCommands(newItems);
 
         for (OrderItemRequest itemReq : newItems) {
-            Product product = productRepository.findById(itemReq.productId)
-                    .orElseThrow(() -> new RuntimeException("Produto não encontrado: " + itemReq.productId));
-
-            if (!product.getClient().getId().equals(clientId)) {
-                throw new RuntimeException("Produto " + product.getName() + " não pertence a este restaurante");
-            }
+            Product product = cartProduct(catalog, itemReq.productId, "Produto");
 
             // Dedup por (produto, comanda): cerveja do Pedro não funde com cerveja do Iran.
             // A partir da fase 2, itens com customização (observation ou addons) NUNCA fazem dedup —
@@ -379,10 +379,9 @@ public class FoodOrderService implements DeliveryStatusCallback {
                 item.setRound(nextRound);
                 item.setSentAt(OffsetDateTime.now());
                 if (reqCommandId != null) {
-                    item.setCommand(orderCommandRepository.findById(reqCommandId)
-                            .orElseThrow(() -> new RuntimeException("Comanda não encontrada: " + reqCommandId)));
+                    item.setCommand(cartCommand(commands, reqCommandId));
                 }
-                BigDecimal addonTotal = attachAddons(item, itemReq.addons, clientId, order.getOrderType());
+                BigDecimal addonTotal = attachAddons(item, itemReq.addons, catalog, order.getOrderType());
                 order.getItems().add(item);
 
                 addedSubtotal = addedSubtotal.add(product.priceFor(order.getOrderType()).multiply(BigDecimal.valueOf(itemReq.quantity)));
@@ -408,7 +407,7 @@ public class FoodOrderService implements DeliveryStatusCallback {
             restaurantTableRepository.save(t);
         }
 
-        FoodOrder saved = orderRepository.save(order);
+        FoodOrder saved = saveAndPublish(order);
 
         log.info("🍽️ Pedido #{} — rodada {} adicionada: +{} itens, novo total R$ {}",
                 orderId, nextRound, newItems.size(), saved.getTotal());
@@ -473,7 +472,7 @@ public class FoodOrderService implements DeliveryStatusCallback {
         }
 
         log.info("🗑️ 1x item #{} removido do pedido #{}, novo total R$ {}", itemId, orderId, order.getTotal());
-        return orderRepository.save(order);
+        return saveAndPublish(order);
     }
 
     // ================================================================
@@ -490,7 +489,7 @@ public class FoodOrderService implements DeliveryStatusCallback {
         notifyCustomer(order, "✅ Pedido aceito", "O restaurante aceitou seu pedido #" + orderId);
 
         log.info("✅ Pedido #{} aceito pelo restaurante", orderId);
-        return orderRepository.save(order);
+        return saveAndPublish(order);
     }
 
     public FoodOrder startPreparing(Long orderId, UUID clientId) {
@@ -503,7 +502,7 @@ public class FoodOrderService implements DeliveryStatusCallback {
         notifyCustomer(order, "👨‍🍳 Pedido em preparo", "Seu pedido #" + orderId + " está sendo preparado");
 
         log.info("👨‍🍳 Pedido #{} em preparo", orderId);
-        return orderRepository.save(order);
+        return saveAndPublish(order);
     }
 
     private static final int GROUPING_WINDOW_MINUTES = 10;
@@ -516,7 +515,7 @@ public class FoodOrderService implements DeliveryStatusCallback {
 
         order.setStatus(FoodOrder.OrderStatus.READY);
         order.setReadyAt(OffsetDateTime.now(ZONE));
-        FoodOrder saved = orderRepository.save(order);
+        FoodOrder saved = saveAndPublish(order);
 
         if (saved.getOrderType() == FoodOrder.OrderType.TABLE) {
             // Pedido de mesa: não cria delivery — notifica garçom para servir
@@ -536,7 +535,7 @@ public class FoodOrderService implements DeliveryStatusCallback {
                     if (groupedDelivery.getStatus() == Delivery.DeliveryStatus.ACCEPTED
                             || groupedDelivery.getStatus() == Delivery.DeliveryStatus.IN_TRANSIT) {
                         saved.setStatus(FoodOrder.OrderStatus.DELIVERING);
-                        saved = orderRepository.save(saved);
+                        saved = saveAndPublish(saved);
                     }
                     log.info("📦 Pedido #{} agrupado na Delivery #{} (multi-stop)", orderId, groupedDelivery.getId());
                 } else {
@@ -670,7 +669,7 @@ public class FoodOrderService implements DeliveryStatusCallback {
         order.setStatus(FoodOrder.OrderStatus.AWAITING_PAYMENT);
         order.setCompletedAt(OffsetDateTime.now(ZONE));
 
-        return orderRepository.save(order);
+        return saveAndPublish(order);
     }
 
     /**
@@ -702,6 +701,7 @@ public class FoodOrderService implements DeliveryStatusCallback {
         if (order.getCompletedAt() == null) {
             order.setCompletedAt(OffsetDateTime.now(ZONE));
         }
+        cashRegisterService.recordCashSale(order);
 
         // Auto-transição: mesa volta a AVAILABLE e desvincula do pedido
         if (order.getTable() != null) {
@@ -711,7 +711,7 @@ public class FoodOrderService implements DeliveryStatusCallback {
             order.setTable(null); // libera FK, tableNumberField mantém o histórico
         }
 
-        return orderRepository.save(order);
+        return saveAndPublish(order);
     }
 
     public FoodOrder cancel(Long orderId, UUID userId, String reason) {
@@ -762,7 +762,7 @@ public class FoodOrderService implements DeliveryStatusCallback {
         }
 
         log.info("❌ Pedido #{} cancelado por {}: {}", orderId, isCustomer ? "customer" : "restaurante", reason);
-        return orderRepository.save(order);
+        return saveAndPublish(order);
     }
 
     public FoodOrder complete(Long orderId) {
@@ -775,6 +775,7 @@ public class FoodOrderService implements DeliveryStatusCallback {
 
         order.setStatus(FoodOrder.OrderStatus.COMPLETED);
         order.setCompletedAt(OffsetDateTime.now(ZONE));
+        cashRegisterService.recordCashSale(order);
 
         // Liberar mesa se for pedido de mesa
         if (order.getTable() != null) {
@@ -787,7 +788,7 @@ public class FoodOrderService implements DeliveryStatusCallback {
         notifyCustomer(order, "✅ Pedido entregue", "Seu pedido #" + orderId + " foi entregue. Bom apetite!");
 
         log.info("✅ Pedido #{} entregue com sucesso", orderId);
-        return orderRepository.save(order);
+        return saveAndPublish(order);
     }
 
     // ================================================================
@@ -877,6 +878,25 @@ public class FoodOrderService implements DeliveryStatusCallback {
         return result;
     }
 
+    /**
+     * Abre o quadro ao vivo (SSE) do estabelecimento. Acesso: o próprio CLIENT,
+     * garçom com vínculo ativo, ou ADMIN.
+     */
+    @Transactional(readOnly = true)
+    public SseEmitter subscribeBoard(User requester, UUID clientId) {
+        UUID targetClientId = clientId != null ? clientId : requester.getId();
+        boolean allowed = switch (requester.getRole()) {
+            case CLIENT -> requester.getId().equals(targetClientId);
+            case WAITER -> clientWaiterRepository.hasActiveLink(targetClientId, requester.getId());
+            case ADMIN -> true;
+            default -> false;
+        };
+        if (!allowed) {
+            throw new RuntimeException("Sem acesso ao quadro de pedidos deste estabelecimento");
+        }
+        return orderBoardService.subscribe(targetClientId);
+    }
+
     // ================================================================
     // HELPERS
     // ================================================================
@@ -974,19 +994,16 @@ public class FoodOrderService implements DeliveryStatusCallback {
     private BigDecimal calculateDeliveryFee(Double destLat, Double destLng, User client) {
         if (destLat == null || destLng == null
                 || client.getGpsLatitude() == null || client.getGpsLongitude() == null) {
-            SiteConfiguration config = siteConfigurationService.getActiveConfiguration();
-            return config.getMinimumShippingFee();
+            return feeQuoteEngine.schedule().minimumFee(Delivery.PreferredVehicleType.MOTORCYCLE);
         }
 
         double distKm = haversineKm(destLat, destLng,
                 client.getGpsLatitude(), client.getGpsLongitude());
 
-        SiteConfiguration config = siteConfigurationService.getActiveConfiguration();
-        BigDecimal fee = BigDecimal.valueOf(distKm).multiply(config.getPricePerKm());
-        if (fee.compareTo(config.getMinimumShippingFee()) < 0) {
-            fee = config.getMinimumShippingFee();
-        }
-        return fee.setScale(2, RoundingMode.HALF_UP);
+        // Mesmas regras de preço/km e mínimo do frete de entregas; pedidos de comida não
+        // aplicam sobretaxa de zona nem parada extra.
+        return feeQuoteEngine.quote(BigDecimal.valueOf(distKm), List.of(),
+                Delivery.PreferredVehicleType.MOTORCYCLE, 0).total();
     }
 
     private double haversineKm(double lat1, double lon1, double lat2, double lon2) {
@@ -999,6 +1016,17 @@ public class FoodOrderService implements DeliveryStatusCallback {
         return R * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
     }
 
+    /**
+     * Persiste e empurra o card atualizado pro quadro ao vivo do estabelecimento (após commit).
+     * updated_at é tocado mesmo quando só os itens mudaram: é o cursor do poll das outras instâncias.
+     */
+    private FoodOrder saveAndPublish(FoodOrder order) {
+        order.setUpdatedAt(OffsetDateTime.now());
+        FoodOrder saved = orderRepository.save(order);
+        orderBoardService.publish(saved);
+        return saved;
+    }
+
     private FoodOrder findAndValidateClient(Long orderId, UUID clientId) {
         FoodOrder order = orderRepository.findByIdWithItems(orderId)
                 .orElseThrow(() -> new RuntimeException("Pedido não encontrado"));
@@ -1041,28 +1069,30 @@ public class FoodOrderService implements DeliveryStatusCallback {
     }
 
     // ================================================================
-    // CALLBACK: sincroniza status do pedido quando a delivery muda
+    // LISTENER: sincroniza status do pedido quando a delivery muda
     // ================================================================
 
+    /** Roda após o commit da delivery, na própria transação (classe é @Transactional). */
     @Override
-    public void onDeliveryStatusChanged(Delivery delivery) {
-        orderRepository.findByDeliveryId(delivery.getId()).ifPresent(order -> {
-            FoodOrder.OrderStatus newStatus = mapDeliveryStatusToOrderStatus(delivery.getStatus());
+    public void onDeliveryLifecycle(DeliveryLifecycleEvent event) {
+        orderRepository.findByDeliveryId(event.deliveryId()).ifPresent(order -> {
+            FoodOrder.OrderStatus newStatus = mapDeliveryStatusToOrderStatus(event.status());
             if (newStatus != null && order.getStatus() != newStatus) {
                 FoodOrder.OrderStatus oldStatus = order.getStatus();
                 order.setStatus(newStatus);
 
                 // Sincronizar timestamps
                 if (newStatus == FoodOrder.OrderStatus.COMPLETED) {
-                    order.setCompletedAt(delivery.getCompletedAt());
+                    order.setCompletedAt(event.completedAt());
+                    cashRegisterService.recordCashSale(order);
                 } else if (newStatus == FoodOrder.OrderStatus.CANCELLED) {
-                    order.setCancelledAt(delivery.getCancelledAt());
-                    order.setCancellationReason(delivery.getCancellationReason());
+                    order.setCancelledAt(event.cancelledAt());
+                    order.setCancellationReason(event.cancellationReason());
                 }
 
-                orderRepository.save(order);
+                saveAndPublish(order);
                 log.info("🔄 Pedido #{} status sincronizado: {} → {} (delivery #{} → {})",
-                        order.getId(), oldStatus, newStatus, delivery.getId(), delivery.getStatus());
+                        order.getId(), oldStatus, newStatus, event.deliveryId(), event.status());
             }
         });
     }
@@ -1178,7 +1208,7 @@ public class FoodOrderService implements DeliveryStatusCallback {
             item.setCommand(target);
         }
 
-        return orderRepository.save(order);
+        return saveAndPublish(order);
     }
 
     @Transactional
@@ -1190,7 +1220,7 @@ public class FoodOrderService implements DeliveryStatusCallback {
                 .findFirst()
                 .orElseThrow(() -> new RuntimeException("Item não encontrado"));
         item.setPackaged(packaged);
-        orderRepository.save(order);
+        saveAndPublish(order);
     }
 
     // ================================================================
@@ -1346,7 +1376,7 @@ public class FoodOrderService implements DeliveryStatusCallback {
         }
 
         tryAutoComplete(order, now);
-        return orderRepository.save(order);
+        return saveAndPublish(order);
     }
 
     /**
@@ -1366,6 +1396,7 @@ public class FoodOrderService implements DeliveryStatusCallback {
             order.setStatus(FoodOrder.OrderStatus.COMPLETED);
             if (order.getCompletedAt() == null) order.setCompletedAt(now);
             if (order.getPaidAt() == null) order.setPaidAt(now);
+            cashRegisterService.recordCashSale(order);
             if (order.getTable() != null) {
                 RestaurantTable t = order.getTable();
                 t.setStatus(RestaurantTable.TableStatus.AVAILABLE);
@@ -1388,7 +1419,7 @@ public class FoodOrderService implements DeliveryStatusCallback {
             return order;
         }
         tryAutoComplete(order, OffsetDateTime.now(ZONE));
-        return orderRepository.save(order);
+        return saveAndPublish(order);
     }
 
     // ================================================================
@@ -1397,23 +1428,21 @@ public class FoodOrderService implements DeliveryStatusCallback {
 
     /**
      * Cria OrderItemAddons para um OrderItem a partir de uma lista de AddonRequests.
-     * Valida que cada product pertence ao mesmo clientId do pedido e está `available`.
+     * Os products vêm do catálogo do carrinho ({@link #loadCartProducts}, já restrito ao
+     * clientId do pedido); aqui só valida que estão `available`.
      * Retorna o total dos addons (sum of unitPrice * quantity) a ser somado no subtotal.
      *
      * Importante: addons carregam quantity independente do parent OrderItem.quantity —
      * "4x Classic Burger + 2x Cheddar" significa 2 cheddars totais (não 2 por burger).
      */
-    private BigDecimal attachAddons(OrderItem item, List<AddonRequest> addonReqs, UUID clientId, FoodOrder.OrderType orderType) {
+    private BigDecimal attachAddons(OrderItem item, List<AddonRequest> addonReqs, Map<Long, Product> catalog,
+                                    FoodOrder.OrderType orderType) {
         if (addonReqs == null || addonReqs.isEmpty()) return BigDecimal.ZERO;
 
         BigDecimal total = BigDecimal.ZERO;
         for (AddonRequest ar : addonReqs) {
             if (ar == null || ar.productId == null || ar.quantity <= 0) continue;
-            Product addonProduct = productRepository.findById(ar.productId)
-                    .orElseThrow(() -> new RuntimeException("Adicional não encontrado: " + ar.productId));
-            if (!addonProduct.getClient().getId().equals(clientId)) {
-                throw new RuntimeException("Adicional " + addonProduct.getName() + " não pertence a este restaurante");
-            }
+            Product addonProduct = cartProduct(catalog, ar.productId, "Adicional");
             if (!addonProduct.getAvailable()) {
                 throw new RuntimeException("Adicional " + addonProduct.getName() + " não está disponível");
             }
@@ -1430,6 +1459,64 @@ public class FoodOrderService implements DeliveryStatusCallback {
         return total;
     }
 
+    /**
+     * Carrega numa query só, já restrita ao estabelecimento, todos os produtos e adicionais
+     * referenciados no carrinho. Validação de dono/disponibilidade e preço ficam em memória.
+     */
+    private Map<Long, Product> loadCartProducts(UUID clientId, List<OrderItemRequest> items) {
+        Set<Long> ids = new HashSet<>();
+        for (OrderItemRequest req : items) {
+            if (req.productId != null) ids.add(req.productId);
+            if (req.addons == null) continue;
+            for (AddonRequest ar : req.addons) {
+                if (ar != null && ar.productId != null) ids.add(ar.productId);
+            }
+        }
+        if (ids.isEmpty()) return Map.of();
+
+        Map<Long, Product> catalog = new HashMap<>();
+        for (Product p : productRepository.findByClientIdAndIdIn(clientId, ids)) {
+            catalog.put(p.getId(), p);
+        }
+        return catalog;
+    }
+
+    /**
+     * Produto do carrinho carregado. Ausente = inexistente ou de outro estabelecimento
+     * (o existsById só roda no caminho de erro, pra manter a mensagem específica).
+     */
+    private Product cartProduct(Map<Long, Product> catalog, Long productId, String label) {
+        Product product = catalog.get(productId);
+        if (product != null) return product;
+        if (productId != null && productRepository.existsById(productId)) {
+            throw new RuntimeException(label + " " + productId + " não pertence a este restaurante");
+        }
+        throw new RuntimeException(label + " não encontrado: " + productId);
+    }
+
+    /** Comandas referenciadas no carrinho, numa query só. */
+    private Map<Long, OrderCommand> loadCartCommands(List<OrderItemRequest> items) {
+        Set<Long> ids = new HashSet<>();
+        for (OrderItemRequest req : items) {
+            if (req.commandId != null) ids.add(req.commandId);
+        }
+        if (ids.isEmpty()) return Map.of();
+
+        Map<Long, OrderCommand> commands = new HashMap<>();
+        for (OrderCommand c : orderCommandRepository.findAllById(ids)) {
+            commands.put(c.getId(), c);
+        }
+        return commands;
+    }
+
+    private static OrderCommand cartCommand(Map<Long, OrderCommand> commands, Long commandId) {
+        OrderCommand command = commands.get(commandId);
+        if (command == null) {
+            throw new RuntimeException("Comanda não encontrada: " + commandId);
+        }
+        return command;
+    }
+
     /** Soma dos addons de um item já persistido. */
     private BigDecimal sumAddons(OrderItem item) {
         if (item.getAddons() == null || item.getAddons().isEmpty()) return BigDecimal.ZERO;
@@ -2,12 +2,16 @@ package com.mvt.mvt_events.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.mvt.mvt_events.http.OutboundHttpClients;
+import com.mvt.mvt_events.http.OutboundProvider;
+import com.mvt.mvt_events.util.LruCache;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.util.ArrayList;
@@ -24,11 +28,29 @@ public class GoogleDirectionsService {
     @Value("${google.maps.api-key:}")
     private String apiKey;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    /** TTL do cache de distância rodável (rotas quase não mudam; default 24h). */
+    @Value("${google.directions.distance-cache-ttl-ms:86400000}")
+    private long distanceCacheTtlMs = 86_400_000L;
+
+    private static final int DISTANCE_CACHE_MAX_ENTRIES = 10_000;
+
+    private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final LruCache<String, CachedDistance> distanceCache = new LruCache<>(DISTANCE_CACHE_MAX_ENTRIES);
+
+    private record CachedDistance(int meters, long expiresAt) {}
 
     private static final String DIRECTIONS_URL = "https://maps.googleapis.com/maps/api/directions/json";
 
+    /** Endpoint do Directions (sobrescrito nos testes de integração por um stub local). */
+    @Value("${google.directions.url:" + DIRECTIONS_URL + "}")
+    private String directionsUrl = DIRECTIONS_URL;
+
+    @Autowired
+    public GoogleDirectionsService(OutboundHttpClients outboundHttpClients) {
+        this.restTemplate = outboundHttpClients.restTemplate(OutboundProvider.GOOGLE);
+    }
+
     /**
      * Get a route from origin to destination, optionally passing through intermediate waypoints.
      *
@@ -36,12 +58,23 @@ public class GoogleDirectionsService {
      * @param originLng      longitude of the origin
      * @param destLat        latitude of the destination
      * @param destLng        longitude of the destination
-     * @param waypoints      list of [lat, lng] pairs for intermediate stops (order matters)
+     * @param waypoints      list of [lat, lng] pairs for intermediate stops (Google may reorder them)
      * @return list of [lat, lng] pairs representing the decoded polyline, or empty list on failure
      */
     public List<double[]> getRoute(double originLat, double originLng,
                                    double destLat, double destLng,
                                    List<double[]> waypoints) {
+        return getRoute(originLat, originLng, destLat, destLng, waypoints, true);
+    }
+
+    /**
+     * Same as {@link #getRoute(double, double, double, double, List)}, choosing whether Google
+     * may reorder the waypoints ({@code optimize:true}). Pass {@code false} when the caller
+     * already computed the visiting order and relies on it.
+     */
+    public List<double[]> getRoute(double originLat, double originLng,
+                                   double destLat, double destLng,
+                                   List<double[]> waypoints, boolean optimizeWaypoints) {
         if (apiKey == null || apiKey.isBlank()) {
             log.warn("⚠️ Google Maps API key not configured — skipping route fetch");
             return List.of();
@@ -51,7 +84,7 @@ public class GoogleDirectionsService {
             String origin = originLat + "," + originLng;
             String destination = destLat + "," + destLng;
 
-            UriComponentsBuilder builder = UriComponentsBuilder.fromHttpUrl(DIRECTIONS_URL)
+            UriComponentsBuilder builder = UriComponentsBuilder.fromHttpUrl(directionsUrl)
                     .queryParam("origin", origin)
                     .queryParam("destination", destination)
                     .queryParam("mode", "driving")
@@ -59,9 +92,10 @@ public class GoogleDirectionsService {
                     .queryParam("key", apiKey);
 
             if (waypoints != null && !waypoints.isEmpty()) {
-                StringBuilder wp = new StringBuilder("optimize:true");
+                StringBuilder wp = new StringBuilder(optimizeWaypoints ? "optimize:true" : "");
                 for (double[] pt : waypoints) {
-                    wp.append("|").append(pt[0]).append(",").append(pt[1]);
+                    if (wp.length() > 0) wp.append("|");
+                    wp.append(pt[0]).append(",").append(pt[1]);
                 }
                 builder.queryParam("waypoints", wp.toString());
             }
@@ -103,6 +137,7 @@ public class GoogleDirectionsService {
      * Retorna a distância rodável em metros entre origem e destino.
      * Usa routes[0].legs[0].distance.value da Directions API.
      * Retorna -1 se a API não estiver configurada, falhar, ou retornar status != OK.
+     * Resultados válidos ficam em cache por {@code google.directions.distance-cache-ttl-ms}.
      */
     public int getDistanceMeters(double originLat, double originLng,
                                  double destLat, double destLng) {
@@ -110,8 +145,32 @@ public class GoogleDirectionsService {
             log.warn("⚠️ Google Maps API key not configured — cannot compute driving distance");
             return -1;
         }
+        String key = distanceKey(originLat, originLng, destLat, destLng);
+        long now = System.currentTimeMillis();
+        CachedDistance cached = distanceCache.get(key);
+        if (cached != null && cached.expiresAt() > now) {
+            return cached.meters();
+        }
+        int meters = fetchDistanceMeters(originLat, originLng, destLat, destLng);
+        if (meters >= 0) {
+            distanceCache.put(key, new CachedDistance(meters, now + distanceCacheTtlMs));
+        }
+        return meters;
+    }
+
+    /**
+     * Chave do cache: coordenadas arredondadas em 5 casas (~1 m). O mesmo par
+     * cliente ↔ restaurante repete a cada pedido; falhas (-1) não são cacheadas.
+     */
+    private static String distanceKey(double originLat, double originLng, double destLat, double destLng) {
+        return Math.round(originLat * 1e5) + "," + Math.round(originLng * 1e5) + ">"
+                + Math.round(destLat * 1e5) + "," + Math.round(destLng * 1e5);
+    }
+
+    private int fetchDistanceMeters(double originLat, double originLng,
+                                    double destLat, double destLng) {
         try {
-            String url = UriComponentsBuilder.fromHttpUrl(DIRECTIONS_URL)
+            String url = UriComponentsBuilder.fromHttpUrl(directionsUrl)
                     .queryParam("origin", originLat + "," + originLng)
                     .queryParam("destination", destLat + "," + destLng)
                     .queryParam("mode", "driving")
@@ -0,0 +1,128 @@
+package com.mvt.mvt_events.service;
+
+import java.util.Arrays;
+
+/**
+ * Atribuição de custo mínimo (algoritmo húngaro, versão de caminhos aumentantes com
+ * potenciais — O(n²·m)). Java puro, sem estado: usado pelo dispatch em lote para casar
+ * motoboys e deliveries num passe só.
+ *
+ * Aceita matriz retangular. Pares proibidos (fora do raio, veículo incompatível...) usam
+ * {@link #FORBIDDEN}; ficam sem par em vez de forçar uma atribuição inviável.
+ */
+final class HungarianAssignment {
+
+    /** Custo de um par que não pode ser atribuído. */
+    static final double FORBIDDEN = Double.POSITIVE_INFINITY;
+
+    private HungarianAssignment() {
+    }
+
+    /**
+     * @param cost cost[linha][coluna]; todas as linhas com o mesmo tamanho
+     * @return para cada linha, a coluna atribuída ou -1 (sem par viável / sobra de linhas)
+     */
+    static int[] solve(double[][] cost) {
+        int rows = cost.length;
+        if (rows == 0) return new int[0];
+        int cols = cost[0].length;
+        int[] result = new int[rows];
+        Arrays.fill(result, -1);
+        if (cols == 0) return result;
+
+        // Pares proibidos viram um custo maior que qualquer solução viável. Com custos
+        // negativos, trocar um par proibido por n-1 pares viáveis pode "economizar" até
+        // 2·n·finiteMax — o custo do proibido precisa ficar acima disso.
+        double finiteMax = 0;
+        for (double[] row : cost) {
+            for (double c : row) {
+                if (c != FORBIDDEN) finiteMax = Math.max(finiteMax, Math.abs(c));
+            }
+        }
+        double big = (2.0 * Math.max(rows, cols) + 1) * (finiteMax + 1);
+
+        boolean transposed = rows > cols;
+        int n = transposed ? cols : rows;
+        int m = transposed ? rows : cols;
+        double[][] a = new double[n][m];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < m; j++) {
+                double c = transposed ? cost[j][i] : cost[i][j];
+                a[i][j] = c == FORBIDDEN ? big : c;
+            }
+        }
+
+        int[] match = solveRowsLeqCols(a, n, m); // coluna de cada linha de a
+        for (int i = 0; i < n; i++) {
+            int j = match[i];
+            int row = transposed ? j : i;
+            int col = transposed ? i : j;
+            if (cost[row][col] != FORBIDDEN) result[row] = col;
+        }
+        return result;
+    }
+
+    /** Soma dos custos de uma atribuição (ignora linhas sem par). */
+    static double totalCost(double[][] cost, int[] assignment) {
+        double total = 0;
+        for (int i = 0; i < assignment.length; i++) {
+            if (assignment[i] >= 0) total += cost[i][assignment[i]];
+        }
+        return total;
+    }
+
+    /** Núcleo com índices 1-based (u, v: potenciais; p[j]: linha na coluna j; way: caminho). */
+    private static int[] solveRowsLeqCols(double[][] a, int n, int m) {
+        double[] u = new double[n + 1];
+        double[] v = new double[m + 1];
+        int[] p = new int[m + 1];
+        int[] way = new int[m + 1];
+        double[] minv = new double[m + 1];
+        boolean[] used = new boolean[m + 1];
+
+        for (int i = 1; i <= n; i++) {
+            p[0] = i;
+            int j0 = 0;
+            Arrays.fill(minv, Double.MAX_VALUE);
+            Arrays.fill(used, false);
+            do {
+                used[j0] = true;
+                int i0 = p[j0];
+                double delta = Double.MAX_VALUE;
+                int j1 = 0;
+                for (int j = 1; j <= m; j++) {
+                    if (used[j]) continue;
+                    double cur = a[i0 - 1][j - 1] - u[i0] - v[j];
+                    if (cur < minv[j]) {
+                        minv[j] = cur;
+                        way[j] = j0;
+                    }
+                    if (minv[j] < delta) {
+                        delta = minv[j];
+                        j1 = j;
+                    }
+                }
+                for (int j = 0; j <= m; j++) {
+                    if (used[j]) {
+                        u[p[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minv[j] -= delta;
+                    }
+                }
+                j0 = j1;
+            } while (p[j0] != 0);
+            do {
+                int j1 = way[j0];
+                p[j0] = p[j1];
+                j0 = j1;
+            } while (j0 != 0);
+        }
+
+        int[] match = new int[n];
+        for (int j = 1; j <= m; j++) {
+            if (p[j] != 0) match[p[j] - 1] = j - 1;
+        }
+        return match;
+    }
+}
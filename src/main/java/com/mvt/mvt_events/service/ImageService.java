@@ -2,6 +2,9 @@ package com.mvt.mvt_events.service;
 
 import com.cloudinary.Cloudinary;
 import com.cloudinary.utils.ObjectUtils;
+import com.mvt.mvt_events.http.OutboundGuard;
+import com.mvt.mvt_events.http.OutboundHttpProperties;
+import com.mvt.mvt_events.http.OutboundProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -22,16 +25,23 @@ public class ImageService {
     private static final long MAX_FILE_SIZE = 5 * 1024 * 1024; // 5MB
 
     private final Cloudinary cloudinary;
+    private final OutboundGuard outboundGuard;
 
     public ImageService(
             @Value("${cloudinary.cloud-name:}") String cloudName,
             @Value("${cloudinary.api-key:}") String apiKey,
-            @Value("${cloudinary.api-secret:}") String apiSecret) {
+            @Value("${cloudinary.api-secret:}") String apiSecret,
+            OutboundHttpProperties outboundHttpProperties,
+            OutboundGuard outboundGuard) {
+        int timeoutSeconds = Math.max(1,
+                outboundHttpProperties.resolve(OutboundProvider.CLOUDINARY).getReadTimeoutMs() / 1000);
         this.cloudinary = new Cloudinary(ObjectUtils.asMap(
                 "cloud_name", cloudName,
                 "api_key", apiKey,
-                "api_secret", apiSecret
+                "api_secret", apiSecret,
+                "timeout", timeoutSeconds
         ));
+        this.outboundGuard = outboundGuard;
     }
 
     /**
@@ -44,12 +54,20 @@ public class ImageService {
     public String upload(MultipartFile file, String folder) throws IOException {
         validateFile(file);
 
-        @SuppressWarnings("unchecked")
-        Map<String, Object> result = cloudinary.uploader().upload(file.getBytes(), ObjectUtils.asMap(
-                "folder", "zapi-food/" + folder,
-                "resource_type", "image",
-                "transformation", "w_1200,h_1200,c_limit,q_80,f_auto"
-        ));
+        byte[] bytes = file.getBytes();
+        Map<?, ?> result;
+        try {
+            result = outboundGuard.execute(OutboundProvider.CLOUDINARY, "upload",
+                    () -> cloudinary.uploader().upload(bytes, ObjectUtils.asMap(
+                            "folder", "zapi-food/" + folder,
+                            "resource_type", "image",
+                            "transformation", "w_1200,h_1200,c_limit,q_80,f_auto"
+                    )));
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
 
         String url = (String) result.get("secure_url");
         log.info("📸 Imagem uploaded: {} → {}", file.getOriginalFilename(), url);
@@ -66,7 +84,8 @@ public class ImageService {
         try {
             String publicId = extractPublicId(imageUrl);
             if (publicId != null) {
-                cloudinary.uploader().destroy(publicId, ObjectUtils.emptyMap());
+                outboundGuard.execute(OutboundProvider.CLOUDINARY, "destroy",
+                        () -> cloudinary.uploader().destroy(publicId, ObjectUtils.emptyMap()));
                 log.info("🗑️ Imagem removida: {}", publicId);
             }
         } catch (Exception e) {
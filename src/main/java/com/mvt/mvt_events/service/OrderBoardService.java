@@ -0,0 +1,411 @@
+package com.mvt.mvt_events.service;
+
+import com.mvt.mvt_events.jpa.FoodOrder;
+import com.mvt.mvt_events.jpa.OrderItem;
+import com.mvt.mvt_events.repository.FoodOrderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * Quadro ao vivo de pedidos por estabelecimento (cozinha / garçons), via SSE.
+ *
+ * <p>Cada estabelecimento com tela aberta tem um {@link Board} em memória: cards compactos
+ * dos pedidos não finalizados + versão monotônica. Fluxo:
+ * <ul>
+ *   <li>subscribe: carrega o quadro do banco uma única vez (2 queries, sem itens) e envia
+ *       {@code snapshot} com a versão atual</li>
+ *   <li>cada mutação do {@link FoodOrderService} chama {@link #publish}; após o commit o card
+ *       é aplicado no quadro e vai como {@code order} (+ {@code table} quando o status da mesa muda)</li>
+ *   <li>pedidos COMPLETED/CANCELLED saem do quadro ({@code order} com {@code removed=true})</li>
+ * </ul>
+ * Reconexão recebe o snapshot em memória — sem re-query. Cliente que detectar buraco na
+ * versão deve reconectar.
+ *
+ * <p>O quadro é por instância e só existe enquanto há tela conectada. Mutações processadas em
+ * outra instância chegam pelo poll incremental ({@code food-orders.board.poll-ms}, padrão 2s):
+ * relê só os pedidos do estabelecimento com {@code updated_at} depois da última leitura (menos
+ * {@link #POLL_OVERLAP}, tolerando relógios e commits atrasados) e emite delta apenas para cards
+ * que de fato mudaram. A ressincronização completa ({@code food-orders.board.resync-ms}) fica
+ * como rede de segurança.
+ */
+@Service
+@Slf4j
+public class OrderBoardService {
+
+    static final long EMITTER_TIMEOUT_MS = 30 * 60 * 1000L;
+
+    /** Janela relida a cada poll além da última leitura: skew entre instâncias e commits lentos. */
+    static final Duration POLL_OVERLAP = Duration.ofSeconds(10);
+
+    private static final Set<FoodOrder.OrderStatus> TERMINAL =
+            EnumSet.of(FoodOrder.OrderStatus.COMPLETED, FoodOrder.OrderStatus.CANCELLED);
+
+    private final FoodOrderRepository orderRepository;
+    private final Map<UUID, Board> boards = new ConcurrentHashMap<>();
+
+    public OrderBoardService(FoodOrderRepository orderRepository) {
+        this.orderRepository = orderRepository;
+    }
+
+    // ================================================================
+    // PAYLOADS
+    // ================================================================
+
+    /** Card compacto de um pedido no quadro. */
+    public record OrderCard(
+            Long id,
+            FoodOrder.OrderStatus status,
+            FoodOrder.OrderType orderType,
+            Long tableId,
+            Integer tableNumber,
+            UUID waiterId,
+            String waiterName,
+            String customerName,
+            Integer itemCount,
+            BigDecimal total,
+            FoodOrder.MesaStatus mesaStatus,
+            OffsetDateTime createdAt,
+            OffsetDateTime updatedAt
+    ) {
+        boolean isTerminal() {
+            return TERMINAL.contains(status);
+        }
+
+        OrderCard withItemCount(Integer count) {
+            return new OrderCard(id, status, orderType, tableId, tableNumber, waiterId, waiterName,
+                    customerName, count, total, mesaStatus, createdAt, updatedAt);
+        }
+
+        /** Mesmo conteúdo visível na tela (ignora timestamps e escala do total). */
+        boolean sameContent(OrderCard other) {
+            return other != null
+                    && status == other.status
+                    && orderType == other.orderType
+                    && Objects.equals(tableId, other.tableId)
+                    && Objects.equals(tableNumber, other.tableNumber)
+                    && Objects.equals(waiterId, other.waiterId)
+                    && Objects.equals(waiterName, other.waiterName)
+                    && Objects.equals(customerName, other.customerName)
+                    && Objects.equals(itemCount, other.itemCount)
+                    && (total == null ? other.total == null : other.total != null && total.compareTo(other.total) == 0)
+                    && mesaStatus == other.mesaStatus;
+        }
+    }
+
+    /** Evento {@code order}: card novo/alterado, ou removido do quadro. */
+    public record OrderDelta(long version, OrderCard order, boolean removed) {}
+
+    /** Evento {@code table}: status do pedido ativo da mesa (null = mesa sem pedido ativo). */
+    public record TableDelta(long version, Long tableId, FoodOrder.OrderStatus status) {}
+
+    /** Evento {@code snapshot}: estado completo do quadro. */
+    public record BoardSnapshot(long version, List<OrderCard> orders, Map<Long, FoodOrder.OrderStatus> tables) {}
+
+    // ================================================================
+    // SUBSCRIBE
+    // ================================================================
+
+    public SseEmitter subscribe(UUID clientId) {
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MS);
+        Board board;
+        while (true) {
+            // Carga fora do mapa: computeIfAbsent seguraria o bin durante as 2 queries
+            board = boards.get(clientId);
+            if (board == null) {
+                Board loaded = load(clientId);
+                board = boards.putIfAbsent(clientId, loaded);
+                if (board == null) board = loaded;
+            }
+            synchronized (board) {
+                // Última tela pode ter desconectado entre o get e o lock — quadro descartado, recarrega
+                if (boards.get(clientId) != board) continue;
+                board.emitters.add(emitter);
+                send(emitter, "snapshot", board.snapshot());
+                break;
+            }
+        }
+        Board subscribed = board;
+        Runnable remove = () -> unsubscribe(clientId, subscribed, emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+        log.debug("📡 Quadro de pedidos aberto (client={}, telas={})", clientId, subscribed.emitters.size());
+        return emitter;
+    }
+
+    /** Snapshot atual do quadro carregado (null se nenhuma tela do estabelecimento está conectada). */
+    public BoardSnapshot currentSnapshot(UUID clientId) {
+        Board board = boards.get(clientId);
+        if (board == null) return null;
+        synchronized (board) {
+            return board.snapshot();
+        }
+    }
+
+    // ================================================================
+    // PUBLISH
+    // ================================================================
+
+    /**
+     * Registra a mudança do pedido no quadro do estabelecimento. O card é montado agora
+     * (associações lazy ainda acessíveis) e aplicado só após o commit.
+     */
+    public void publish(FoodOrder order) {
+        if (order == null || order.getId() == null || order.getClient() == null) return;
+        UUID clientId = order.getClient().getId();
+        if (!boards.containsKey(clientId)) return; // ninguém olhando esse estabelecimento
+
+        OrderCard card = toCard(order, countItems(order));
+        afterCommit(() -> apply(clientId, card));
+    }
+
+    void apply(UUID clientId, OrderCard card) {
+        Board board = boards.get(clientId);
+        if (board == null) return;
+        synchronized (board) {
+            OrderCard previous = board.orders.get(card.id());
+            OrderCard effective = card.itemCount() == null && previous != null
+                    ? card.withItemCount(previous.itemCount()) : card;
+
+            Map<Long, FoodOrder.OrderStatus> tablesBefore = board.tables();
+            if (effective.isTerminal()) {
+                board.orders.remove(card.id());
+            } else {
+                board.orders.put(card.id(), effective);
+            }
+            long version = ++board.version;
+            broadcast(board, "order", new OrderDelta(version, effective, effective.isTerminal()));
+
+            Set<Long> touchedTables = new HashSet<>();
+            if (previous != null && previous.tableId() != null) touchedTables.add(previous.tableId());
+            if (effective.tableId() != null) touchedTables.add(effective.tableId());
+            if (!touchedTables.isEmpty()) {
+                Map<Long, FoodOrder.OrderStatus> tablesAfter = board.tables();
+                for (Long tableId : touchedTables) {
+                    if (!Objects.equals(tablesBefore.get(tableId), tablesAfter.get(tableId))) {
+                        broadcast(board, "table", new TableDelta(version, tableId, tablesAfter.get(tableId)));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Aplica um card lido do banco (mutação de qualquer instância). Sem delta quando o quadro
+     * já mostra o mesmo conteúdo — o caso das mutações locais, já publicadas após o commit.
+     */
+    void applyIfChanged(UUID clientId, OrderCard card) {
+        Board board = boards.get(clientId);
+        if (board == null) return;
+        synchronized (board) {
+            OrderCard previous = board.orders.get(card.id());
+            boolean unchanged = card.isTerminal() ? previous == null : card.sameContent(previous);
+            if (!unchanged) {
+                apply(clientId, card);
+            }
+        }
+    }
+
+    // ================================================================
+    // MANUTENÇÃO
+    // ================================================================
+
+    @Scheduled(fixedDelay = 25_000)
+    public void heartbeat() {
+        for (Board board : boards.values()) {
+            synchronized (board) {
+                broadcast(board, "ping", "");
+            }
+        }
+    }
+
+    /**
+     * Fan-out entre instâncias: relê só os pedidos alterados desde o último poll de cada
+     * quadro aberto (índice orders(client_id, updated_at)) e aplica os que mudaram.
+     */
+    @Scheduled(fixedDelayString = "${food-orders.board.poll-ms:2000}",
+               initialDelayString = "${food-orders.board.poll-ms:2000}")
+    public void pollChanges() {
+        for (UUID clientId : new ArrayList<>(boards.keySet())) {
+            Board board = boards.get(clientId);
+            if (board == null) continue;
+            try {
+                OffsetDateTime since;
+                synchronized (board) {
+                    since = board.lastPolledAt.minus(POLL_OVERLAP);
+                }
+                OffsetDateTime polledAt = OffsetDateTime.now();
+                List<FoodOrder> changed = orderRepository.findBoardChangesByClientId(clientId, since);
+                if (!changed.isEmpty()) {
+                    Map<Long, Integer> itemCounts = itemCounts(orderRepository.sumItemQuantitiesByOrderIds(
+                            changed.stream().map(FoodOrder::getId).toList()));
+                    for (FoodOrder order : changed) {
+                        applyIfChanged(clientId, toCard(order, itemCounts.getOrDefault(order.getId(), 0)));
+                    }
+                }
+                synchronized (board) {
+                    board.lastPolledAt = polledAt;
+                }
+            } catch (Exception e) {
+                log.warn("⚠️ Falha no poll do quadro do client {}: {}", clientId, e.getMessage());
+            }
+        }
+    }
+
+    /** Relê os quadros abertos do banco e reenvia o snapshot (rede de segurança do poll incremental). */
+    @Scheduled(fixedDelayString = "${food-orders.board.resync-ms:300000}",
+               initialDelayString = "${food-orders.board.resync-ms:300000}")
+    public void resync() {
+        for (UUID clientId : new ArrayList<>(boards.keySet())) {
+            Board board = boards.get(clientId);
+            if (board == null) continue;
+            try {
+                Board fresh = load(clientId);
+                synchronized (board) {
+                    board.orders.clear();
+                    board.orders.putAll(fresh.orders);
+                    board.lastPolledAt = fresh.lastPolledAt;
+                    board.version++;
+                    broadcast(board, "snapshot", board.snapshot());
+                }
+            } catch (Exception e) {
+                log.warn("⚠️ Falha ao ressincronizar quadro do client {}: {}", clientId, e.getMessage());
+            }
+        }
+    }
+
+    public int openBoards() {
+        return boards.size();
+    }
+
+    // ================================================================
+    // HELPERS
+    // ================================================================
+
+    private Board load(UUID clientId) {
+        Board board = new Board();
+        board.lastPolledAt = OffsetDateTime.now(); // antes das queries: o que commitar durante a carga entra no poll
+        Map<Long, Integer> itemCounts = itemCounts(orderRepository.sumBoardItemQuantitiesByClientId(clientId));
+        for (FoodOrder order : orderRepository.findBoardOrdersByClientId(clientId)) {
+            board.orders.put(order.getId(), toCard(order, itemCounts.getOrDefault(order.getId(), 0)));
+        }
+        log.info("📋 Quadro de pedidos carregado (client={}): {} pedidos ativos", clientId, board.orders.size());
+        return board;
+    }
+
+    private static Map<Long, Integer> itemCounts(List<Object[]> rows) {
+        Map<Long, Integer> itemCounts = new HashMap<>();
+        for (Object[] row : rows) {
+            itemCounts.put((Long) row[0], row[1] != null ? ((Number) row[1]).intValue() : 0);
+        }
+        return itemCounts;
+    }
+
+    private void unsubscribe(UUID clientId, Board board, SseEmitter emitter) {
+        synchronized (board) {
+            board.emitters.remove(emitter);
+            if (board.emitters.isEmpty()) {
+                boards.remove(clientId, board);
+            }
+        }
+    }
+
+    static OrderCard toCard(FoodOrder order, Integer itemCount) {
+        return new OrderCard(
+                order.getId(),
+                order.getStatus(),
+                order.getOrderType(),
+                order.getTable() != null ? order.getTable().getId() : null,
+                order.getTable() != null ? order.getTable().getNumber() : order.getTableNumberField(),
+                order.getWaiter() != null ? order.getWaiter().getId() : null,
+                order.getWaiter() != null ? order.getWaiter().getName() : null,
+                order.getCustomer() != null ? order.getCustomer().getName() : null,
+                itemCount,
+                order.getTotal(),
+                order.getMesaStatus(),
+                order.getCreatedAt(),
+                order.getUpdatedAt()
+        );
+    }
+
+    /** Soma das quantidades se os itens já estão carregados; null = manter a contagem anterior. */
+    private static Integer countItems(FoodOrder order) {
+        if (order.getItems() == null || !Hibernate.isInitialized(order.getItems())) return null;
+        int count = 0;
+        for (OrderItem item : order.getItems()) {
+            count += item.getQuantity() != null ? item.getQuantity() : 0;
+        }
+        return count;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void broadcast(Board board, String name, Object data) {
+        for (SseEmitter emitter : board.emitters) {
+            if (!send(emitter, name, data)) {
+                board.emitters.remove(emitter);
+            }
+        }
+    }
+
+    private boolean send(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    /** Estado em memória de um estabelecimento. Acesso sempre sob {@code synchronized(board)}. */
+    static final class Board {
+        final Map<Long, OrderCard> orders = new LinkedHashMap<>();
+        final Set<SseEmitter> emitters = new CopyOnWriteArraySet<>();
+        long version;
+        /** Início do último poll (ou da carga) — cursor de {@code updated_at} do próximo poll. */
+        OffsetDateTime lastPolledAt;
+
+        BoardSnapshot snapshot() {
+            return new BoardSnapshot(version, List.copyOf(orders.values()), Map.copyOf(tables()));
+        }
+
+        /**
+         * tableId → status do pedido ativo da mesa. Com mais de um pedido na mesa vale o
+         * mais antigo — mesma regra do {@code getTablesOrderStatus}.
+         */
+        Map<Long, FoodOrder.OrderStatus> tables() {
+            Map<Long, FoodOrder.OrderStatus> result = new HashMap<>();
+            for (OrderCard card : orders.values()) {
+                if (card.tableId() != null) {
+                    result.putIfAbsent(card.tableId(), card.status());
+                }
+            }
+            return result;
+        }
+    }
+}
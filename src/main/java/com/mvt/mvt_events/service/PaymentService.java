@@ -591,6 +591,8 @@ public class PaymentService {
                 .pixQrCode(payment.getPixQrCode())
                 .pixQrCodeUrl(payment.getPixQrCodeUrl())
                 .expiresAt(payment.getExpiresAt())
+                .request(paymentRepository.findPayload(paymentId, PaymentPayload.Kind.REQUEST).orElse(null))
+                .response(paymentRepository.findPayload(paymentId, PaymentPayload.Kind.RESPONSE).orElse(null))
                 .deliveries(deliveryItems)
                 .consolidatedSplits(new ArrayList<>(consolidatedSplitsMap.values()))
                 .build();
@@ -6,6 +6,8 @@ import com.mvt.mvt_events.jpa.PaymentStatus;
 import com.mvt.mvt_events.jpa.User;
 import com.mvt.mvt_events.repository.PaymentRepository;
 import com.mvt.mvt_events.repository.DeliveryRepository;
+import com.mvt.mvt_events.schedule.JobLease;
+import com.mvt.mvt_events.schedule.LeasedJob;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -38,6 +40,10 @@ public class PixExpirationService {
     private final DeliveryRepository deliveryRepository;
     private final DeliveryNotificationService deliveryNotificationService;
 
+    static final int PARTITIONS = 8;
+
+    static final String STALE_PENDING_REASON = "Expirada: sem aceite em 30 minutos";
+
     /**
      * Verifica pagamentos PIX PENDING com expiresAt vencido.
      *
@@ -45,21 +51,25 @@ public class PixExpirationService {
      * - CLIENT: apenas marca o pagamento como EXPIRED (novo PIX será gerado
      *   pelo ConsolidatedPaymentScheduler na próxima execução).
      *
-     * Roda a cada 30 segundos.
+     * Roda a cada 30 segundos. Com várias réplicas, os pagamentos são divididos em
+     * {@value #PARTITIONS} partições por id (MOD(id, N)), cada uma sob o seu lease; o
+     * cancelamento de deliveries PENDING antigas roda só na primeira partição.
      */
     @Scheduled(fixedRate = 30000)
+    @LeasedJob(value = "pix-expiration", minIntervalSeconds = 20, partitions = PARTITIONS)
     @Transactional
     public void checkExpiredPixPayments() {
         OffsetDateTime now = OffsetDateTime.now(ZoneId.of("America/Fortaleza"));
 
-        List<Payment> expiredPayments = paymentRepository.findExpiredPendingPixPayments(now);
+        JobLease lease = JobLease.current();
+        List<Payment> expiredPayments = lease != null && lease.getPartitions() > 1
+                ? paymentRepository.findExpiredPendingPixPaymentsInPartition(now, lease.getPartitions(), lease.getPartition())
+                : paymentRepository.findExpiredPendingPixPayments(now);
 
-        if (expiredPayments.isEmpty()) {
-            return;
+        if (!expiredPayments.isEmpty()) {
+            log.info("⏰ Encontrados {} pagamentos PIX expirados", expiredPayments.size());
         }
 
-        log.info("⏰ Encontrados {} pagamentos PIX expirados", expiredPayments.size());
-
         for (Payment payment : expiredPayments) {
             try {
                 if (payment.getPayer() == null) {
@@ -82,33 +92,23 @@ public class PixExpirationService {
             }
         }
 
-        // Cancelar deliveries PENDING sem aceite há mais de 30 minutos
-        expireStalePendingDeliveries(now);
+        // Cancelar deliveries PENDING sem aceite há mais de 30 minutos (uma vez por rodada)
+        if (lease == null || lease.isFirstPartition()) {
+            expireStalePendingDeliveries(now);
+        }
     }
 
     /**
      * Cancela deliveries que estão em PENDING sem aceite de motoboy há mais de 30 minutos.
      * Status final: CANCELLED com motivo "Expirada: sem aceite em 30 minutos".
+     * Um único UPDATE set-based — não carrega nem salva as deliveries uma a uma.
      */
     private void expireStalePendingDeliveries(OffsetDateTime now) {
-        OffsetDateTime cutoff = now.minusMinutes(30);
-        List<com.mvt.mvt_events.jpa.Delivery> stale =
-                deliveryRepository.findStalePendingDeliveries(cutoff);
-
-        if (stale.isEmpty()) return;
+        int cancelled = deliveryRepository.cancelStalePendingDeliveries(
+                now.minusMinutes(30), now, STALE_PENDING_REASON);
 
-        log.info("⏰ [PENDING EXPIRY] {} deliveries PENDING há mais de 30 min — cancelando", stale.size());
-
-        for (com.mvt.mvt_events.jpa.Delivery delivery : stale) {
-            try {
-                delivery.setStatus(com.mvt.mvt_events.jpa.Delivery.DeliveryStatus.CANCELLED);
-                delivery.setCancelledAt(now);
-                delivery.setCancellationReason("Expirada: sem aceite em 30 minutos");
-                deliveryRepository.save(delivery);
-                log.info("   ✅ Delivery #{} cancelada (criada em {})", delivery.getId(), delivery.getCreatedAt());
-            } catch (Exception e) {
-                log.error("   ❌ Erro ao cancelar delivery #{}: {}", delivery.getId(), e.getMessage());
-            }
+        if (cancelled > 0) {
+            log.info("⏰ [PENDING EXPIRY] {} deliveries PENDING há mais de 30 min canceladas", cancelled);
         }
     }
 
@@ -4,11 +4,12 @@ import com.mvt.mvt_events.jpa.Delivery;
 import com.mvt.mvt_events.jpa.DeliveryStop;
 import com.mvt.mvt_events.repository.DeliveryRepository;
 import com.mvt.mvt_events.repository.DeliveryStopRepository;
+import com.mvt.mvt_events.util.LruCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.util.ArrayList;
@@ -19,17 +20,34 @@ import java.util.concurrent.ConcurrentHashMap;
  * Manages the planned_route column on deliveries using Google Directions.
  *
  * ACCEPTED phase  : route from courier current position → origin (pickup point).
- * IN_TRANSIT phase: route from courier current position → remaining stops (nearest-neighbor order).
+ * IN_TRANSIT phase: route from courier current position → remaining stops, in the order chosen
+ *                   offline by {@link StopSequenceOptimizer} (2-opt / Or-opt over Haversine)
+ *                   and requested from Google as-is in a single Directions call.
  *
- * Deviation check : 100 m tolerance, 60 s cooldown per delivery (in-memory).
+ * Deviation check : 100 m tolerance, 20 s cooldown per delivery, shared by all instances.
+ *                   Runs against the decoded route kept in memory ({@link RoutePolyline}),
+ *                   so a GPS ping costs no database round trip once the route is cached.
+ *                   Entries are filled when a route is persisted (or lazily from the
+ *                   column after a restart) and evicted when the delivery leaves the phase.
+ *
+ * Single-flight   : before calling Google the instance claims the delivery/route row in
+ *                   route_recalc_claims (V149). Only the winner recalculates; the others
+ *                   drop their cached route and pick up the persisted one on the next ping.
+ *                   The in-memory cooldown maps stay as a local fast path, so a GPS ping
+ *                   inside the window still costs no database round trip.
  */
 @Service
-public class PlannedRouteService {
+public class PlannedRouteService implements DeliveryLifecycleListener {
 
     private static final Logger log = LoggerFactory.getLogger(PlannedRouteService.class);
 
     private static final double DEVIATION_THRESHOLD_METERS = 100.0;
     private static final long COOLDOWN_SECONDS = 20L;
+    private static final int ROUTE_CACHE_MAX_ENTRIES = 5_000;
+
+    /** route_kind values in route_recalc_claims. */
+    static final String PLANNED_ROUTE = "planned";
+    static final String APPROACH_ROUTE = "approach";
 
     /** Last recalculation timestamp for planned_route (IN_TRANSIT) per delivery ID. */
     private final ConcurrentHashMap<Long, Instant> lastRecalculation = new ConcurrentHashMap<>();
@@ -37,6 +55,16 @@ public class PlannedRouteService {
     /** Last recalculation timestamp for approach_planned_route (ACCEPTED) per delivery ID. */
     private final ConcurrentHashMap<Long, Instant> lastApproachRecalculation = new ConcurrentHashMap<>();
 
+    /** Decoded planned_route (IN_TRANSIT) per delivery ID, least recently used evicted first. */
+    private final LruCache<Long, RoutePolyline> plannedRoutes = new LruCache<>(ROUTE_CACHE_MAX_ENTRIES);
+
+    /** Decoded approach_planned_route (ACCEPTED) per delivery ID, least recently used evicted first. */
+    private final LruCache<Long, RoutePolyline> approachRoutes = new LruCache<>(ROUTE_CACHE_MAX_ENTRIES);
+
+    /** Time budget for the local-search stop ordering on each recalculation. */
+    @Value("${planned-route.optimizer-budget-ms:30}")
+    private long optimizerBudgetMs = 30L;
+
     @Autowired
     private DeliveryRepository deliveryRepository;
 
@@ -47,7 +75,15 @@ public class PlannedRouteService {
     private GoogleDirectionsService googleDirectionsService;
 
     // -------------------------------------------------------------------------
-    // Public API called from UserService on each GPS update
+    // Per-GPS-update API
+    //
+    // Not wired into the location update yet: UserService only injects this service, so
+    // nothing in production calls these two methods today (only tests do).
+    //
+    // Deliberately not @Transactional: every repository call (route read, claim, persist)
+    // runs in its own short transaction, so the methods hold at most one pooled connection
+    // at a time and none during the Google call. That only holds if the caller is not
+    // inside a transaction itself — hook them after the location update commits.
     // -------------------------------------------------------------------------
 
     /**
@@ -55,7 +91,6 @@ public class PlannedRouteService {
      * Creates/recalculates approach_planned_route (courier → pickup).
      * Never touches planned_route (the main delivery route).
      */
-    @Transactional
     public void handleApproachRouteUpdate(Delivery delivery, double lat, double lng) {
         Long deliveryId = delivery.getId();
         Double originLat = delivery.getFromLatitude();
@@ -63,14 +98,17 @@ public class PlannedRouteService {
 
         if (originLat == null || originLng == null) return;
 
-        String existing = deliveryRepository.getApproachPlannedRouteAsGeoJson(deliveryId);
-
-        if (existing == null) {
-            recalculateApproach(deliveryId, lat, lng, originLat, originLng);
-            return;
+        RoutePolyline route = approachRoutes.get(deliveryId);
+        if (route == null) {
+            String existing = deliveryRepository.getApproachPlannedRouteAsGeoJson(deliveryId);
+            if (existing == null) {
+                recalculateApproach(deliveryId, lat, lng, originLat, originLng);
+                return;
+            }
+            route = cache(approachRoutes, deliveryId, RoutePolyline.fromGeoJson(existing));
         }
 
-        if (shouldRecalculateApproach(deliveryId, lat, lng)) {
+        if (shouldRecalculateApproach(deliveryId, lat, lng, route)) {
             recalculateApproach(deliveryId, lat, lng, originLat, originLng);
         }
     }
@@ -79,25 +117,24 @@ public class PlannedRouteService {
      * Called for every GPS update while delivery is IN_TRANSIT.
      * Creates planned_route on first call; recalculates on deviation.
      */
-    @Transactional
     public void handleDeliveryRouteUpdate(Delivery delivery, double lat, double lng) {
         Long deliveryId = delivery.getId();
 
         List<DeliveryStop> remainingStops = getRemainingStops(delivery);
         if (remainingStops.isEmpty()) return;
 
-        // Order stops by nearest-neighbor from current position
-        List<DeliveryStop> orderedStops = nearestNeighborOrder(lat, lng, remainingStops);
-
-        String existing = deliveryRepository.getPlannedRouteAsGeoJson(deliveryId);
-
-        if (existing == null) {
-            recalculateDelivery(deliveryId, lat, lng, orderedStops);
-            return;
+        RoutePolyline route = plannedRoutes.get(deliveryId);
+        if (route == null) {
+            String existing = deliveryRepository.getPlannedRouteAsGeoJson(deliveryId);
+            if (existing == null) {
+                recalculateDelivery(deliveryId, lat, lng, remainingStops);
+                return;
+            }
+            route = cache(plannedRoutes, deliveryId, RoutePolyline.fromGeoJson(existing));
         }
 
-        if (shouldRecalculate(deliveryId, lat, lng)) {
-            recalculateDelivery(deliveryId, lat, lng, orderedStops);
+        if (shouldRecalculate(deliveryId, lat, lng, route)) {
+            recalculateDelivery(deliveryId, lat, lng, remainingStops);
         }
     }
 
@@ -107,12 +144,13 @@ public class PlannedRouteService {
 
     private void recalculateApproach(Long deliveryId, double courierLat, double courierLng,
                                      double originLat, double originLng) {
+        // Claim cooldown slot BEFORE the API call to prevent concurrent threads (on this or
+        // another instance) from both passing shouldRecalculateApproach() and triggering a
+        // double Google API request.
+        if (!claim(deliveryId, APPROACH_ROUTE, lastApproachRecalculation, approachRoutes)) return;
         log.info("🗺️ Recalculating approach_planned_route for delivery #{}", deliveryId);
-        // Claim cooldown slot BEFORE the API call to prevent concurrent threads from
-        // both passing shouldRecalculateApproach() and triggering a double Google API request.
-        lastApproachRecalculation.put(deliveryId, Instant.now());
         List<double[]> coords = googleDirectionsService.getRoute(
-                courierLat, courierLng, originLat, originLng, List.of());
+                courierLat, courierLng, originLat, originLng, List.of(), false);
         if (coords.size() >= 2) {
             persistApproachPlannedRoute(deliveryId, coords);
             log.info("✅ Approach route recalculated for delivery #{}: {} points", deliveryId, coords.size());
@@ -120,70 +158,89 @@ public class PlannedRouteService {
             log.warn("❌ Approach route recalculation FAILED for delivery #{}: no route from ({}, {}) to origin ({}, {})",
                     deliveryId, courierLat, courierLng, originLat, originLng);
             // Release cooldown so next GPS update can retry
-            lastApproachRecalculation.remove(deliveryId);
+            release(deliveryId, APPROACH_ROUTE, lastApproachRecalculation);
         }
     }
 
     private void recalculateDelivery(Long deliveryId, double courierLat, double courierLng,
-                                     List<DeliveryStop> orderedStops) {
+                                     List<DeliveryStop> remainingStops) {
+        // Claim cooldown slot BEFORE the API call (same rationale as recalculateApproach)
+        if (!claim(deliveryId, PLANNED_ROUTE, lastRecalculation, plannedRoutes)) return;
+
+        // Order stops offline (nearest-neighbor + local search) from current position — only
+        // here, once per recalculation, not on every GPS ping
+        List<DeliveryStop> orderedStops = optimizedOrder(courierLat, courierLng, remainingStops);
         log.info("🗺️ Recalculating in-transit planned_route for delivery #{} ({} stops)",
                 deliveryId, orderedStops.size());
 
-        // Claim cooldown slot BEFORE the API call (same rationale as recalculateApproach)
-        lastRecalculation.put(deliveryId, Instant.now());
-
-        // Open-route strategy (mirrors mobile routeService.getOptimizedRoute):
-        // Try each stop as the final destination, others as waypoints. Pick the first
-        // successful result. This handles cases where a specific coordinate is not
-        // routable as a final destination but works as an intermediate waypoint.
-        List<double[]> bestCoords = List.of();
-        List<DeliveryStop> bestOrder = List.of();
-
-        for (int finalIdx = 0; finalIdx < orderedStops.size(); finalIdx++) {
-            DeliveryStop dest = orderedStops.get(finalIdx);
-            List<double[]> waypoints = new ArrayList<>();
-            List<DeliveryStop> candidateOrder = new ArrayList<>();
-            for (int i = 0; i < orderedStops.size(); i++) {
-                if (i != finalIdx) {
-                    waypoints.add(new double[]{orderedStops.get(i).getLatitude(), orderedStops.get(i).getLongitude()});
-                    candidateOrder.add(orderedStops.get(i));
-                }
-            }
-            candidateOrder.add(dest);
-
-            List<double[]> coords = googleDirectionsService.getRoute(
-                    courierLat, courierLng, dest.getLatitude(), dest.getLongitude(), waypoints);
-            if (coords.size() >= 2) {
-                bestCoords = coords;
-                bestOrder = candidateOrder;
-                break;
-            }
+        // Single request in the precomputed order: last stop as destination, the others as
+        // waypoints that Google must keep in sequence (no optimize:true re-ordering).
+        DeliveryStop dest = orderedStops.get(orderedStops.size() - 1);
+        List<double[]> waypoints = new ArrayList<>();
+        for (DeliveryStop stop : orderedStops.subList(0, orderedStops.size() - 1)) {
+            waypoints.add(new double[]{stop.getLatitude(), stop.getLongitude()});
         }
+        List<double[]> bestCoords = googleDirectionsService.getRoute(
+                courierLat, courierLng, dest.getLatitude(), dest.getLongitude(), waypoints, false);
 
         // Fallback: chain individual point-to-point calls (mirrors mobile chainRouteThroughStops).
-        // Handles regions where optimize:true waypoints cause NOT_FOUND (e.g. Ubajara-CE).
-        if (bestCoords.isEmpty()) {
-            log.info("🔗 Open-route failed — falling back to chained routing for delivery #{}", deliveryId);
+        // Handles regions where a multi-waypoint request returns NOT_FOUND (e.g. Ubajara-CE).
+        if (bestCoords.size() < 2) {
+            log.info("🔗 Ordered route failed — falling back to chained routing for delivery #{}", deliveryId);
             bestCoords = chainRoute(courierLat, courierLng, orderedStops);
-            bestOrder = orderedStops;
         }
 
         if (bestCoords.size() >= 2) {
             persistPlannedRoute(deliveryId, bestCoords);
-            updatePlannedCompletionOrders(deliveryId, bestOrder);
+            updatePlannedCompletionOrders(deliveryId, orderedStops);
             log.info("✅ Planned route recalculated for delivery #{}: {} points, from courier ({}, {}) to {} stop(s)",
-                    deliveryId, bestCoords.size(), courierLat, courierLng, bestOrder.size());
+                    deliveryId, bestCoords.size(), courierLat, courierLng, orderedStops.size());
         } else {
             log.warn("❌ Planned route recalculation FAILED for delivery #{}: Google Directions returned no route from ({}, {}) to {} stop(s)",
                     deliveryId, courierLat, courierLng, orderedStops.size());
             // Release cooldown so next GPS update can retry
-            lastRecalculation.remove(deliveryId);
+            release(deliveryId, PLANNED_ROUTE, lastRecalculation);
+        }
+    }
+
+    /**
+     * Takes the recalculation slot: locally first, then in route_recalc_claims. Losing the
+     * shared claim means another instance recalculated within the cooldown — the cached
+     * route is dropped so the next ping reloads the one it persisted. If the claim itself
+     * fails (database error) the local cooldown alone decides, as before the shared store.
+     */
+    private boolean claim(Long deliveryId, String routeKind, ConcurrentHashMap<Long, Instant> cooldowns,
+                          LruCache<Long, RoutePolyline> routes) {
+        cooldowns.put(deliveryId, Instant.now());
+        try {
+            if (deliveryRepository.claimRouteRecalculation(deliveryId, routeKind, COOLDOWN_SECONDS) > 0) {
+                return true;
+            }
+        } catch (RuntimeException e) {
+            log.warn("⚠️ Route recalculation claim failed for delivery #{} ({}): {} — using local cooldown only",
+                    deliveryId, routeKind, e.getMessage());
+            return true;
+        }
+        routes.remove(deliveryId);
+        log.debug("⏭️ {} route of delivery #{} recalculated by another instance within cooldown — skipping",
+                routeKind, deliveryId);
+        return false;
+    }
+
+    private void release(Long deliveryId, String routeKind, ConcurrentHashMap<Long, Instant> cooldowns) {
+        cooldowns.remove(deliveryId);
+        try {
+            deliveryRepository.releaseRouteRecalculation(deliveryId, routeKind);
+        } catch (RuntimeException e) {
+            // Without the release the claim just expires after the cooldown
+            log.warn("⚠️ Failed to release route recalculation claim for delivery #{} ({}): {}",
+                    deliveryId, routeKind, e.getMessage());
         }
     }
 
     /**
      * Chains individual courier→stop1, stop1→stop2, ... calls without waypoints.
-     * Fallback for regions where optimize:true waypoints cause NOT_FOUND.
+     * Fallback for regions where the multi-waypoint request returns NOT_FOUND.
      */
     private List<double[]> chainRoute(double fromLat, double fromLng, List<DeliveryStop> orderedStops) {
         List<double[]> chain = new ArrayList<>();
@@ -191,7 +248,7 @@ public class PlannedRouteService {
         double curLng = fromLng;
         for (DeliveryStop stop : orderedStops) {
             List<double[]> leg = googleDirectionsService.getRoute(
-                    curLat, curLng, stop.getLatitude(), stop.getLongitude(), List.of());
+                    curLat, curLng, stop.getLatitude(), stop.getLongitude(), List.of(), false);
             if (leg.size() < 2) {
                 log.warn("⚠️ Chain leg failed: ({},{})→({},{})", curLat, curLng,
                         stop.getLatitude(), stop.getLongitude());
@@ -222,13 +279,16 @@ public class PlannedRouteService {
 
     /**
      * Returns true if the courier has deviated from planned_route (IN_TRANSIT) beyond the threshold AND cooldown has elapsed.
+     * Uses the cached route; falls back to PostGIS only when the stored route couldn't be decoded.
      */
-    private boolean shouldRecalculate(Long deliveryId, double lat, double lng) {
+    private boolean shouldRecalculate(Long deliveryId, double lat, double lng, RoutePolyline route) {
         Instant last = lastRecalculation.get(deliveryId);
         if (last != null && Instant.now().minusSeconds(COOLDOWN_SECONDS).isBefore(last)) {
             return false;
         }
-        Double distanceMeters = deliveryRepository.getDistanceFromPlannedRouteMeters(deliveryId, lat, lng);
+        Double distanceMeters = route != null
+                ? Double.valueOf(route.distanceMeters(lat, lng))
+                : deliveryRepository.getDistanceFromPlannedRouteMeters(deliveryId, lat, lng);
         if (distanceMeters == null) return true;
         boolean deviated = distanceMeters > DEVIATION_THRESHOLD_METERS;
         if (deviated) {
@@ -241,12 +301,14 @@ public class PlannedRouteService {
     /**
      * Returns true if the courier has deviated from approach_planned_route (ACCEPTED) beyond the threshold AND cooldown has elapsed.
      */
-    private boolean shouldRecalculateApproach(Long deliveryId, double lat, double lng) {
+    private boolean shouldRecalculateApproach(Long deliveryId, double lat, double lng, RoutePolyline route) {
         Instant last = lastApproachRecalculation.get(deliveryId);
         if (last != null && Instant.now().minusSeconds(COOLDOWN_SECONDS).isBefore(last)) {
             return false;
         }
-        Double distanceMeters = deliveryRepository.getDistanceFromApproachPlannedRouteMeters(deliveryId, lat, lng);
+        Double distanceMeters = route != null
+                ? Double.valueOf(route.distanceMeters(lat, lng))
+                : deliveryRepository.getDistanceFromApproachPlannedRouteMeters(deliveryId, lat, lng);
         if (distanceMeters == null) return true;
         boolean deviated = distanceMeters > DEVIATION_THRESHOLD_METERS;
         if (deviated) {
@@ -258,10 +320,26 @@ public class PlannedRouteService {
 
     private void persistPlannedRoute(Long deliveryId, List<double[]> coords) {
         deliveryRepository.updatePlannedRoute(deliveryId, buildWkt(coords));
+        cache(plannedRoutes, deliveryId, RoutePolyline.of(coords));
     }
 
     private void persistApproachPlannedRoute(Long deliveryId, List<double[]> coords) {
         deliveryRepository.updateApproachPlannedRoute(deliveryId, buildWkt(coords));
+        cache(approachRoutes, deliveryId, RoutePolyline.of(coords));
+    }
+
+    /**
+     * Stores the decoded route (bounded LRU: an evicted entry reloads lazily from the
+     * column on its next ping). Returns the route for chaining.
+     */
+    private static RoutePolyline cache(LruCache<Long, RoutePolyline> routes, Long deliveryId,
+                                       RoutePolyline route) {
+        if (route == null) {
+            routes.remove(deliveryId);
+            return null;
+        }
+        routes.put(deliveryId, route);
+        return route;
     }
 
     private static String buildWkt(List<double[]> coords) {
@@ -284,47 +362,48 @@ public class PlannedRouteService {
     }
 
     /**
-     * Nearest-neighbor greedy ordering.
-     * Starting from the courier position, always picks the closest remaining stop.
+     * Visiting order for the remaining stops: nearest-neighbor improved by 2-opt / Or-opt
+     * within {@code planned-route.optimizer-budget-ms}.
      */
-    private List<DeliveryStop> nearestNeighborOrder(double fromLat, double fromLng,
-                                                     List<DeliveryStop> stops) {
-        List<DeliveryStop> remaining = new ArrayList<>(stops);
-        List<DeliveryStop> ordered = new ArrayList<>();
-        double curLat = fromLat;
-        double curLng = fromLng;
-
-        while (!remaining.isEmpty()) {
-            DeliveryStop nearest = null;
-            double minDist = Double.MAX_VALUE;
-            for (DeliveryStop s : remaining) {
-                double d = haversineKm(curLat, curLng, s.getLatitude(), s.getLongitude());
-                if (d < minDist) {
-                    minDist = d;
-                    nearest = s;
-                }
-            }
-            ordered.add(nearest);
-            remaining.remove(nearest);
-            curLat = nearest.getLatitude();
-            curLng = nearest.getLongitude();
+    private List<DeliveryStop> optimizedOrder(double fromLat, double fromLng, List<DeliveryStop> stops) {
+        double[][] points = new double[stops.size()][];
+        for (int i = 0; i < stops.size(); i++) {
+            points[i] = new double[]{stops.get(i).getLatitude(), stops.get(i).getLongitude()};
         }
+        int[] order = StopSequenceOptimizer.optimize(new double[]{fromLat, fromLng}, points,
+                optimizerBudgetMs * 1_000_000L);
+        List<DeliveryStop> ordered = new ArrayList<>(order.length);
+        for (int i : order) ordered.add(stops.get(i));
         return ordered;
     }
 
-    private static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
-        final double R = 6371.0;
-        double dLat = Math.toRadians(lat2 - lat1);
-        double dLon = Math.toRadians(lon2 - lon1);
-        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
-                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
-                        * Math.sin(dLon / 2) * Math.sin(dLon / 2);
-        return R * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-    }
-
-    /** Cleans up cooldown state when a delivery completes/cancels. */
+    /** Cleans up cooldown state (local and shared) and cached routes when a delivery completes/cancels. */
     public void clearCooldown(Long deliveryId) {
         lastRecalculation.remove(deliveryId);
         lastApproachRecalculation.remove(deliveryId);
+        plannedRoutes.remove(deliveryId);
+        approachRoutes.remove(deliveryId);
+        try {
+            deliveryRepository.deleteRouteRecalculationClaims(deliveryId);
+        } catch (RuntimeException e) {
+            log.warn("⚠️ Failed to delete route recalculation claims for delivery #{}: {}", deliveryId, e.getMessage());
+        }
+    }
+
+    /**
+     * Evicts in-memory state once the delivery leaves the phase that uses it:
+     * the approach route after ACCEPTED, everything on completion/cancellation.
+     */
+    @Override
+    public void onDeliveryLifecycle(DeliveryLifecycleEvent event) {
+        if (event.deliveryId() == null || event.status() == null) return;
+        switch (event.status()) {
+            case ACCEPTED -> { }
+            case IN_TRANSIT -> {
+                lastApproachRecalculation.remove(event.deliveryId());
+                approachRoutes.remove(event.deliveryId());
+            }
+            default -> clearCooldown(event.deliveryId());
+        }
     }
 }
@@ -3,6 +3,8 @@ package com.mvt.mvt_events.service;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mvt.mvt_events.dto.push.DeliveryNotificationData;
 import com.mvt.mvt_events.dto.push.ExpoPushMessage;
+import com.mvt.mvt_events.http.OutboundHttpClients;
+import com.mvt.mvt_events.http.OutboundProvider;
 import com.mvt.mvt_events.jpa.UserPushToken;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -42,8 +44,8 @@ public class PushNotificationService {
 
     private final RestTemplate restTemplate;
 
-    public PushNotificationService() {
-        this.restTemplate = new RestTemplate();
+    public PushNotificationService(OutboundHttpClients outboundHttpClients) {
+        this.restTemplate = outboundHttpClients.restTemplate(OutboundProvider.EXPO);
     }
 
     /**
@@ -350,7 +352,6 @@ public class PushNotificationService {
             headers.setContentType(MediaType.APPLICATION_JSON);
             headers.set("Authorization", "Bearer " + expoAccessToken);
             headers.set("Accept", "application/json");
-            headers.set("Accept-Encoding", "gzip, deflate");
 
             HttpEntity<List<ExpoPushMessage>> request = new HttpEntity<>(messages, headers);
 
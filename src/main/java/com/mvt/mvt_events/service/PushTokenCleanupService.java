@@ -1,5 +1,6 @@
 package com.mvt.mvt_events.service;
 
+import com.mvt.mvt_events.schedule.LeasedJob;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -35,6 +36,7 @@ public class PushTokenCleanupService {
      * - Dia da semana: * (todos)
      */
     @Scheduled(cron = "0 0 3 * * *")
+    @LeasedJob(value = "push-token-cleanup", minIntervalSeconds = 3600)
     public void cleanupInactivePushTokens() {
         cleanupTokensOlderThan(90);
     }
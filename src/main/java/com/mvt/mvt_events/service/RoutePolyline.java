@@ -0,0 +1,175 @@
+package com.mvt.mvt_events.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Planned route decoded in memory, answering "how far is this GPS point from the route"
+ * without a PostGIS round trip.
+ *
+ * Points are projected onto a local equirectangular plane (meters) centered on the
+ * route — for city-scale routes the error versus ST_Distance(geography) is well under
+ * 1%, irrelevant next to the 100 m deviation threshold. Segments are bucketed in a
+ * uniform grid; a query scans rings of cells around the point and stops as soon as
+ * the nearest segment found is closer than any unscanned cell could be.
+ */
+final class RoutePolyline {
+
+    private static final double EARTH_RADIUS_M = 6_371_008.8;
+    static final double CELL_SIZE_M = 250.0;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final double originLatRad;
+    private final double originLngRad;
+    private final double cosLat;
+
+    /** Projected vertices (meters). */
+    private final double[] xs;
+    private final double[] ys;
+
+    private final double minX;
+    private final double minY;
+    private final int cols;
+    private final int rows;
+    private final Map<Long, int[]> segmentsByCell;
+
+    private RoutePolyline(List<double[]> latLngs) {
+        double latSum = 0;
+        double lngSum = 0;
+        for (double[] p : latLngs) {
+            latSum += p[0];
+            lngSum += p[1];
+        }
+        this.originLatRad = Math.toRadians(latSum / latLngs.size());
+        this.originLngRad = Math.toRadians(lngSum / latLngs.size());
+        this.cosLat = Math.cos(originLatRad);
+
+        int n = latLngs.size();
+        this.xs = new double[n];
+        this.ys = new double[n];
+        double loX = Double.MAX_VALUE, loY = Double.MAX_VALUE, hiX = -Double.MAX_VALUE, hiY = -Double.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            xs[i] = projectX(latLngs.get(i)[1]);
+            ys[i] = projectY(latLngs.get(i)[0]);
+            loX = Math.min(loX, xs[i]);
+            loY = Math.min(loY, ys[i]);
+            hiX = Math.max(hiX, xs[i]);
+            hiY = Math.max(hiY, ys[i]);
+        }
+        this.minX = loX;
+        this.minY = loY;
+        this.cols = cell(hiX - loX) + 1;
+        this.rows = cell(hiY - loY) + 1;
+
+        Map<Long, List<Integer>> buckets = new HashMap<>();
+        for (int s = 0; s < n - 1; s++) {
+            int c0 = cell(Math.min(xs[s], xs[s + 1]) - minX);
+            int c1 = cell(Math.max(xs[s], xs[s + 1]) - minX);
+            int r0 = cell(Math.min(ys[s], ys[s + 1]) - minY);
+            int r1 = cell(Math.max(ys[s], ys[s + 1]) - minY);
+            for (int c = c0; c <= c1; c++) {
+                for (int r = r0; r <= r1; r++) {
+                    buckets.computeIfAbsent(key(c, r), k -> new ArrayList<>()).add(s);
+                }
+            }
+        }
+        this.segmentsByCell = new HashMap<>(buckets.size() * 2);
+        buckets.forEach((k, v) -> segmentsByCell.put(k, v.stream().mapToInt(Integer::intValue).toArray()));
+    }
+
+    /** Builds from [lat, lng] pairs (the shape returned by GoogleDirectionsService). Null if fewer than 2 points. */
+    static RoutePolyline of(List<double[]> latLngs) {
+        if (latLngs == null || latLngs.size() < 2) return null;
+        return new RoutePolyline(latLngs);
+    }
+
+    /** Builds from the ST_AsGeoJSON LineString stored in the database. Null if it can't be decoded. */
+    static RoutePolyline fromGeoJson(String geoJson) {
+        if (geoJson == null) return null;
+        try {
+            JsonNode coordinates = MAPPER.readTree(geoJson).path("coordinates");
+            List<double[]> latLngs = new ArrayList<>(coordinates.size());
+            for (JsonNode c : coordinates) {
+                latLngs.add(new double[]{c.get(1).asDouble(), c.get(0).asDouble()}); // GeoJSON: [lng, lat]
+            }
+            return of(latLngs);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    int size() {
+        return xs.length;
+    }
+
+    /** Distance (meters) from the point to the nearest point of the route. */
+    double distanceMeters(double lat, double lng) {
+        double px = projectX(lng);
+        double py = projectY(lat);
+
+        int pc = (int) Math.floor((px - minX) / CELL_SIZE_M);
+        int pr = (int) Math.floor((py - minY) / CELL_SIZE_M);
+        if (pc < 0 || pr < 0 || pc >= cols || pr >= rows) {
+            return bruteForce(px, py);
+        }
+
+        double best = Double.MAX_VALUE;
+        int maxRing = Math.max(cols, rows);
+        for (int ring = 0; ring <= maxRing; ring++) {
+            for (int c = pc - ring; c <= pc + ring; c++) {
+                for (int r = pr - ring; r <= pr + ring; r++) {
+                    boolean onRing = c == pc - ring || c == pc + ring || r == pr - ring || r == pr + ring;
+                    if (!onRing || c < 0 || r < 0 || c >= cols || r >= rows) continue;
+                    int[] segments = segmentsByCell.get(key(c, r));
+                    if (segments == null) continue;
+                    for (int s : segments) {
+                        best = Math.min(best, segmentDistance(px, py, s));
+                    }
+                }
+            }
+            // Any segment not seen yet lies entirely outside the scanned block
+            if (best <= ring * CELL_SIZE_M) break;
+        }
+        return best;
+    }
+
+    private double bruteForce(double px, double py) {
+        double best = Double.MAX_VALUE;
+        for (int s = 0; s < xs.length - 1; s++) {
+            best = Math.min(best, segmentDistance(px, py, s));
+        }
+        return best;
+    }
+
+    private double segmentDistance(double px, double py, int s) {
+        double ax = xs[s], ay = ys[s];
+        double dx = xs[s + 1] - ax, dy = ys[s + 1] - ay;
+        double lenSq = dx * dx + dy * dy;
+        double t = lenSq == 0 ? 0 : ((px - ax) * dx + (py - ay) * dy) / lenSq;
+        t = Math.max(0, Math.min(1, t));
+        double ex = ax + t * dx - px;
+        double ey = ay + t * dy - py;
+        return Math.sqrt(ex * ex + ey * ey);
+    }
+
+    private double projectX(double lng) {
+        return (Math.toRadians(lng) - originLngRad) * cosLat * EARTH_RADIUS_M;
+    }
+
+    private double projectY(double lat) {
+        return (Math.toRadians(lat) - originLatRad) * EARTH_RADIUS_M;
+    }
+
+    private static int cell(double offsetMeters) {
+        return (int) Math.floor(offsetMeters / CELL_SIZE_M);
+    }
+
+    private static long key(int col, int row) {
+        return ((long) col << 32) | (row & 0xffffffffL);
+    }
+}
@@ -1,8 +1,10 @@
 package com.mvt.mvt_events.service;
 
 import com.mvt.mvt_events.jpa.SiteConfiguration;
+import com.mvt.mvt_events.pricing.PricingRulesChangedEvent;
 import com.mvt.mvt_events.repository.SiteConfigurationRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -20,6 +22,9 @@ public class SiteConfigurationService {
     @Autowired
     private SiteConfigurationRepository siteConfigurationRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * Retorna a configuração ativa do site
      * Se não existir, cria uma com valores padrão
@@ -75,7 +80,9 @@ public class SiteConfigurationService {
         newConfig.setIsActive(true);
         newConfig.setUpdatedBy(updatedBy);
         
-        return siteConfigurationRepository.save(newConfig);
+        SiteConfiguration saved = siteConfigurationRepository.save(newConfig);
+        eventPublisher.publishEvent(new PricingRulesChangedEvent("site-configuration"));
+        return saved;
     }
 
     /**
@@ -117,6 +124,8 @@ public class SiteConfigurationService {
             siteConfigurationRepository.saveAll(allConfigs);
         }
         
-        return siteConfigurationRepository.save(config);
+        SiteConfiguration saved = siteConfigurationRepository.save(config);
+        eventPublisher.publishEvent(new PricingRulesChangedEvent("site-configuration"));
+        return saved;
     }
 }
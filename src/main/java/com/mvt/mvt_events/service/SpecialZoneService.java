@@ -1,8 +1,10 @@
 package com.mvt.mvt_events.service;
 
 import com.mvt.mvt_events.jpa.SpecialZone;
+import com.mvt.mvt_events.pricing.PricingRulesChangedEvent;
 import com.mvt.mvt_events.repository.SpecialZoneRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -21,6 +23,9 @@ public class SpecialZoneService {
     @Autowired
     private SpecialZoneRepository specialZoneRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * Busca zona especial próxima ao destino considerando o raio específico de cada zona.
      * 
@@ -80,7 +85,9 @@ public class SpecialZoneService {
      */
     @Transactional
     public SpecialZone save(SpecialZone zone) {
-        return specialZoneRepository.save(zone);
+        SpecialZone saved = specialZoneRepository.save(zone);
+        eventPublisher.publishEvent(new PricingRulesChangedEvent("special-zone"));
+        return saved;
     }
 
     /**
@@ -118,5 +125,6 @@ public class SpecialZoneService {
     @Transactional
     public void delete(Long id) {
         specialZoneRepository.deleteById(id);
+        eventPublisher.publishEvent(new PricingRulesChangedEvent("special-zone"));
     }
 }
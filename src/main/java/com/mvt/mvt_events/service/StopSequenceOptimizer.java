@@ -0,0 +1,187 @@
+package com.mvt.mvt_events.service;
+
+/**
+ * Offline ordering of the remaining stops of a delivery (open path: starts at the courier,
+ * ends at whichever stop comes last — no return leg).
+ *
+ * Starts from the nearest-neighbor tour and improves it with 2-opt (segment reversal)
+ * and Or-opt (moving chains of 1–3 stops elsewhere) over a Haversine distance matrix,
+ * until no move helps or the time budget runs out. The result is never longer than the
+ * nearest-neighbor tour.
+ */
+final class StopSequenceOptimizer {
+
+    private static final double EPSILON = 1e-9;
+    private static final int MAX_OR_OPT_CHAIN = 3;
+
+    private StopSequenceOptimizer() {
+    }
+
+    /**
+     * @param start       [lat, lng] of the courier
+     * @param stops       [lat, lng] of each remaining stop
+     * @param budgetNanos time budget for the improvement phase
+     * @return indexes into {@code stops}, in visiting order
+     */
+    static int[] optimize(double[] start, double[][] stops, long budgetNanos) {
+        int n = stops.length;
+        if (n <= 1) return n == 0 ? new int[0] : new int[]{0};
+
+        double[][] dist = distanceMatrix(start, stops);
+        int[] tour = nearestNeighbor(dist, n);
+        long deadline = System.nanoTime() + budgetNanos;
+
+        boolean improved = true;
+        while (improved && System.nanoTime() < deadline) {
+            improved = twoOpt(dist, tour, deadline) | orOpt(dist, tour, deadline);
+        }
+
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) order[i] = tour[i] - 1;
+        return order;
+    }
+
+    /** Nearest-neighbor order only (the former strategy), as indexes into {@code stops}. */
+    static int[] nearestNeighbor(double[] start, double[][] stops) {
+        int[] tour = nearestNeighbor(distanceMatrix(start, stops), stops.length);
+        int[] order = new int[tour.length];
+        for (int i = 0; i < tour.length; i++) order[i] = tour[i] - 1;
+        return order;
+    }
+
+    /** Length (km) of the open path start → stops in the given order. */
+    static double pathLengthKm(double[] start, double[][] stops, int[] order) {
+        double total = 0;
+        double[] prev = start;
+        for (int i : order) {
+            total += haversineKm(prev[0], prev[1], stops[i][0], stops[i][1]);
+            prev = stops[i];
+        }
+        return total;
+    }
+
+    // -------------------------------------------------------------------------
+    // Moves — tour holds matrix nodes (1..n); node 0 is the courier
+    // -------------------------------------------------------------------------
+
+    /** Reverses tour[i..j] whenever that shortens the path. */
+    private static boolean twoOpt(double[][] d, int[] tour, long deadline) {
+        int n = tour.length;
+        boolean improved = false;
+        for (int i = 0; i < n - 1; i++) {
+            if (System.nanoTime() >= deadline) break;
+            int prev = i == 0 ? 0 : tour[i - 1];
+            for (int j = i + 1; j < n; j++) {
+                double before = d[prev][tour[i]];
+                double after = d[prev][tour[j]];
+                if (j < n - 1) {
+                    before += d[tour[j]][tour[j + 1]];
+                    after += d[tour[i]][tour[j + 1]];
+                }
+                if (after < before - EPSILON) {
+                    reverse(tour, i, j);
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    /** Moves chains of 1–3 consecutive stops to the position that shortens the path most. */
+    private static boolean orOpt(double[][] d, int[] tour, long deadline) {
+        int n = tour.length;
+        boolean improved = false;
+        for (int len = 1; len <= MAX_OR_OPT_CHAIN && len < n; len++) {
+            for (int i = 0; i + len <= n; i++) {
+                if (System.nanoTime() >= deadline) return improved;
+                double current = pathLength(d, tour);
+                int[] best = null;
+                double bestLength = current;
+                for (int k = 0; k <= n - len; k++) {
+                    if (k == i) continue;
+                    int[] candidate = moveChain(tour, i, len, k);
+                    double length = pathLength(d, candidate);
+                    if (length < bestLength - EPSILON) {
+                        bestLength = length;
+                        best = candidate;
+                    }
+                }
+                if (best != null) {
+                    System.arraycopy(best, 0, tour, 0, n);
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    /** Tour with tour[i..i+len) removed and re-inserted so that it starts at index k of the result. */
+    private static int[] moveChain(int[] tour, int i, int len, int k) {
+        int n = tour.length;
+        int[] rest = new int[n - len];
+        for (int p = 0, r = 0; p < n; p++) {
+            if (p < i || p >= i + len) rest[r++] = tour[p];
+        }
+        int[] result = new int[n];
+        System.arraycopy(rest, 0, result, 0, k);
+        System.arraycopy(tour, i, result, k, len);
+        System.arraycopy(rest, k, result, k + len, rest.length - k);
+        return result;
+    }
+
+    private static double pathLength(double[][] d, int[] tour) {
+        double total = d[0][tour[0]];
+        for (int i = 0; i < tour.length - 1; i++) total += d[tour[i]][tour[i + 1]];
+        return total;
+    }
+
+    private static void reverse(int[] tour, int i, int j) {
+        while (i < j) {
+            int tmp = tour[i];
+            tour[i++] = tour[j];
+            tour[j--] = tmp;
+        }
+    }
+
+    private static int[] nearestNeighbor(double[][] d, int n) {
+        boolean[] visited = new boolean[n + 1];
+        int[] tour = new int[n];
+        int current = 0;
+        for (int step = 0; step < n; step++) {
+            int nearest = -1;
+            for (int node = 1; node <= n; node++) {
+                if (!visited[node] && (nearest < 0 || d[current][node] < d[current][nearest])) {
+                    nearest = node;
+                }
+            }
+            visited[nearest] = true;
+            tour[step] = nearest;
+            current = nearest;
+        }
+        return tour;
+    }
+
+    private static double[][] distanceMatrix(double[] start, double[][] stops) {
+        int size = stops.length + 1;
+        double[][] points = new double[size][];
+        points[0] = start;
+        System.arraycopy(stops, 0, points, 1, stops.length);
+        double[][] d = new double[size][size];
+        for (int a = 0; a < size; a++) {
+            for (int b = a + 1; b < size; b++) {
+                d[a][b] = d[b][a] = haversineKm(points[a][0], points[a][1], points[b][0], points[b][1]);
+            }
+        }
+        return d;
+    }
+
+    static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
+        final double R = 6371.0;
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                        * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return R * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+}
@@ -3,11 +3,13 @@ package com.mvt.mvt_events.service;
 import com.mvt.mvt_events.jpa.SupportMessage;
 import com.mvt.mvt_events.jpa.User;
 import com.mvt.mvt_events.repository.SupportMessageRepository;
+import com.mvt.mvt_events.repository.SupportUnreadCounterRepository;
 import com.mvt.mvt_events.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.OffsetDateTime;
 import java.time.temporal.ChronoUnit;
@@ -27,6 +29,11 @@ import java.util.UUID;
  *       é atualizada pelo collapseKey de qualquer jeito quando o app abrir)</li>
  *   <li>Body com count de não-lidas se houver mais de 1 acumulada</li>
  * </ul>
+ *
+ * <p>Badges vêm de {@code support_unread_counters} (1 linha por thread), mantida
+ * aqui na mesma transação de cada send/mark-read — lookup por PK em vez de COUNT
+ * sobre {@code support_messages}. Mudanças são empurradas em tempo real pelo
+ * {@link SupportStreamService}.
  */
 @Service
 @Transactional
@@ -43,6 +50,8 @@ public class SupportMessageService {
     private final SupportMessageRepository repository;
     private final UserRepository userRepository;
     private final PushNotificationService pushNotificationService;
+    private final SupportUnreadCounterRepository unreadCounterRepository;
+    private final SupportStreamService streamService;
 
     // ===== USER (dono do thread) =====
 
@@ -51,6 +60,11 @@ public class SupportMessageService {
         return repository.findByUserIdOrderByCreatedAtAsc(userId);
     }
 
+    /** Mensagens do thread do usuário com id > sinceId (null = thread completo). */
+    public List<SupportMessage> listMyMessages(UUID userId, Long sinceId) {
+        return listThread(userId, sinceId);
+    }
+
     /**
      * Usuário envia mensagem (from_admin=false). Dispara push pros admins.
      * <p>Se a conversa estava marcada como resolvida, reabre automaticamente
@@ -65,18 +79,30 @@ public class SupportMessageService {
         repository.reopenConversation(userId);
 
         SupportMessage saved = persist(user, false, text);
+        unreadCounterRepository.incrementAdminUnread(userId);
+        streamService.publishMessage(saved);
+        streamService.publishAdminUnread(countAdminUnreadConversations());
         notifyAdmins(user, text);
         return saved;
     }
 
     /** Marca como lidas as mensagens do admin no thread do usuário. */
     public int markAdminMessagesRead(UUID userId) {
-        return repository.markAsRead(userId, true, OffsetDateTime.now());
+        int updated = repository.markAsRead(userId, true, OffsetDateTime.now());
+        if (unreadCounterRepository.resetUserUnread(userId) > 0) {
+            streamService.publishUserUnread(userId, 0);
+        }
+        return updated;
     }
 
     /** Quantas mensagens do admin o usuário ainda não leu (badge no app dele). */
     public long countMyUnread(UUID userId) {
-        return repository.countUnread(userId, true);
+        return unreadCounterRepository.findUserUnread(userId).orElse(0);
+    }
+
+    /** Abre o stream SSE do usuário (mensagens novas + badge). */
+    public SseEmitter subscribeUser(UUID userId) {
+        return streamService.subscribeUser(userId, countMyUnread(userId));
     }
 
     // ===== ADMIN =====
@@ -91,6 +117,11 @@ public class SupportMessageService {
         return repository.findByUserIdOrderByCreatedAtAsc(userId);
     }
 
+    /** Mensagens da conversa com id > sinceId (null = thread completo). */
+    public List<SupportMessage> getConversation(UUID userId, Long sinceId) {
+        return listThread(userId, sinceId);
+    }
+
     /** Admin responde no thread de um usuário. Dispara push pro usuário. */
     public SupportMessage sendFromAdmin(UUID userId, String text) {
         User user = userRepository.findById(userId)
@@ -98,18 +129,30 @@ public class SupportMessageService {
         validateText(text);
 
         SupportMessage saved = persist(user, true, text);
+        unreadCounterRepository.incrementUserUnread(userId);
+        streamService.publishMessage(saved);
+        streamService.publishUserUnread(userId, countMyUnread(userId));
         notifyUser(user, text);
         return saved;
     }
 
     /** Marca como lidas as mensagens do usuário no thread (admin abriu a conversa). */
     public int markUserMessagesRead(UUID userId) {
-        return repository.markAsRead(userId, false, OffsetDateTime.now());
+        int updated = repository.markAsRead(userId, false, OffsetDateTime.now());
+        if (unreadCounterRepository.resetAdminUnread(userId) > 0) {
+            streamService.publishAdminUnread(countAdminUnreadConversations());
+        }
+        return updated;
     }
 
     /** Conta de conversas com mensagens não lidas do user pro admin (badge admin). */
     public long countAdminUnreadConversations() {
-        return repository.countAdminUnreadConversations();
+        return unreadCounterRepository.countConversationsWithAdminUnread();
+    }
+
+    /** Abre o stream SSE da inbox admin (mensagens novas de qualquer thread + badge). */
+    public SseEmitter subscribeAdmin() {
+        return streamService.subscribeAdmin(countAdminUnreadConversations());
     }
 
     /** Marca a conversa como resolvida (apenas admin). */
@@ -129,6 +172,13 @@ public class SupportMessageService {
 
     // ===== Helpers =====
 
+    private List<SupportMessage> listThread(UUID userId, Long sinceId) {
+        if (sinceId == null) {
+            return repository.findByUserIdOrderByCreatedAtAsc(userId);
+        }
+        return repository.findByUserIdAndIdGreaterThanOrderByIdAsc(userId, sinceId);
+    }
+
     private void validateText(String text) {
         if (text == null || text.trim().isEmpty()) {
             throw new RuntimeException("Mensagem vazia");
@@ -158,7 +208,7 @@ public class SupportMessageService {
             return;
         }
 
-        long unread = repository.countUnread(user.getId(), false);
+        long unread = unreadCounterRepository.findAdminUnread(user.getId()).orElse(1);
         String body = formatBody(latestText, unread);
         String title = "Nova mensagem de " + (user.getName() != null ? user.getName() : "usuário");
 
@@ -183,7 +233,7 @@ public class SupportMessageService {
             return;
         }
 
-        long unread = repository.countUnread(user.getId(), true);
+        long unread = unreadCounterRepository.findUserUnread(user.getId()).orElse(1);
         String body = formatBody(latestText, unread);
 
         Map<String, Object> data = new HashMap<>();
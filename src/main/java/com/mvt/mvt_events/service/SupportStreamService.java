@@ -0,0 +1,161 @@
+package com.mvt.mvt_events.service;
+
+import com.mvt.mvt_events.jpa.SupportMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * Canal push (SSE) do chat de suporte.
+ *
+ * <p>Cada app aberto mantém um {@link SseEmitter}: o dono do thread em
+ * {@code /api/support/my-stream}, admins em {@code /api/support/admin-stream}.
+ * Eventos:
+ * <ul>
+ *   <li>{@code message} — nova mensagem (mesmo shape do DTO do controller)</li>
+ *   <li>{@code unread} — badge atualizado ({@code {"count": N}})</li>
+ *   <li>{@code ping} — heartbeat pra proxies não derrubarem a conexão ociosa</li>
+ * </ul>
+ *
+ * <p>Os registros são por instância: cliente que reconecta (ou caiu em outra
+ * instância) recupera o que perdeu via {@code ?sinceId=} no GET do histórico.
+ * A publicação acontece só após o commit — nunca empurra mensagem que sofreu rollback.
+ */
+@Service
+@Slf4j
+public class SupportStreamService {
+
+    /** Timeout do emitter — o app reconecta sozinho quando expira. */
+    static final long EMITTER_TIMEOUT_MS = 30 * 60 * 1000L;
+
+    private final Map<UUID, Set<SseEmitter>> userEmitters = new ConcurrentHashMap<>();
+    private final Set<SseEmitter> adminEmitters = new CopyOnWriteArraySet<>();
+
+    /** Payload do evento {@code message}. */
+    public record MessageEvent(
+            Long id,
+            UUID userId,
+            boolean fromAdmin,
+            String text,
+            OffsetDateTime createdAt
+    ) {
+        static MessageEvent from(SupportMessage m) {
+            return new MessageEvent(
+                    m.getId(),
+                    m.getUser() != null ? m.getUser().getId() : null,
+                    Boolean.TRUE.equals(m.getFromAdmin()),
+                    m.getText(),
+                    m.getCreatedAt()
+            );
+        }
+    }
+
+    // ===== Subscribe =====
+
+    /** Abre o stream do dono do thread, já enviando o badge atual. */
+    public SseEmitter subscribeUser(UUID userId, long unread) {
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MS);
+        Set<SseEmitter> set = userEmitters.computeIfAbsent(userId, k -> new CopyOnWriteArraySet<>());
+        set.add(emitter);
+        Runnable remove = () -> {
+            set.remove(emitter);
+            userEmitters.computeIfPresent(userId, (k, v) -> v.isEmpty() ? null : v);
+        };
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+        send(emitter, "unread", Map.of("count", unread));
+        log.debug("📡 Stream de suporte aberto pro user {}", userId);
+        return emitter;
+    }
+
+    /** Abre o stream da inbox do admin, já enviando o badge atual. */
+    public SseEmitter subscribeAdmin(long unreadConversations) {
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MS);
+        adminEmitters.add(emitter);
+        Runnable remove = () -> adminEmitters.remove(emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+        send(emitter, "unread", Map.of("count", unreadConversations));
+        return emitter;
+    }
+
+    // ===== Publish (após commit) =====
+
+    /** Nova mensagem no thread: vai pro dono e pra todos os admins conectados. */
+    public void publishMessage(SupportMessage message) {
+        MessageEvent event = MessageEvent.from(message);
+        afterCommit(() -> {
+            broadcast(userEmitters.get(event.userId()), "message", event);
+            broadcast(adminEmitters, "message", event);
+        });
+    }
+
+    /** Badge do dono do thread mudou. */
+    public void publishUserUnread(UUID userId, long count) {
+        afterCommit(() -> broadcast(userEmitters.get(userId), "unread", Map.of("count", count)));
+    }
+
+    /** Badge da inbox admin mudou. */
+    public void publishAdminUnread(long count) {
+        afterCommit(() -> broadcast(adminEmitters, "unread", Map.of("count", count)));
+    }
+
+    /** Total de conexões abertas nesta instância (users + admins). */
+    public int connectionCount() {
+        return adminEmitters.size() + userEmitters.values().stream().mapToInt(Set::size).sum();
+    }
+
+    @Scheduled(fixedDelay = 25_000)
+    public void heartbeat() {
+        userEmitters.values().forEach(set -> broadcast(set, "ping", ""));
+        broadcast(adminEmitters, "ping", "");
+    }
+
+    // ===== Helpers =====
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void broadcast(Set<SseEmitter> emitters, String name, Object data) {
+        if (emitters == null || emitters.isEmpty()) return;
+        for (SseEmitter emitter : emitters) {
+            if (!send(emitter, name, data)) {
+                emitters.remove(emitter);
+            }
+        }
+    }
+
+    private boolean send(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // Cliente desconectou — completeWithError dispara o onError e remove do registro
+            emitter.completeWithError(e);
+            return false;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.mvt.mvt_events.service;
 
+import com.mvt.mvt_events.common.LogContext;
 import com.mvt.mvt_events.controller.UserController.UserCreateRequest;
 import com.mvt.mvt_events.controller.UserController.UserUpdateRequest;
 import com.mvt.mvt_events.jpa.Address;
@@ -10,8 +11,10 @@ import com.mvt.mvt_events.repository.CityRepository;
 import com.mvt.mvt_events.repository.UserRepository;
 import com.mvt.mvt_events.specification.UserSpecification;
 import com.mvt.mvt_events.util.CPFUtil;
+import lombok.extern.slf4j.Slf4j;
 import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
@@ -32,8 +35,15 @@ import java.util.UUID;
 
 @Service
 @Transactional
+@Slf4j
 public class UserService {
 
+    private static final java.util.regex.Pattern PHONE_LIKE = java.util.regex.Pattern.compile("[\\d\\s()+.-]*\\d[\\d\\s()+.-]*");
+
+    /** Tamanho mínimo do termo nos typeaheads (3 = um trigrama do pg_trgm). */
+    @Value("${users.typeahead.min-length:3}")
+    private int typeaheadMinLength = 3;
+
     @Autowired
     private UserRepository userRepository;
 
@@ -601,8 +611,7 @@ public class UserService {
                 user.setUpdatedAt(java.time.OffsetDateTime.ofInstant(gpsTimestamp.toInstant(java.time.ZoneOffset.UTC), java.time.ZoneId.of("America/Fortaleza")));
             } catch (Exception e) {
                 // Se não conseguir parsear, usar timestamp atual e logar warning
-                System.err
-                        .println("Erro ao parsear timestamp do GPS: " + updatedAtString + ". Usando timestamp atual.");
+                log.warn("⚠️ Erro ao parsear timestamp do GPS: {}. Usando timestamp atual.", updatedAtString);
                 user.setUpdatedAt(java.time.OffsetDateTime.now(java.time.ZoneId.of("America/Fortaleza")));
             }
         } else {
@@ -615,6 +624,7 @@ public class UserService {
         // 📍 ROUTE TRACKING: ACCEPTED → approach_route | IN_TRANSIT → actual_route
         // M = epoch seconds do timestamp real de captura GPS
         if (savedUser.getCurrentDeliveryId() != null) {
+            LogContext.putDeliveryId(savedUser.getCurrentDeliveryId());
             try {
                 double epochSec = savedUser.getUpdatedAt().toEpochSecond();
                 deliveryRepository.findByIdWithJoins(savedUser.getCurrentDeliveryId()).ifPresent(delivery -> {
@@ -632,7 +642,7 @@ public class UserService {
                     }
                 });
             } catch (Exception e) {
-                System.err.println("⚠️ Failed to append route point: " + e.getMessage());
+                log.warn("⚠️ Failed to append route point: {}", e.getMessage());
             }
         }
 
@@ -765,6 +775,11 @@ public class UserService {
             Integer limit, 
             Authentication authentication) {
         
+        String term = typeaheadTerm(search);
+        if (term == null) {
+            return java.util.List.of();
+        }
+
         // Buscar usuário logado
         String currentUsername = authentication.getName();
         User currentUser = userRepository.findByUsername(currentUsername)
@@ -781,13 +796,13 @@ public class UserService {
         java.util.List<User> couriers;
         if (organizationId != null) {
             couriers = userRepository.searchCouriersNotInOrganization(
-                    search != null ? search.toLowerCase().trim() : "", 
+                    term, 
                     organizationId, 
                     limit != null ? limit : 10);
         } else {
             // Se não tem organização, busca todos os couriers
             couriers = userRepository.searchCouriersWithLimit(
-                    search != null ? search.toLowerCase().trim() : "", 
+                    term, 
                     limit != null ? limit : 10);
         }
         
@@ -951,6 +966,11 @@ public class UserService {
             Integer limit, 
             Authentication authentication) {
         
+        String term = typeaheadTerm(search);
+        if (term == null) {
+            return java.util.List.of();
+        }
+
         // Buscar usuário logado
         String currentUsername = authentication.getName();
         User currentUser = userRepository.findByUsername(currentUsername)
@@ -967,13 +987,13 @@ public class UserService {
         java.util.List<User> clients;
         if (organizationId != null) {
             clients = userRepository.searchClientsNotInOrganization(
-                    search != null ? search.toLowerCase().trim() : "", 
+                    term, 
                     organizationId, 
                     limit != null ? limit : 10);
         } else {
             // Se não tem organização, busca todos os clientes
             clients = userRepository.searchClientsWithLimit(
-                    search != null ? search.toLowerCase().trim() : "", 
+                    term, 
                     limit != null ? limit : 10);
         }
         
@@ -1132,12 +1152,17 @@ public class UserService {
     public java.util.List<com.mvt.mvt_events.controller.UserController.WaiterSearchResponse> searchWaitersForTypeahead(
             String search, Integer limit, Authentication authentication) {
 
+        String term = typeaheadTerm(search);
+        if (term == null) {
+            return java.util.List.of();
+        }
+
         String currentUsername = authentication.getName();
         User currentUser = userRepository.findByUsername(currentUsername)
                 .orElseThrow(() -> new RuntimeException("Usuário logado não encontrado"));
 
         java.util.List<User> waiters = userRepository.searchWaitersNotLinkedToClient(
-                search != null ? search.toLowerCase().trim() : "",
+                term,
                 currentUser.getId(),
                 limit != null ? limit : 10);
 
@@ -1146,6 +1171,22 @@ public class UserService {
                 .collect(java.util.stream.Collectors.toList());
     }
 
+    /**
+     * Normaliza o termo dos typeaheads: minúsculo e sem espaços nas pontas; se parece
+     * telefone ("(88) 99912-3456"), fica só com os dígitos. Abaixo do tamanho mínimo
+     * retorna null — termos de 1–2 letras não têm trigrama e varreriam o índice inteiro.
+     */
+    String typeaheadTerm(String search) {
+        if (search == null) {
+            return null;
+        }
+        String term = search.toLowerCase().trim();
+        if (PHONE_LIKE.matcher(term).matches()) {
+            term = term.replaceAll("[^0-9]", "");
+        }
+        return term.length() >= typeaheadMinLength ? term : null;
+    }
+
     /** Lista garçons ativos do CLIENT logado */
     @Transactional(readOnly = true)
     public java.util.List<com.mvt.mvt_events.controller.UserController.WaiterForClientResponse> getWaitersForLoggedClient(
@@ -0,0 +1,73 @@
+package com.mvt.mvt_events.sql;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publica o resultado de cada escopo {@link SqlStats} como métricas e avisa no log
+ * quando o orçamento de SQL é estourado ou um mesmo SQL se repete (N+1).
+ *
+ * Métricas (actuator /metrics), tags {@code kind} (http|scheduled) e {@code handler}:
+ *  - sql.unit.statements — SQLs por unidade de trabalho (histograma)
+ *  - sql.unit.entities   — entidades hidratadas por unidade (proxy de linhas lidas)
+ *  - sql.unit.jdbc       — tempo JDBC somado por unidade
+ *  - sql.unit.repeated   — contador de unidades com SQL repetido acima do limite
+ */
+@Component
+@Slf4j
+public class SqlBudgetRecorder {
+
+    public static final String METRIC_STATEMENTS = "sql.unit.statements";
+    public static final String METRIC_ENTITIES = "sql.unit.entities";
+    public static final String METRIC_JDBC = "sql.unit.jdbc";
+    public static final String METRIC_REPEATED = "sql.unit.repeated";
+
+    private final MeterRegistry meterRegistry;
+    private final int warnStatements;
+    private final int repeatThreshold;
+
+    public SqlBudgetRecorder(MeterRegistry meterRegistry,
+                             @Value("${sql.budget.warn-statements:100}") int warnStatements,
+                             @Value("${sql.budget.repeat-threshold:10}") int repeatThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.warnStatements = warnStatements;
+        this.repeatThreshold = repeatThreshold;
+    }
+
+    public void record(String kind, String handler, SqlStats.Snapshot result) {
+        if (result.statements() == 0) return; // endpoints sem banco não poluem o histograma
+
+        DistributionSummary.builder(METRIC_STATEMENTS)
+                .tag("kind", kind).tag("handler", handler)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(result.statements());
+        DistributionSummary.builder(METRIC_ENTITIES)
+                .tag("kind", kind).tag("handler", handler)
+                .register(meterRegistry)
+                .record(result.entities());
+        Timer.builder(METRIC_JDBC)
+                .tag("kind", kind).tag("handler", handler)
+                .register(meterRegistry)
+                .record(result.jdbcNanos(), TimeUnit.NANOSECONDS);
+
+        if (result.mostRepeatedCount() >= repeatThreshold) {
+            meterRegistry.counter(METRIC_REPEATED, "kind", kind, "handler", handler).increment();
+            log.warn("🐢 Possível N+1 em {} ({}): mesmo SQL {}x — {}",
+                    handler, kind, result.mostRepeatedCount(), abbreviate(result.mostRepeated()));
+        } else if (result.statements() >= warnStatements) {
+            log.warn("🐢 {} ({}) executou {} SQLs ({} entidades, {} ms JDBC)",
+                    handler, kind, result.statements(), result.entities(), result.jdbcMillis());
+        }
+    }
+
+    private static String abbreviate(String sql) {
+        return sql.length() <= 200 ? sql : sql.substring(0, 200) + "…";
+    }
+}
@@ -0,0 +1,34 @@
+package com.mvt.mvt_events.sql;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Abre um escopo {@link SqlStats} por execução de método {@code @Scheduled} e publica
+ * o resultado com {@code kind=scheduled}, {@code handler=Classe.metodo}.
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(name = "sql.budget.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlBudgetScheduledAspect {
+
+    private final SqlBudgetRecorder recorder;
+
+    public SqlBudgetScheduledAspect(SqlBudgetRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    @Around("@annotation(org.springframework.scheduling.annotation.Scheduled)")
+    public Object measure(ProceedingJoinPoint pjp) throws Throwable {
+        SqlStats stats = SqlStats.begin();
+        try {
+            return pjp.proceed();
+        } finally {
+            String handler = pjp.getSignature().getDeclaringType().getSimpleName() + "." + pjp.getSignature().getName();
+            recorder.record("scheduled", handler, stats.end());
+        }
+    }
+}
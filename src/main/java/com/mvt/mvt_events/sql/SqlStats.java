@@ -0,0 +1,105 @@
+package com.mvt.mvt_events.sql;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Contadores de SQL de uma unidade de trabalho (request HTTP, job agendado ou bloco
+ * de teste), vinculados à thread corrente.
+ *
+ * <p>Alimentado pelos hooks do Hibernate ({@link SqlStatsInspector},
+ * {@link SqlStatsSessionListener}, {@link SqlStatsIntegrator}); fora de um escopo
+ * aberto com {@link #begin()} os hooks não fazem nada. Escopos aninhados somam
+ * também no escopo de fora.
+ */
+public final class SqlStats {
+
+    /** Limite de SQLs distintos rastreados por escopo (detecção de N+1). */
+    static final int MAX_TRACKED_STATEMENTS = 256;
+
+    private static final ThreadLocal<SqlStats> CURRENT = new ThreadLocal<>();
+
+    private final SqlStats parent;
+    private int statements;
+    private long entities;
+    private long jdbcNanos;
+    private final Map<String, Integer> repeats = new HashMap<>();
+
+    private SqlStats(SqlStats parent) {
+        this.parent = parent;
+    }
+
+    /** Abre um escopo na thread corrente. Sempre feche com {@link #end()} (try/finally). */
+    public static SqlStats begin() {
+        SqlStats stats = new SqlStats(CURRENT.get());
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    /** Escopo ativo na thread (null = nenhum). */
+    public static SqlStats current() {
+        return CURRENT.get();
+    }
+
+    /** Fecha o escopo e devolve o resultado. */
+    public Snapshot end() {
+        if (parent != null) {
+            CURRENT.set(parent);
+        } else {
+            CURRENT.remove();
+        }
+        return snapshot();
+    }
+
+    public Snapshot snapshot() {
+        String worst = null;
+        int worstCount = 0;
+        for (Map.Entry<String, Integer> e : repeats.entrySet()) {
+            if (e.getValue() > worstCount) {
+                worst = e.getKey();
+                worstCount = e.getValue();
+            }
+        }
+        return new Snapshot(statements, entities, jdbcNanos, worst, worstCount);
+    }
+
+    // ===== Hooks (chamados pelo Hibernate na thread da sessão) =====
+
+    void onStatement(String sql) {
+        for (SqlStats s = this; s != null; s = s.parent) {
+            s.statements++;
+            if (s.repeats.size() < MAX_TRACKED_STATEMENTS || s.repeats.containsKey(sql)) {
+                s.repeats.merge(sql, 1, Integer::sum);
+            }
+        }
+    }
+
+    void onEntityLoaded() {
+        for (SqlStats s = this; s != null; s = s.parent) {
+            s.entities++;
+        }
+    }
+
+    void onJdbcTime(long nanos) {
+        for (SqlStats s = this; s != null; s = s.parent) {
+            s.jdbcNanos += nanos;
+        }
+    }
+
+    /**
+     * Resultado de um escopo.
+     *
+     * @param statements     SQLs preparados (inclui os de flush)
+     * @param entities       entidades hidratadas — proxy das linhas lidas pelo ORM
+     * @param jdbcNanos      tempo de execução JDBC somado
+     * @param mostRepeated   SQL mais repetido (assinatura típica de N+1), null se nenhum
+     * @param mostRepeatedCount quantas vezes ele rodou
+     */
+    public record Snapshot(int statements, long entities, long jdbcNanos,
+                           String mostRepeated, int mostRepeatedCount) {
+
+        public long jdbcMillis() {
+            return jdbcNanos / 1_000_000;
+        }
+    }
+}
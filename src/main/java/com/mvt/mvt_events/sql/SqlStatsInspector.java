@@ -0,0 +1,19 @@
+package com.mvt.mvt_events.sql;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Conta cada SQL preparado pelo Hibernate no escopo {@link SqlStats} da thread.
+ * Não altera o SQL.
+ */
+public class SqlStatsInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        SqlStats stats = SqlStats.current();
+        if (stats != null) {
+            stats.onStatement(sql);
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,38 @@
+package com.mvt.mvt_events.sql;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.integrator.spi.Integrator;
+
+/**
+ * Registra um {@link PostLoadEventListener} que conta entidades hidratadas no escopo
+ * {@link SqlStats} da thread — cada linha lida como entidade conta 1.
+ */
+public class SqlStatsIntegrator implements Integrator {
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext,
+                          SessionFactoryImplementor sessionFactory) {
+        EventListenerRegistry registry = sessionFactory.getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_LOAD, (PostLoadEventListener) SqlStatsIntegrator::onPostLoad);
+    }
+
+    private static void onPostLoad(PostLoadEvent event) {
+        SqlStats stats = SqlStats.current();
+        if (stats != null) {
+            stats.onEntityLoaded();
+        }
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory,
+                             org.hibernate.service.spi.SessionFactoryServiceRegistry serviceRegistry) {
+        // nada a liberar
+    }
+}
@@ -0,0 +1,42 @@
+package com.mvt.mvt_events.sql;
+
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * Mede o tempo de execução JDBC (statements e batches) de cada sessão Hibernate.
+ * Instanciado pelo Hibernate por sessão via {@code hibernate.session.events.auto}.
+ */
+public class SqlStatsSessionListener extends BaseSessionEventListener {
+
+    private long statementStart = -1;
+    private long batchStart = -1;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        statementStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        statementStart = record(statementStart);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        batchStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        batchStart = record(batchStart);
+    }
+
+    private static long record(long start) {
+        if (start < 0) return -1;
+        SqlStats stats = SqlStats.current();
+        if (stats != null) {
+            stats.onJdbcTime(System.nanoTime() - start);
+        }
+        return -1;
+    }
+}
@@ -1,157 +1,127 @@
 package com.mvt.mvt_events.startup;
 
+import com.mvt.mvt_events.http.OutboundHttpClients;
+import com.mvt.mvt_events.http.OutboundProvider;
 import com.mvt.mvt_events.jpa.City;
 import com.mvt.mvt_events.repository.CityRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 /**
- * Loads all Brazilian cities from IBGE API on application startup
- * This runs after the application context is loaded and database migrations are
- * complete
+ * Loads all Brazilian cities on application startup.
+ *
+ * The load runs in background on the {@code taskExecutor} so it never delays
+ * readiness. Source order:
+ * 1. bundled compressed snapshot ({@link CitySnapshotImporter}) — offline, bulk upsert
+ * 2. IBGE API — fallback when the snapshot is missing/incomplete, or optional
+ *    refresh when {@code cities.ibge-refresh.enabled=true}
  */
 @Component
 public class CityDataLoader implements ApplicationRunner {
 
     private static final Logger logger = LoggerFactory.getLogger(CityDataLoader.class);
     private static final String IBGE_CITIES_API_URL = "https://servicodados.ibge.gov.br/api/v1/localidades/municipios";
+    private static final long EXPECTED_CITIES = 5570;
 
     @Autowired
     private CityRepository cityRepository;
 
     @Autowired
-    private RestTemplate restTemplate;
+    private CitySnapshotImporter citySnapshotImporter;
 
-    @Override
-    @Transactional
-    public void run(ApplicationArguments args) throws Exception {
-        logger.info("🇧🇷 Iniciando verificação das cidades brasileiras...");
-
-        // Check current cities count
-        long existingCitiesCount = cityRepository.count();
+    @Autowired
+    private OutboundHttpClients outboundHttpClients;
 
-        if (existingCitiesCount >= 5570) {
-            logger.info("✅ Cidades já carregadas no banco: {} registros (>= 5570). Não é necessário recarregar.",
-                    existingCitiesCount);
-            return;
-        }
+    @Autowired
+    @Qualifier("taskExecutor")
+    private Executor taskExecutor;
 
-        if (existingCitiesCount > 0) {
-            logger.warn("⚠️ Tabela de cidades incompleta: {} registros (< 5570). Limpando e recarregando...",
-                    existingCitiesCount);
-            clearCitiesTable();
-        } else {
-            logger.info("📊 Tabela de cidades vazia. Iniciando carregamento completo...");
-        }
+    @Value("${cities.ibge-refresh.enabled:false}")
+    private boolean ibgeRefreshEnabled;
 
-        try {
-            loadAllCitiesFromIBGE();
-        } catch (Exception e) {
-            logger.error("❌ Erro ao carregar cidades do IBGE: {}", e.getMessage(), e);
-            // Don't throw exception to prevent application startup failure
-            // You might want to set a flag or schedule a retry mechanism
-        }
+    @Override
+    public void run(ApplicationArguments args) {
+        taskExecutor.execute(this::loadCities);
     }
 
-    private void clearCitiesTable() {
-        logger.info("🧹 Limpando tabela de cidades...");
+    void loadCities() {
+        logger.info("🇧🇷 Iniciando verificação das cidades brasileiras...");
+
         try {
-            cityRepository.deleteAll();
-            logger.info("✅ Tabela de cidades limpa com sucesso");
+            long existingCitiesCount = cityRepository.count();
+
+            if (existingCitiesCount < EXPECTED_CITIES) {
+                logger.info("📊 Tabela de cidades com {} registros (< {}). Importando snapshot...",
+                        existingCitiesCount, EXPECTED_CITIES);
+                citySnapshotImporter.importSnapshot();
+                existingCitiesCount = cityRepository.count();
+            } else {
+                logger.info("✅ Cidades já carregadas no banco: {} registros (>= {}).",
+                        existingCitiesCount, EXPECTED_CITIES);
+            }
+
+            if (ibgeRefreshEnabled || existingCitiesCount < EXPECTED_CITIES) {
+                refreshFromIBGE();
+            }
         } catch (Exception e) {
-            logger.error("❌ Erro ao limpar tabela de cidades: {}", e.getMessage(), e);
-            throw e;
+            logger.error("❌ Erro ao carregar cidades: {}", e.getMessage(), e);
+            // Don't rethrow: runs in background and must not affect the application
         }
     }
 
-    private void loadAllCitiesFromIBGE() {
+    private void refreshFromIBGE() {
         logger.info("📡 Buscando dados de todas as cidades brasileiras na API do IBGE...");
 
-        try {
-            ResponseEntity<List<Map<String, Object>>> response = restTemplate.exchange(
-                    IBGE_CITIES_API_URL,
-                    HttpMethod.GET,
-                    null,
-                    new ParameterizedTypeReference<List<Map<String, Object>>>() {
-                    });
-
-            List<Map<String, Object>> citiesData = response.getBody();
-
-            if (citiesData == null || citiesData.isEmpty()) {
-                logger.warn("⚠️ Nenhum dado de cidade retornado pela API do IBGE");
-                return;
-            }
+        RestTemplate restTemplate = outboundHttpClients.restTemplate(OutboundProvider.IBGE);
+        ResponseEntity<List<Map<String, Object>>> response = restTemplate.exchange(
+                IBGE_CITIES_API_URL,
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<List<Map<String, Object>>>() {
+                });
 
-            logger.info("📊 Recebidos {} municípios do IBGE. Processando e salvando...", citiesData.size());
-
-            int batchSize = 100;
-            int processedCount = 0;
-            int savedCount = 0;
-
-            // Process cities in batches for better performance
-            for (int i = 0; i < citiesData.size(); i += batchSize) {
-                int endIndex = Math.min(i + batchSize, citiesData.size());
-                List<Map<String, Object>> batch = citiesData.subList(i, endIndex);
-
-                for (Map<String, Object> cityData : batch) {
-                    try {
-                        City city = mapToCityEntity(cityData);
-                        if (city != null) {
-                            cityRepository.save(city);
-                            savedCount++;
-                        }
-                        processedCount++;
-                    } catch (Exception e) {
-                        logger.warn("⚠️ Erro ao processar cidade: {} - {}", cityData.get("nome"), e.getMessage());
-                    }
-                }
-
-                // Log progress every batch
-                if ((i / batchSize + 1) % 10 == 0) {
-                    logger.info("📈 Progresso: {} cidades processadas, {} salvas", processedCount, savedCount);
-                }
-
-                // Small delay to avoid overwhelming the database
-                try {
-                    Thread.sleep(10);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
-            }
+        List<Map<String, Object>> citiesData = response.getBody();
 
-            logger.info("✅ Carregamento concluído! {} cidades processadas, {} salvas no banco de dados",
-                    processedCount, savedCount);
+        if (citiesData == null || citiesData.isEmpty()) {
+            logger.warn("⚠️ Nenhum dado de cidade retornado pela API do IBGE");
+            return;
+        }
 
-            // Validate final count
-            if (savedCount >= 5570) {
-                logger.info("🎯 Validação: {} cidades carregadas - Base completa de municípios brasileiros!",
-                        savedCount);
-            } else {
-                logger.warn(
-                        "⚠️ Validação: Apenas {} cidades carregadas (esperado >= 5570). Pode haver problemas na API do IBGE.",
-                        savedCount);
-            }
+        logger.info("📊 Recebidos {} municípios do IBGE. Processando e salvando...", citiesData.size());
 
-            // Log summary by state
-            logStateSummary();
+        List<City> cities = new ArrayList<>(citiesData.size());
+        for (Map<String, Object> cityData : citiesData) {
+            City city = mapToCityEntity(cityData);
+            if (city != null) {
+                cities.add(city);
+            }
+        }
+        citySnapshotImporter.upsert(cities);
 
-        } catch (Exception e) {
-            logger.error("❌ Erro ao carregar cidades do IBGE: {}", e.getMessage(), e);
-            throw e;
+        long total = cityRepository.count();
+        if (total >= EXPECTED_CITIES) {
+            logger.info("🎯 Validação: {} cidades no banco - Base completa de municípios brasileiros!", total);
+        } else {
+            logger.warn("⚠️ Validação: Apenas {} cidades no banco (esperado >= {}). Pode haver problemas na API do IBGE.",
+                    total, EXPECTED_CITIES);
         }
+
+        logStateSummary();
     }
 
     @SuppressWarnings("unchecked")
@@ -162,17 +132,7 @@ public class CityDataLoader implements ApplicationRunner {
                 return null;
             }
 
-            Map<String, Object> microregion = (Map<String, Object>) cityData.get("microrregiao");
-            if (microregion == null) {
-                return null;
-            }
-
-            Map<String, Object> mesoregion = (Map<String, Object>) microregion.get("mesorregiao");
-            if (mesoregion == null) {
-                return null;
-            }
-
-            Map<String, Object> uf = (Map<String, Object>) mesoregion.get("UF");
+            Map<String, Object> uf = resolveUf(cityData);
             if (uf == null) {
                 return null;
             }
@@ -193,6 +153,29 @@ public class CityDataLoader implements ApplicationRunner {
         }
     }
 
+    /**
+     * UF via microrregião/mesorregião; municípios recentes vêm sem microrregião,
+     * então cai para região imediata/intermediária.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> resolveUf(Map<String, Object> cityData) {
+        Map<String, Object> microregion = (Map<String, Object>) cityData.get("microrregiao");
+        if (microregion != null) {
+            Map<String, Object> mesoregion = (Map<String, Object>) microregion.get("mesorregiao");
+            if (mesoregion != null && mesoregion.get("UF") != null) {
+                return (Map<String, Object>) mesoregion.get("UF");
+            }
+        }
+        Map<String, Object> immediateRegion = (Map<String, Object>) cityData.get("regiao-imediata");
+        if (immediateRegion != null) {
+            Map<String, Object> intermediateRegion = (Map<String, Object>) immediateRegion.get("regiao-intermediaria");
+            if (intermediateRegion != null) {
+                return (Map<String, Object>) intermediateRegion.get("UF");
+            }
+        }
+        return null;
+    }
+
     private void logStateSummary() {
         try {
             List<Object[]> stateCounts = cityRepository.countCitiesByState();
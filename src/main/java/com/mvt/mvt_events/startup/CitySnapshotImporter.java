@@ -0,0 +1,154 @@
+package com.mvt.mvt_events.startup;
+
+import com.mvt.mvt_events.jpa.City;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Importação em massa da tabela de cidades.
+ *
+ * Lê o snapshot compactado empacotado no classpath ({@value #SNAPSHOT_PATH})
+ * e grava via INSERT multi-linha com upsert por ibge_code — poucas dezenas de
+ * statements para os ~5570 municípios, em vez de um save() por linha.
+ *
+ * Formato do snapshot (TSV, UTF-8, gzip): ibge_code, nome, estado, sigla_uf.
+ * Gerado por scripts/generate-cities-snapshot.sh a partir da API do IBGE.
+ */
+@Component
+public class CitySnapshotImporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(CitySnapshotImporter.class);
+
+    static final String SNAPSHOT_PATH = "data/ibge-cities.tsv.gz";
+
+    /** Linhas por INSERT (4 parâmetros cada — bem abaixo do limite de 65535 do Postgres) */
+    private static final int ROWS_PER_STATEMENT = 500;
+
+    private static final String UPSERT_PREFIX = "INSERT INTO cities (ibge_code, name, state, state_code, created_at, updated_at) VALUES ";
+    private static final String UPSERT_ROW = "(?, ?, ?, ?, NOW(), NOW())";
+    private static final String UPSERT_SUFFIX = """
+             ON CONFLICT (ibge_code) DO UPDATE SET
+                name = EXCLUDED.name,
+                state = EXCLUDED.state,
+                state_code = EXCLUDED.state_code,
+                updated_at = NOW()
+            WHERE cities.name IS DISTINCT FROM EXCLUDED.name
+               OR cities.state IS DISTINCT FROM EXCLUDED.state
+               OR cities.state_code IS DISTINCT FROM EXCLUDED.state_code
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String snapshotPath;
+
+    @Autowired
+    public CitySnapshotImporter(JdbcTemplate jdbcTemplate) {
+        this(jdbcTemplate, SNAPSHOT_PATH);
+    }
+
+    /** Snapshot em outro caminho do classpath (testes). */
+    CitySnapshotImporter(JdbcTemplate jdbcTemplate, String snapshotPath) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.snapshotPath = snapshotPath;
+    }
+
+    public boolean isSnapshotAvailable() {
+        return new ClassPathResource(snapshotPath).exists();
+    }
+
+    /**
+     * Carrega o snapshot empacotado e faz upsert de todas as cidades.
+     *
+     * @return quantidade de cidades lidas do snapshot (0 se o arquivo não existir)
+     */
+    public int importSnapshot() throws IOException {
+        ClassPathResource resource = new ClassPathResource(snapshotPath);
+        if (!resource.exists()) {
+            logger.warn("⚠️ Snapshot de cidades não encontrado no classpath: {}", snapshotPath);
+            return 0;
+        }
+
+        List<City> cities = new ArrayList<>(5600);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(resource.getInputStream()), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                City city = parseLine(line);
+                if (city != null) {
+                    cities.add(city);
+                }
+            }
+        }
+
+        logger.info("📦 Snapshot de cidades lido: {} municípios", cities.size());
+        upsert(cities);
+        return cities.size();
+    }
+
+    /**
+     * Upsert em lote por ibge_code. Usado tanto pelo snapshot quanto pelo
+     * refresh opcional via API do IBGE.
+     */
+    public void upsert(List<City> cities) {
+        long start = System.currentTimeMillis();
+        for (int from = 0; from < cities.size(); from += ROWS_PER_STATEMENT) {
+            List<City> chunk = cities.subList(from, Math.min(from + ROWS_PER_STATEMENT, cities.size()));
+            jdbcTemplate.update(buildUpsertSql(chunk.size()), toArgs(chunk));
+        }
+        logger.info("✅ Upsert de {} cidades concluído em {}ms", cities.size(), System.currentTimeMillis() - start);
+    }
+
+    static City parseLine(String line) {
+        if (line == null || line.isBlank()) {
+            return null;
+        }
+        String[] cols = line.split("\t", -1);
+        if (cols.length < 4) {
+            return null;
+        }
+        String ibgeCode = cols[0].trim();
+        String name = cols[1].trim();
+        String state = cols[2].trim();
+        String stateCode = cols[3].trim();
+        if (ibgeCode.isEmpty() || name.isEmpty() || state.isEmpty() || stateCode.isEmpty()) {
+            return null;
+        }
+        return new City(name, state, stateCode, ibgeCode);
+    }
+
+    private static String buildUpsertSql(int rows) {
+        StringBuilder sql = new StringBuilder(UPSERT_PREFIX.length() + rows * (UPSERT_ROW.length() + 2)
+                + UPSERT_SUFFIX.length());
+        sql.append(UPSERT_PREFIX);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(UPSERT_ROW);
+        }
+        return sql.append(UPSERT_SUFFIX).toString();
+    }
+
+    private static Object[] toArgs(List<City> chunk) {
+        Object[] args = new Object[chunk.size() * 4];
+        int i = 0;
+        for (City city : chunk) {
+            args[i++] = city.getIbgeCode();
+            args[i++] = city.getName();
+            args[i++] = city.getState();
+            args[i++] = city.getStateCode();
+        }
+        return args;
+    }
+}
@@ -1,10 +1,12 @@
 package com.mvt.mvt_events.tenant;
 
+import com.mvt.mvt_events.common.LogContext;
 import com.mvt.mvt_events.jpa.User;
 import jakarta.servlet.*;
 import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
@@ -47,44 +49,46 @@ public class TenantFilter extends OncePerRequestFilter {
             jakarta.servlet.FilterChain chain)
             throws IOException, jakarta.servlet.ServletException {
 
+        LogContext.putDeliveryId(LogContext.deliveryIdFromPath(request.getRequestURI()));
         try {
             // Pega o usuário autenticado do Spring Security
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
-            logger.info("🔍 TenantFilter - Request: {} {}", request.getMethod(), request.getRequestURI());
-            logger.info("🔍 TenantFilter - Authentication: {}",
-                    authentication != null ? authentication.getClass().getSimpleName() : "null");
+            // Diagnóstico por request só em DEBUG: em INFO isso eram ~7 linhas por chamada
+            if (logger.isDebugEnabled()) {
+                logger.debug("🔍 TenantFilter - Request: {} {} | Authentication: {}", request.getMethod(),
+                        request.getRequestURI(),
+                        authentication != null ? authentication.getClass().getSimpleName() : "null");
+            }
 
             if (authentication != null && authentication.isAuthenticated()) {
-                logger.info("🔍 TenantFilter - Principal type: {}", authentication.getPrincipal().getClass().getName());
-                logger.info("🔍 TenantFilter - Principal instanceof User: {}",
-                        authentication.getPrincipal() instanceof User);
-
                 if (authentication.getPrincipal() instanceof User) {
                     User user = (User) authentication.getPrincipal();
-                    logger.info("🔍 TenantFilter - User: {}", user.getUsername());
+                    MDC.put(LogContext.USER, String.valueOf(user.getId()));
                     // TODO: Implementar campos organization e role na entidade User
-                    // logger.info("🔍 TenantFilter - User Organization: {}",
-                    // user.getOrganization());
-                    // logger.info("🔍 TenantFilter - User Role: {}", user.getRole());
 
                     // Por enquanto, assumir que não é admin
                     boolean isAdmin = false; // user.getRole() != null && "ADMIN".equals(user.getRole().name());
                     TenantContext.setIsAdmin(isAdmin);
 
                     if (isAdmin) {
-                        logger.info("👑 TenantFilter - User is ADMIN - NO tenant filter will be applied");
+                        logger.debug("👑 TenantFilter - User is ADMIN - NO tenant filter will be applied");
                     } else {
                         // Por enquanto, usar o ID do usuário como tenant
                         // TODO: Implementar lógica correta de tenant baseada em organização
                         TenantContext.setCurrentTenantId(user.getId().hashCode() % 1000L);
-                        logger.info("✅ TenantFilter - Tenant ID set to: {}", TenantContext.getCurrentTenantId());
+                        MDC.put(LogContext.TENANT, String.valueOf(TenantContext.getCurrentTenantId()));
+                        if (logger.isDebugEnabled()) {
+                            logger.debug("✅ TenantFilter - User: {} | Tenant ID set to: {}", user.getUsername(),
+                                    TenantContext.getCurrentTenantId());
+                        }
                     }
-                } else {
-                    logger.warn("⚠️ TenantFilter - Principal is not a User instance");
+                } else if (logger.isDebugEnabled()) {
+                    logger.debug("⚠️ TenantFilter - Principal is not a User instance: {}",
+                            authentication.getPrincipal().getClass().getName());
                 }
             } else {
-                logger.warn("⚠️ TenantFilter - No authentication or not authenticated");
+                logger.debug("⚠️ TenantFilter - No authentication or not authenticated");
             }
 
             // Continua a cadeia de filtros
@@ -94,7 +98,7 @@ public class TenantFilter extends OncePerRequestFilter {
             // IMPORTANTE: Limpa o ThreadLocal SOMENTE após a resposta ser enviada
             // Comentado temporariamente para debug - o Aspect deve gerenciar isso
             // TenantContext.clear();
-            logger.info("🔚 TenantFilter - Request completed");
+            LogContext.clear();
         }
     }
 }
@@ -0,0 +1,57 @@
+package com.mvt.mvt_events.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * Cache em memória limitado a {@code maxEntries}, com despejo LRU: ao passar do limite
+ * sai só a entrada acessada há mais tempo, em vez de esvaziar o mapa inteiro (o que
+ * derrubava o hit rate para zero e disparava uma rajada de recargas ao mesmo tempo).
+ *
+ * Thread-safe por sincronização; todas as operações são O(1).
+ */
+public class LruCache<K, V> {
+
+    private final int maxEntries;
+    private final LinkedHashMap<K, V> map;
+
+    public LruCache(int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries deve ser positivo: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        this.map = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > LruCache.this.maxEntries;
+            }
+        };
+    }
+
+    /** Valor da chave (e a marca como usada agora), ou null. */
+    public synchronized V get(K key) {
+        return map.get(key);
+    }
+
+    public synchronized void put(K key, V value) {
+        map.put(key, value);
+    }
+
+    public synchronized V remove(K key) {
+        return map.remove(key);
+    }
+
+    /** Atualiza o valor só se a chave estiver em cache; null no remapping remove a entrada. */
+    public synchronized V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remapping) {
+        return map.computeIfPresent(key, remapping);
+    }
+
+    public synchronized int size() {
+        return map.size();
+    }
+
+    public int maxEntries() {
+        return maxEntries;
+    }
+}
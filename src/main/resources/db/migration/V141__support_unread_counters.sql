@@ -0,0 +1,25 @@
+-- Contadores de não-lidas do chat de suporte, 1 linha por thread (usuário).
+-- Mantidos pelo SupportMessageService na mesma transação de send/mark-read,
+-- para que os badges (/my-unread-count e /admin-unread-count) sejam lookup
+-- por PK em vez de agregação sobre support_messages.
+--   user_unread  = mensagens do admin que o usuário ainda não leu
+--   admin_unread = mensagens do usuário que o admin ainda não leu
+
+CREATE TABLE support_unread_counters (
+    user_id      UUID PRIMARY KEY REFERENCES users(id),
+    user_unread  INTEGER NOT NULL DEFAULT 0,
+    admin_unread INTEGER NOT NULL DEFAULT 0
+);
+
+-- Badge admin = COUNT de threads com admin_unread > 0 (partial index: só as pendentes)
+CREATE INDEX idx_support_unread_counters_admin
+    ON support_unread_counters(user_id)
+    WHERE admin_unread > 0;
+
+-- Backfill a partir das mensagens existentes
+INSERT INTO support_unread_counters (user_id, user_unread, admin_unread)
+SELECT user_id,
+       COUNT(*) FILTER (WHERE from_admin = true  AND read_at IS NULL),
+       COUNT(*) FILTER (WHERE from_admin = false AND read_at IS NULL)
+FROM support_messages
+GROUP BY user_id;
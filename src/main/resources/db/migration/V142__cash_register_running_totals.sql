@@ -0,0 +1,52 @@
+-- Totais correntes da sessão de caixa.
+-- Antes o saldo esperado era recalculado a cada leitura: soma das movimentações em Java +
+-- recarga de todos os pedidos COMPLETED desde a abertura (com itens e comandas) só pra
+-- achar a forma de pagamento. Agora a sessão carrega os três totais, mantidos por UPDATE
+-- atômico (cash_sales += total) quando um pedido em dinheiro é concluído ou uma
+-- movimentação é lançada. Leitura do saldo vira O(1); a conferência contra os dados de
+-- origem é explícita (GET /api/cash-register/verify).
+--   cash_sales        = vendas em dinheiro concluídas durante a sessão
+--   additions_total   = suprimentos (ADDITION)
+--   withdrawals_total = retiradas + sangrias (WITHDRAWAL, SANGRIA)
+
+ALTER TABLE cash_register_sessions
+    ADD COLUMN cash_sales        NUMERIC(10,2) NOT NULL DEFAULT 0,
+    ADD COLUMN additions_total   NUMERIC(10,2) NOT NULL DEFAULT 0,
+    ADD COLUMN withdrawals_total NUMERIC(10,2) NOT NULL DEFAULT 0;
+
+-- Backfill das movimentações (todas as sessões)
+UPDATE cash_register_sessions s
+SET additions_total   = m.additions,
+    withdrawals_total = m.withdrawals
+FROM (
+    SELECT session_id,
+           COALESCE(SUM(amount) FILTER (WHERE type = 'ADDITION'), 0)  AS additions,
+           COALESCE(SUM(amount) FILTER (WHERE type <> 'ADDITION'), 0) AS withdrawals
+    FROM cash_register_movements
+    GROUP BY session_id
+) m
+WHERE m.session_id = s.id;
+
+-- Sessões fechadas: vendas em dinheiro derivadas do snapshot gravado no fechamento
+UPDATE cash_register_sessions
+SET cash_sales = closing_balance_expected - opening_balance - additions_total + withdrawals_total
+WHERE status = 'CLOSED' AND closing_balance_expected IS NOT NULL;
+
+-- Sessões abertas: mesma regra da conferência (pedido COMPLETED pago durante a sessão,
+-- forma de pagamento = mesa inteira → mesa/balcão → primeira comanda com forma informada)
+UPDATE cash_register_sessions s
+SET cash_sales = COALESCE((
+    SELECT SUM(o.total)
+    FROM orders o
+    WHERE o.client_id = s.client_id
+      AND o.status = 'COMPLETED'
+      AND COALESCE(o.paid_at, o.completed_at) >= s.opened_at
+      AND COALESCE(o.table_payment_method, o.mesa_payment_method, (
+              SELECT c.payment_method
+              FROM order_items i
+              JOIN order_commands c ON c.id = i.command_id
+              WHERE i.order_id = o.id AND c.payment_method IS NOT NULL
+              ORDER BY i.id
+              LIMIT 1)) = 'CASH'
+), 0)
+WHERE status = 'OPEN';
@@ -0,0 +1,36 @@
+-- Arquivo de payloads do gateway (request/response do Pagar.me) fora da tabela payments.
+-- payments.request/response guardavam o JSON completo em cada linha: listagens
+-- (/api/payments, /organizer) carregavam KBs por item, e a tabela e seus índices
+-- cresciam com dado que só o detalhe/relatório usa.
+-- Agora cada gravação é uma linha nova (append-only), comprimida com gzip pela aplicação;
+-- o payload vigente é a linha mais recente do tipo. Lido só em GET /{id} e /{id}/report.
+
+CREATE TABLE payment_payloads (
+    id         BIGSERIAL PRIMARY KEY,
+    payment_id BIGINT NOT NULL REFERENCES payments(id) ON DELETE CASCADE,
+    kind       VARCHAR(10) NOT NULL,            -- REQUEST | RESPONSE
+    encoding   VARCHAR(10) NOT NULL,            -- gzip | identity (linhas migradas)
+    body       BYTEA NOT NULL,
+    raw_size   INTEGER NOT NULL,                -- tamanho do JSON descomprimido (bytes)
+    created_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    CONSTRAINT payment_payload_kind_chk CHECK (kind IN ('REQUEST', 'RESPONSE'))
+);
+
+CREATE INDEX idx_payment_payloads_lookup ON payment_payloads(payment_id, kind, id DESC);
+
+-- Migra o que já existe (sem compressão — o codec lê 'identity' direto)
+INSERT INTO payment_payloads (payment_id, kind, encoding, body, raw_size, created_at)
+SELECT id, 'REQUEST', 'identity', convert_to(request::text, 'UTF8'),
+       octet_length(request::text), COALESCE(created_at, NOW())
+FROM payments
+WHERE request IS NOT NULL;
+
+INSERT INTO payment_payloads (payment_id, kind, encoding, body, raw_size, created_at)
+SELECT id, 'RESPONSE', 'identity', convert_to(response::text, 'UTF8'),
+       octet_length(response::text), COALESCE(updated_at, created_at, NOW())
+FROM payments
+WHERE response IS NOT NULL;
+
+-- O espaço em disco só volta após VACUUM FULL / pg_repack em payments (rodar fora do horário de pico)
+ALTER TABLE payments DROP COLUMN request;
+ALTER TABLE payments DROP COLUMN response;
@@ -0,0 +1,9 @@
+-- Itens e adicionais de pedido passam a usar sequence com passo 50 no Hibernate
+-- (pooled optimizer) em vez de IDENTITY. Com IDENTITY cada INSERT precisa voltar ao
+-- banco pra saber o id, o que impede o batch JDBC: um carrinho de 20 itens com
+-- adicionais virava 40+ round-trips. Com ids pré-alocados os INSERTs saem em lote.
+-- O DEFAULT nextval() das colunas continua valendo pra inserts fora do Hibernate
+-- (apenas com saltos de 50 entre valores).
+
+ALTER SEQUENCE order_items_id_seq INCREMENT BY 50;
+ALTER SEQUENCE order_item_addons_id_seq INCREMENT BY 50;
@@ -0,0 +1,42 @@
+-- Execução em lote do billing mensal (BillingBatchService).
+--
+-- billing_runs: uma execução por (dia de geração, billing_due_day).
+-- billing_run_items: checkpoint por subscription. Cada item é reivindicado com UPDATE
+--   condicional (PENDING → PROCESSING) antes de ir ao gateway e fechado com o resultado.
+--   Se a instância cair no meio, itens PENDING continuam de onde pararam e itens
+--   PROCESSING antigos voltam pra PENDING na retomada.
+--
+-- payments.idempotency_key: chave determinística da fatura mensal
+--   ("billing:{subscription}:{billing_period_start}"), enviada também como
+--   Idempotency-Key ao Pagar.me — reprocessar uma subscription nunca gera 2 faturas.
+
+ALTER TABLE payments ADD COLUMN idempotency_key VARCHAR(80);
+CREATE UNIQUE INDEX uq_payments_idempotency_key
+    ON payments (idempotency_key) WHERE idempotency_key IS NOT NULL;
+
+CREATE TABLE billing_runs (
+    id          BIGSERIAL PRIMARY KEY,
+    run_date    DATE        NOT NULL,
+    due_day     INTEGER     NOT NULL,
+    status      VARCHAR(20) NOT NULL DEFAULT 'RUNNING',
+    total_items INTEGER     NOT NULL DEFAULT 0,
+    started_at  TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now(),
+    finished_at TIMESTAMP WITH TIME ZONE,
+    CONSTRAINT uq_billing_runs_date_due_day UNIQUE (run_date, due_day)
+);
+
+CREATE TABLE billing_run_items (
+    id              BIGSERIAL PRIMARY KEY,
+    run_id          BIGINT      NOT NULL REFERENCES billing_runs(id) ON DELETE CASCADE,
+    subscription_id BIGINT      NOT NULL REFERENCES client_subscriptions(id),
+    status          VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    attempts        INTEGER     NOT NULL DEFAULT 0,
+    claimed_at      TIMESTAMP WITH TIME ZONE,
+    finished_at     TIMESTAMP WITH TIME ZONE,
+    payment_id      BIGINT,
+    error           TEXT,
+    CONSTRAINT uq_billing_run_items_subscription UNIQUE (run_id, subscription_id)
+);
+
+CREATE INDEX idx_billing_run_items_open
+    ON billing_run_items (run_id, id) WHERE status IN ('PENDING', 'PROCESSING');
@@ -0,0 +1,10 @@
+-- PIX-out em lote (CourierTransferService.executeInBatches).
+--
+-- PROCESSING: transfer reivindicado por um lote (UPDATE único por chunk) ou já aceito
+--   pelo provedor sem confirmação final. O scheduler só pega PENDING, então um transfer
+--   enviado nunca é reenviado — antes, o "pending" do provedor deixava a linha PENDING
+--   e o próximo ciclo mandava o PIX de novo.
+
+ALTER TABLE pagarme_transfers DROP CONSTRAINT pagarme_transfer_status_chk;
+ALTER TABLE pagarme_transfers ADD CONSTRAINT pagarme_transfer_status_chk
+    CHECK (status IN ('PENDING', 'PROCESSING', 'SUCCEEDED', 'FAILED'));
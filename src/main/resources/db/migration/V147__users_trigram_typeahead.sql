@@ -0,0 +1,41 @@
+-- Migration V147: índices trigram (pg_trgm) para o typeahead de usuários
+--
+-- As buscas de motoboy/cliente/garçom usam LIKE '%termo%' sobre nome e email (username).
+-- Os índices btree do V44 não servem para LIKE com curinga no início, então cada tecla
+-- fazia seq scan em users. GIN com gin_trgm_ops atende LIKE '%termo%' e similarity().
+--
+-- Os índices são parciais em enabled/blocked (todas as buscas de typeahead filtram isso)
+-- e usam as mesmas expressões das queries em UserRepository (TYPEAHEAD_*).
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_users_name_trgm
+    ON users USING gin (immutable_unaccent(lower(name)) gin_trgm_ops)
+    WHERE enabled = true AND blocked = false;
+
+CREATE INDEX IF NOT EXISTS idx_users_username_trgm
+    ON users USING gin (immutable_unaccent(lower(username)) gin_trgm_ops)
+    WHERE enabled = true AND blocked = false;
+
+-- Telefone normalizado: DDD + número, só dígitos (busca por "8899" acha "(88) 99...").
+-- Telefone pode estar gravado com máscara; o UserService reduz o termo a dígitos, então
+-- a expressão tira tudo que não é dígito, igual ao TYPEAHEAD_MATCH do UserRepository.
+CREATE INDEX IF NOT EXISTS idx_users_phone_digits_trgm
+    ON users USING gin ((regexp_replace(COALESCE(phone_ddd, '') || COALESCE(phone_number, ''), '\D', '', 'g')) gin_trgm_ops)
+    WHERE enabled = true AND blocked = false;
+
+-- Filtro "ainda não está na organização/estabelecimento": o NOT EXISTS vira um probe de
+-- índice (organização ou client, usuário) só sobre vínculos ativos.
+CREATE INDEX IF NOT EXISTS idx_employment_contracts_org_courier_active
+    ON employment_contracts (organization_id, courier_id)
+    WHERE is_active = true;
+
+CREATE INDEX IF NOT EXISTS idx_client_contracts_org_client_active
+    ON client_contracts (organization_id, client_id)
+    WHERE status = 'ACTIVE';
+
+CREATE INDEX IF NOT EXISTS idx_client_waiters_client_waiter_active
+    ON client_waiters (client_id, waiter_id)
+    WHERE active = true;
+
+ANALYZE users;
@@ -0,0 +1,29 @@
+-- Coordenação dos @Scheduled entre instâncias (JobLeaseService / @LeasedJob).
+--
+-- scheduled_job_leases: um lease por job (ou por partição de job: "nome#3").
+--   Quem consegue o INSERT ... ON CONFLICT DO UPDATE condicional (lease vencido) roda o job.
+--   fencing_token só cresce: cada aquisição ganha um token novo, e a instância confere
+--   (owner_id, fencing_token) antes de cada efeito externo — uma instância que perdeu o
+--   lease (GC longo, rede) para de mandar PIX/cobranças em vez de duplicar.
+--   expires_at é renovado pelo heartbeat enquanto o job roda; ao terminar, o lease fica
+--   preso até acquired_at + intervalo mínimo, para outra réplica não repetir a mesma rodada.
+--
+-- scheduler_instances: réplicas vivas (heartbeat recente). Jobs particionados usam a
+--   posição da instância nessa lista para dividir as partições.
+
+CREATE TABLE scheduled_job_leases (
+    job_name      VARCHAR(120) PRIMARY KEY,
+    owner_id      VARCHAR(120) NOT NULL,
+    fencing_token BIGINT       NOT NULL,
+    acquired_at   TIMESTAMP WITH TIME ZONE NOT NULL,
+    heartbeat_at  TIMESTAMP WITH TIME ZONE NOT NULL,
+    expires_at    TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE TABLE scheduler_instances (
+    instance_id  VARCHAR(120) PRIMARY KEY,
+    started_at   TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now(),
+    heartbeat_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now()
+);
+
+CREATE INDEX idx_scheduler_instances_heartbeat ON scheduler_instances (heartbeat_at);
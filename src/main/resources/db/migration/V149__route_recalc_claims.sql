@@ -0,0 +1,17 @@
+-- Single-flight do recálculo de rota planejada (PlannedRouteService) entre instâncias.
+--
+-- route_recalc_claims: uma linha por (delivery, rota) — route_kind 'planned' (IN_TRANSIT)
+--   ou 'approach' (ACCEPTED). Antes de chamar o Google Directions a instância faz um
+--   INSERT ... ON CONFLICT DO UPDATE condicional (claim mais antigo que o cooldown);
+--   só quem consegue a linha recalcula. Falha no Directions apaga a linha (retry no
+--   próximo ping de GPS); conclusão/cancelamento da delivery também.
+--
+--   Tabela à parte (sem FK) em vez de coluna em deliveries: o claim roda em transação
+--   própria e não disputa o lock da linha da delivery com o resto do fluxo.
+
+CREATE TABLE route_recalc_claims (
+    delivery_id BIGINT      NOT NULL,
+    route_kind  VARCHAR(16) NOT NULL,
+    claimed_at  TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now(),
+    PRIMARY KEY (delivery_id, route_kind)
+);
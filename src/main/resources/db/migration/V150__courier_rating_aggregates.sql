@@ -0,0 +1,37 @@
+-- Agregado de avaliações recebidas por courier (CLIENT_TO_COURIER), 1 linha por courier.
+-- Mantido pelo EvaluationService na mesma transação de cada avaliação criada, para que
+-- rating médio e distribuição sejam lookup por PK em vez de AVG/GROUP BY sobre
+-- evaluations JOIN deliveries. O job courier-rating-rebuild recalcula tudo do zero
+-- (backfill e correção de qualquer divergência).
+--   rating_count = total de avaliações
+--   rating_sum   = soma das notas (média = rating_sum / rating_count)
+--   stars_N      = avaliações com nota N
+
+CREATE TABLE courier_rating_aggregates (
+    courier_id   UUID PRIMARY KEY REFERENCES users(id) ON DELETE CASCADE,
+    rating_count INTEGER NOT NULL DEFAULT 0,
+    rating_sum   BIGINT  NOT NULL DEFAULT 0,
+    stars_1      INTEGER NOT NULL DEFAULT 0,
+    stars_2      INTEGER NOT NULL DEFAULT 0,
+    stars_3      INTEGER NOT NULL DEFAULT 0,
+    stars_4      INTEGER NOT NULL DEFAULT 0,
+    stars_5      INTEGER NOT NULL DEFAULT 0,
+    updated_at   TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+-- Backfill a partir das avaliações existentes
+INSERT INTO courier_rating_aggregates
+    (courier_id, rating_count, rating_sum, stars_1, stars_2, stars_3, stars_4, stars_5)
+SELECT d.courier_id,
+       COUNT(*),
+       SUM(e.rating),
+       COUNT(*) FILTER (WHERE e.rating = 1),
+       COUNT(*) FILTER (WHERE e.rating = 2),
+       COUNT(*) FILTER (WHERE e.rating = 3),
+       COUNT(*) FILTER (WHERE e.rating = 4),
+       COUNT(*) FILTER (WHERE e.rating = 5)
+FROM evaluations e
+JOIN deliveries d ON d.id = e.delivery_id
+WHERE e.evaluation_type = 'CLIENT_TO_COURIER'
+  AND d.courier_id IS NOT NULL
+GROUP BY d.courier_id;
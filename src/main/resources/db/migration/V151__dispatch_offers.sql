@@ -0,0 +1,17 @@
+-- Ofertas em aberto do dispatch em lote (BatchDispatchService, delivery.dispatch.mode=batch).
+--
+-- dispatch_offers: uma linha por oferta direcionada — a delivery e o motoboy ficam
+--   reservados até expires_at. Antes ficavam num mapa em memória da instância; com o job
+--   batch-dispatch rodando sob lease, a réplica seguinte não via as ofertas da anterior e
+--   reofertava deliveries dentro do TTL para motoboys já reservados.
+--
+--   PK em delivery_id e UNIQUE em courier_id: no máximo uma oferta por delivery e por
+--   motoboy, garantido no banco (o INSERT usa ON CONFLICT DO NOTHING). Linhas expiradas
+--   são apagadas no início de cada ciclo.
+
+CREATE TABLE dispatch_offers (
+    delivery_id BIGINT PRIMARY KEY REFERENCES deliveries(id) ON DELETE CASCADE,
+    courier_id  UUID NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    expires_at  TIMESTAMP WITH TIME ZONE NOT NULL,
+    CONSTRAINT uk_dispatch_offers_courier UNIQUE (courier_id)
+);
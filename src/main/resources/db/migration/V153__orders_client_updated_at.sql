@@ -0,0 +1,6 @@
+-- Poll incremental do quadro ao vivo de pedidos (OrderBoardService.pollChanges): cada instância
+-- relê a cada ~2s, por estabelecimento com tela aberta, os pedidos com updated_at posterior à
+-- última leitura. Sem este índice o filtro cairia em idx_orders_client + filtro de todas as
+-- linhas do estabelecimento, inclusive o histórico finalizado.
+
+CREATE INDEX IF NOT EXISTS idx_orders_client_updated ON orders (client_id, updated_at);
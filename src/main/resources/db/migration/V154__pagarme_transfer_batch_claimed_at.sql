@@ -0,0 +1,14 @@
+-- Reconciliação do PIX-out em lote (CourierTransferService.reconcileStaleBatchClaims).
+--
+-- batch_claimed_at: quando claimForBatch passou o transfer para PROCESSING com o marcador
+--   "batch:<uuid>". Lote que passa de pix.out.batch-claim-timeout-ms sem o id do provedor é
+--   consultado no provedor e resolvido, liberado para PENDING ou marcado para o admin.
+--   Reivindicações já existentes começam a contar agora.
+
+ALTER TABLE pagarme_transfers ADD COLUMN batch_claimed_at TIMESTAMPTZ;
+
+UPDATE pagarme_transfers SET batch_claimed_at = NOW()
+WHERE status = 'PROCESSING' AND pagarme_transfer_id LIKE 'batch:%';
+
+CREATE INDEX idx_pagarme_transfers_batch_claimed ON pagarme_transfers (batch_claimed_at)
+    WHERE status = 'PROCESSING';
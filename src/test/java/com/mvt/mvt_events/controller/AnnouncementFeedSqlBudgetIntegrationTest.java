@@ -0,0 +1,122 @@
+package com.mvt.mvt_events.controller;
+
+import com.mvt.mvt_events.jpa.Announcement;
+import com.mvt.mvt_events.jpa.User;
+import com.mvt.mvt_events.repository.AnnouncementRepository;
+import com.mvt.mvt_events.repository.UserRepository;
+import com.mvt.mvt_events.sql.SqlBudget;
+import com.mvt.mvt_events.sql.SqlStats;
+import com.mvt.mvt_events.testsupport.IntegrationFixtures.Timed;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.mvt.mvt_events.testsupport.IntegrationFixtures.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Conta os SQLs por request do feed de anúncios (GET /api/announcements/active) e do
+ * markRead contra o Postgres real. Antes: findByUsername + anti-join em announcement_reads
+ * a cada abertura do app, e três queries por markRead. Agora: o primeiro request carrega o
+ * snapshot e os ids lidos; os seguintes não vão ao banco, e markRead é um INSERT só.
+ */
+@Tag("integration")
+@SpringBootTest
+@ActiveProfiles("integration-test")
+@DisplayName("Feed de anúncios — SQLs por request (Postgres real)")
+class AnnouncementFeedSqlBudgetIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(AnnouncementFeedSqlBudgetIntegrationTest.class);
+
+    private static final int WARM_REQUESTS = 200;
+
+    @Autowired private AnnouncementController controller;
+    @Autowired private AnnouncementRepository announcementRepository;
+    @Autowired private UserRepository userRepository;
+
+    private User courier;
+    private Authentication auth;
+    private final List<Long> created = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        courier = userRepository.save(newUser("Feed Courier", User.Role.COURIER));
+        auth = new UsernamePasswordAuthenticationToken(courier, null, courier.getAuthorities());
+
+        for (int i = 0; i < 3; i++) {
+            Announcement a = Announcement.builder()
+                    .title("Feed " + i)
+                    .bodyMarkdown("corpo " + i)
+                    .rolesCsv("COURIER,ORGANIZER")
+                    .publishedAt(OffsetDateTime.now().minusMinutes(10 - i))
+                    .build();
+            created.add(controller.create(a).getBody().getId());
+        }
+    }
+
+    @AfterEach
+    void cleanup() {
+        created.forEach(controller::delete);
+        userRepository.delete(courier);
+    }
+
+    private SqlStats.Snapshot feed(AtomicReference<ResponseEntity<List<Announcement>>> response, String ifNoneMatch) {
+        return SqlBudget.measure(() -> response.set(controller.activeForCurrentUser(auth, ifNoneMatch)));
+    }
+
+    @Test
+    @DisplayName("Feed aquecido: zero SQL por request; markRead: um INSERT")
+    void sqlsPorRequest() throws Exception {
+        AtomicReference<ResponseEntity<List<Announcement>>> response = new AtomicReference<>();
+
+        SqlStats.Snapshot cold = feed(response, null);
+        assertThat(response.get().getBody()).extracting(Announcement::getId).containsAll(created);
+        String etag = response.get().getHeaders().getETag();
+
+        Timed<Long> warm = time(() -> {
+            long statements = 0;
+            for (int i = 0; i < WARM_REQUESTS; i++) {
+                statements += feed(response, null).statements();
+            }
+            return statements;
+        });
+        long warmStatements = warm.result();
+
+        SqlStats.Snapshot notModified = feed(response, etag);
+        assertThat(response.get().getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+
+        SqlStats.Snapshot markRead = SqlBudget.measure(() -> controller.markRead(created.get(0), auth));
+        SqlStats.Snapshot markAgain = SqlBudget.measure(() -> controller.markRead(created.get(0), auth));
+        SqlStats.Snapshot afterRead = feed(response, etag);
+
+        log.info("feed frio: {} SQLs | aquecido: {} SQLs em {} requests ({} µs/request) | 304: {} | markRead: {} | repetido: {} | após leitura: {}",
+                cold.statements(), warmStatements, WARM_REQUESTS, String.format("%.1f", warm.millis() * 1e3 / WARM_REQUESTS),
+                notModified.statements(), markRead.statements(), markAgain.statements(), afterRead.statements());
+
+        assertThat(cold.statements()).isLessThanOrEqualTo(2);
+        assertThat(warmStatements).isZero();
+        assertThat(notModified.statements()).isZero();
+        assertThat(markRead.statements()).isEqualTo(1);
+        assertThat(markAgain.statements()).isZero();
+        assertThat(afterRead.statements()).isZero();
+        // A lista mudou: o ETag antigo não vale mais e o anúncio lido saiu
+        assertThat(response.get().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.get().getBody()).extracting(Announcement::getId).doesNotContain(created.get(0));
+    }
+}
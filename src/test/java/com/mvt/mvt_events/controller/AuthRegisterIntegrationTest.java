@@ -9,6 +9,8 @@ import com.mvt.mvt_events.repository.OrganizationRepository;
 import com.mvt.mvt_events.repository.RestaurantTableRepository;
 import com.mvt.mvt_events.repository.UserRepository;
 import com.mvt.mvt_events.service.EmailService;
+import com.mvt.mvt_events.sql.SqlBudget;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -56,6 +58,7 @@ class AuthRegisterIntegrationTest {
     @Autowired private OrganizationRepository organizationRepository;
     @Autowired private CustomerPaymentPreferenceRepository paymentPreferenceRepository;
     @Autowired private RestaurantTableRepository restaurantTableRepository;
+    @Autowired private MeterRegistry meterRegistry;
 
     /**
      * Mocka o EmailService para não tentar enviar email de confirmação durante os testes.
@@ -186,6 +189,9 @@ class AuthRegisterIntegrationTest {
 
             // Organization NÃO é criada pra CLIENT
             assertThat(organizationRepository.count()).isZero();
+
+            // Registro mais pesado (user + preferência + mesa) continua com poucos SQLs
+            SqlBudget.assertHandlerAtMost(meterRegistry, "AuthController.register", 15);
         }
 
         @Test
@@ -0,0 +1,100 @@
+package com.mvt.mvt_events.controller;
+
+import com.mvt.mvt_events.jpa.User;
+import com.mvt.mvt_events.service.CashRegisterService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Testes unitarios do CashRegisterController - conferencia (GET, somente leitura) e
+ * correcao dos totais (POST, apenas o proprio estabelecimento ou ADMIN).
+ */
+@ExtendWith(MockitoExtension.class)
+class CashRegisterControllerTest {
+
+    @Mock
+    private CashRegisterService service;
+
+    @InjectMocks
+    private CashRegisterController controller;
+
+    private final UUID clientId = UUID.fromString("00000000-0000-0000-0000-000000000001");
+    private final UUID otherClientId = UUID.fromString("00000000-0000-0000-0000-000000000009");
+
+    private Authentication auth(UUID id, User.Role role) {
+        User u = new User();
+        u.setId(id);
+        u.setName("Usuario " + role);
+        u.setRole(role);
+        return new UsernamePasswordAuthenticationToken(u, null);
+    }
+
+    @Nested
+    @DisplayName("GET /verify")
+    class VerifyTests {
+
+        @Test
+        @DisplayName("Nunca corrige, mesmo para ADMIN")
+        void somenteLeitura() {
+            controller.verify(clientId, null, auth(UUID.randomUUID(), User.Role.ADMIN));
+
+            verify(service).verify(clientId, null, false);
+            verify(service, never()).verify(any(), any(), eq(true));
+        }
+
+        @Test
+        @DisplayName("WAITER pode conferir o caixa do estabelecimento informado")
+        void waiterConfere() {
+            controller.verify(clientId, 10L, auth(UUID.randomUUID(), User.Role.WAITER));
+
+            verify(service).verify(clientId, 10L, false);
+        }
+    }
+
+    @Nested
+    @DisplayName("POST /verify/repair")
+    class RepairTests {
+
+        @Test
+        @DisplayName("CLIENT corrige a propria sessao, ignorando clientId de terceiros")
+        void clientCorrigeAPropria() {
+            ResponseEntity<?> response = controller.repair(otherClientId, null, auth(clientId, User.Role.CLIENT));
+
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+            verify(service).verify(clientId, null, true);
+        }
+
+        @Test
+        @DisplayName("ADMIN corrige o caixa do clientId informado")
+        void adminCorrige() {
+            ResponseEntity<?> response = controller.repair(clientId, 10L, auth(UUID.randomUUID(), User.Role.ADMIN));
+
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+            verify(service).verify(clientId, 10L, true);
+        }
+
+        @Test
+        @DisplayName("WAITER recebe 403 e nada e corrigido")
+        void waiterProibido() {
+            ResponseEntity<?> response = controller.repair(clientId, null, auth(UUID.randomUUID(), User.Role.WAITER));
+
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+            verifyNoInteractions(service);
+        }
+    }
+}
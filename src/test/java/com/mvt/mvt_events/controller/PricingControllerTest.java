@@ -0,0 +1,87 @@
+package com.mvt.mvt_events.controller;
+
+import com.mvt.mvt_events.common.GlobalExceptionHandler;
+import com.mvt.mvt_events.pricing.FeeQuoteEngine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.StringJoiner;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Testes unitarios do PricingController - cotacao publica de frete.
+ * Valida o limite de pontos por cotacao (400 acima do teto, sem chamar o motor).
+ */
+@ExtendWith(MockitoExtension.class)
+class PricingControllerTest {
+
+    @Mock
+    private FeeQuoteEngine feeQuoteEngine;
+
+    @InjectMocks
+    private PricingController pricingController;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setup() {
+        mockMvc = MockMvcBuilders.standaloneSetup(pricingController)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    private static String quoteBody(int points) {
+        StringJoiner stops = new StringJoiner(",", "[", "]");
+        for (int i = 0; i < points; i++) {
+            stops.add("{\"latitude\":" + (-3.69 - i * 0.001) + ",\"longitude\":-40.35}");
+        }
+        return "{\"stops\":" + stops + "}";
+    }
+
+    @Test
+    @DisplayName("Acima do limite de pontos: 400 com erro no campo stops, motor nao e chamado")
+    void acimaDoLimite() throws Exception {
+        mockMvc.perform(post("/api/pricing/quote")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(quoteBody(PricingController.MAX_STOPS + 1)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.fieldErrors.stops").exists());
+
+        verifyNoInteractions(feeQuoteEngine);
+    }
+
+    @Test
+    @DisplayName("No limite de pontos: cota normalmente")
+    void noLimite() throws Exception {
+        mockMvc.perform(post("/api/pricing/quote")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(quoteBody(PricingController.MAX_STOPS)))
+                .andExpect(status().isOk());
+
+        verify(feeQuoteEngine).quote(anyList(), any());
+    }
+
+    @Test
+    @DisplayName("Menos de dois pontos continua 400")
+    void semParada() throws Exception {
+        mockMvc.perform(post("/api/pricing/quote")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(quoteBody(1)))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(feeQuoteEngine);
+    }
+}
@@ -0,0 +1,158 @@
+package com.mvt.mvt_events.http;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Testes unitarios da plataforma de HTTP de saida: circuit breaker, bulkhead,
+ * metricas por provider/endpoint e normalizacao de path.
+ */
+class OutboundGuardTest {
+
+    private SimpleMeterRegistry registry;
+    private OutboundGuard guard;
+
+    @BeforeEach
+    void setUp() {
+        OutboundHttpProperties properties = new OutboundHttpProperties();
+        OutboundHttpProperties.Settings google = new OutboundHttpProperties.Settings();
+        google.setMaxConcurrentCalls(1);
+        google.setMaxWaitMs(10);
+        google.setFailureThreshold(2);
+        google.setOpenStateMs(60_000);
+        properties.getProviders().put("google", google);
+
+        registry = new SimpleMeterRegistry();
+        guard = new OutboundGuard(properties, registry);
+    }
+
+    @Nested
+    @DisplayName("CircuitBreaker")
+    class CircuitBreakerTests {
+
+        @Test
+        @DisplayName("Abre apos N falhas consecutivas e libera uma chamada de teste apos openStateMs")
+        void opensAndHalfOpens() {
+            AtomicLong now = new AtomicLong(0);
+            CircuitBreaker breaker = new CircuitBreaker(2, 1000, now::get);
+
+            assertThat(breaker.tryAcquire()).isTrue();
+            breaker.onFailure();
+            assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+            breaker.onFailure();
+            assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+            assertThat(breaker.tryAcquire()).isFalse();
+
+            now.set(1000);
+            assertThat(breaker.tryAcquire()).isTrue();
+            assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+            // So uma chamada de teste por vez
+            assertThat(breaker.tryAcquire()).isFalse();
+
+            breaker.onSuccess();
+            assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        }
+
+        @Test
+        @DisplayName("Falha na chamada de teste reabre o circuito")
+        void halfOpenFailureReopens() {
+            AtomicLong now = new AtomicLong(0);
+            CircuitBreaker breaker = new CircuitBreaker(1, 1000, now::get);
+            breaker.onFailure();
+            now.set(1500);
+            assertThat(breaker.tryAcquire()).isTrue();
+            breaker.onFailure();
+            assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+            assertThat(breaker.tryAcquire()).isFalse();
+        }
+
+        @Test
+        @DisplayName("Sucesso zera o contador de falhas consecutivas")
+        void successResetsFailures() {
+            CircuitBreaker breaker = new CircuitBreaker(2, 1000);
+            breaker.onFailure();
+            breaker.onSuccess();
+            breaker.onFailure();
+            assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        }
+    }
+
+    @Nested
+    @DisplayName("OutboundGuard")
+    class GuardTests {
+
+        @Test
+        @DisplayName("Circuito aberto rejeita sem executar a chamada")
+        void rejectsWhenCircuitOpen() {
+            for (int i = 0; i < 2; i++) {
+                assertThatThrownBy(() -> guard.execute(OutboundProvider.GOOGLE, "GET /x", () -> {
+                    throw new IOException("timeout");
+                })).isInstanceOf(IOException.class);
+            }
+
+            assertThat(guard.circuitState(OutboundProvider.GOOGLE)).isEqualTo(CircuitBreaker.State.OPEN);
+            assertThatThrownBy(() -> guard.execute(OutboundProvider.GOOGLE, "GET /x", () -> "nunca"))
+                    .isInstanceOf(OutboundCallRejectedException.class)
+                    .hasMessageContaining("circuito aberto");
+        }
+
+        @Test
+        @DisplayName("Bulkhead cheio rejeita chamadas excedentes do mesmo provider")
+        void rejectsWhenBulkheadFull() throws Exception {
+            CountDownLatch inside = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            try {
+                executor.submit(() -> guard.execute(OutboundProvider.GOOGLE, "GET /slow", () -> {
+                    inside.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                    return "ok";
+                }));
+                assertThat(inside.await(5, TimeUnit.SECONDS)).isTrue();
+
+                assertThatThrownBy(() -> guard.execute(OutboundProvider.GOOGLE, "GET /fast", () -> "ok"))
+                        .isInstanceOf(OutboundCallRejectedException.class)
+                        .hasMessageContaining("bulkhead");
+
+                // Outro provider nao e afetado
+                assertThat(guard.execute(OutboundProvider.EXPO, "POST /push", () -> "ok")).isEqualTo("ok");
+            } finally {
+                release.countDown();
+                executor.shutdown();
+            }
+        }
+
+        @Test
+        @DisplayName("Registra latencia por provider, endpoint e outcome")
+        void recordsLatency() throws Exception {
+            guard.execute(OutboundProvider.EXPO, "POST /push", () -> "ok");
+
+            assertThat(registry.get(OutboundGuard.METRIC_REQUESTS)
+                    .tag("provider", "expo")
+                    .tag("endpoint", "POST /push")
+                    .tag("outcome", "success")
+                    .timer().count()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    @DisplayName("normalizePath troca ids por {id} e mantem versoes curtas")
+    void normalizePath() {
+        assertThat(OutboundHttpInterceptor.normalizePath("/core/v5/orders/or_abc123/charges"))
+                .isEqualTo("/core/v5/orders/{id}/charges");
+        assertThat(OutboundHttpInterceptor.normalizePath("/recipients/42")).isEqualTo("/recipients/{id}");
+        assertThat(OutboundHttpInterceptor.normalizePath("")).isEqualTo("/");
+    }
+}
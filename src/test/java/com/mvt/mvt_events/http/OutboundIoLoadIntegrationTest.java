@@ -0,0 +1,161 @@
+package com.mvt.mvt_events.http;
+
+import com.mvt.mvt_events.config.BoundedThreadPerTaskExecutor;
+import com.mvt.mvt_events.payment.config.PagarMeConfig;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.mvt.mvt_events.testsupport.IntegrationFixtures.*;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Teste de carga do I/O assíncrono contra um stub HTTP local com latência injetada:
+ * o pool atual do notificationTaskExecutor (2–5 threads, fila 100, CallerRunsPolicy)
+ * versus uma thread por tarefa limitada por semáforo (virtual threads em Java 21+,
+ * threads de plataforma no runtime Java 17), ambos passando pelo bulkhead do OutboundGuard.
+ *
+ * Mede a vazão total e quanto tempo as "threads de request" ficam presas submetendo
+ * tarefas — com CallerRunsPolicy elas acabam fazendo a chamada HTTP elas mesmas.
+ *
+ * Não precisa de Postgres; fica com a tag integration só para não rodar no build padrão.
+ */
+@Tag("integration")
+class OutboundIoLoadIntegrationTest {
+
+    private static final int LATENCY_MS = 100;
+    private static final int REQUEST_THREADS = 16;
+    private static final int TASKS_PER_REQUEST = 25;
+    private static final int BULKHEAD = 100;
+
+    private HttpServer stub;
+    private RestTemplate restTemplate;
+    private String url;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        stub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        stub.setExecutor(Executors.newCachedThreadPool());
+        stub.createContext("/--/api/v2/push/send", exchange -> {
+            try {
+                Thread.sleep(LATENCY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = "{\"data\":{\"status\":\"ok\"}}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        stub.start();
+        url = "http://127.0.0.1:" + stub.getAddress().getPort() + "/--/api/v2/push/send";
+
+        OutboundHttpProperties properties = new OutboundHttpProperties();
+        OutboundHttpProperties.Settings expo = new OutboundHttpProperties.Settings();
+        expo.setMaxConcurrentCalls(BULKHEAD);
+        expo.setMaxWaitMs(30_000);
+        properties.getProviders().put("expo", expo);
+        OutboundGuard guard = new OutboundGuard(properties, new SimpleMeterRegistry());
+        restTemplate = new OutboundHttpClients(properties, guard, new PagarMeConfig())
+                .restTemplate(OutboundProvider.EXPO);
+    }
+
+    @AfterEach
+    void tearDown() {
+        stub.stop(0);
+    }
+
+    private record LoadResult(long wallMs, long maxRequestThreadStallMs, int failures) {
+        double throughput() {
+            return REQUEST_THREADS * TASKS_PER_REQUEST * 1000.0 / wallMs;
+        }
+    }
+
+    /** REQUEST_THREADS threads de "request" submetendo TASKS_PER_REQUEST pushes cada. */
+    private LoadResult run(Executor executor) throws Exception {
+        int total = REQUEST_THREADS * TASKS_PER_REQUEST;
+        CountDownLatch done = new CountDownLatch(total);
+        AtomicInteger failures = new AtomicInteger();
+        AtomicLong maxStallNanos = new AtomicLong();
+        ExecutorService requestThreads = Executors.newFixedThreadPool(REQUEST_THREADS);
+
+        long start = System.nanoTime();
+        Future<?>[] requests = new Future<?>[REQUEST_THREADS];
+        for (int r = 0; r < REQUEST_THREADS; r++) {
+            requests[r] = requestThreads.submit(() -> {
+                long submitStart = System.nanoTime();
+                for (int t = 0; t < TASKS_PER_REQUEST; t++) {
+                    executor.execute(() -> {
+                        try {
+                            restTemplate.postForEntity(url, "{\"to\":\"ExponentPushToken[x]\"}", String.class);
+                        } catch (Exception e) {
+                            failures.incrementAndGet();
+                        } finally {
+                            done.countDown();
+                        }
+                    });
+                }
+                maxStallNanos.accumulateAndGet(System.nanoTime() - submitStart, Math::max);
+            });
+        }
+        for (Future<?> request : requests) {
+            request.get();
+        }
+        assertThat(done.await(60, TimeUnit.SECONDS)).isTrue();
+        long wallMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        requestThreads.shutdown();
+        return new LoadResult(wallMs, TimeUnit.NANOSECONDS.toMillis(maxStallNanos.get()), failures.get());
+    }
+
+    @Test
+    @DisplayName("Thread por tarefa + bulkhead: mais vazão e threads de request livres")
+    void threadPerTaskVsPool() throws Exception {
+        // Mesma configuração do notificationTaskExecutor em AsyncConfig
+        ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+        pool.setCorePoolSize(2);
+        pool.setMaxPoolSize(5);
+        pool.setQueueCapacity(100);
+        pool.setThreadNamePrefix("notification-");
+        pool.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        pool.initialize();
+
+        BoundedThreadPerTaskExecutor perTask = BoundedThreadPerTaskExecutor.virtualThreadsSupported()
+                ? BoundedThreadPerTaskExecutor.virtual("notification-", 200)
+                : new BoundedThreadPerTaskExecutor(r -> new Thread(r, "notification-io"), 200);
+
+        warmUp(1, () -> run(perTask));
+
+        LoadResult poolResult = run(pool);
+        LoadResult perTaskResult = run(perTask);
+        pool.shutdown();
+        perTask.close();
+
+        assertThat(poolResult.failures()).isZero();
+        assertThat(perTaskResult.failures()).isZero();
+        assertThat(perTaskResult.throughput())
+                .as("req/s thread por tarefa vs pool 2-5 (%.0f)", poolResult.throughput())
+                .isGreaterThan(poolResult.throughput() * 2);
+        // CallerRuns: a thread de request fez ao menos uma chamada HTTP inteira
+        assertThat(poolResult.maxRequestThreadStallMs()).isGreaterThanOrEqualTo(LATENCY_MS);
+        assertThat(perTaskResult.maxRequestThreadStallMs()).isLessThan(LATENCY_MS);
+    }
+}
@@ -0,0 +1,96 @@
+package com.mvt.mvt_events.payment.pixout;
+
+import com.mvt.mvt_events.jpa.User;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Provedor PIX-out fake para testes: grava o tamanho de cada lote e responde
+ * SUCCEEDED, PENDING ou FAILED conforme os externalIds configurados. A consulta
+ * ({@link #lookup}) devolve o que foi registrado com {@link #known}, ou nada.
+ */
+public class RecordingPixOutProvider implements PixOutProvider {
+
+    private final List<Integer> batchSizes = new ArrayList<>();
+    private final List<String> sentExternalIds = new ArrayList<>();
+    private final Set<String> failing = new HashSet<>();
+    private final Set<String> pending = new HashSet<>();
+    private final Map<String, PixOutResult> known = new HashMap<>();
+    private boolean lookupSupported = true;
+    private RuntimeException batchError;
+
+    public RecordingPixOutProvider failFor(String... externalIds) {
+        failing.addAll(List.of(externalIds));
+        return this;
+    }
+
+    public RecordingPixOutProvider pendingFor(String... externalIds) {
+        pending.addAll(List.of(externalIds));
+        return this;
+    }
+
+    /** O provedor tem esse envio registrado (consulta devolve o resultado). */
+    public RecordingPixOutProvider known(String externalId, PixOutResult result) {
+        known.put(externalId, result);
+        return this;
+    }
+
+    /** Provedor sem API de consulta, como Stark/Inter hoje. */
+    public RecordingPixOutProvider withoutLookup() {
+        this.lookupSupported = false;
+        return this;
+    }
+
+    /** Faz a próxima chamada de lote estourar (erro de rede, timeout...). */
+    public RecordingPixOutProvider throwOnBatch(RuntimeException error) {
+        this.batchError = error;
+        return this;
+    }
+
+    @Override
+    public PixOutResult send(User to, long amountCents, String externalId) {
+        return sendBatch(List.of(new PixOutItem(to, amountCents, externalId))).get(0);
+    }
+
+    @Override
+    public List<PixOutResult> sendBatch(List<PixOutItem> items) {
+        batchSizes.add(items.size());
+        if (batchError != null) {
+            throw batchError;
+        }
+        List<PixOutResult> results = new ArrayList<>(items.size());
+        for (PixOutItem item : items) {
+            sentExternalIds.add(item.externalId());
+            if (failing.contains(item.externalId())) {
+                results.add(PixOutResult.failed("recusado: " + item.externalId()));
+            } else if (pending.contains(item.externalId())) {
+                results.add(PixOutResult.pending("fake-" + item.externalId()));
+            } else {
+                results.add(PixOutResult.succeeded("fake-" + item.externalId()));
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public Optional<PixOutResult> lookup(String externalId) {
+        if (!lookupSupported) {
+            return PixOutProvider.super.lookup(externalId);
+        }
+        return Optional.ofNullable(known.get(externalId));
+    }
+
+    public List<Integer> batchSizes() {
+        return batchSizes;
+    }
+
+    public List<String> sentExternalIds() {
+        return sentExternalIds;
+    }
+}
@@ -0,0 +1,268 @@
+package com.mvt.mvt_events.pricing;
+
+import com.mvt.mvt_events.jpa.Delivery;
+import com.mvt.mvt_events.jpa.SiteConfiguration;
+import com.mvt.mvt_events.jpa.SpecialZone;
+import com.mvt.mvt_events.service.SiteConfigurationService;
+import com.mvt.mvt_events.service.SpecialZoneService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Cobre o motor de cotação: regras de preço, zona especial via índice espacial
+ * (paridade com a busca linear) e troca do snapshot.
+ */
+@ExtendWith(MockitoExtension.class)
+class FeeQuoteEngineTest {
+
+    @Mock private SiteConfigurationService siteConfigurationService;
+    @Mock private SpecialZoneService specialZoneService;
+
+    @InjectMocks
+    private FeeQuoteEngine engine;
+
+    // ========== Helpers ==========
+
+    private SiteConfiguration config() {
+        SiteConfiguration c = new SiteConfiguration();
+        c.setPricePerKm(BigDecimal.valueOf(2.50));
+        c.setMinimumShippingFee(BigDecimal.valueOf(5.00));
+        c.setCarPricePerKm(BigDecimal.valueOf(3.50));
+        c.setCarMinimumShippingFee(BigDecimal.valueOf(8.00));
+        c.setAdditionalStopFee(BigDecimal.valueOf(2.00));
+        c.setDangerFeePercentage(BigDecimal.valueOf(20));
+        c.setHighIncomeFeePercentage(BigDecimal.valueOf(10));
+        return c;
+    }
+
+    private SpecialZone zone(long id, SpecialZone.ZoneType type, double lat, double lng, double radius) {
+        SpecialZone z = new SpecialZone();
+        z.setId(id);
+        z.setZoneType(type);
+        z.setLatitude(lat);
+        z.setLongitude(lng);
+        z.setRadiusMeters(radius);
+        z.setAddress("Zona " + id);
+        return z;
+    }
+
+    private FeeQuote quote(double km, List<GeoPoint> destinations, Delivery.PreferredVehicleType type, int extra) {
+        return engine.quote(BigDecimal.valueOf(km), destinations, type, extra);
+    }
+
+    // ================================================================
+    // REGRAS DE PREÇO
+    // ================================================================
+
+    @Nested
+    @DisplayName("Regras de preço")
+    class PricingRules {
+
+        @Test
+        @DisplayName("Moto: distância × preço/km")
+        void motoPorKm() {
+            when(siteConfigurationService.getActiveConfiguration()).thenReturn(config());
+
+            FeeQuote q = quote(10, List.of(), Delivery.PreferredVehicleType.MOTORCYCLE, 0);
+
+            assertThat(q.total()).isEqualByComparingTo("25.00");
+            assertThat(q.zoneType()).isNull();
+        }
+
+        @Test
+        @DisplayName("Carro usa preço/km e mínimo próprios")
+        void carroPrecoProprio() {
+            when(siteConfigurationService.getActiveConfiguration()).thenReturn(config());
+
+            assertThat(quote(10, List.of(), Delivery.PreferredVehicleType.CAR, 0).total()).isEqualByComparingTo("35.00");
+            assertThat(quote(1, List.of(), Delivery.PreferredVehicleType.CAR, 0).total()).isEqualByComparingTo("8.00");
+        }
+
+        @Test
+        @DisplayName("Carro sem preço configurado cai no preço da moto")
+        void carroFallback() {
+            SiteConfiguration c = config();
+            c.setCarPricePerKm(null);
+            c.setCarMinimumShippingFee(null);
+            when(siteConfigurationService.getActiveConfiguration()).thenReturn(c);
+
+            assertThat(quote(10, List.of(), Delivery.PreferredVehicleType.CAR, 0).total()).isEqualByComparingTo("25.00");
+        }
+
+        @Test
+        @DisplayName("Abaixo do mínimo aplica o frete mínimo")
+        void freteMinimo() {
+            when(siteConfigurationService.getActiveConfiguration()).thenReturn(config());
+
+            assertThat(quote(1, List.of(), Delivery.PreferredVehicleType.MOTORCYCLE, 0).total()).isEqualByComparingTo("5.00");
+        }
+
+        @Test
+        @DisplayName("Multi-stop: pior zona + taxa por parada extra")
+        void multiStop() {
+            when(siteConfigurationService.getActiveConfiguration()).thenReturn(config());
+            when(specialZoneService.findActiveZones()).thenReturn(List.of(
+                    zone(1, SpecialZone.ZoneType.HIGH_INCOME, -3.70, -40.36, 300),
+                    zone(2, SpecialZone.ZoneType.DANGER, -3.71, -40.37, 300)));
+
+            FeeQuote q = quote(10, List.of(new GeoPoint(-3.70, -40.36), new GeoPoint(-3.71, -40.37)),
+                    Delivery.PreferredVehicleType.MOTORCYCLE, 1);
+
+            // 25.00 + 20% (DANGER, pior zona) = 30.00 + 1 extra × 2.00 = 32.00
+            assertThat(q.zoneId()).isEqualTo(2L);
+            assertThat(q.zoneSurcharge()).isEqualByComparingTo("5.00");
+            assertThat(q.stopFee()).isEqualByComparingTo("2.00");
+            assertThat(q.total()).isEqualByComparingTo("32.00");
+        }
+
+        @Test
+        @DisplayName("quote(stops) usa a soma dos trechos em linha reta")
+        void quotePorPontos() {
+            when(siteConfigurationService.getActiveConfiguration()).thenReturn(config());
+
+            // ~11,1km entre os dois pontos (0,1° de latitude)
+            FeeQuote q = engine.quote(List.of(new GeoPoint(-3.60, -40.36), new GeoPoint(-3.70, -40.36)),
+                    Delivery.PreferredVehicleType.MOTORCYCLE);
+
+            assertThat(q.distanceKm()).isEqualByComparingTo("11.12");
+            assertThat(q.extraStops()).isZero();
+            assertThat(q.total()).isEqualByComparingTo("27.80");
+        }
+
+        @Test
+        @DisplayName("quote(stops) exige origem + pelo menos uma parada")
+        void quoteSemParadas() {
+            assertThatThrownBy(() -> engine.quote(List.of(new GeoPoint(-3.6, -40.3)), Delivery.PreferredVehicleType.ANY))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    // ================================================================
+    // ÍNDICE ESPACIAL
+    // ================================================================
+
+    @Nested
+    @DisplayName("ZoneIndex")
+    class ZoneIndexTests {
+
+        @Test
+        @DisplayName("Zonas sobrepostas: a mais próxima do ponto vence, independente do tipo")
+        void sobrepostasMaisProxima() {
+            ZoneIndex index = new ZoneIndex(List.of(
+                    zone(1, SpecialZone.ZoneType.DANGER, -3.7000, -40.3600, 500),
+                    zone(2, SpecialZone.ZoneType.HIGH_INCOME, -3.7020, -40.3600, 500)));
+
+            int hit = index.nearest(-3.7015, -40.3600);
+
+            assertThat(index.id(hit)).isEqualTo(2L);
+        }
+
+        @Test
+        @DisplayName("Fora do raio não retorna zona")
+        void foraDoRaio() {
+            ZoneIndex index = new ZoneIndex(List.of(zone(1, SpecialZone.ZoneType.DANGER, -3.70, -40.36, 300)));
+
+            assertThat(index.nearest(-3.71, -40.36)).isEqualTo(-1);
+        }
+
+        @Test
+        @DisplayName("Zona que cruza a borda da célula é encontrada dos dois lados")
+        void cruzaBordaDaCelula() {
+            // Centro exatamente na fronteira de células (múltiplo de 0,01°)
+            ZoneIndex index = new ZoneIndex(List.of(zone(1, SpecialZone.ZoneType.DANGER, -3.70, -40.36, 400)));
+
+            assertThat(index.nearest(-3.6990, -40.3610)).isZero();
+            assertThat(index.nearest(-3.7010, -40.3590)).isZero();
+        }
+
+        @Test
+        @DisplayName("Paridade com busca linear em 2.000 pontos aleatórios")
+        void paridadeComBuscaLinear() {
+            Random random = new Random(42);
+            List<SpecialZone> zones = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                zones.add(zone(i, i % 2 == 0 ? SpecialZone.ZoneType.DANGER : SpecialZone.ZoneType.HIGH_INCOME,
+                        -3.80 + random.nextDouble() * 0.3, -40.50 + random.nextDouble() * 0.3,
+                        100 + random.nextDouble() * 1900));
+            }
+            ZoneIndex index = new ZoneIndex(zones);
+
+            for (int p = 0; p < 2000; p++) {
+                double lat = -3.80 + random.nextDouble() * 0.3;
+                double lng = -40.50 + random.nextDouble() * 0.3;
+
+                long expected = -1;
+                double best = Double.MAX_VALUE;
+                for (SpecialZone z : zones) {
+                    double d = GeoPoint.distanceMeters(lat, lng, z.getLatitude(), z.getLongitude());
+                    if (d <= z.getRadiusMeters() && d < best) {
+                        best = d;
+                        expected = z.getId();
+                    }
+                }
+
+                int hit = index.nearest(lat, lng);
+                assertThat(hit < 0 ? -1 : index.id(hit)).as("ponto %d (%f, %f)", p, lat, lng).isEqualTo(expected);
+            }
+        }
+    }
+
+    // ================================================================
+    // SNAPSHOT
+    // ================================================================
+
+    @Nested
+    @DisplayName("Snapshot")
+    class SnapshotTests {
+
+        @Test
+        @DisplayName("Compila uma vez e reutiliza entre cotações")
+        void compilaUmaVez() {
+            when(siteConfigurationService.getActiveConfiguration()).thenReturn(config());
+
+            quote(10, List.of(), Delivery.PreferredVehicleType.MOTORCYCLE, 0);
+            quote(12, List.of(), Delivery.PreferredVehicleType.MOTORCYCLE, 0);
+
+            verify(siteConfigurationService, times(1)).getActiveConfiguration();
+            verify(specialZoneService, times(1)).findActiveZones();
+        }
+
+        @Test
+        @DisplayName("PricingRulesChangedEvent troca o snapshot")
+        void eventoTrocaSnapshot() {
+            SiteConfiguration updated = config();
+            updated.setPricePerKm(BigDecimal.valueOf(3.00));
+            when(siteConfigurationService.getActiveConfiguration()).thenReturn(config(), updated);
+
+            assertThat(quote(10, List.of(), Delivery.PreferredVehicleType.MOTORCYCLE, 0).total()).isEqualByComparingTo("25.00");
+            engine.onPricingRulesChanged(new PricingRulesChangedEvent("test"));
+            assertThat(quote(10, List.of(), Delivery.PreferredVehicleType.MOTORCYCLE, 0).total()).isEqualByComparingTo("30.00");
+        }
+
+        @Test
+        @DisplayName("Falha no refresh periódico mantém o snapshot anterior")
+        void falhaMantemAnterior() {
+            when(siteConfigurationService.getActiveConfiguration())
+                    .thenReturn(config())
+                    .thenThrow(new RuntimeException("db down"));
+
+            quote(10, List.of(), Delivery.PreferredVehicleType.MOTORCYCLE, 0);
+            engine.scheduledRefresh();
+
+            assertThat(quote(10, List.of(), Delivery.PreferredVehicleType.MOTORCYCLE, 0).total()).isEqualByComparingTo("25.00");
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.mvt.mvt_events.repository;
+
+import com.mvt.mvt_events.jpa.Payment;
+import com.mvt.mvt_events.jpa.PaymentPayload;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Cobre o arquivo de payloads do gateway: save grava só o que está pendente,
+ * compressão gzip com round-trip e leitura do payload vigente.
+ */
+@ExtendWith(MockitoExtension.class)
+class PaymentPayloadArchiveImplTest {
+
+    @Mock private EntityManager entityManager;
+    @Mock private PaymentPayloadRepository payloadRepository;
+
+    private PaymentPayloadArchiveImpl archive;
+
+    @BeforeEach
+    void setUp() {
+        archive = new PaymentPayloadArchiveImpl(payloadRepository);
+        ReflectionTestUtils.setField(archive, "entityManager", entityManager);
+    }
+
+    private Payment newPayment() {
+        Payment p = new Payment();
+        doAnswer(inv -> {
+            ((Payment) inv.getArgument(0)).setId(77L);
+            return null;
+        }).when(entityManager).persist(p);
+        return p;
+    }
+
+    @Nested
+    @DisplayName("save()")
+    class SaveTests {
+
+        @Test
+        @DisplayName("Pagamento novo com request/response grava duas linhas comprimidas")
+        void novoGravaDuasLinhas() {
+            Payment p = newPayment();
+            p.setRequest("{\"amount\":1000}");
+            p.setResponse("{\"status\":\"paid\"}");
+
+            Payment saved = archive.save(p);
+
+            ArgumentCaptor<PaymentPayload> captor = ArgumentCaptor.forClass(PaymentPayload.class);
+            verify(payloadRepository, times(2)).save(captor.capture());
+            assertThat(captor.getAllValues()).extracting(PaymentPayload::getKind)
+                    .containsExactly(PaymentPayload.Kind.REQUEST, PaymentPayload.Kind.RESPONSE);
+            assertThat(captor.getAllValues()).allSatisfy(row -> {
+                assertThat(row.getPaymentId()).isEqualTo(77L);
+                assertThat(row.getEncoding()).isEqualTo(PaymentPayload.GZIP);
+            });
+            assertThat(captor.getAllValues().get(1).json()).isEqualTo("{\"status\":\"paid\"}");
+            // Continua visível em memória pra quem chamou
+            assertThat(saved.getResponse()).isEqualTo("{\"status\":\"paid\"}");
+        }
+
+        @Test
+        @DisplayName("Save repetido não duplica payload já arquivado")
+        void saveRepetidoNaoDuplica() {
+            Payment p = newPayment();
+            p.setRequest("{\"amount\":1000}");
+            archive.save(p);
+
+            p.setResponse("{\"status\":\"failed\"}");
+            when(entityManager.merge(p)).thenReturn(p);
+            archive.save(p);
+
+            ArgumentCaptor<PaymentPayload> captor = ArgumentCaptor.forClass(PaymentPayload.class);
+            verify(payloadRepository, times(2)).save(captor.capture());
+            assertThat(captor.getAllValues()).extracting(PaymentPayload::getKind)
+                    .containsExactly(PaymentPayload.Kind.REQUEST, PaymentPayload.Kind.RESPONSE);
+        }
+
+        @Test
+        @DisplayName("Sem payload pendente não toca no arquivo")
+        void semPayload() {
+            archive.save(newPayment());
+
+            verify(payloadRepository, never()).save(any());
+        }
+
+        @Test
+        @DisplayName("Payload anexado na leitura não é regravado")
+        void anexadoNaoRegrava() {
+            Payment loaded = new Payment();
+            loaded.setId(5L);
+            loaded.attachPayloads("{}", "{}");
+            when(entityManager.merge(loaded)).thenReturn(loaded);
+
+            archive.save(loaded);
+
+            verify(payloadRepository, never()).save(any());
+        }
+    }
+
+    @Nested
+    @DisplayName("Codec / leitura")
+    class CodecTests {
+
+        @Test
+        @DisplayName("gzip comprime payload repetitivo e faz round-trip com acentos")
+        void roundTrip() {
+            String json = "{\"descricao\":\"Entrega São Luís\",\"items\":[" + "{\"amount\":1000},".repeat(200) + "{}]}";
+
+            PaymentPayload row = PaymentPayload.gzip(1L, PaymentPayload.Kind.REQUEST, json);
+
+            assertThat(row.getRawSize()).isEqualTo(json.getBytes(StandardCharsets.UTF_8).length);
+            assertThat(row.getBody().length).isLessThan(row.getRawSize() / 5);
+            assertThat(row.json()).isEqualTo(json);
+        }
+
+        @Test
+        @DisplayName("Linha migrada (identity) é lida sem descomprimir")
+        void identity() {
+            PaymentPayload row = PaymentPayload.builder()
+                    .encoding(PaymentPayload.IDENTITY)
+                    .body("{\"legacy\":true}".getBytes(StandardCharsets.UTF_8))
+                    .build();
+
+            assertThat(row.json()).isEqualTo("{\"legacy\":true}");
+        }
+
+        @Test
+        @DisplayName("findPayload devolve o JSON da linha mais recente")
+        void findPayload() {
+            when(payloadRepository.findFirstByPaymentIdAndKindOrderByIdDesc(9L, PaymentPayload.Kind.RESPONSE))
+                    .thenReturn(Optional.of(PaymentPayload.gzip(9L, PaymentPayload.Kind.RESPONSE, "{\"v\":2}")));
+
+            assertThat(archive.findPayload(9L, PaymentPayload.Kind.RESPONSE)).contains("{\"v\":2}");
+            assertThat(archive.findPayload(9L, PaymentPayload.Kind.REQUEST)).isEmpty();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.mvt.mvt_events.repository;
+
+import com.mvt.mvt_events.jpa.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Typeahead de usuários com 100k linhas: o EXPLAIN das queries reais do UserRepository
+ * (texto lido do @Query) precisa usar os índices trigram do V147 em vez de seq scan,
+ * e o ranking põe prefixo do nome antes de ocorrências no meio.
+ */
+@Tag("integration")
+@SpringBootTest
+@ActiveProfiles("integration-test")
+@DisplayName("UserRepository typeahead — índices trigram (Postgres real, 100k usuários)")
+class UserTypeaheadIntegrationTest {
+
+    private static final int USERS = 100_000;
+    private static final String SEED_PREFIX = "trgm-seed-";
+
+    @Autowired private UserRepository userRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void seed() {
+        // 100k motoboys/clientes com nomes repetitivos; "Zuleica" só a cada 2000 (50 linhas)
+        jdbcTemplate.update("""
+                INSERT INTO users (id, created_at, updated_at, enabled, blocked, password, role, username, name,
+                                   phone_ddd, phone_number)
+                SELECT gen_random_uuid(), now(), now(), true, false, 'x',
+                       CASE WHEN i % 2 = 0 THEN 'COURIER' ELSE 'CLIENT' END,
+                       ? || i || '@demo.com',
+                       CASE WHEN i % 2000 = 0 THEN 'Zuleica ' ELSE
+                           (ARRAY['Maria','João','Ana','José','Francisco','Antônia','Carlos','Paulo'])[1 + i % 8] || ' '
+                       END
+                       || (ARRAY['Silva','Sousa','Oliveira','Lima','Pereira','Costa','Rodrigues','Almeida'])[1 + (i / 8) % 8]
+                       || ' ' || i,
+                       '88', lpad((900000000 + i)::text, 9, '0')
+                FROM generate_series(1, ?) AS i
+                """, SEED_PREFIX, USERS);
+        jdbcTemplate.execute("ANALYZE users");
+    }
+
+    @AfterEach
+    void cleanup() {
+        jdbcTemplate.update("DELETE FROM users WHERE username LIKE ?", SEED_PREFIX + "%");
+    }
+
+    /** EXPLAIN da query do método, com os parâmetros trocados por literais. */
+    private String explain(String method, String search, Class<?>... parameterTypes) throws Exception {
+        String sql = UserRepository.class.getMethod(method, parameterTypes).getAnnotation(Query.class).value()
+                .replace(":search", "'" + search + "'")
+                .replace(":organizationId", "-1")
+                .replace(":clientId", "'" + UUID.randomUUID() + "'")
+                .replace(":limit", "10");
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class));
+    }
+
+    @Test
+    @DisplayName("Busca por nome usa o índice trigram, sem seq scan em users")
+    void nomeUsaIndice() throws Exception {
+        String plan = explain("searchCouriersWithLimit", "zulei", String.class, Integer.class);
+
+        assertThat(plan).contains("idx_users_name_trgm");
+        assertThat(plan).doesNotContain("Seq Scan on users");
+    }
+
+    @Test
+    @DisplayName("Filtro de organização vira probe no índice parcial de contratos ativos")
+    void organizacaoUsaIndice() throws Exception {
+        String plan = explain("searchClientsNotInOrganization", "zulei", String.class, Long.class, Integer.class);
+
+        assertThat(plan).contains("idx_users_name_trgm");
+        assertThat(plan).doesNotContain("Seq Scan on users");
+    }
+
+    @Test
+    @DisplayName("Busca por telefone (só dígitos) usa o índice trigram do telefone")
+    void telefoneUsaIndice() throws Exception {
+        String plan = explain("searchCouriersWithLimit", "900012", String.class, Integer.class);
+
+        assertThat(plan).contains("idx_users_phone_digits_trgm");
+        assertThat(plan).doesNotContain("Seq Scan on users");
+    }
+
+    @Test
+    @DisplayName("Telefone gravado com máscara é encontrado pelos dígitos")
+    void telefoneComMascara() {
+        jdbcTemplate.update("""
+                INSERT INTO users (id, created_at, updated_at, enabled, blocked, password, role, username, name,
+                                   phone_ddd, phone_number)
+                VALUES (gen_random_uuid(), now(), now(), true, false, 'x', 'COURIER', ? || 'mascara@demo.com',
+                        'Courier Mascarado', '(88)', '77712-3456')
+                """, SEED_PREFIX);
+
+        List<User> result = userRepository.searchCouriersWithLimit("887771234", 10);
+
+        assertThat(result).extracting(User::getName).containsExactly("Courier Mascarado");
+    }
+
+    @Test
+    @DisplayName("Ranking: nome que começa com o termo vem antes, acentos ignorados")
+    void ranking() {
+        List<User> result = userRepository.searchCouriersWithLimit("zuleica", 10);
+
+        assertThat(result).hasSize(10);
+        assertThat(result).allSatisfy(u -> assertThat(u.getName()).startsWith("Zuleica"));
+
+        List<User> accents = userRepository.searchClientsWithLimit("antonia lima 1", 5);
+        assertThat(accents).isNotEmpty();
+        assertThat(accents.get(0).getName()).startsWith("Antônia Lima 1");
+    }
+}
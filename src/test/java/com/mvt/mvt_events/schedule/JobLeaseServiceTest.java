@@ -0,0 +1,192 @@
+package com.mvt.mvt_events.schedule;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Testes do JobLeaseService sem banco: a tabela de leases é um mapa em memória
+ * (tryAcquire/release/isHeld sobrescritos). O comportamento real no Postgres, com duas
+ * instâncias, fica em JobLeaseTwoInstancesIntegrationTest.
+ */
+class JobLeaseServiceTest {
+
+    /** Leases de outras réplicas (nome → dono) e o que esta instância liberou. */
+    private final Map<String, String> table = new HashMap<>();
+    private final List<String> released = new ArrayList<>();
+    private final List<String> live = new ArrayList<>(List.of("node-a", "node-b"));
+    private long tokens;
+    private JobLeaseService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new JobLeaseService() {
+            @Override
+            JobLease tryAcquire(String job, int partition, int partitions, long minIntervalSeconds) {
+                String name = JobLease.leaseName(job, partition, partitions);
+                if (table.containsKey(name)) {
+                    return null;
+                }
+                table.put(name, "node-a");
+                return new JobLease(job, partition, partitions, ++tokens, minIntervalSeconds, this);
+            }
+
+            @Override
+            void release(JobLease lease) {
+                released.add(lease.getLeaseName());
+            }
+
+            @Override
+            boolean isHeld(JobLease lease) {
+                return "node-a".equals(table.get(lease.getLeaseName()));
+            }
+
+            @Override
+            List<String> liveInstances() {
+                return live;
+            }
+        };
+        ReflectionTestUtils.setField(service, "instanceId", "node-a");
+    }
+
+    @Nested
+    @DisplayName("Job exclusivo")
+    class Exclusivo {
+
+        @Test
+        @DisplayName("Roda com o lease vinculado à thread e libera no fim")
+        void rodaELibera() throws Throwable {
+            List<JobLease> seen = new ArrayList<>();
+
+            int executed = service.run("cash-report", 3600, 1, () -> seen.add(JobLease.current()));
+
+            assertThat(executed).isEqualTo(1);
+            assertThat(seen).singleElement().satisfies(lease -> {
+                assertThat(lease.getLeaseName()).isEqualTo("cash-report");
+                assertThat(lease.getMinIntervalSeconds()).isEqualTo(3600);
+                assertThat(lease.owns(UUID.randomUUID())).isTrue();
+            });
+            assertThat(released).containsExactly("cash-report");
+            assertThat(JobLease.current()).isNull();
+        }
+
+        @Test
+        @DisplayName("Lease com outra réplica: pula a rodada sem executar")
+        void pulaQuandoOcupado() throws Throwable {
+            table.put("cash-report", "node-b");
+            List<String> calls = new ArrayList<>();
+
+            int executed = service.run("cash-report", 3600, 1, () -> calls.add("run"));
+
+            assertThat(executed).isZero();
+            assertThat(calls).isEmpty();
+            assertThat(released).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Fencing: lease perdido no meio interrompe o job e ainda libera")
+        void leasePerdido() throws Throwable {
+            List<String> sent = new ArrayList<>();
+
+            service.run("pix-out-transfers", 120, 1, () -> {
+                JobLease.assertCurrentHeld();
+                sent.add("lote 1");
+                table.put("pix-out-transfers", "node-b"); // outra réplica assumiu
+                JobLease.assertCurrentHeld();
+                sent.add("lote 2");
+            });
+
+            assertThat(sent).containsExactly("lote 1");
+            assertThat(released).containsExactly("pix-out-transfers");
+        }
+
+        @Test
+        @DisplayName("Exceção do job propaga depois de liberar o lease")
+        void excecaoPropaga() {
+            assertThatThrownBy(() -> service.run("billing-resume", 300, 1, () -> {
+                throw new IllegalArgumentException("boom");
+            })).isInstanceOf(IllegalArgumentException.class);
+
+            assertThat(released).containsExactly("billing-resume");
+            assertThat(JobLease.current()).isNull();
+        }
+
+        @Test
+        @DisplayName("Fora de um job com lease, assertCurrentHeld não faz nada")
+        void semLeaseNaThread() {
+            assertThatCode(JobLease::assertCurrentHeld).doesNotThrowAnyException();
+        }
+
+        @Test
+        @DisplayName("Desabilitado: roda direto, sem lease")
+        void desabilitado() throws Throwable {
+            ReflectionTestUtils.setField(service, "enabled", false);
+            List<JobLease> seen = new ArrayList<>();
+
+            assertThat(service.run("cash-report", 3600, 8, () -> seen.add(JobLease.current()))).isEqualTo(1);
+            assertThat(seen).containsExactly((JobLease) null);
+            assertThat(table).isEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("Job particionado")
+    class Particionado {
+
+        @Test
+        @DisplayName("Segunda de duas instâncias começa pela sua metade das partições")
+        void ordemDaSegundaInstancia() {
+            assertThat(JobLeaseService.partitionOrder(8, 1, 2)).containsExactly(4, 5, 6, 7, 0, 1, 2, 3);
+            assertThat(JobLeaseService.partitionOrder(8, 0, 2)).containsExactly(0, 1, 2, 3, 4, 5, 6, 7);
+            assertThat(JobLeaseService.partitionOrder(8, 2, 3)).startsWith(5, 6, 7);
+        }
+
+        @Test
+        @DisplayName("Mais instâncias que partições: índice limitado, ordem sempre completa")
+        void maisInstanciasQueParticoes() {
+            assertThat(JobLeaseService.partitionOrder(4, 6, 8)).containsExactlyInAnyOrder(0, 1, 2, 3);
+            assertThat(JobLeaseService.partitionOrder(4, 6, 8).get(0)).isEqualTo(3);
+        }
+
+        @Test
+        @DisplayName("Roda uma vez por partição livre, pulando as que estão com a outra réplica")
+        void rodaParticoesLivres() throws Throwable {
+            ReflectionTestUtils.setField(service, "instanceId", "node-b");
+            table.put("pix-expiration#5", "node-a");
+            table.put("pix-expiration#6", "node-a");
+            List<Integer> partitions = new ArrayList<>();
+
+            int executed = service.run("pix-expiration", 20, 8, () -> partitions.add(JobLease.current().getPartition()));
+
+            assertThat(executed).isEqualTo(6);
+            assertThat(partitions).containsExactly(4, 7, 0, 1, 2, 3);
+        }
+
+        @Test
+        @DisplayName("owns: cada chave cai em exatamente uma partição")
+        void ownsParticiona() {
+            List<JobLease> leases = new ArrayList<>();
+            for (int p = 0; p < 4; p++) {
+                leases.add(new JobLease("pix-out-transfers", p, 4, 1, 0, service));
+            }
+            for (int i = 0; i < 1000; i++) {
+                UUID key = UUID.randomUUID();
+                assertThat(leases.stream().filter(l -> l.owns(key)).count()).isEqualTo(1);
+            }
+            assertThat(Set.of(leases.get(0).getLeaseName(), leases.get(3).getLeaseName()))
+                    .containsExactlyInAnyOrder("pix-out-transfers#0", "pix-out-transfers#3");
+            assertThat(leases.get(0).isFirstPartition()).isTrue();
+        }
+    }
+}
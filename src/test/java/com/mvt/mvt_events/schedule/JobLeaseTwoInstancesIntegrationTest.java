@@ -0,0 +1,184 @@
+package com.mvt.mvt_events.schedule;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static com.mvt.mvt_events.testsupport.IntegrationFixtures.*;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Duas instâncias da aplicação (dois ApplicationContexts, node-a e node-b) contra o mesmo
+ * Postgres: o mesmo job disparado nas duas roda uma vez, o intervalo mínimo vale para o
+ * cluster, as partições se dividem sem sobreposição e o fencing token barra a instância
+ * que perdeu o lease.
+ */
+@Tag("integration")
+@DisplayName("JobLeaseService — duas instâncias no mesmo Postgres")
+class JobLeaseTwoInstancesIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(JobLeaseTwoInstancesIntegrationTest.class);
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    private JobLeaseService a;
+    private JobLeaseService b;
+    private JdbcTemplate jdbcTemplate;
+    private final ExecutorService pool = Executors.newFixedThreadPool(2);
+
+    private static ConfigurableApplicationContext start(String instanceId) {
+        return startInstance(instanceId, Map.of(
+                "scheduling.leases.ttl-seconds", "5",
+                // Heartbeat manual nos testes: o de fencing simula uma instância travada
+                "scheduling.leases.heartbeat-ms", "600000"));
+    }
+
+    @BeforeAll
+    static void startNodes() {
+        nodeA = start("node-a");
+        nodeB = start("node-b");
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        nodeA.close();
+        nodeB.close();
+    }
+
+    @AfterEach
+    void cleanup() {
+        pool.shutdownNow();
+        jdbcTemplate.update("DELETE FROM scheduled_job_leases WHERE job_name LIKE 'it-%'");
+    }
+
+    @BeforeEach
+    void setUp() {
+        a = nodeA.getBean(JobLeaseService.class);
+        b = nodeB.getBean(JobLeaseService.class);
+        jdbcTemplate = nodeA.getBean(JdbcTemplate.class);
+    }
+
+    private static int runLeased(JobLeaseService node, String job, long minIntervalSeconds, int partitions,
+            JobLeaseService.LeasedTask task) throws Exception {
+        try {
+            return node.run(job, minIntervalSeconds, partitions, task);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Dispara o mesmo job nas duas instâncias ao mesmo tempo; devolve quantas partições cada uma rodou. */
+    private int[] runOnBoth(String job, long minIntervalSeconds, int partitions, List<String> runs,
+            long workMs) throws Exception {
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (JobLeaseService node : List.of(a, b)) {
+            results.add(pool.submit(() -> {
+                barrier.await();
+                return runLeased(node, job, minIntervalSeconds, partitions, () -> {
+                    runs.add(node.getInstanceId() + ":" + JobLease.current().getPartition());
+                    Thread.sleep(workMs);
+                });
+            }));
+        }
+        return new int[]{results.get(0).get(30, TimeUnit.SECONDS), results.get(1).get(30, TimeUnit.SECONDS)};
+    }
+
+    @Test
+    @DisplayName("Job exclusivo disparado nas duas instâncias roda uma vez só")
+    void exclusivo() throws Exception {
+        List<String> runs = new CopyOnWriteArrayList<>();
+
+        int[] executed = runOnBoth("it-cash-report", 0, 1, runs, 500);
+
+        assertThat(executed[0] + executed[1]).isEqualTo(1);
+        assertThat(runs).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Intervalo mínimo: a outra instância não repete a rodada logo depois")
+    void intervaloMinimo() throws Exception {
+        assertThat(a.runExclusive("it-reminder", 2, () -> { })).isTrue();
+        assertThat(b.runExclusive("it-reminder", 2, () -> { })).isFalse();
+
+        Thread.sleep(2_500);
+
+        assertThat(b.runExclusive("it-reminder", 2, () -> { })).isTrue();
+    }
+
+    @Test
+    @DisplayName("Job particionado: 8 partições divididas entre as duas, cada uma uma vez")
+    void particionado() throws Exception {
+        List<String> runs = new CopyOnWriteArrayList<>();
+
+        int[] executed = runOnBoth("it-pix-expiration", 20, 8, runs, 200);
+
+        Map<String, List<String>> byPartition = runs.stream()
+                .collect(Collectors.groupingBy(entry -> entry.substring(entry.indexOf(':') + 1)));
+        log.info("node-a: {} partições, node-b: {} partições — {}", executed[0], executed[1], runs);
+        assertThat(byPartition).hasSize(8);
+        assertThat(byPartition.values()).allSatisfy(entries -> assertThat(entries).hasSize(1));
+        assertThat(executed[0]).isPositive();
+        assertThat(executed[1]).isPositive();
+    }
+
+    @Test
+    @DisplayName("Fencing: instância travada além do TTL perde o lease e não segue com os efeitos")
+    void fencing() throws Exception {
+        List<String> effects = new CopyOnWriteArrayList<>();
+        AtomicReference<Long> tokenA = new AtomicReference<>();
+        AtomicReference<Long> tokenB = new AtomicReference<>();
+        CountDownLatch aPaused = new CountDownLatch(1);
+        CountDownLatch bTookOver = new CountDownLatch(1);
+
+        Future<Integer> runA = pool.submit(() -> runLeased(a, "it-pix-out", 0, 1, () -> {
+            tokenA.set(JobLease.current().getFencingToken());
+            JobLease.assertCurrentHeld();
+            effects.add("a:lote-1");
+            // "GC pause": sem heartbeat, o lease vence
+            jdbcTemplate.update("UPDATE scheduled_job_leases SET expires_at = now() - interval '1 second' WHERE job_name = ?",
+                    "it-pix-out");
+            aPaused.countDown();
+            bTookOver.await(10, TimeUnit.SECONDS);
+            JobLease.assertCurrentHeld();
+            effects.add("a:lote-2");
+        }));
+
+        aPaused.await(10, TimeUnit.SECONDS);
+        int executedB = runLeased(b, "it-pix-out", 0, 1, () -> {
+            tokenB.set(JobLease.current().getFencingToken());
+            JobLease.assertCurrentHeld();
+            effects.add("b:lote-2");
+            bTookOver.countDown();
+        });
+
+        assertThat(runA.get(30, TimeUnit.SECONDS)).isEqualTo(1);
+        assertThat(executedB).isEqualTo(1);
+        assertThat(tokenB.get()).isGreaterThan(tokenA.get());
+        assertThat(effects).containsExactly("a:lote-1", "b:lote-2");
+    }
+}
@@ -0,0 +1,188 @@
+package com.mvt.mvt_events.service;
+
+import com.mvt.mvt_events.jpa.Announcement;
+import com.mvt.mvt_events.repository.AnnouncementReadRepository;
+import com.mvt.mvt_events.repository.AnnouncementRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Feed de anúncios em memória: filtro por role/publicação/expiração/leitura, ETag,
+ * recarga do snapshot e marcação de leitura com um único INSERT.
+ */
+@ExtendWith(MockitoExtension.class)
+class AnnouncementFeedServiceTest {
+
+    @Mock
+    private AnnouncementRepository announcementRepository;
+
+    @Mock
+    private AnnouncementReadRepository readRepository;
+
+    @InjectMocks
+    private AnnouncementFeedService service;
+
+    private static final UUID USER = UUID.randomUUID();
+
+    private static Announcement announcement(long id, String roles, OffsetDateTime publishedAt,
+                                             OffsetDateTime expiresAt) {
+        Announcement a = Announcement.builder()
+                .title("Anúncio " + id)
+                .bodyMarkdown("**corpo**")
+                .rolesCsv(roles)
+                .publishedAt(publishedAt)
+                .expiresAt(expiresAt)
+                .build();
+        a.setId(id);
+        a.setUpdatedAt(OffsetDateTime.now().minusDays(1));
+        return a;
+    }
+
+    private static Announcement announcement(long id, String roles) {
+        return announcement(id, roles, OffsetDateTime.now().minusHours(1), null);
+    }
+
+    private static List<Long> ids(AnnouncementFeedService.Feed feed) {
+        return feed.announcements().stream().map(Announcement::getId).toList();
+    }
+
+    @Nested
+    @DisplayName("Feed")
+    class FeedTests {
+
+        @Test
+        @DisplayName("Filtra por role, agendamento, expiração e leitura prévia")
+        void filtra() {
+            OffsetDateTime now = OffsetDateTime.now();
+            when(announcementRepository.findActiveNotExpired(any())).thenReturn(List.of(
+                    announcement(1L, "COURIER,ORGANIZER"),
+                    announcement(2L, "CLIENT"),
+                    announcement(3L, "COURIER", now.plusHours(1), null),           // agendado
+                    announcement(4L, "COURIER", now.minusDays(2), now.minusSeconds(1)), // expirou
+                    announcement(5L, " COURIER ")));
+            when(readRepository.findAnnouncementIdsByUserId(USER)).thenReturn(List.of(5L));
+
+            assertThat(ids(service.feedFor(USER, "COURIER"))).containsExactly(1L);
+        }
+
+        @Test
+        @DisplayName("Aquecido, o feed não vai ao banco")
+        void semQueriesAquecido() {
+            when(announcementRepository.findActiveNotExpired(any())).thenReturn(List.of(announcement(1L, "COURIER")));
+            when(readRepository.findAnnouncementIdsByUserId(USER)).thenReturn(List.of());
+
+            for (int i = 0; i < 10; i++) {
+                service.feedFor(USER, "COURIER");
+            }
+
+            verify(announcementRepository, times(1)).findActiveNotExpired(any());
+            verify(readRepository, times(1)).findAnnouncementIdsByUserId(USER);
+        }
+
+        @Test
+        @DisplayName("Role sem anúncios não carrega o conjunto de leitura")
+        void roleSemAnuncios() {
+            when(announcementRepository.findActiveNotExpired(any())).thenReturn(List.of(announcement(1L, "COURIER")));
+
+            assertThat(service.feedFor(USER, "WAITER").announcements()).isEmpty();
+            verifyNoInteractions(readRepository);
+        }
+
+        @Test
+        @DisplayName("ETag muda quando a lista muda (leitura ou edição) e é estável sem mudança")
+        void etag() {
+            Announcement a1 = announcement(1L, "COURIER");
+            when(announcementRepository.findActiveNotExpired(any())).thenReturn(List.of(a1, announcement(2L, "COURIER")));
+            when(readRepository.findAnnouncementIdsByUserId(USER)).thenReturn(List.of());
+            when(readRepository.insertIfAbsent(2L, USER)).thenReturn(1);
+
+            String first = service.feedFor(USER, "COURIER").etag();
+            assertThat(service.feedFor(USER, "COURIER").etag()).isEqualTo(first);
+
+            service.markRead(2L, USER);
+            String afterRead = service.feedFor(USER, "COURIER").etag();
+            assertThat(afterRead).isNotEqualTo(first);
+
+            a1.setUpdatedAt(OffsetDateTime.now());
+            service.refresh();
+            assertThat(service.feedFor(USER, "COURIER").etag()).isNotEqualTo(afterRead);
+        }
+
+        @Test
+        @DisplayName("refresh troca o snapshot: anúncio criado pelo admin aparece")
+        void refreshTrocaSnapshot() {
+            when(announcementRepository.findActiveNotExpired(any()))
+                    .thenReturn(List.of(announcement(1L, "COURIER")))
+                    .thenReturn(List.of(announcement(2L, "COURIER"), announcement(1L, "COURIER")));
+            when(readRepository.findAnnouncementIdsByUserId(USER)).thenReturn(List.of());
+
+            assertThat(ids(service.feedFor(USER, "COURIER"))).containsExactly(1L);
+            service.refresh();
+            assertThat(ids(service.feedFor(USER, "COURIER"))).containsExactly(2L, 1L);
+        }
+    }
+
+    @Nested
+    @DisplayName("markRead")
+    class MarkReadTests {
+
+        @Test
+        @DisplayName("Primeira leitura: um INSERT e o anúncio sai do feed sem recarregar leituras")
+        void primeiraLeitura() {
+            when(announcementRepository.findActiveNotExpired(any())).thenReturn(List.of(announcement(1L, "COURIER")));
+            when(readRepository.findAnnouncementIdsByUserId(USER)).thenReturn(List.of());
+            when(readRepository.insertIfAbsent(1L, USER)).thenReturn(1);
+            service.feedFor(USER, "COURIER");
+
+            assertThat(service.markRead(1L, USER)).isEqualTo(AnnouncementFeedService.ReadResult.MARKED);
+
+            assertThat(service.feedFor(USER, "COURIER").announcements()).isEmpty();
+            verify(readRepository, times(1)).findAnnouncementIdsByUserId(USER);
+            verify(announcementRepository, never()).existsById(any());
+        }
+
+        @Test
+        @DisplayName("Já lido no conjunto em memória: nenhuma query")
+        void jaLidoEmMemoria() {
+            when(announcementRepository.findActiveNotExpired(any())).thenReturn(List.of(announcement(1L, "COURIER")));
+            when(readRepository.findAnnouncementIdsByUserId(USER)).thenReturn(List.of(1L));
+            service.feedFor(USER, "COURIER");
+
+            assertThat(service.markRead(1L, USER)).isEqualTo(AnnouncementFeedService.ReadResult.ALREADY_READ);
+            verify(readRepository, never()).insertIfAbsent(any(), any());
+        }
+
+        @Test
+        @DisplayName("INSERT sem efeito para anúncio do snapshot: já lido (outro dispositivo)")
+        void jaLidoNoBanco() {
+            when(announcementRepository.findActiveNotExpired(any())).thenReturn(List.of(announcement(1L, "COURIER")));
+            when(readRepository.insertIfAbsent(1L, USER)).thenReturn(0);
+
+            assertThat(service.markRead(1L, USER)).isEqualTo(AnnouncementFeedService.ReadResult.ALREADY_READ);
+            verify(announcementRepository, never()).existsById(any());
+        }
+
+        @Test
+        @DisplayName("Anúncio inexistente: 404")
+        void inexistente() {
+            when(announcementRepository.findActiveNotExpired(any())).thenReturn(List.of());
+            when(readRepository.insertIfAbsent(99L, USER)).thenReturn(0);
+            when(announcementRepository.existsById(99L)).thenReturn(false);
+
+            assertThat(service.markRead(99L, USER)).isEqualTo(AnnouncementFeedService.ReadResult.NOT_FOUND);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.mvt.mvt_events.service;
+
+import com.mvt.mvt_events.jpa.Delivery;
+import com.mvt.mvt_events.jpa.User;
+import com.mvt.mvt_events.jpa.VehicleType;
+import com.mvt.mvt_events.repository.DeliveryRepository;
+import com.mvt.mvt_events.repository.UserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Cobre o dispatch em lote: uma oferta por motoboy, atribuição de menor distância total,
+ * pares inviáveis e reserva da oferta entre ciclos (em dispatch_offers, visível a qualquer
+ * réplica que assuma o lease).
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class BatchDispatchServiceTest {
+
+    @Mock private DeliveryRepository deliveryRepository;
+    @Mock private UserRepository userRepository;
+    @Mock private PushNotificationService pushNotificationService;
+
+    @InjectMocks
+    private BatchDispatchService dispatchService;
+
+    // ========== Helpers ==========
+
+    private User client() {
+        User u = new User();
+        u.setId(UUID.fromString("00000000-0000-0000-0000-000000000010"));
+        u.setName("Restaurante X");
+        u.setRole(User.Role.CLIENT);
+        return u;
+    }
+
+    private Delivery delivery(long id, double lat, double lng) {
+        Delivery d = new Delivery();
+        d.setId(id);
+        d.setClient(client());
+        d.setStatus(Delivery.DeliveryStatus.PENDING);
+        d.setFromAddress("Rua " + id);
+        d.setFromLatitude(lat);
+        d.setFromLongitude(lng);
+        d.setTotalAmount(BigDecimal.valueOf(15));
+        d.setDeliveryType(Delivery.DeliveryType.DELIVERY);
+        d.setCreatedAt(OffsetDateTime.now());
+        return d;
+    }
+
+    private User courier(int n, double lat, double lng) {
+        User u = new User();
+        u.setId(UUID.fromString("00000000-0000-0000-0000-0000000001" + String.format("%02d", n)));
+        u.setName("Motoboy " + n);
+        u.setRole(User.Role.COURIER);
+        u.setGpsLatitude(lat);
+        u.setGpsLongitude(lng);
+        return u;
+    }
+
+    private void given(List<Delivery> deliveries, List<User> couriers) {
+        when(deliveryRepository.findPendingForDispatch(any())).thenReturn(new ArrayList<>(deliveries));
+        when(userRepository.findAvailableCouriersNearbyWithVehicleType(
+                anyDouble(), anyDouble(), anyDouble(), eq(VehicleType.MOTORCYCLE), anyList()))
+                .thenReturn(couriers);
+        when(deliveryRepository.countCompletedByCourierSince(anyCollection(), any())).thenReturn(List.of());
+        when(deliveryRepository.insertDispatchOffer(anyLong(), any(), anyLong())).thenReturn(1);
+    }
+
+    // ================================================================
+
+    @Nested
+    @DisplayName("dispatch()")
+    class DispatchTests {
+
+        @Test
+        @DisplayName("Cada motoboy recebe exatamente uma oferta, na combinação de menor distância total")
+        void umaOfertaPorMotoboy() {
+            // Guloso por delivery daria A→d1 (0,3 km) e B→d2 (2,5 km); o ótimo cruza: A→d2, B→d1
+            Delivery d1 = delivery(1L, -3.850, -40.920);
+            Delivery d2 = delivery(2L, -3.870, -40.920);
+            User a = courier(1, -3.8527, -40.920);
+            User b = courier(2, -3.845, -40.920);
+            given(List.of(d1, d2), List.of(a, b));
+
+            BatchDispatchService.DispatchResult r = dispatchService.dispatch();
+
+            assertThat(r.offers()).isEqualTo(2);
+            verify(pushNotificationService).sendHybridNotificationToUser(eq(a.getId()), anyString(), anyString(),
+                    argThat(data -> "2".equals(data.get("deliveryId")) && "delivery_offer".equals(data.get("type"))));
+            verify(pushNotificationService).sendHybridNotificationToUser(eq(b.getId()), anyString(), anyString(),
+                    argThat(data -> "1".equals(data.get("deliveryId"))));
+            verify(pushNotificationService, times(2)).sendHybridNotificationToUser(any(), anyString(), anyString(), anyMap());
+        }
+
+        @Test
+        @DisplayName("Delivery fora do raio de todos os motoboys fica sem oferta")
+        void foraDoRaio() {
+            Delivery perto = delivery(1L, -3.850, -40.920);
+            Delivery longe = delivery(2L, -3.950, -40.920); // ~11 km
+            given(List.of(perto, longe), List.of(courier(1, -3.851, -40.920), courier(2, -3.852, -40.920)));
+
+            BatchDispatchService.DispatchResult r = dispatchService.dispatch();
+
+            assertThat(r.offers()).isEqualTo(1);
+            verify(pushNotificationService, never()).sendHybridNotificationToUser(any(), anyString(), anyString(),
+                    argThat(data -> "2".equals(data.get("deliveryId"))));
+        }
+
+        @Test
+        @DisplayName("Oferta em aberto reserva delivery e motoboy no ciclo seguinte")
+        void reservaEntreCiclos() {
+            Delivery d1 = delivery(1L, -3.850, -40.920);
+            User a = courier(1, -3.851, -40.920);
+            given(List.of(d1), List.of(a));
+            List<Object[]> stored = new ArrayList<>();
+            when(deliveryRepository.insertDispatchOffer(anyLong(), any(), anyLong())).thenAnswer(inv -> {
+                stored.add(new Object[]{inv.getArgument(0), inv.getArgument(1)});
+                return 1;
+            });
+            when(deliveryRepository.findActiveDispatchOffers()).thenAnswer(inv -> new ArrayList<>(stored));
+
+            dispatchService.dispatch();
+            BatchDispatchService.DispatchResult second = dispatchService.dispatch();
+
+            assertThat(second.deliveries()).isZero();
+            verify(deliveryRepository, times(2)).deleteExpiredDispatchOffers();
+            verify(pushNotificationService, times(1)).sendHybridNotificationToUser(any(), anyString(), anyString(), anyMap());
+        }
+
+        @Test
+        @DisplayName("Oferta gravada por outra réplica reserva o motoboy neste ciclo")
+        void ofertaDeOutraReplica() {
+            Delivery d1 = delivery(1L, -3.850, -40.920);
+            Delivery d2 = delivery(2L, -3.851, -40.920);
+            User a = courier(1, -3.851, -40.920);
+            User b = courier(2, -3.852, -40.920);
+            given(List.of(d1, d2), List.of(a, b));
+            when(deliveryRepository.findActiveDispatchOffers())
+                    .thenReturn(List.<Object[]>of(new Object[]{1L, a.getId()}));
+
+            BatchDispatchService.DispatchResult r = dispatchService.dispatch();
+
+            assertThat(r.deliveries()).isEqualTo(1);
+            assertThat(r.offers()).isEqualTo(1);
+            verify(pushNotificationService).sendHybridNotificationToUser(eq(b.getId()), anyString(), anyString(),
+                    argThat(data -> "2".equals(data.get("deliveryId"))));
+            verify(pushNotificationService, never()).sendHybridNotificationToUser(eq(a.getId()), anyString(), anyString(), anyMap());
+        }
+
+        @Test
+        @DisplayName("INSERT da oferta sem efeito (corrida entre réplicas): não envia push")
+        void ofertaJaGravada() {
+            Delivery d1 = delivery(1L, -3.850, -40.920);
+            given(List.of(d1), List.of(courier(1, -3.851, -40.920)));
+            when(deliveryRepository.insertDispatchOffer(anyLong(), any(), anyLong())).thenReturn(0);
+
+            BatchDispatchService.DispatchResult r = dispatchService.dispatch();
+
+            assertThat(r.offers()).isZero();
+            verifyNoInteractions(pushNotificationService);
+        }
+
+        @Test
+        @DisplayName("Sem motoboys livres não consulta carga nem envia push")
+        void semMotoboys() {
+            given(List.of(delivery(1L, -3.850, -40.920)), List.of());
+
+            BatchDispatchService.DispatchResult r = dispatchService.dispatch();
+
+            assertThat(r.offers()).isZero();
+            verify(deliveryRepository, never()).countCompletedByCourierSince(anyCollection(), any());
+            verifyNoInteractions(pushNotificationService);
+        }
+
+        @Test
+        @DisplayName("Com distâncias iguais, a oferta vai para o motoboy com menos entregas hoje")
+        void cargaDesempata() {
+            Delivery d1 = delivery(1L, -3.850, -40.920);
+            User ocupado = courier(1, -3.851, -40.920);
+            User livre = courier(2, -3.849, -40.920);
+            given(List.of(d1), List.of(ocupado, livre));
+            when(deliveryRepository.countCompletedByCourierSince(anyCollection(), any()))
+                    .thenReturn(List.<Object[]>of(new Object[]{ocupado.getId(), 6L}));
+
+            dispatchService.dispatch();
+
+            verify(pushNotificationService).sendHybridNotificationToUser(eq(livre.getId()), anyString(), anyString(), anyMap());
+            verify(pushNotificationService, never()).sendHybridNotificationToUser(eq(ocupado.getId()), anyString(), anyString(), anyMap());
+        }
+    }
+}
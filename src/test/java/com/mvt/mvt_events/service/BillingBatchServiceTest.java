@@ -0,0 +1,234 @@
+package com.mvt.mvt_events.service;
+
+import com.mvt.mvt_events.jpa.BillingRun;
+import com.mvt.mvt_events.jpa.BillingRunItem;
+import com.mvt.mvt_events.jpa.Payment;
+import com.mvt.mvt_events.repository.BillingRunItemRepository;
+import com.mvt.mvt_events.repository.BillingRunRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Cobre o billing em lote: checkpoint por item, claim atômico, paralelismo limitado,
+ * retomada de execução incompleta e métricas.
+ */
+@ExtendWith(MockitoExtension.class)
+class BillingBatchServiceTest {
+
+    private static final LocalDate RUN_DATE = LocalDate.of(2026, 3, 5);
+
+    @Mock private BillingRunRepository runRepository;
+    @Mock private BillingRunItemRepository itemRepository;
+    @Mock private BillingService billingService;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private ExecutorService pool;
+    private BillingBatchService batch;
+
+    @BeforeEach
+    void setup() {
+        pool = Executors.newFixedThreadPool(4);
+        batch = new BillingBatchService(runRepository, itemRepository, billingService, pool, registry, 4, 900_000);
+    }
+
+    // ========== Helpers ==========
+
+    private BillingRun run(BillingRun.Status status) {
+        return BillingRun.builder().id(1L).runDate(RUN_DATE).dueDay(10).status(status).totalItems(0).build();
+    }
+
+    private List<BillingRunItem> items(int n) {
+        List<BillingRunItem> items = new ArrayList<>();
+        for (long i = 1; i <= n; i++) {
+            items.add(BillingRunItem.builder().id(i).runId(1L).subscriptionId(100 + i).build());
+        }
+        return items;
+    }
+
+    private Payment payment(long id) {
+        Payment p = new Payment();
+        p.setId(id);
+        return p;
+    }
+
+    private void openRunWith(List<BillingRunItem> pending, List<Object[]> counts) {
+        when(runRepository.findByRunDateAndDueDay(RUN_DATE, 10)).thenReturn(Optional.of(run(BillingRun.Status.RUNNING)));
+        when(itemRepository.findByRunIdAndStatusOrderByIdAsc(1L, BillingRunItem.Status.PENDING)).thenReturn(pending);
+        when(itemRepository.countByStatus(1L)).thenReturn(counts);
+    }
+
+    // ================================================================
+
+    @Nested
+    @DisplayName("Execução")
+    class RunTests {
+
+        @Test
+        @DisplayName("Cada item é reivindicado, faturado com a data da execução e fechado com o resultado")
+        void processaItens() {
+            openRunWith(items(3), List.<Object[]>of(
+                    new Object[]{BillingRunItem.Status.GENERATED, 2L}, new Object[]{BillingRunItem.Status.SKIPPED, 1L}));
+            when(itemRepository.claim(anyLong(), any())).thenReturn(1);
+            when(billingService.generateMonthlyInvoice(101L, RUN_DATE)).thenReturn(payment(9001));
+            when(billingService.generateMonthlyInvoice(102L, RUN_DATE)).thenReturn(null);
+            when(billingService.generateMonthlyInvoice(103L, RUN_DATE)).thenReturn(payment(9003));
+
+            BillingBatchService.RunSummary summary = batch.run(RUN_DATE, 10);
+
+            verify(itemRepository).finish(eq(1L), eq(BillingRunItem.Status.GENERATED), eq(9001L), isNull(), any());
+            verify(itemRepository).finish(eq(2L), eq(BillingRunItem.Status.SKIPPED), isNull(), isNull(), any());
+            verify(itemRepository).finish(eq(3L), eq(BillingRunItem.Status.GENERATED), eq(9003L), isNull(), any());
+            assertThat(summary.completed()).isTrue();
+            assertThat(summary.count(BillingRunItem.Status.GENERATED)).isEqualTo(2);
+            verify(runRepository).save(argThat(r -> r.getStatus() == BillingRun.Status.COMPLETED));
+            assertThat(registry.get("billing.batch.invoice").tag("outcome", "generated").timer().count()).isEqualTo(2);
+            assertThat(registry.get("billing.batch.duration").timer().count()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Erro no gateway marca o item como FAILED sem derrubar o lote")
+        void falhaIsolada() {
+            openRunWith(items(2), List.of());
+            when(itemRepository.claim(anyLong(), any())).thenReturn(1);
+            when(billingService.generateMonthlyInvoice(101L, RUN_DATE)).thenThrow(new IllegalStateException("gateway 502"));
+            when(billingService.generateMonthlyInvoice(102L, RUN_DATE)).thenReturn(payment(1));
+
+            batch.run(RUN_DATE, 10);
+
+            verify(itemRepository).finish(eq(1L), eq(BillingRunItem.Status.FAILED), isNull(), eq("gateway 502"), any());
+            verify(itemRepository).finish(eq(2L), eq(BillingRunItem.Status.GENERATED), eq(1L), isNull(), any());
+        }
+
+        @Test
+        @DisplayName("Item já reivindicado por outra instância não é faturado")
+        void claimPerdido() {
+            openRunWith(items(1), List.of());
+            when(itemRepository.claim(eq(1L), any())).thenReturn(0);
+
+            batch.run(RUN_DATE, 10);
+
+            verifyNoInteractions(billingService);
+            verify(itemRepository, never()).finish(anyLong(), any(), any(), any(), any());
+        }
+
+        @Test
+        @DisplayName("Nova execução cria checkpoints num INSERT só")
+        void novaExecucao() {
+            when(runRepository.findByRunDateAndDueDay(RUN_DATE, 10)).thenReturn(Optional.empty());
+            when(runRepository.save(any())).thenAnswer(inv -> {
+                BillingRun r = inv.getArgument(0);
+                r.setId(1L);
+                return r;
+            });
+            when(itemRepository.seedItems(1L, 10)).thenReturn(5);
+
+            batch.run(RUN_DATE, 10);
+
+            verify(itemRepository).seedItems(1L, 10);
+            verify(runRepository, atLeastOnce()).save(argThat(r -> r.getTotalItems() == 5));
+        }
+
+        @Test
+        @DisplayName("Execução já concluída não é refeita")
+        void concluidaNaoRefaz() {
+            when(runRepository.findByRunDateAndDueDay(RUN_DATE, 10)).thenReturn(Optional.of(run(BillingRun.Status.COMPLETED)));
+
+            BillingBatchService.RunSummary summary = batch.run(RUN_DATE, 10);
+
+            assertThat(summary.completed()).isTrue();
+            verify(itemRepository, never()).seedItems(anyLong(), anyInt());
+            verifyNoInteractions(billingService);
+        }
+
+        @Test
+        @DisplayName("Processa em paralelo até o limite de partições")
+        void paralelo() throws Exception {
+            openRunWith(items(8), List.of());
+            when(itemRepository.claim(anyLong(), any())).thenReturn(1);
+            CountDownLatch allStarted = new CountDownLatch(4);
+            Set<String> threads = ConcurrentHashMap.newKeySet();
+            when(billingService.generateMonthlyInvoice(anyLong(), eq(RUN_DATE))).thenAnswer(inv -> {
+                threads.add(Thread.currentThread().getName());
+                allStarted.countDown();
+                // Só passa quando as 4 partições estão rodando ao mesmo tempo
+                assertThat(allStarted.await(5, TimeUnit.SECONDS)).isTrue();
+                return payment(1);
+            });
+
+            batch.run(RUN_DATE, 10);
+
+            assertThat(threads).hasSize(4);
+            verify(billingService, times(8)).generateMonthlyInvoice(anyLong(), eq(RUN_DATE));
+        }
+
+        @Test
+        @DisplayName("Pool cheio: partição rejeitada fica PENDING e a execução não é concluída")
+        void poolCheio() {
+            Executor full = task -> {
+                throw new RejectedExecutionException("fila cheia");
+            };
+            batch = new BillingBatchService(runRepository, itemRepository, billingService, full, registry, 4, 900_000);
+            openRunWith(items(2), List.<Object[]>of(new Object[]{BillingRunItem.Status.PENDING, 2L}));
+
+            BillingBatchService.RunSummary summary = batch.run(RUN_DATE, 10);
+
+            assertThat(summary.completed()).isFalse();
+            verifyNoInteractions(billingService);
+            verify(runRepository, never()).save(argThat(r -> r.getStatus() == BillingRun.Status.COMPLETED));
+        }
+    }
+
+    @Nested
+    @DisplayName("Retomada")
+    class ResumeTests {
+
+        @Test
+        @DisplayName("Execução RUNNING é retomada: claims antigos voltam pra fila e pendentes são processados")
+        void retoma() {
+            BillingRun interrupted = run(BillingRun.Status.RUNNING);
+            when(runRepository.findByStatusOrderByIdAsc(BillingRun.Status.RUNNING)).thenReturn(List.of(interrupted));
+            when(itemRepository.findByRunIdAndStatusOrderByIdAsc(1L, BillingRunItem.Status.PENDING)).thenReturn(items(1));
+            when(itemRepository.countByStatus(1L)).thenReturn(List.<Object[]>of(new Object[]{BillingRunItem.Status.GENERATED, 1L}));
+            when(itemRepository.claim(anyLong(), any())).thenReturn(1);
+            when(billingService.generateMonthlyInvoice(101L, RUN_DATE)).thenReturn(payment(1));
+
+            batch.resumeUnfinished();
+
+            verify(itemRepository).releaseStale(eq(1L), any());
+            verify(billingService).generateMonthlyInvoice(101L, RUN_DATE);
+            assertThat(interrupted.getStatus()).isEqualTo(BillingRun.Status.COMPLETED);
+        }
+    }
+
+    @Test
+    @DisplayName("partition intercala os itens em até N partições")
+    void partition() {
+        assertThat(BillingBatchService.partition(List.of(1, 2, 3, 4, 5), 2))
+                .containsExactly(List.of(1, 3, 5), List.of(2, 4));
+        assertThat(BillingBatchService.partition(List.of(1), 4)).containsExactly(List.of(1));
+        assertThat(BillingBatchService.partition(List.of(), 4)).isEmpty();
+    }
+}
@@ -0,0 +1,114 @@
+package com.mvt.mvt_events.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mvt.mvt_events.jpa.*;
+import com.mvt.mvt_events.payment.dto.OrderResponse;
+import com.mvt.mvt_events.payment.service.PagarMeService;
+import com.mvt.mvt_events.repository.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Cobre a fatura mensal gerada pelo lote: período pela data de geração e chave de idempotência.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class BillingServiceTest {
+
+    @Mock private PaymentRepository paymentRepository;
+    @Mock private ClientSubscriptionRepository subscriptionRepository;
+    @Mock private PlatformServiceRepository platformServiceRepository;
+    @Mock private SiteConfigurationRepository siteConfigurationRepository;
+    @Mock private PagarMeService pagarMeService;
+    @Spy private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private BillingService billingService;
+
+    private ClientSubscription subscription;
+
+    @BeforeEach
+    void setup() {
+        User client = new User();
+        client.setId(UUID.randomUUID());
+        client.setName("Restaurante X");
+        client.setUsername("x@demo.com");
+
+        PlatformService service = PlatformService.builder()
+                .id(1L).code("TABLE_SERVICE").name("Mesas").defaultMonthlyPrice(new BigDecimal("99.90")).build();
+
+        subscription = ClientSubscription.builder()
+                .id(7L).client(client).service(service).monthlyPrice(new BigDecimal("99.90"))
+                .billingDueDay(1).active(true).build();
+
+        SiteConfiguration config = new SiteConfiguration();
+        config.setPagarmeRecipientId("re_platform");
+
+        when(subscriptionRepository.findById(7L)).thenReturn(Optional.of(subscription));
+        when(siteConfigurationRepository.findActiveConfiguration()).thenReturn(Optional.of(config));
+        when(paymentRepository.save(any(Payment.class))).thenAnswer(inv -> inv.getArgument(0));
+    }
+
+    @Test
+    @DisplayName("Geração no dia 25 fatura o vencimento do dia 1 do mês seguinte, com chave determinística")
+    void periodoEChave() {
+        OrderResponse response = new OrderResponse();
+        response.setId("or_123");
+        when(pagarMeService.createOrderWithFullResponse(any(), anyString())).thenReturn(response);
+
+        Payment payment = billingService.generateMonthlyInvoice(7L, LocalDate.of(2026, 3, 25));
+
+        assertThat(payment.getDueDate()).isEqualTo(LocalDate.of(2026, 4, 1));
+        assertThat(payment.getBillingPeriodStart()).isEqualTo(LocalDate.of(2026, 3, 1));
+        assertThat(payment.getReferenceMonth()).isEqualTo("2026-04");
+        assertThat(payment.getIdempotencyKey()).isEqualTo("billing:7:2026-03-01");
+        verify(pagarMeService).createOrderWithFullResponse(any(), eq("billing:7:2026-03-01"));
+    }
+
+    @Test
+    @DisplayName("Chave já usada: não chama o gateway de novo")
+    void chaveExistente() {
+        when(paymentRepository.existsByIdempotencyKey("billing:7:2026-03-01")).thenReturn(true);
+
+        assertThat(billingService.generateMonthlyInvoice(7L, LocalDate.of(2026, 3, 25))).isNull();
+
+        verifyNoInteractions(pagarMeService);
+        verify(paymentRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Falha no gateway lança pra o lote marcar o item como FAILED")
+    void falhaNoGateway() {
+        when(pagarMeService.createOrderWithFullResponse(any(), anyString())).thenThrow(new RuntimeException("502"));
+
+        assertThatThrownBy(() -> billingService.generateMonthlyInvoice(7L, LocalDate.of(2026, 3, 25)))
+                .isInstanceOf(IllegalStateException.class);
+        verify(paymentRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Subscription cancelada depois de entrar no lote não é faturada")
+    void inativa() {
+        subscription.setActive(false);
+
+        assertThat(billingService.generateMonthlyInvoice(7L, LocalDate.of(2026, 3, 25))).isNull();
+        verifyNoInteractions(pagarMeService);
+    }
+}
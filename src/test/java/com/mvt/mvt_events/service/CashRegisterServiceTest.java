@@ -0,0 +1,221 @@
+package com.mvt.mvt_events.service;
+
+import com.mvt.mvt_events.jpa.*;
+import com.mvt.mvt_events.repository.CashRegisterMovementRepository;
+import com.mvt.mvt_events.repository.CashRegisterSessionRepository;
+import com.mvt.mvt_events.repository.FoodOrderRepository;
+import com.mvt.mvt_events.repository.UserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Cobre os totais correntes do caixa: incremento por venda em dinheiro e por
+ * movimentação, saldo esperado no fechamento e a conferência explícita.
+ */
+@ExtendWith(MockitoExtension.class)
+class CashRegisterServiceTest {
+
+    @Mock private CashRegisterSessionRepository sessionRepo;
+    @Mock private CashRegisterMovementRepository movementRepo;
+    @Mock private UserRepository userRepo;
+    @Mock private FoodOrderRepository foodOrderRepo;
+
+    @InjectMocks
+    private CashRegisterService service;
+
+    private final UUID clientId = UUID.fromString("00000000-0000-0000-0000-000000000001");
+
+    // ========== Helpers ==========
+
+    private User client() {
+        User u = new User();
+        u.setId(clientId);
+        u.setRole(User.Role.CLIENT);
+        return u;
+    }
+
+    private CashRegisterSession openSession() {
+        return CashRegisterSession.builder()
+                .id(10L)
+                .client(client())
+                .status(CashRegisterSession.Status.OPEN)
+                .openingBalance(new BigDecimal("100.00"))
+                .openedAt(OffsetDateTime.now().minusHours(4))
+                .cashSales(new BigDecimal("250.00"))
+                .additionsTotal(new BigDecimal("50.00"))
+                .withdrawalsTotal(new BigDecimal("80.00"))
+                .build();
+    }
+
+    private FoodOrder paidOrder(PaymentMethod method, String total) {
+        FoodOrder o = new FoodOrder();
+        o.setId(1L);
+        o.setClient(client());
+        o.setStatus(FoodOrder.OrderStatus.COMPLETED);
+        o.setTablePaymentMethod(method);
+        o.setTotal(new BigDecimal(total));
+        return o;
+    }
+
+    // ================================================================
+
+    @Nested
+    @DisplayName("recordCashSale()")
+    class RecordCashSaleTests {
+
+        @Test
+        @DisplayName("Pedido em dinheiro soma no caixa aberto via UPDATE atômico")
+        void dinheiroSoma() {
+            when(sessionRepo.addCashSale(clientId, new BigDecimal("42.50"))).thenReturn(1);
+
+            service.recordCashSale(paidOrder(PaymentMethod.CASH, "42.50"));
+
+            verify(sessionRepo).addCashSale(clientId, new BigDecimal("42.50"));
+        }
+
+        @Test
+        @DisplayName("Outras formas de pagamento não mexem na gaveta")
+        void pixNaoSoma() {
+            service.recordCashSale(paidOrder(PaymentMethod.PIX, "42.50"));
+
+            verify(sessionRepo, never()).addCashSale(any(), any());
+        }
+
+        @Test
+        @DisplayName("Forma de pagamento da comanda vale quando o pedido não tem forma própria")
+        void formaDaComanda() {
+            FoodOrder order = paidOrder(null, "30.00");
+            OrderCommand cmd = new OrderCommand();
+            cmd.setPaymentMethod(PaymentMethod.CASH);
+            OrderItem item = new OrderItem();
+            item.setCommand(cmd);
+            order.getItems().add(item);
+
+            service.recordCashSale(order);
+
+            verify(sessionRepo).addCashSale(clientId, new BigDecimal("30.00"));
+        }
+
+        @Test
+        @DisplayName("Sem caixa aberto não falha a conclusão do pedido")
+        void semCaixaAberto() {
+            when(sessionRepo.addCashSale(any(), any())).thenReturn(0);
+
+            assertThatCode(() -> service.recordCashSale(paidOrder(PaymentMethod.CASH, "10.00")))
+                    .doesNotThrowAnyException();
+        }
+    }
+
+    @Nested
+    @DisplayName("Movimentações e fechamento")
+    class MovementAndCloseTests {
+
+        @Test
+        @DisplayName("Sangria soma no total de retiradas")
+        void sangriaSomaRetiradas() {
+            when(sessionRepo.findOpenForUpdate(clientId)).thenReturn(Optional.of(openSession()));
+            when(movementRepo.save(any())).thenAnswer(inv -> inv.getArgument(0));
+
+            service.addMovement(clientId, null, CashRegisterMovement.Type.SANGRIA, new BigDecimal("20.00"), "cofre");
+
+            verify(sessionRepo).addMovementTotals(10L, BigDecimal.ZERO, new BigDecimal("20.00"));
+        }
+
+        @Test
+        @DisplayName("Suprimento soma no total de adições")
+        void suprimentoSomaAdicoes() {
+            when(sessionRepo.findOpenForUpdate(clientId)).thenReturn(Optional.of(openSession()));
+            when(movementRepo.save(any())).thenAnswer(inv -> inv.getArgument(0));
+
+            service.addMovement(clientId, null, CashRegisterMovement.Type.ADDITION, new BigDecimal("15.00"), "troco");
+
+            verify(sessionRepo).addMovementTotals(10L, new BigDecimal("15.00"), BigDecimal.ZERO);
+        }
+
+        @Test
+        @DisplayName("Fechamento usa os totais correntes, sem recarregar pedidos")
+        void fechamentoUsaTotais() {
+            when(sessionRepo.findOpenForUpdate(clientId)).thenReturn(Optional.of(openSession()));
+            when(sessionRepo.save(any())).thenAnswer(inv -> inv.getArgument(0));
+
+            CashRegisterSession closed = service.close(clientId, null, new BigDecimal("320.00"), null);
+
+            // 100 + 250 + 50 − 80
+            assertThat(closed.getClosingBalanceExpected()).isEqualByComparingTo("320.00");
+            assertThat(closed.getStatus()).isEqualTo(CashRegisterSession.Status.CLOSED);
+            verifyNoInteractions(foodOrderRepo);
+        }
+    }
+
+    @Nested
+    @DisplayName("verify()")
+    class VerifyTests {
+
+        @Test
+        @DisplayName("Totais batendo com a origem: consistente, nada é reescrito")
+        void consistente() {
+            when(sessionRepo.findByClientIdAndStatus(clientId, CashRegisterSession.Status.OPEN))
+                    .thenReturn(Optional.of(openSession()));
+            when(foodOrderRepo.findPaidBetween(eq(clientId), any(), any()))
+                    .thenReturn(List.of(paidOrder(PaymentMethod.CASH, "250.00"), paidOrder(PaymentMethod.PIX, "99.00")));
+            when(movementRepo.sumTotalsBySessionId(10L))
+                    .thenReturn(List.<Object[]>of(new Object[]{new BigDecimal("50.00"), new BigDecimal("80.00")}));
+
+            CashRegisterService.Reconciliation r = service.verify(clientId, null, true);
+
+            assertThat(r.consistent()).isTrue();
+            assertThat(r.repaired()).isFalse();
+            verify(sessionRepo, never()).overwriteTotals(anyLong(), any(), any(), any());
+        }
+
+        @Test
+        @DisplayName("Drift com repair=true sobrescreve os totais recalculados")
+        void driftComRepair() {
+            when(sessionRepo.findByClientIdAndStatus(clientId, CashRegisterSession.Status.OPEN))
+                    .thenReturn(Optional.of(openSession()));
+            when(foodOrderRepo.findPaidBetween(eq(clientId), any(), any()))
+                    .thenReturn(List.of(paidOrder(PaymentMethod.CASH, "270.00")));
+            when(movementRepo.sumTotalsBySessionId(10L))
+                    .thenReturn(List.<Object[]>of(new Object[]{new BigDecimal("50.00"), new BigDecimal("80.00")}));
+
+            CashRegisterService.Reconciliation r = service.verify(clientId, null, true);
+
+            assertThat(r.consistent()).isFalse();
+            assertThat(r.computed().cashSales()).isEqualByComparingTo("270.00");
+            assertThat(r.repaired()).isTrue();
+            verify(sessionRepo).overwriteTotals(10L, new BigDecimal("270.00"),
+                    new BigDecimal("50.00"), new BigDecimal("80.00"));
+        }
+
+        @Test
+        @DisplayName("Sessão de outro estabelecimento não é encontrada")
+        void sessaoDeOutroClient() {
+            CashRegisterSession other = openSession();
+            User otherClient = new User();
+            otherClient.setId(UUID.randomUUID());
+            other.setClient(otherClient);
+            when(sessionRepo.findById(10L)).thenReturn(Optional.of(other));
+
+            assertThatThrownBy(() -> service.verify(clientId, 10L, false))
+                    .isInstanceOf(RuntimeException.class)
+                    .hasMessageContaining("não encontrada");
+        }
+    }
+}
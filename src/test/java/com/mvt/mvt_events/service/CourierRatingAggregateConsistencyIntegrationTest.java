@@ -0,0 +1,206 @@
+package com.mvt.mvt_events.service;
+
+import com.mvt.mvt_events.jpa.Delivery;
+import com.mvt.mvt_events.jpa.Evaluation;
+import com.mvt.mvt_events.jpa.User;
+import com.mvt.mvt_events.repository.DeliveryRepository;
+import com.mvt.mvt_events.repository.EvaluationRepository;
+import com.mvt.mvt_events.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.mvt.mvt_events.testsupport.IntegrationFixtures.*;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Consistência de courier_rating_aggregates contra o Postgres real: avaliações com notas,
+ * tipos e couriers aleatórios (seed impressa), criadas em paralelo pelo EvaluationService,
+ * e o agregado de cada courier comparado com o recálculo completo sobre evaluations
+ * (calculateAverageRatingForCourier / countRatingDistributionForCourier). Também cobre
+ * rollback da avaliação (desfaz o incremento) e o rebuild corrigindo agregados adulterados.
+ */
+@Tag("integration")
+@SpringBootTest
+@ActiveProfiles("integration-test")
+@DisplayName("Agregados de rating do courier — consistência com recálculo completo (Postgres real)")
+class CourierRatingAggregateConsistencyIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(CourierRatingAggregateConsistencyIntegrationTest.class);
+
+    private static final int COURIERS = 5;
+    private static final int DELIVERIES = 150;
+    private static final int THREADS = 8;
+
+    @Autowired private EvaluationService evaluationService;
+    @Autowired private EvaluationRepository evaluationRepository;
+    @Autowired private DeliveryRepository deliveryRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    private final long seed = System.nanoTime();
+    private final Random random = new Random(seed);
+
+    private User client;
+    private final List<User> couriers = new ArrayList<>();
+    private final List<Delivery> deliveries = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        client = userRepository.save(newUser("Rating Client", User.Role.CLIENT));
+        for (int i = 0; i < COURIERS; i++) {
+            couriers.add(userRepository.save(newUser("Rating Courier " + i, User.Role.COURIER)));
+        }
+
+        for (int i = 0; i < DELIVERIES; i++) {
+            Delivery d = new Delivery();
+            d.setClient(client);
+            d.setCourier(couriers.get(random.nextInt(COURIERS)));
+            d.setFromAddress("Origem");
+            d.setToAddress("Destino");
+            d.setStatus(Delivery.DeliveryStatus.COMPLETED);
+            d.setShippingFee(BigDecimal.valueOf(9));
+            deliveries.add(deliveryRepository.save(d));
+        }
+    }
+
+    @AfterEach
+    void cleanup() {
+        List<Long> ids = deliveries.stream().map(Delivery::getId).toList();
+        ids.forEach(this::deleteEvaluation);
+        deliveryRepository.deleteAllById(ids);
+        userRepository.deleteAll(couriers); // agregados saem via ON DELETE CASCADE
+        userRepository.delete(client);
+    }
+
+    private void deleteEvaluation(Long deliveryId) {
+        evaluationRepository.findByDeliveryId(deliveryId).ifPresent(evaluationRepository::delete);
+    }
+
+    private Evaluation evaluation(Evaluation.EvaluationType type, int rating) {
+        Evaluation e = new Evaluation();
+        e.setEvaluationType(type);
+        e.setRating(rating);
+        return e;
+    }
+
+    /** Avalia cada delivery uma vez: ~80% cliente→courier, o resto courier→cliente. */
+    private void evaluateAllInParallel() throws Exception {
+        record Job(Delivery delivery, Evaluation.EvaluationType type, int rating) {
+        }
+        List<Job> jobs = new ArrayList<>();
+        for (Delivery d : deliveries) {
+            Evaluation.EvaluationType type = random.nextInt(5) == 0
+                    ? Evaluation.EvaluationType.COURIER_TO_CLIENT
+                    : Evaluation.EvaluationType.CLIENT_TO_COURIER;
+            jobs.add(new Job(d, type, 1 + random.nextInt(5)));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<Evaluation>> results = new ArrayList<>();
+        for (Job job : jobs) {
+            results.add(pool.submit(() -> evaluationService.create(
+                    evaluation(job.type(), job.rating()), job.delivery().getId(),
+                    job.type() == Evaluation.EvaluationType.CLIENT_TO_COURIER
+                            ? client.getId() : job.delivery().getCourier().getId())));
+        }
+        pool.shutdown();
+        assertThat(pool.awaitTermination(60, TimeUnit.SECONDS)).isTrue();
+        for (Future<Evaluation> result : results) {
+            result.get();
+        }
+    }
+
+    /** Agregado servido pelo service == recálculo completo sobre evaluations, para cada courier. */
+    private void assertConsistent() {
+        for (User courier : couriers) {
+            Map<Integer, Long> expected = new HashMap<>();
+            for (Object[] row : evaluationRepository.countRatingDistributionForCourier(courier.getId())) {
+                expected.put(((Number) row[0]).intValue(), ((Number) row[1]).longValue());
+            }
+            Map<Integer, Long> actual = new HashMap<>();
+            for (Object[] row : evaluationService.getRatingDistribution(courier.getId())) {
+                actual.put((Integer) row[0], (Long) row[1]);
+            }
+            Double expectedAverage = evaluationRepository.calculateAverageRatingForCourier(courier.getId());
+
+            assertThat(actual).as("distribuição do courier %s (seed %d)", courier.getName(), seed)
+                    .isEqualTo(expected);
+            assertThat(evaluationService.getAverageRatingForCourier(courier.getId()))
+                    .as("média do courier %s (seed %d)", courier.getName(), seed)
+                    .isCloseTo(expectedAverage != null ? expectedAverage : 0.0, within(1e-9));
+        }
+    }
+
+    @Test
+    @DisplayName("Avaliações aleatórias em paralelo: agregado igual ao recálculo completo")
+    void agregadoIgualAoRecalculo() throws Exception {
+        evaluateAllInParallel();
+
+        log.info("seed {}: {} avaliações em {} couriers", seed, DELIVERIES, COURIERS);
+        assertConsistent();
+    }
+
+    @Test
+    @DisplayName("Rollback da avaliação desfaz o incremento do agregado")
+    void rollbackDesfazIncremento() {
+        Delivery d = deliveries.get(0);
+        Double before = evaluationService.getAverageRatingForCourier(d.getCourier().getId());
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        assertThatThrownBy(() -> tx.executeWithoutResult(status -> {
+            evaluationService.create(evaluation(Evaluation.EvaluationType.CLIENT_TO_COURIER, 1),
+                    d.getId(), client.getId());
+            throw new IllegalStateException("falha depois da avaliação");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(evaluationRepository.existsByDeliveryId(d.getId())).isFalse();
+        assertThat(evaluationService.getAverageRatingForCourier(d.getCourier().getId())).isEqualTo(before);
+        assertConsistent();
+    }
+
+    @Test
+    @DisplayName("Rebuild corrige agregados adulterados, apagados e órfãos")
+    void rebuildCorrigeDivergencias() throws Exception {
+        evaluateAllInParallel();
+        List<Object> ids = couriers.stream().<Object>map(User::getId).toList();
+
+        jdbcTemplate.update("UPDATE courier_rating_aggregates SET rating_count = rating_count + 7, stars_5 = 0 " +
+                "WHERE courier_id = ?", ids.get(0));
+        jdbcTemplate.update("DELETE FROM courier_rating_aggregates WHERE courier_id = ?", ids.get(1));
+        // Courier sem avaliações recebidas com agregado fantasma
+        deliveries.stream()
+                .filter(d -> d.getCourier().getId().equals(ids.get(2)))
+                .map(Delivery::getId)
+                .forEach(this::deleteEvaluation);
+
+        evaluationService.rebuildCourierRatingAggregates();
+
+        assertConsistent();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM courier_rating_aggregates WHERE courier_id = ?", Integer.class, ids.get(2)))
+                .isZero();
+    }
+}
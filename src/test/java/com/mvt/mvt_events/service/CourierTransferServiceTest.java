@@ -0,0 +1,311 @@
+package com.mvt.mvt_events.service;
+
+import com.mvt.mvt_events.jpa.FoodOrder;
+import com.mvt.mvt_events.jpa.PagarmeTransfer;
+import com.mvt.mvt_events.jpa.User;
+import com.mvt.mvt_events.payment.pixout.PixOutProvider;
+import com.mvt.mvt_events.payment.pixout.RecordingPixOutProvider;
+import com.mvt.mvt_events.payment.service.PagarMeService;
+import com.mvt.mvt_events.repository.PagarmeTransferRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Cobre o PIX-out em lote: tamanho dos chunks, UPDATE único de reivindicação por chunk,
+ * reconciliação item a item e o que nunca deve ser reenviado.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class CourierTransferServiceTest {
+
+    @Mock private FoodOrderSplitCalculator splitCalculator;
+    @Mock private PagarMeService pagarMeService;
+    @Mock private PagarmeTransferRepository transferRepository;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private RecordingPixOutProvider provider;
+    private CourierTransferService service;
+
+    /** "Tabela" pagarme_transfers em memória, manipulada pelos stubs do repositório. */
+    private final Map<Long, PagarmeTransfer> table = new LinkedHashMap<>();
+
+    @BeforeEach
+    void setup() {
+        provider = new RecordingPixOutProvider();
+        service = new CourierTransferService(splitCalculator, pagarMeService, transferRepository,
+                provider, new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(service, "batchSize", 3);
+
+        when(transferRepository.claimForBatch(anyList(), anyString())).thenAnswer(inv -> {
+            List<Long> ids = inv.getArgument(0);
+            String batchId = inv.getArgument(1);
+            int claimed = 0;
+            for (Long id : ids) {
+                PagarmeTransfer t = table.get(id);
+                if (t.getStatus() == PagarmeTransfer.Status.PENDING && t.getPagarmeTransferId() == null) {
+                    t.setStatus(PagarmeTransfer.Status.PROCESSING);
+                    t.setPagarmeTransferId(batchId);
+                    claimed++;
+                }
+            }
+            return claimed;
+        });
+        when(transferRepository.findClaimedByBatch(anyString())).thenAnswer(inv -> table.values().stream()
+                .filter(t -> inv.getArgument(0).equals(t.getPagarmeTransferId()))
+                .toList());
+        when(transferRepository.findStaleBatchClaims(any())).thenAnswer(inv -> table.values().stream()
+                .filter(t -> t.getStatus() == PagarmeTransfer.Status.PROCESSING
+                        && t.getPagarmeTransferId() != null && t.getPagarmeTransferId().startsWith("batch:")
+                        && t.getBatchClaimedAt().isBefore(inv.getArgument(0)))
+                .toList());
+        when(transferRepository.findAllById(any())).thenAnswer(inv -> {
+            List<PagarmeTransfer> found = new ArrayList<>();
+            for (Long id : inv.<Collection<Long>>getArgument(0)) found.add(table.get(id));
+            return found;
+        });
+    }
+
+    // ========== Helpers ==========
+
+    private PagarmeTransfer pending(long id, boolean withPixKey) {
+        User courier = new User();
+        courier.setId(UUID.randomUUID());
+        courier.setRole(User.Role.COURIER);
+        if (withPixKey) courier.setPixKey("courier" + id + "@pix.com");
+
+        FoodOrder order = new FoodOrder();
+        order.setId(100L + id);
+
+        PagarmeTransfer t = PagarmeTransfer.builder()
+                .id(id)
+                .foodOrder(order)
+                .recipient(courier)
+                .recipientPagarmeId("")
+                .amountCents(870L)
+                .status(PagarmeTransfer.Status.PENDING)
+                .build();
+        table.put(id, t);
+        return t;
+    }
+
+    private List<PagarmeTransfer> pendings(int count) {
+        List<PagarmeTransfer> list = new ArrayList<>();
+        for (long i = 1; i <= count; i++) list.add(pending(i, true));
+        return list;
+    }
+
+    // ================================================================
+
+    @Nested
+    @DisplayName("executeInBatches()")
+    class ExecuteInBatchesTests {
+
+        @Test
+        @DisplayName("7 transfers com lote de 3: 3 chamadas ao provedor (3, 3, 1) e 1 UPDATE por chunk")
+        void chunks() {
+            CourierTransferService.BatchSummary r = service.executeInBatches(pendings(7));
+
+            assertThat(provider.batchSizes()).containsExactly(3, 3, 1);
+            verify(transferRepository, times(3)).claimForBatch(anyList(), anyString());
+            assertThat(r.batches()).isEqualTo(3);
+            assertThat(r.succeeded()).isEqualTo(7);
+            assertThat(table.values()).allSatisfy(t -> {
+                assertThat(t.getStatus()).isEqualTo(PagarmeTransfer.Status.SUCCEEDED);
+                assertThat(t.getPagarmeTransferId()).isEqualTo("fake-transfer-" + t.getId());
+            });
+        }
+
+        @Test
+        @DisplayName("Falha parcial: só o item recusado vira FAILED, o resto do lote segue")
+        void falhaParcial() {
+            provider.failFor("transfer-2");
+
+            CourierTransferService.BatchSummary r = service.executeInBatches(pendings(3));
+
+            assertThat(table.get(2L).getStatus()).isEqualTo(PagarmeTransfer.Status.FAILED);
+            assertThat(table.get(2L).getErrorMessage()).contains("recusado");
+            assertThat(table.get(2L).getPagarmeTransferId()).isNull();
+            assertThat(table.get(1L).getStatus()).isEqualTo(PagarmeTransfer.Status.SUCCEEDED);
+            assertThat(table.get(3L).getStatus()).isEqualTo(PagarmeTransfer.Status.SUCCEEDED);
+            assertThat(r.failed()).isEqualTo(1);
+            assertThat(r.succeeded()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("Pending do provedor vira PROCESSING com o id do provedor e não é reenviado")
+        void pendingViraProcessing() {
+            provider.pendingFor("transfer-1");
+            List<PagarmeTransfer> transfers = pendings(2);
+
+            service.executeInBatches(transfers);
+            service.executeInBatches(transfers);
+
+            assertThat(table.get(1L).getStatus()).isEqualTo(PagarmeTransfer.Status.PROCESSING);
+            assertThat(table.get(1L).getPagarmeTransferId()).isEqualTo("fake-transfer-1");
+            assertThat(provider.sentExternalIds()).containsExactly("transfer-1", "transfer-2");
+        }
+
+        @Test
+        @DisplayName("Sem chave PIX fica PENDING e conta como skipped")
+        void semChavePix() {
+            List<PagarmeTransfer> transfers = new ArrayList<>(pendings(2));
+            transfers.add(pending(3, false));
+
+            CourierTransferService.BatchSummary r = service.executeInBatches(transfers);
+
+            assertThat(r.skipped()).isEqualTo(1);
+            assertThat(table.get(3L).getStatus()).isEqualTo(PagarmeTransfer.Status.PENDING);
+            assertThat(provider.sentExternalIds()).doesNotContain("transfer-3");
+        }
+
+        @Test
+        @DisplayName("Chunk já reivindicado por outra execução não chama o provedor")
+        void chunkJaReivindicado() {
+            List<PagarmeTransfer> transfers = pendings(2);
+            transfers.forEach(t -> {
+                t.setStatus(PagarmeTransfer.Status.PROCESSING);
+                t.setPagarmeTransferId("batch:outra-instancia");
+            });
+            // lista lida antes do claim da outra instância
+            List<PagarmeTransfer> stale = List.of(copyAsPending(transfers.get(0)), copyAsPending(transfers.get(1)));
+
+            CourierTransferService.BatchSummary r = service.executeInBatches(stale);
+
+            assertThat(provider.batchSizes()).isEmpty();
+            assertThat(r.batches()).isZero();
+        }
+
+        @Test
+        @DisplayName("Erro no lote inteiro deixa o chunk PROCESSING, sem reenvio automático")
+        void erroNoLote() {
+            provider.throwOnBatch(new RuntimeException("timeout"));
+            List<PagarmeTransfer> transfers = pendings(2);
+
+            CourierTransferService.BatchSummary r = service.executeInBatches(transfers);
+
+            assertThat(table.values()).allSatisfy(t ->
+                    assertThat(t.getStatus()).isEqualTo(PagarmeTransfer.Status.PROCESSING));
+            assertThat(r.processing()).isEqualTo(2);
+            verify(transferRepository, never()).findAllById(any());
+        }
+
+        private PagarmeTransfer copyAsPending(PagarmeTransfer t) {
+            return PagarmeTransfer.builder()
+                    .id(t.getId())
+                    .recipient(t.getRecipient())
+                    .amountCents(t.getAmountCents())
+                    .status(PagarmeTransfer.Status.PENDING)
+                    .build();
+        }
+    }
+
+    @Nested
+    @DisplayName("reconcileStaleBatchClaims()")
+    class ReconcileTests {
+
+        private PagarmeTransfer staleClaim(long id, int minutesAgo) {
+            PagarmeTransfer t = pending(id, true);
+            t.setStatus(PagarmeTransfer.Status.PROCESSING);
+            t.setPagarmeTransferId("batch:" + UUID.randomUUID());
+            t.setBatchClaimedAt(OffsetDateTime.now().minusMinutes(minutesAgo));
+            return t;
+        }
+
+        @Test
+        @DisplayName("Provedor tem o envio: aplica o estado dele (SUCCEEDED / FAILED)")
+        void provedorConhece() {
+            PagarmeTransfer pago = staleClaim(1, 60);
+            PagarmeTransfer recusado = staleClaim(2, 60);
+            provider.known("transfer-1", PixOutProvider.PixOutResult.succeeded("stark-1"))
+                    .known("transfer-2", PixOutProvider.PixOutResult.failed("chave inválida"));
+
+            service.reconcileStaleBatchClaims();
+
+            assertThat(pago.getStatus()).isEqualTo(PagarmeTransfer.Status.SUCCEEDED);
+            assertThat(pago.getPagarmeTransferId()).isEqualTo("stark-1");
+            assertThat(recusado.getStatus()).isEqualTo(PagarmeTransfer.Status.FAILED);
+            assertThat(recusado.getErrorMessage()).isEqualTo("chave inválida");
+        }
+
+        @Test
+        @DisplayName("Provedor não recebeu: volta a PENDING e o próximo lote reenvia")
+        void provedorNaoRecebeu() {
+            PagarmeTransfer t = staleClaim(1, 60);
+
+            service.reconcileStaleBatchClaims();
+
+            assertThat(t.getStatus()).isEqualTo(PagarmeTransfer.Status.PENDING);
+            assertThat(t.getPagarmeTransferId()).isNull();
+            assertThat(t.getBatchClaimedAt()).isNull();
+
+            service.executeInBatches(List.of(t));
+            assertThat(provider.sentExternalIds()).containsExactly("transfer-1");
+        }
+
+        @Test
+        @DisplayName("Provedor sem consulta: continua PROCESSING, marcado para conferência manual")
+        void provedorSemConsulta() {
+            provider.withoutLookup();
+            PagarmeTransfer t = staleClaim(1, 60);
+            String claim = t.getPagarmeTransferId();
+
+            service.reconcileStaleBatchClaims();
+
+            assertThat(t.getStatus()).isEqualTo(PagarmeTransfer.Status.PROCESSING);
+            assertThat(t.getPagarmeTransferId()).isEqualTo(claim);
+            assertThat(t.getErrorMessage()).contains(claim).contains("conferir no provedor");
+        }
+
+        @Test
+        @DisplayName("Reivindicação dentro do timeout não é tocada")
+        void dentroDoTimeout() {
+            PagarmeTransfer t = staleClaim(1, 5);
+
+            service.reconcileStaleBatchClaims();
+
+            assertThat(t.getStatus()).isEqualTo(PagarmeTransfer.Status.PROCESSING);
+            verify(transferRepository, never()).findAllById(any());
+        }
+    }
+
+    @Nested
+    @DisplayName("executeTransfer()")
+    class ExecuteTransferTests {
+
+        @Test
+        @DisplayName("Envio manual com pending do provedor marca PROCESSING (scheduler não reenvia)")
+        void manualPending() {
+            provider.pendingFor("transfer-9");
+            PagarmeTransfer t = pending(9, true);
+
+            service.executeTransfer(t, t.getRecipient());
+
+            assertThat(t.getStatus()).isEqualTo(PagarmeTransfer.Status.PROCESSING);
+            verify(transferRepository).save(t);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.mvt.mvt_events.service;
+
+import com.mvt.mvt_events.jpa.Delivery;
+import com.mvt.mvt_events.jpa.User;
+import com.mvt.mvt_events.repository.DeliveryRepository;
+import com.mvt.mvt_events.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.mvt.mvt_events.testsupport.IntegrationFixtures.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Corrida no aceite contra o Postgres real: N couriers disparam o UPDATE condicional
+ * na mesma delivery ao mesmo tempo, cada um na sua transação, e exatamente um vence.
+ */
+@Tag("integration")
+@SpringBootTest
+@ActiveProfiles("integration-test")
+@DisplayName("DeliveryRepository.claimForCourier — aceites simultâneos (Postgres real)")
+class DeliveryAcceptRaceIntegrationTest {
+
+    private static final int COURIERS = 16;
+
+    @Autowired private DeliveryRepository deliveryRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    private User client;
+    private final List<User> couriers = new ArrayList<>();
+    private Delivery delivery;
+
+    @BeforeEach
+    void setup() {
+        client = userRepository.save(newUser("Race Client", User.Role.CLIENT));
+        for (int i = 0; i < COURIERS; i++) {
+            couriers.add(userRepository.save(newUser("Race Courier " + i, User.Role.COURIER)));
+        }
+
+        Delivery d = new Delivery();
+        d.setClient(client);
+        d.setFromAddress("Origem");
+        d.setToAddress("Destino");
+        d.setStatus(Delivery.DeliveryStatus.PENDING);
+        d.setShippingFee(BigDecimal.valueOf(9));
+        delivery = deliveryRepository.save(d);
+    }
+
+    @AfterEach
+    void cleanup() {
+        deliveryRepository.deleteById(delivery.getId());
+        userRepository.deleteAll(couriers);
+        userRepository.delete(client);
+    }
+
+    @Test
+    @DisplayName("16 aceites simultâneos: exatamente um vence e a delivery fica com ele")
+    void exatamenteUmVence() throws Exception {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        ExecutorService pool = Executors.newFixedThreadPool(COURIERS);
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<Integer>> results = new ArrayList<>();
+        for (User courier : couriers) {
+            results.add(pool.submit(() -> {
+                start.await();
+                return tx.execute(status ->
+                        deliveryRepository.claimForCourier(delivery.getId(), courier.getId(), OffsetDateTime.now()));
+            }));
+        }
+        start.countDown();
+        pool.shutdown();
+        assertThat(pool.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        UUID winner = null;
+        int wins = 0;
+        for (int i = 0; i < COURIERS; i++) {
+            if (results.get(i).get() == 1) {
+                wins++;
+                winner = couriers.get(i).getId();
+            }
+        }
+
+        assertThat(wins).isEqualTo(1);
+        Delivery stored = tx.execute(status -> {
+            Delivery d = deliveryRepository.findById(delivery.getId()).orElseThrow();
+            d.getCourier().getId(); // inicializa dentro da transação
+            return d;
+        });
+        assertThat(stored.getStatus()).isEqualTo(Delivery.DeliveryStatus.ACCEPTED);
+        assertThat(stored.getCourier().getId()).isEqualTo(winner);
+    }
+}
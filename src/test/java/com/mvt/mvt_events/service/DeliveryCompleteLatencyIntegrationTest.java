@@ -0,0 +1,128 @@
+package com.mvt.mvt_events.service;
+
+import com.mvt.mvt_events.jpa.Delivery;
+import com.mvt.mvt_events.jpa.User;
+import com.mvt.mvt_events.repository.DeliveryRepository;
+import com.mvt.mvt_events.repository.UserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.mvt.mvt_events.testsupport.IntegrationFixtures.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Latência do complete (o que {@code PATCH /deliveries/{id}/complete} executa) antes e depois
+ * do barramento assíncrono: a mesma carga roda numa instância com os listeners inline
+ * ({@code delivery.events.async=false}, o modo antigo) e noutra com as lanes após o commit.
+ *
+ * Um listener de teste simula o fan-out lento (push / web push) com {@value #LISTENER_MS} ms.
+ * No modo síncrono o courier espera o fan-out; no assíncrono a resposta sai logo após o commit,
+ * e o fan-out de todas as entregas acontece depois.
+ */
+@Tag("integration")
+@DisplayName("DeliveryService.complete — p99 síncrono vs lanes assíncronas (Postgres real)")
+class DeliveryCompleteLatencyIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(DeliveryCompleteLatencyIntegrationTest.class);
+
+    private static final int WARMUP = 5;
+    private static final int RUNS = 40;
+    static final long LISTENER_MS = 250;
+
+    private static volatile CountDownLatch fannedOut;
+
+    @TestConfiguration
+    static class SlowFanOut {
+        @Bean
+        DeliveryLifecycleListener slowPushListener() {
+            return event -> {
+                try {
+                    Thread.sleep(LISTENER_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                fannedOut.countDown();
+            };
+        }
+    }
+
+    private record Measurement(double p99Millis, boolean allFannedOut) {
+    }
+
+    private Measurement measure(boolean async) throws Exception {
+        fannedOut = new CountDownLatch(WARMUP + RUNS);
+        try (ConfigurableApplicationContext app = startInstance("latency-" + (async ? "async" : "sync"),
+                Map.of("delivery.events.async", String.valueOf(async)), SlowFanOut.class)) {
+            DeliveryService deliveryService = app.getBean(DeliveryService.class);
+            DeliveryRepository deliveryRepository = app.getBean(DeliveryRepository.class);
+            UserRepository userRepository = app.getBean(UserRepository.class);
+
+            User client = userRepository.save(newUser("Latency Client", User.Role.CLIENT));
+            User courier = userRepository.save(newUser("Latency Courier", User.Role.COURIER));
+            List<Long> deliveryIds = new ArrayList<>();
+            try {
+                warmUp(WARMUP, () -> deliveryService.complete(
+                        inTransitDelivery(deliveryRepository, client, courier, deliveryIds), courier.getId()));
+
+                double[] millis = new double[RUNS];
+                for (int i = 0; i < RUNS; i++) {
+                    Long id = inTransitDelivery(deliveryRepository, client, courier, deliveryIds);
+                    millis[i] = time(() -> deliveryService.complete(id, courier.getId())).millis();
+                }
+                Arrays.sort(millis);
+                double p99 = millis[(int) Math.ceil(RUNS * 0.99) - 1];
+                boolean delivered = fannedOut.await((WARMUP + RUNS) * LISTENER_MS + 5_000, TimeUnit.MILLISECONDS);
+                log.info("complete() {}: p99 {} ms com listener de {} ms", async ? "assíncrono" : "síncrono",
+                        String.format("%.1f", p99), LISTENER_MS);
+                return new Measurement(p99, delivered);
+            } finally {
+                deliveryRepository.deleteAllById(deliveryIds);
+                userRepository.delete(courier);
+                userRepository.delete(client);
+            }
+        }
+    }
+
+    private static Long inTransitDelivery(DeliveryRepository deliveryRepository, User client, User courier,
+                                          List<Long> deliveryIds) {
+        Delivery d = new Delivery();
+        d.setClient(client);
+        d.setCourier(courier);
+        d.setFromAddress("Origem");
+        d.setToAddress("Destino");
+        d.setStatus(Delivery.DeliveryStatus.IN_TRANSIT);
+        d.setShippingFee(BigDecimal.valueOf(9));
+        Long id = deliveryRepository.save(d).getId();
+        deliveryIds.add(id);
+        return id;
+    }
+
+    @Test
+    @DisplayName("p99 com lanes assíncronas fica bem abaixo do síncrono, e todos os eventos são entregues")
+    void p99AssincronoAbaixoDoSincrono() throws Exception {
+        Measurement sync = measure(false);
+        Measurement async = measure(true);
+
+        assertThat(sync.allFannedOut()).isTrue();
+        assertThat(async.allFannedOut()).isTrue();
+        assertThat(sync.p99Millis()).as("síncrono espera o fan-out").isGreaterThanOrEqualTo(LISTENER_MS);
+        assertThat(async.p99Millis())
+                .as("p99 assíncrono vs síncrono (%.1f ms)", sync.p99Millis())
+                .isLessThan(LISTENER_MS)
+                .isLessThan(sync.p99Millis() / 2);
+    }
+}
@@ -0,0 +1,187 @@
+package com.mvt.mvt_events.service;
+
+import com.mvt.mvt_events.jpa.Delivery;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Cobre o barramento de eventos da delivery: ordem por delivery entre lanes paralelas
+ * (inclusive com fila cheia), isolamento de falha entre listeners, transação própria por
+ * listener e saída da thread que publicou.
+ */
+class DeliveryLifecycleEventBusTest {
+
+    private static final List<Delivery.DeliveryStatus> FLOW = List.of(
+            Delivery.DeliveryStatus.ACCEPTED, Delivery.DeliveryStatus.IN_TRANSIT, Delivery.DeliveryStatus.COMPLETED);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private DeliveryLifecycleEventBus bus;
+
+    private DeliveryLifecycleEventBus bus(List<DeliveryLifecycleListener> listeners, boolean async,
+                                          int lanes, int queueCapacity) {
+        return new DeliveryLifecycleEventBus(listeners, registry, transactionManager, async, lanes, queueCapacity, 5_000);
+    }
+
+    @AfterEach
+    void shutdown() throws InterruptedException {
+        if (bus != null) bus.shutdown();
+    }
+
+    private static DeliveryLifecycleEvent event(long deliveryId, Delivery.DeliveryStatus status) {
+        return new DeliveryLifecycleEvent(deliveryId, status, null, null, null, null, null, OffsetDateTime.now());
+    }
+
+    @Test
+    @DisplayName("Eventos da mesma delivery chegam em ordem, mesmo com várias lanes em paralelo")
+    void ordemPorDelivery() throws Exception {
+        int deliveries = 50;
+        CountDownLatch done = new CountDownLatch(deliveries * FLOW.size());
+        Map<Long, List<Delivery.DeliveryStatus>> seen = new ConcurrentHashMap<>();
+        DeliveryLifecycleListener recorder = e -> {
+            seen.computeIfAbsent(e.deliveryId(), id -> Collections.synchronizedList(new ArrayList<>())).add(e.status());
+            done.countDown();
+        };
+        bus = bus(List.of(recorder), true, 4, 1000);
+
+        for (Delivery.DeliveryStatus status : FLOW) {
+            for (long id = 1; id <= deliveries; id++) {
+                bus.onDeliveryLifecycle(event(id, status));
+            }
+        }
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(seen).hasSize(deliveries);
+        seen.values().forEach(statuses -> assertThat(statuses).containsExactlyElementsOf(FLOW));
+    }
+
+    @Test
+    @DisplayName("Listener que falha não impede os demais e conta no métrico")
+    void falhaIsolada() throws Exception {
+        CountDownLatch delivered = new CountDownLatch(1);
+        DeliveryLifecycleListener failing = e -> { throw new IllegalStateException("push fora do ar"); };
+        DeliveryLifecycleListener ok = e -> delivered.countDown();
+        bus = bus(List.of(failing, ok), true, 2, 10);
+
+        bus.onDeliveryLifecycle(event(7, Delivery.DeliveryStatus.COMPLETED));
+
+        assertThat(delivered.await(5, TimeUnit.SECONDS)).isTrue();
+        bus.shutdown();
+        assertThat(registry.counter("delivery.events.failed", "listener", failing.getClass().getSimpleName()).count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Assíncrono: listener roda fora da thread que publicou; síncrono: na própria")
+    void threadDoListener() throws Exception {
+        List<Thread> threads = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch delivered = new CountDownLatch(1);
+        DeliveryLifecycleListener recorder = e -> {
+            threads.add(Thread.currentThread());
+            delivered.countDown();
+        };
+        bus = bus(List.of(recorder), true, 1, 10);
+
+        bus.onDeliveryLifecycle(event(1, Delivery.DeliveryStatus.ACCEPTED));
+        assertThat(delivered.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(threads.get(0)).isNotSameAs(Thread.currentThread());
+        assertThat(threads.get(0).getName()).startsWith("delivery-events-");
+
+        DeliveryLifecycleEventBus sync = bus(List.of(recorder), false, 1, 10);
+        try {
+            sync.onDeliveryLifecycle(event(1, Delivery.DeliveryStatus.IN_TRANSIT));
+            assertThat(threads.get(1)).isSameAs(Thread.currentThread());
+        } finally {
+            sync.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Fila cheia: quem publica espera vaga e a ordem da delivery se mantém")
+    void filaCheiaBloqueiaSemFurarOrdem() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Delivery.DeliveryStatus> seen = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(FLOW.size());
+        DeliveryLifecycleListener slow = e -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            seen.add(e.status());
+            done.countDown();
+        };
+        bus = bus(List.of(slow), true, 1, 1);
+
+        // 1º evento ocupa a thread da lane, 2º ocupa a única vaga da fila
+        bus.onDeliveryLifecycle(event(1, FLOW.get(0)));
+        bus.onDeliveryLifecycle(event(1, FLOW.get(1)));
+
+        Thread publisher = new Thread(() -> bus.onDeliveryLifecycle(event(1, FLOW.get(2))));
+        publisher.start();
+        publisher.join(200);
+        assertThat(publisher.isAlive()).as("publicação aguarda vaga na fila").isTrue();
+
+        release.countDown();
+        publisher.join(5_000);
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(seen).containsExactlyElementsOf(FLOW);
+    }
+
+    @Test
+    @DisplayName("Fila cheia além do timeout: evento descartado e contado, sem prender quem publica")
+    void filaCheiaAlemDoTimeout() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        DeliveryLifecycleListener stuck = e -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        bus = new DeliveryLifecycleEventBus(List.of(stuck), registry, transactionManager, true, 1, 1, 100);
+        bus.onDeliveryLifecycle(event(1, FLOW.get(0)));
+        bus.onDeliveryLifecycle(event(1, FLOW.get(1)));
+
+        long start = System.nanoTime();
+        bus.onDeliveryLifecycle(event(1, FLOW.get(2)));
+        long waitedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        release.countDown();
+
+        assertThat(waitedMs).isBetween(100L, 4_000L);
+        assertThat(registry.counter("delivery.events.rejected").count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Síncrono: cada listener roda numa transação nova (REQUIRES_NEW)")
+    void transacaoPropriaPorListener() {
+        DeliveryLifecycleListener a = e -> { };
+        DeliveryLifecycleListener b = e -> { };
+        bus = bus(List.of(a, b), false, 1, 10);
+
+        bus.onDeliveryLifecycle(event(1, Delivery.DeliveryStatus.COMPLETED));
+
+        ArgumentCaptor<TransactionDefinition> definitions = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager, times(2)).getTransaction(definitions.capture());
+        assertThat(definitions.getAllValues()).extracting(TransactionDefinition::getPropagationBehavior)
+                .containsOnly(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        verify(transactionManager, times(2)).commit(any());
+    }
+}
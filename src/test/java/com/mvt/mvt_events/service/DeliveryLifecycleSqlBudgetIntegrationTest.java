@@ -0,0 +1,99 @@
+package com.mvt.mvt_events.service;
+
+import com.mvt.mvt_events.jpa.CustomerPaymentPreference;
+import com.mvt.mvt_events.jpa.Delivery;
+import com.mvt.mvt_events.jpa.User;
+import com.mvt.mvt_events.repository.CustomerPaymentPreferenceRepository;
+import com.mvt.mvt_events.repository.DeliveryRepository;
+import com.mvt.mvt_events.repository.UserRepository;
+import com.mvt.mvt_events.sql.SqlBudget;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+
+import static com.mvt.mvt_events.testsupport.IntegrationFixtures.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Orçamento de SQL do aceite e da conclusão de uma delivery (o que
+ * {@code PATCH /deliveries/{id}/accept} e {@code /complete} executam no service)
+ * contra o Postgres real.
+ *
+ * Nenhum dos dois percorre coleções com query por linha, então o teto é fixo:
+ * aceite = delivery com joins, courier, entregas ativas, UPDATE condicional, veículo,
+ * contratos do courier e do client, preferência, flush e recarga (~11); conclusão =
+ * delivery com joins, distância da rota, flush e recarga (~5). A folga cobre os
+ * ManyToOne EAGER de users; um N+1 novo estoura o teto.
+ */
+@Tag("integration")
+@SpringBootTest
+@ActiveProfiles("integration-test")
+@DisplayName("DeliveryService — SQLs por aceite e conclusão (Postgres real)")
+class DeliveryLifecycleSqlBudgetIntegrationTest {
+
+    private static final int ACCEPT_BUDGET = 20;
+    private static final int COMPLETE_BUDGET = 12;
+
+    @Autowired private DeliveryService deliveryService;
+    @Autowired private DeliveryRepository deliveryRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private CustomerPaymentPreferenceRepository preferenceRepository;
+
+    private User client;
+    private User courier;
+    private Delivery delivery;
+
+    @BeforeEach
+    void setup() {
+        client = userRepository.save(newUser("Budget Client", User.Role.CLIENT));
+        courier = userRepository.save(newUser("Budget Courier", User.Role.COURIER));
+        // PIX: o aceite do CLIENT não dispara cobrança automática no cartão
+        preferenceRepository.save(CustomerPaymentPreference.builder()
+                .user(client).preferredPaymentType(CustomerPaymentPreference.PreferredPaymentType.PIX).build());
+
+        Delivery d = new Delivery();
+        d.setClient(client);
+        d.setFromAddress("Origem");
+        d.setToAddress("Destino");
+        d.setStatus(Delivery.DeliveryStatus.PENDING);
+        d.setShippingFee(BigDecimal.valueOf(9));
+        delivery = deliveryRepository.save(d);
+    }
+
+    @AfterEach
+    void cleanup() {
+        deliveryRepository.deleteById(delivery.getId());
+        preferenceRepository.findByUserId(client.getId()).ifPresent(preferenceRepository::delete);
+        userRepository.delete(courier);
+        userRepository.delete(client);
+    }
+
+    @Test
+    @DisplayName("Aceite cabe no orçamento fixo de SQL")
+    void aceiteDentroDoOrcamento() {
+        Delivery accepted = SqlBudget.assertAtMost(ACCEPT_BUDGET,
+                () -> deliveryService.assignToCourier(delivery.getId(), courier.getId(), null));
+
+        assertThat(accepted.getStatus()).isEqualTo(Delivery.DeliveryStatus.ACCEPTED);
+    }
+
+    @Test
+    @DisplayName("Conclusão cabe no orçamento fixo de SQL")
+    void conclusaoDentroDoOrcamento() {
+        delivery.setCourier(courier);
+        delivery.setStatus(Delivery.DeliveryStatus.IN_TRANSIT);
+        delivery = deliveryRepository.save(delivery);
+
+        Delivery completed = SqlBudget.assertAtMost(COMPLETE_BUDGET,
+                () -> deliveryService.complete(delivery.getId(), courier.getId()));
+
+        assertThat(completed.getStatus()).isEqualTo(Delivery.DeliveryStatus.COMPLETED);
+    }
+}
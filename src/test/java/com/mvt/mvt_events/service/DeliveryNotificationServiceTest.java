@@ -10,6 +10,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
 import java.util.*;
@@ -662,4 +663,19 @@ class DeliveryNotificationServiceTest {
                     anyDouble(), anyDouble(), anyDouble(), eq(VehicleType.CAR), anyList());
         }
     }
+
+    @Nested
+    @DisplayName("Modo de dispatch")
+    class DispatchModeTests {
+
+        @Test
+        @DisplayName("Com delivery.dispatch.mode=batch não faz broadcast (fica pro BatchDispatchService)")
+        void modoBatchNaoNotifica() {
+            ReflectionTestUtils.setField(deliveryNotificationService, "dispatchMode", "batch");
+
+            deliveryNotificationService.notifyAvailableDrivers(makeDelivery(1L));
+
+            verifyNoInteractions(clientContractRepository, userRepository, pushNotificationService);
+        }
+    }
 }
@@ -2,8 +2,11 @@ package com.mvt.mvt_events.service;
 
 import com.mvt.mvt_events.jpa.*;
 import com.mvt.mvt_events.jpa.CustomerPaymentPreference.PreferredPaymentType;
+import com.mvt.mvt_events.exception.DeliveryAlreadyAcceptedException;
 import com.mvt.mvt_events.payment.service.PagarMeService;
+import com.mvt.mvt_events.pricing.FeeQuoteEngine;
 import com.mvt.mvt_events.repository.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -12,6 +15,8 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
@@ -44,10 +49,21 @@ class DeliveryServiceTest {
     @Mock private PaymentService paymentService;
     @Mock private PushNotificationService pushNotificationService;
     @Mock private DeliveryStopRepository deliveryStopRepository;
+    @Mock private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks
     private DeliveryService deliveryService;
 
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void wireFeeQuoteEngine() {
+        // Motor real sobre os mocks de configuração/zonas — os testes de frete validam o cálculo de ponta a ponta
+        ReflectionTestUtils.setField(deliveryService, "feeQuoteEngine",
+                new FeeQuoteEngine(siteConfigurationService, specialZoneService));
+        ReflectionTestUtils.setField(deliveryService, "meterRegistry", meterRegistry);
+    }
+
     // ========== Helpers ==========
 
     private User makeUser(UUID id, String name, User.Role role) {
@@ -72,6 +88,16 @@ class DeliveryServiceTest {
         return c;
     }
 
+    private SpecialZone dangerZoneAt(double lat, double lng) {
+        SpecialZone z = new SpecialZone();
+        z.setZoneType(SpecialZone.ZoneType.DANGER);
+        z.setAddress("Zona Perigosa");
+        z.setLatitude(lat);
+        z.setLongitude(lng);
+        z.setRadiusMeters(300.0);
+        return z;
+    }
+
     private Delivery makeDelivery(Long id, User client) {
         Delivery d = new Delivery();
         d.setId(id);
@@ -111,7 +137,6 @@ class DeliveryServiceTest {
 
             when(userRepository.findById(clientId)).thenReturn(Optional.of(client));
             when(siteConfigurationService.getActiveConfiguration()).thenReturn(config);
-            when(specialZoneService.findNearestZone(anyDouble(), anyDouble())).thenReturn(Optional.empty());
             when(deliveryRepository.save(any(Delivery.class))).thenAnswer(inv -> {
                 Delivery d = inv.getArgument(0);
                 d.setId(1L);
@@ -139,7 +164,6 @@ class DeliveryServiceTest {
             when(userRepository.findById(adminId)).thenReturn(Optional.of(admin));
             when(userRepository.findById(clientId)).thenReturn(Optional.of(client));
             when(siteConfigurationService.getActiveConfiguration()).thenReturn(defaultConfig());
-            when(specialZoneService.findNearestZone(anyDouble(), anyDouble())).thenReturn(Optional.empty());
             when(deliveryRepository.save(any())).thenAnswer(inv -> {
                 Delivery d = inv.getArgument(0);
                 d.setId(2L);
@@ -219,7 +243,6 @@ class DeliveryServiceTest {
 
             when(userRepository.findById(clientId)).thenReturn(Optional.of(client));
             when(siteConfigurationService.getActiveConfiguration()).thenReturn(config);
-            when(specialZoneService.findNearestZone(anyDouble(), anyDouble())).thenReturn(Optional.empty());
             when(deliveryRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
 
             Delivery result = deliveryService.create(delivery, clientId, clientId);
@@ -237,7 +260,6 @@ class DeliveryServiceTest {
 
             when(userRepository.findById(clientId)).thenReturn(Optional.of(client));
             when(siteConfigurationService.getActiveConfiguration()).thenReturn(defaultConfig());
-            when(specialZoneService.findNearestZone(anyDouble(), anyDouble())).thenReturn(Optional.empty());
             when(deliveryRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
 
             Delivery result = deliveryService.create(delivery, clientId, clientId);
@@ -255,7 +277,6 @@ class DeliveryServiceTest {
 
             when(userRepository.findById(clientId)).thenReturn(Optional.of(client));
             when(siteConfigurationService.getActiveConfiguration()).thenReturn(defaultConfig());
-            when(specialZoneService.findNearestZone(anyDouble(), anyDouble())).thenReturn(Optional.empty());
             when(deliveryRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
 
             Delivery result = deliveryService.create(delivery, clientId, clientId);
@@ -289,7 +310,6 @@ class DeliveryServiceTest {
 
             when(userRepository.findById(clientId)).thenReturn(Optional.of(client));
             when(siteConfigurationService.getActiveConfiguration()).thenReturn(defaultConfig());
-            when(specialZoneService.findNearestZone(anyDouble(), anyDouble())).thenReturn(Optional.empty());
             when(deliveryRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
 
             Delivery result = deliveryService.create(delivery, clientId, clientId);
@@ -398,6 +418,9 @@ class DeliveryServiceTest {
 
             assertThat(result.getStatus()).isEqualTo(Delivery.DeliveryStatus.COMPLETED);
             assertThat(result.getCompletedAt()).isNotNull();
+            verify(eventPublisher).publishEvent(argThat((Object e) -> e instanceof DeliveryLifecycleEvent ev
+                    && ev.deliveryId() == 1L && ev.status() == Delivery.DeliveryStatus.COMPLETED
+                    && ev.completedAt() != null));
         }
 
         @Test
@@ -571,6 +594,12 @@ class DeliveryServiceTest {
     @DisplayName("assignToCourier() — Aceitação de entregas pelo courier")
     class AssignToCourierTests {
 
+        @BeforeEach
+        void claimVence() {
+            // Aceite atômico: por padrão este courier vence a corrida
+            lenient().when(deliveryRepository.claimForCourier(eq(1L), any(), any())).thenReturn(1);
+        }
+
         private Organization makeOrganization(Long id, String name, User owner) {
             Organization org = new Organization();
             org.setId(id);
@@ -672,6 +701,27 @@ class DeliveryServiceTest {
                     .hasMessageContaining("já foi aceita por outro motoboy");
         }
 
+        @Test
+        @DisplayName("Corrida perdida no UPDATE condicional: 409, nada é salvo e o contador incrementa")
+        void corridaPerdida() {
+            User client = makeUser(clientId, "Restaurante X", User.Role.CLIENT);
+            User courier = makeUser(courierId, "Pedro Moto", User.Role.COURIER);
+            Delivery delivery = makeDelivery(1L, client);
+            delivery.setStatus(Delivery.DeliveryStatus.PENDING); // lido antes do outro courier commitar
+
+            when(deliveryRepository.findByIdWithJoins(1L)).thenReturn(Optional.of(delivery));
+            when(userRepository.findById(courierId)).thenReturn(Optional.of(courier));
+            when(deliveryRepository.claimForCourier(eq(1L), eq(courierId), any())).thenReturn(0);
+
+            assertThatThrownBy(() -> deliveryService.assignToCourier(1L, courierId, null))
+                    .isInstanceOf(DeliveryAlreadyAcceptedException.class);
+
+            assertThat(meterRegistry.counter("delivery.accept.lost_race").count()).isEqualTo(1);
+            assertThat(delivery.getCourier()).isNull();
+            verify(deliveryRepository, never()).save(any());
+            verify(userRepository, never()).save(any());
+        }
+
         @Test
         @DisplayName("Usuário não-COURIER não pode aceitar delivery")
         void naoCourierNaoPodeAceitar() {
@@ -1098,7 +1148,6 @@ class DeliveryServiceTest {
 
             when(userRepository.findById(clientId)).thenReturn(Optional.of(client));
             when(siteConfigurationService.getActiveConfiguration()).thenReturn(config);
-            when(specialZoneService.findWorstZoneAcrossStops(anyList(), any())).thenReturn(Optional.empty());
             when(deliveryRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
 
             Delivery result = deliveryService.create(delivery, clientId, clientId);
@@ -1114,16 +1163,13 @@ class DeliveryServiceTest {
             Delivery delivery = makeDelivery(null, null);
             delivery.setDistanceKm(BigDecimal.valueOf(10.0));
 
-            SpecialZone dangerZone = new SpecialZone();
-            dangerZone.setZoneType(SpecialZone.ZoneType.DANGER);
-            dangerZone.setAddress("Zona Perigosa");
+            SpecialZone dangerZone = dangerZoneAt(-3.70, -40.36);
 
             SiteConfiguration config = defaultConfig();
 
             when(userRepository.findById(clientId)).thenReturn(Optional.of(client));
             when(siteConfigurationService.getActiveConfiguration()).thenReturn(config);
-            when(specialZoneService.findNearestZone(anyDouble(), anyDouble()))
-                    .thenReturn(Optional.of(dangerZone));
+            when(specialZoneService.findActiveZones()).thenReturn(List.of(dangerZone));
             when(deliveryRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
 
             Delivery result = deliveryService.create(delivery, clientId, clientId);
@@ -1151,16 +1197,13 @@ class DeliveryServiceTest {
             stops.add(stop2);
             delivery.setStops(stops);
 
-            SpecialZone dangerZone = new SpecialZone();
-            dangerZone.setZoneType(SpecialZone.ZoneType.DANGER);
-            dangerZone.setAddress("Zona Perigosa");
+            SpecialZone dangerZone = dangerZoneAt(-3.70, -40.36);
 
             SiteConfiguration config = defaultConfig();
 
             when(userRepository.findById(clientId)).thenReturn(Optional.of(client));
             when(siteConfigurationService.getActiveConfiguration()).thenReturn(config);
-            when(specialZoneService.findWorstZoneAcrossStops(anyList(), any()))
-                    .thenReturn(Optional.of(dangerZone));
+            when(specialZoneService.findActiveZones()).thenReturn(List.of(dangerZone));
             when(deliveryRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
 
             Delivery result = deliveryService.create(delivery, clientId, clientId);
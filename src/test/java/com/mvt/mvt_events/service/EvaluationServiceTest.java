@@ -1,8 +1,10 @@
 package com.mvt.mvt_events.service;
 
+import com.mvt.mvt_events.jpa.CourierRatingAggregate;
 import com.mvt.mvt_events.jpa.Delivery;
 import com.mvt.mvt_events.jpa.Evaluation;
 import com.mvt.mvt_events.jpa.User;
+import com.mvt.mvt_events.repository.CourierRatingAggregateRepository;
 import com.mvt.mvt_events.repository.DeliveryRepository;
 import com.mvt.mvt_events.repository.EvaluationRepository;
 import com.mvt.mvt_events.repository.UserRepository;
@@ -29,8 +31,8 @@ import static org.mockito.Mockito.*;
 
 /**
  * Testes unitarios do EvaluationService -- cobre create, findByDeliveryId,
- * findAll, findReceivedByCourier, getAverageRatingForCourier, findPoorRatings
- * e getRatingDistribution.
+ * findAll, findReceivedByCourier, getAverageRatingForCourier, findPoorRatings,
+ * getRatingDistribution e o agregado de rating do courier.
  */
 @ExtendWith(MockitoExtension.class)
 class EvaluationServiceTest {
@@ -38,6 +40,7 @@ class EvaluationServiceTest {
     @Mock private EvaluationRepository evaluationRepository;
     @Mock private DeliveryRepository deliveryRepository;
     @Mock private UserRepository userRepository;
+    @Mock private CourierRatingAggregateRepository ratingAggregateRepository;
 
     @InjectMocks
     private EvaluationService evaluationService;
@@ -73,6 +76,15 @@ class EvaluationServiceTest {
         return e;
     }
 
+    private CourierRatingAggregate makeAggregate(int s1, int s2, int s3, int s4, int s5) {
+        return CourierRatingAggregate.builder()
+                .courierId(courierId)
+                .ratingCount(s1 + s2 + s3 + s4 + s5)
+                .ratingSum((long) s1 + 2L * s2 + 3L * s3 + 4L * s4 + 5L * s5)
+                .stars1(s1).stars2(s2).stars3(s3).stars4(s4).stars5(s5)
+                .build();
+    }
+
     // ================================================================
     // create
     // ================================================================
@@ -100,10 +112,29 @@ class EvaluationServiceTest {
 
             assertThat(result.getDelivery()).isSameAs(delivery);
             assertThat(result.getEvaluator()).isSameAs(delivery.getClient());
+            assertThat(result.getEvaluated()).isSameAs(delivery.getCourier());
             assertThat(result.getRating()).isEqualTo(5);
             verify(evaluationRepository).save(evaluation);
         }
 
+        @Test
+        @DisplayName("Avaliacao do courier incrementa o agregado na mesma transacao")
+        void incrementaAgregadoDoCourier() {
+            Delivery delivery = makeCompletedDelivery(1L);
+            Evaluation evaluation = makeEvaluation(Evaluation.EvaluationType.CLIENT_TO_COURIER, 3);
+
+            when(deliveryRepository.findById(1L)).thenReturn(Optional.of(delivery));
+            when(evaluationRepository.existsByDeliveryId(1L)).thenReturn(false);
+            when(userRepository.findById(clientId)).thenReturn(Optional.of(delivery.getClient()));
+            when(evaluationRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+
+            evaluationService.create(evaluation, 1L, clientId);
+
+            var order = inOrder(evaluationRepository, ratingAggregateRepository);
+            order.verify(evaluationRepository).save(evaluation);
+            order.verify(ratingAggregateRepository).increment(courierId, 3);
+        }
+
         @Test
         @DisplayName("Courier avalia cliente com sucesso")
         void courierAvaliaCliente() {
@@ -118,6 +149,8 @@ class EvaluationServiceTest {
             Evaluation result = evaluationService.create(evaluation, 1L, courierId);
 
             assertThat(result.getEvaluator()).isSameAs(delivery.getCourier());
+            assertThat(result.getEvaluated()).isSameAs(delivery.getClient());
+            verifyNoInteractions(ratingAggregateRepository);
         }
 
         @Test
@@ -157,6 +190,7 @@ class EvaluationServiceTest {
             assertThatThrownBy(() -> evaluationService.create(evaluation, 1L, clientId))
                     .isInstanceOf(RuntimeException.class)
                     .hasMessageContaining("já possui avaliação");
+            verifyNoInteractions(ratingAggregateRepository);
         }
 
         @Test
@@ -328,22 +362,31 @@ class EvaluationServiceTest {
         @Test
         @DisplayName("Retorna media quando existem avaliacoes")
         void retornaMedia() {
-            when(evaluationRepository.calculateAverageRatingForCourier(courierId)).thenReturn(4.5);
+            when(ratingAggregateRepository.findById(courierId)).thenReturn(Optional.of(makeAggregate(0, 0, 0, 1, 1)));
 
             Double result = evaluationService.getAverageRatingForCourier(courierId);
 
             assertThat(result).isEqualTo(4.5);
+            verifyNoInteractions(evaluationRepository);
         }
 
         @Test
         @DisplayName("Retorna 0.0 quando nao ha avaliacoes")
         void retornaZeroQuandoNaoHa() {
-            when(evaluationRepository.calculateAverageRatingForCourier(courierId)).thenReturn(null);
+            when(ratingAggregateRepository.findById(courierId)).thenReturn(Optional.empty());
 
             Double result = evaluationService.getAverageRatingForCourier(courierId);
 
             assertThat(result).isEqualTo(0.0);
         }
+
+        @Test
+        @DisplayName("Retorna 0.0 quando o agregado esta zerado")
+        void retornaZeroComAgregadoZerado() {
+            when(ratingAggregateRepository.findById(courierId)).thenReturn(Optional.of(makeAggregate(0, 0, 0, 0, 0)));
+
+            assertThat(evaluationService.getAverageRatingForCourier(courierId)).isEqualTo(0.0);
+        }
     }
 
     // ================================================================
@@ -382,18 +425,44 @@ class EvaluationServiceTest {
         @Test
         @DisplayName("Retorna distribuicao de ratings")
         void retornaDistribuicao() {
-            List<Object[]> distribution = List.of(
-                    new Object[]{5, 10L},
-                    new Object[]{4, 5L},
-                    new Object[]{3, 2L}
-            );
-            when(evaluationRepository.countRatingDistributionForCourier(courierId)).thenReturn(distribution);
+            when(ratingAggregateRepository.findById(courierId)).thenReturn(Optional.of(makeAggregate(0, 0, 2, 5, 10)));
 
             List<Object[]> result = evaluationService.getRatingDistribution(courierId);
 
             assertThat(result).hasSize(3);
             assertThat(result.get(0)[0]).isEqualTo(5);
             assertThat(result.get(0)[1]).isEqualTo(10L);
+            assertThat(result.get(2)[0]).isEqualTo(3);
+            assertThat(result.get(2)[1]).isEqualTo(2L);
+            verifyNoInteractions(evaluationRepository);
+        }
+
+        @Test
+        @DisplayName("Retorna lista vazia quando courier nao tem agregado")
+        void retornaVaziaSemAgregado() {
+            when(ratingAggregateRepository.findById(courierId)).thenReturn(Optional.empty());
+
+            assertThat(evaluationService.getRatingDistribution(courierId)).isEmpty();
+        }
+    }
+
+    // ================================================================
+    // rebuildCourierRatingAggregates
+    // ================================================================
+
+    @Nested
+    @DisplayName("rebuildCourierRatingAggregates() -- Recalculo dos agregados")
+    class RebuildTests {
+
+        @Test
+        @DisplayName("Bloqueia incrementos, recalcula e remove orfaos, nessa ordem")
+        void recalculaComLock() {
+            evaluationService.rebuildCourierRatingAggregates();
+
+            var order = inOrder(ratingAggregateRepository);
+            order.verify(ratingAggregateRepository).lockForRebuild();
+            order.verify(ratingAggregateRepository).rebuildAll();
+            order.verify(ratingAggregateRepository).deleteOrphans();
         }
     }
 }
@@ -0,0 +1,146 @@
+package com.mvt.mvt_events.service;
+
+import com.mvt.mvt_events.jpa.FoodOrder;
+import com.mvt.mvt_events.jpa.Product;
+import com.mvt.mvt_events.jpa.StoreProfile;
+import com.mvt.mvt_events.jpa.User;
+import com.mvt.mvt_events.repository.FoodOrderRepository;
+import com.mvt.mvt_events.repository.ProductRepository;
+import com.mvt.mvt_events.repository.StoreProfileRepository;
+import com.mvt.mvt_events.repository.UserRepository;
+import com.mvt.mvt_events.sql.SqlBudget;
+import com.mvt.mvt_events.sql.SqlStats;
+import com.mvt.mvt_events.testsupport.IntegrationFixtures.Timed;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.mvt.mvt_events.testsupport.IntegrationFixtures.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Benchmark de escala do carrinho: monta pedidos de 1 a 50 itens (cada um com um
+ * adicional) contra o Postgres real e mede SQLs e tempo por pedido.
+ *
+ * Com o carregamento em lote (produtos + adicionais numa query) e ids por sequence
+ * (INSERTs em batch JDBC), a contagem de SQL fica praticamente constante — antes
+ * crescia ~3 SQLs por item (findById do produto, do adicional e INSERT individual).
+ */
+@Tag("integration")
+@SpringBootTest
+@ActiveProfiles("integration-test")
+@DisplayName("FoodOrderService — escala do carrinho (benchmark com Postgres real)")
+class FoodOrderCartBenchmarkIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(FoodOrderCartBenchmarkIntegrationTest.class);
+
+    private static final int[] CART_SIZES = {1, 5, 10, 25, 50};
+    private static final int ADDONS = 10;
+    private static final int RUNS = 5;
+    /**
+     * Teto absoluto por pedido, qualquer tamanho: autor, loja e catálogo (3 leituras),
+     * até dois nextval por tabela (orders, order_items, adicionais) e três INSERTs em lote.
+     */
+    private static final int ORDER_BUDGET = 15;
+
+    @Autowired private FoodOrderService foodOrderService;
+    @Autowired private UserRepository userRepository;
+    @Autowired private ProductRepository productRepository;
+    @Autowired private StoreProfileRepository storeProfileRepository;
+    @Autowired private FoodOrderRepository orderRepository;
+
+    private User client;
+    private final List<Product> products = new ArrayList<>();
+    private final List<Product> addons = new ArrayList<>();
+    private final List<Long> createdOrders = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        client = userRepository.save(newUser("Cart Burger", User.Role.CLIENT));
+
+        storeProfileRepository.save(StoreProfile.builder().user(client).tableOrdersEnabled(true).build());
+
+        for (int i = 0; i < 50; i++) {
+            products.add(productRepository.save(Product.builder()
+                    .client(client).name("Produto " + i).price(BigDecimal.valueOf(10 + i)).build()));
+        }
+        for (int i = 0; i < ADDONS; i++) {
+            addons.add(productRepository.save(Product.builder()
+                    .client(client).name("Adicional " + i).price(BigDecimal.valueOf(2)).isAddon(true).build()));
+        }
+    }
+
+    @AfterEach
+    void cleanup() {
+        orderRepository.deleteAllById(createdOrders);
+        productRepository.deleteAll(addons);
+        productRepository.deleteAll(products);
+        storeProfileRepository.findByUserId(client.getId()).ifPresent(storeProfileRepository::delete);
+        userRepository.delete(client);
+    }
+
+    private List<FoodOrderService.OrderItemRequest> cart(int size) {
+        List<FoodOrderService.OrderItemRequest> cart = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            FoodOrderService.OrderItemRequest req = new FoodOrderService.OrderItemRequest();
+            req.productId = products.get(i).getId();
+            req.quantity = 1;
+            FoodOrderService.AddonRequest addon = new FoodOrderService.AddonRequest();
+            addon.productId = addons.get(i % ADDONS).getId();
+            addon.quantity = 1;
+            req.addons = List.of(addon);
+            cart.add(req);
+        }
+        return cart;
+    }
+
+    private SqlStats.Snapshot placeOrder(int size) {
+        List<FoodOrderService.OrderItemRequest> cart = cart(size);
+        return SqlBudget.measure(() -> {
+            FoodOrder order = foodOrderService.createTableOrder(client.getId(), client.getId(), null, cart, null);
+            createdOrders.add(order.getId());
+        });
+    }
+
+    @Test
+    @DisplayName("SQLs por pedido não crescem com o tamanho do carrinho (1 → 50 itens)")
+    void escalaDoCarrinho() throws Exception {
+        warmUp(1, () -> placeOrder(5));
+
+        Map<Integer, Timed<SqlStats.Snapshot>> results = new LinkedHashMap<>();
+        for (int size : CART_SIZES) {
+            results.put(size, time(() -> {
+                SqlStats.Snapshot last = null;
+                for (int run = 0; run < RUNS; run++) {
+                    last = placeOrder(size);
+                }
+                return last;
+            }));
+        }
+
+        results.forEach((size, t) -> log.info("carrinho de {} itens: {} SQLs, {} entidades, JDBC {} ms, {} ms/pedido",
+                size, t.result().statements(), t.result().entities(), t.result().jdbcMillis(),
+                String.format("%.1f", t.millis() / RUNS)));
+
+        // Sequence com passo 50 pode custar um nextval extra por tabela no carrinho maior
+        assertThat(results.get(50).result().statements())
+                .as("SQLs do carrinho de 50 itens vs 1 item")
+                .isLessThanOrEqualTo(results.get(1).result().statements() + 4);
+        results.forEach((size, t) -> assertThat(t.result().statements())
+                .as("SQLs do carrinho de %d itens", size)
+                .isLessThanOrEqualTo(ORDER_BUDGET));
+    }
+}
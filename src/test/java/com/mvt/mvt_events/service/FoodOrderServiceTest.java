@@ -1,6 +1,7 @@
 package com.mvt.mvt_events.service;
 
 import com.mvt.mvt_events.jpa.*;
+import com.mvt.mvt_events.pricing.FeeQuoteEngine;
 import com.mvt.mvt_events.repository.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -11,6 +12,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
@@ -38,11 +40,20 @@ class FoodOrderServiceTest {
     @Mock private DeliveryStopRepository deliveryStopRepository;
     @Mock private PushNotificationService pushNotificationService;
     @Mock private SiteConfigurationService siteConfigurationService;
+    @Mock private SpecialZoneService specialZoneService;
     @Mock private GoogleDirectionsService googleDirectionsService;
+    @Mock private OrderBoardService orderBoardService;
+    @Mock private CashRegisterService cashRegisterService;
 
     @InjectMocks
     private FoodOrderService foodOrderService;
 
+    @BeforeEach
+    void wireFeeQuoteEngine() {
+        ReflectionTestUtils.setField(foodOrderService, "feeQuoteEngine",
+                new FeeQuoteEngine(siteConfigurationService, specialZoneService));
+    }
+
     // UUIDs fixos
     private final UUID clientId = UUID.fromString("00000000-0000-0000-0000-000000000001");
     private final UUID customerId = UUID.fromString("00000000-0000-0000-0000-000000000002");
@@ -420,7 +431,7 @@ class FoodOrderServiceTest {
     // ================================================================
 
     @Nested
-    @DisplayName("onDeliveryStatusChanged() — callback sincroniza status")
+    @DisplayName("onDeliveryLifecycle() — listener sincroniza status")
     class StatusCallback {
 
         private FoodOrder order;
@@ -446,7 +457,7 @@ class FoodOrderServiceTest {
             when(orderRepository.findByDeliveryId(100L)).thenReturn(Optional.of(order));
 
             Delivery d = makeDeliveryWithStatus(Delivery.DeliveryStatus.ACCEPTED);
-            foodOrderService.onDeliveryStatusChanged(d);
+            foodOrderService.onDeliveryLifecycle(DeliveryLifecycleEvent.of(d));
 
             assertThat(order.getStatus()).isEqualTo(FoodOrder.OrderStatus.DELIVERING);
         }
@@ -457,7 +468,7 @@ class FoodOrderServiceTest {
             when(orderRepository.findByDeliveryId(100L)).thenReturn(Optional.of(order));
 
             Delivery d = makeDeliveryWithStatus(Delivery.DeliveryStatus.IN_TRANSIT);
-            foodOrderService.onDeliveryStatusChanged(d);
+            foodOrderService.onDeliveryLifecycle(DeliveryLifecycleEvent.of(d));
 
             assertThat(order.getStatus()).isEqualTo(FoodOrder.OrderStatus.DELIVERING);
         }
@@ -472,7 +483,7 @@ class FoodOrderServiceTest {
             OffsetDateTime completedAt = OffsetDateTime.now();
             d.setCompletedAt(completedAt);
 
-            foodOrderService.onDeliveryStatusChanged(d);
+            foodOrderService.onDeliveryLifecycle(DeliveryLifecycleEvent.of(d));
 
             assertThat(order.getStatus()).isEqualTo(FoodOrder.OrderStatus.COMPLETED);
             assertThat(order.getCompletedAt()).isEqualTo(completedAt);
@@ -488,7 +499,7 @@ class FoodOrderServiceTest {
             d.setCancelledAt(OffsetDateTime.now());
             d.setCancellationReason("Sem courier disponível");
 
-            foodOrderService.onDeliveryStatusChanged(d);
+            foodOrderService.onDeliveryLifecycle(DeliveryLifecycleEvent.of(d));
 
             assertThat(order.getStatus()).isEqualTo(FoodOrder.OrderStatus.READY);
         }
@@ -500,7 +511,7 @@ class FoodOrderServiceTest {
             when(orderRepository.findByDeliveryId(100L)).thenReturn(Optional.of(order));
 
             Delivery d = makeDeliveryWithStatus(Delivery.DeliveryStatus.PENDING);
-            foodOrderService.onDeliveryStatusChanged(d);
+            foodOrderService.onDeliveryLifecycle(DeliveryLifecycleEvent.of(d));
 
             assertThat(order.getStatus()).isEqualTo(FoodOrder.OrderStatus.READY);
         }
@@ -511,7 +522,7 @@ class FoodOrderServiceTest {
             when(orderRepository.findByDeliveryId(100L)).thenReturn(Optional.empty());
 
             Delivery d = makeDeliveryWithStatus(Delivery.DeliveryStatus.ACCEPTED);
-            foodOrderService.onDeliveryStatusChanged(d);
+            foodOrderService.onDeliveryLifecycle(DeliveryLifecycleEvent.of(d));
 
             verify(orderRepository, never()).save(any());
         }
@@ -522,7 +533,7 @@ class FoodOrderServiceTest {
             when(orderRepository.findByDeliveryId(100L)).thenReturn(Optional.of(order));
 
             Delivery d = makeDeliveryWithStatus(Delivery.DeliveryStatus.WAITING_PAYMENT);
-            foodOrderService.onDeliveryStatusChanged(d);
+            foodOrderService.onDeliveryLifecycle(DeliveryLifecycleEvent.of(d));
 
             assertThat(order.getStatus()).isEqualTo(FoodOrder.OrderStatus.READY);
             verify(orderRepository, never()).save(any());
@@ -535,7 +546,7 @@ class FoodOrderServiceTest {
             when(orderRepository.findByDeliveryId(100L)).thenReturn(Optional.of(order));
 
             Delivery d = makeDeliveryWithStatus(Delivery.DeliveryStatus.IN_TRANSIT);
-            foodOrderService.onDeliveryStatusChanged(d);
+            foodOrderService.onDeliveryLifecycle(DeliveryLifecycleEvent.of(d));
 
             // DELIVERING → DELIVERING = sem mudança
             verify(orderRepository, never()).save(any());
@@ -630,7 +641,7 @@ class FoodOrderServiceTest {
             when(userRepository.findById(customerId)).thenReturn(Optional.of(customer));
             when(userRepository.findById(clientId)).thenReturn(Optional.of(client));
             when(storeProfileRepository.findByUserId(clientId)).thenReturn(Optional.empty());
-            when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+            when(productRepository.findByClientIdAndIdIn(eq(clientId), any())).thenReturn(List.of(product));
             when(siteConfigurationService.getActiveConfiguration()).thenReturn(siteConfig);
             when(orderRepository.save(any(FoodOrder.class))).thenAnswer(inv -> {
                 FoodOrder o = inv.getArgument(0);
@@ -774,4 +785,172 @@ class FoodOrderServiceTest {
                     .hasMessageContaining("endereço de entrega");
         }
     }
+
+    // ================================================================
+    // MONTAGEM DO CARRINHO EM LOTE
+    // ================================================================
+
+    @Nested
+    @DisplayName("create() — produtos e adicionais carregados numa query só")
+    class CartAssembly {
+
+        private User client;
+
+        @BeforeEach
+        void setup() {
+            client = makeClient();
+            client.setEnabled(true);
+            client.setBankAccount(new BankAccount());
+
+            SiteConfiguration config = new SiteConfiguration();
+            config.setMinOrderDistanceMeters(0);
+            config.setPricePerKm(BigDecimal.valueOf(1.50));
+            config.setMinimumShippingFee(BigDecimal.valueOf(5.00));
+
+            when(userRepository.findById(customerId)).thenReturn(Optional.of(makeCustomer()));
+            when(userRepository.findById(clientId)).thenReturn(Optional.of(client));
+            when(storeProfileRepository.findByUserId(clientId)).thenReturn(Optional.empty());
+            when(siteConfigurationService.getActiveConfiguration()).thenReturn(config);
+            when(orderRepository.save(any(FoodOrder.class))).thenAnswer(inv -> inv.getArgument(0));
+        }
+
+        private Product available(long id, String price) {
+            Product p = makeProduct(id, "Produto " + id, new BigDecimal(price));
+            p.setAvailable(true);
+            p.setClient(client);
+            return p;
+        }
+
+        private FoodOrderService.OrderItemRequest itemReq(long productId, int qty, long... addonIds) {
+            FoodOrderService.OrderItemRequest req = new FoodOrderService.OrderItemRequest();
+            req.productId = productId;
+            req.quantity = qty;
+            if (addonIds.length > 0) {
+                req.addons = new ArrayList<>();
+                for (long addonId : addonIds) {
+                    FoodOrderService.AddonRequest ar = new FoodOrderService.AddonRequest();
+                    ar.productId = addonId;
+                    ar.quantity = 1;
+                    req.addons.add(ar);
+                }
+            }
+            return req;
+        }
+
+        @Test
+        @DisplayName("Itens + adicionais: uma query escopada no restaurante, preço em memória")
+        @SuppressWarnings("unchecked")
+        void umaQuery() {
+            when(productRepository.findByClientIdAndIdIn(eq(clientId), any()))
+                    .thenReturn(List.of(available(1, "20.00"), available(2, "15.00"), available(9, "3.00")));
+
+            FoodOrder order = foodOrderService.create(customerId, clientId,
+                    List.of(itemReq(1, 2, 9), itemReq(2, 1), itemReq(1, 1, 9, 9)), null, "Rua X", DEST_LAT, DEST_LNG);
+
+            // 2×20 + 3 + 15 + 20 + 2×3
+            assertThat(order.getSubtotal()).isEqualByComparingTo("84.00");
+            assertThat(order.getItems()).hasSize(3);
+            ArgumentCaptor<Collection<Long>> ids = ArgumentCaptor.forClass(Collection.class);
+            verify(productRepository, times(1)).findByClientIdAndIdIn(eq(clientId), ids.capture());
+            assertThat(ids.getValue()).containsExactlyInAnyOrder(1L, 2L, 9L);
+            verify(productRepository, never()).findById(any());
+        }
+
+        @Test
+        @DisplayName("Produto de outro restaurante não vem na query e é recusado")
+        void produtoDeOutroRestaurante() {
+            when(productRepository.findByClientIdAndIdIn(eq(clientId), any())).thenReturn(List.of(available(1, "20.00")));
+            when(productRepository.existsById(7L)).thenReturn(true);
+
+            assertThatThrownBy(() -> foodOrderService.create(customerId, clientId,
+                    List.of(itemReq(1, 1), itemReq(7, 1)), null, "Rua X", DEST_LAT, DEST_LNG))
+                    .isInstanceOf(RuntimeException.class)
+                    .hasMessageContaining("não pertence a este restaurante");
+            verify(orderRepository, never()).save(any(FoodOrder.class));
+        }
+
+        @Test
+        @DisplayName("Adicional indisponível é recusado")
+        void adicionalIndisponivel() {
+            Product addon = available(9, "3.00");
+            addon.setAvailable(false);
+            when(productRepository.findByClientIdAndIdIn(eq(clientId), any()))
+                    .thenReturn(List.of(available(1, "20.00"), addon));
+
+            assertThatThrownBy(() -> foodOrderService.create(customerId, clientId,
+                    List.of(itemReq(1, 1, 9)), null, "Rua X", DEST_LAT, DEST_LNG))
+                    .isInstanceOf(RuntimeException.class)
+                    .hasMessageContaining("não está disponível");
+        }
+
+        @Test
+        @DisplayName("Escala do carrinho (1→50 itens): queries constantes")
+        void escalaDoCarrinho() {
+            List<Product> catalog = new ArrayList<>();
+            for (long id = 1; id <= 60; id++) catalog.add(available(id, "10.00"));
+            when(productRepository.findByClientIdAndIdIn(eq(clientId), any())).thenReturn(catalog);
+
+            for (int size : new int[]{1, 5, 10, 25, 50}) {
+                clearInvocations(productRepository);
+                List<FoodOrderService.OrderItemRequest> cart = new ArrayList<>();
+                for (int i = 0; i < size; i++) cart.add(itemReq(1 + i, 1, 51 + (i % 10)));
+
+                FoodOrder order = foodOrderService.create(customerId, clientId, cart, null, "Rua X", DEST_LAT, DEST_LNG);
+
+                assertThat(order.getItems()).hasSize(size);
+                verify(productRepository, times(1)).findByClientIdAndIdIn(eq(clientId), any());
+                verifyNoMoreInteractions(productRepository);
+            }
+        }
+    }
+
+    // ================================================================
+    // QUADRO AO VIVO — ALTERAÇÕES DE ITEM
+    // ================================================================
+
+    @Nested
+    @DisplayName("Itens — alterações chegam ao quadro ao vivo")
+    class ItemBoardDelta {
+
+        private FoodOrder order;
+
+        @BeforeEach
+        void setup() {
+            order = makeOrder(makeClient(), makeCustomer());
+            for (int i = 0; i < order.getItems().size(); i++) {
+                order.getItems().get(i).setId(10L + i);
+            }
+            when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+            when(orderRepository.save(any(FoodOrder.class))).thenAnswer(inv -> inv.getArgument(0));
+        }
+
+        @Test
+        @DisplayName("setItemPackaged publica o card atualizado")
+        void empacotarPublica() {
+            foodOrderService.setItemPackaged(1L, 10L, true);
+
+            assertThat(order.getItems().get(0).getPackaged()).isTrue();
+            verify(orderBoardService).publish(order);
+        }
+
+        @Test
+        @DisplayName("moveItemToCommand publica o card atualizado")
+        void moverPublica() {
+            OrderItem item = order.getItems().get(1);
+            item.setCommand(OrderCommand.builder().id(5L).build());
+
+            foodOrderService.moveItemToCommand(1L, 11L, null);
+
+            assertThat(item.getCommandId()).isNull();
+            verify(orderBoardService).publish(order);
+        }
+
+        @Test
+        @DisplayName("moveItemToCommand sem mudança de comanda não publica")
+        void moverNoOpNaoPublica() {
+            foodOrderService.moveItemToCommand(1L, 11L, null);
+
+            verify(orderBoardService, never()).publish(any());
+        }
+    }
 }
@@ -0,0 +1,72 @@
+package com.mvt.mvt_events.service;
+
+import com.mvt.mvt_events.http.OutboundHttpClients;
+import com.mvt.mvt_events.http.OutboundProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Cobre o cache da distância rodável usada na validação de distância mínima do pedido.
+ */
+@ExtendWith(MockitoExtension.class)
+class GoogleDirectionsServiceTest {
+
+    private static final String OK_1200M =
+            "{\"status\":\"OK\",\"routes\":[{\"legs\":[{\"distance\":{\"value\":1200}}]}]}";
+
+    @Mock private OutboundHttpClients outboundHttpClients;
+    @Mock private RestTemplate restTemplate;
+
+    private GoogleDirectionsService service;
+
+    @BeforeEach
+    void setup() {
+        when(outboundHttpClients.restTemplate(OutboundProvider.GOOGLE)).thenReturn(restTemplate);
+        service = new GoogleDirectionsService(outboundHttpClients);
+        ReflectionTestUtils.setField(service, "apiKey", "test-key");
+    }
+
+    @Test
+    @DisplayName("Mesmo par de coordenadas (até ~1m de diferença) reutiliza a distância em cache")
+    void reutilizaCache() {
+        when(restTemplate.getForObject(anyString(), eq(String.class))).thenReturn(OK_1200M);
+
+        assertThat(service.getDistanceMeters(-3.73200, -38.52700, -3.85400, -40.92200)).isEqualTo(1200);
+        assertThat(service.getDistanceMeters(-3.732001, -38.527001, -3.854, -40.922)).isEqualTo(1200);
+
+        verify(restTemplate, times(1)).getForObject(anyString(), eq(String.class));
+    }
+
+    @Test
+    @DisplayName("Falha (-1) não é cacheada")
+    void falhaNaoCacheada() {
+        when(restTemplate.getForObject(anyString(), eq(String.class)))
+                .thenReturn("{\"status\":\"ZERO_RESULTS\"}", OK_1200M);
+
+        assertThat(service.getDistanceMeters(-3.732, -38.527, -3.854, -40.922)).isEqualTo(-1);
+        assertThat(service.getDistanceMeters(-3.732, -38.527, -3.854, -40.922)).isEqualTo(1200);
+    }
+
+    @Test
+    @DisplayName("Cache expirado consulta de novo")
+    void expira() {
+        ReflectionTestUtils.setField(service, "distanceCacheTtlMs", -1L);
+        when(restTemplate.getForObject(anyString(), eq(String.class))).thenReturn(OK_1200M);
+
+        service.getDistanceMeters(-3.732, -38.527, -3.854, -40.922);
+        service.getDistanceMeters(-3.732, -38.527, -3.854, -40.922);
+
+        verify(restTemplate, times(2)).getForObject(anyString(), eq(String.class));
+    }
+}
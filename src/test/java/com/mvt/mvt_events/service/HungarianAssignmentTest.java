@@ -0,0 +1,159 @@
+package com.mvt.mvt_events.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Testes do HungarianAssignment: ótimo contra força bruta, matrizes retangulares,
+ * pares proibidos e qualidade no 200×200 (Java puro, sem banco). Tempo: HungarianBenchmark (src/jmh).
+ */
+class HungarianAssignmentTest {
+
+    private static final double X = HungarianAssignment.FORBIDDEN;
+
+    /** Menor custo possível por força bruta, maximizando antes o número de pares viáveis. */
+    private static double[] bruteForce(double[][] cost) {
+        int rows = cost.length, cols = cost[0].length;
+        double[] best = {-1, Double.MAX_VALUE}; // {pares, custo}
+        search(cost, 0, new boolean[cols], 0, 0, best, rows);
+        return best;
+    }
+
+    private static void search(double[][] cost, int row, boolean[] usedCols, int pairs, double total,
+                               double[] best, int rows) {
+        if (row == rows) {
+            if (pairs > best[0] || (pairs == best[0] && total < best[1] - 1e-9)) {
+                best[0] = pairs;
+                best[1] = total;
+            }
+            return;
+        }
+        search(cost, row + 1, usedCols, pairs, total, best, rows); // linha sem par
+        for (int c = 0; c < usedCols.length; c++) {
+            if (usedCols[c] || cost[row][c] == X) continue;
+            usedCols[c] = true;
+            search(cost, row + 1, usedCols, pairs + 1, total + cost[row][c], best, rows);
+            usedCols[c] = false;
+        }
+    }
+
+    private static double[][] randomMatrix(Random random, int rows, int cols, double forbiddenRate) {
+        double[][] cost = new double[rows][cols];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                cost[i][j] = random.nextDouble() < forbiddenRate ? X : random.nextDouble() * 10;
+            }
+        }
+        return cost;
+    }
+
+    private static int pairs(int[] assignment) {
+        int n = 0;
+        for (int c : assignment) if (c >= 0) n++;
+        return n;
+    }
+
+    /** Guloso: cada linha pega a coluna livre mais barata (referência do "cada um por si"). */
+    private static int[] greedy(double[][] cost) {
+        boolean[] used = new boolean[cost[0].length];
+        int[] result = new int[cost.length];
+        for (int i = 0; i < cost.length; i++) {
+            int best = -1;
+            for (int j = 0; j < used.length; j++) {
+                if (!used[j] && cost[i][j] != X && (best < 0 || cost[i][j] < cost[i][best])) best = j;
+            }
+            result[i] = best;
+            if (best >= 0) used[best] = true;
+        }
+        return result;
+    }
+
+    @Test
+    @DisplayName("Exemplo clássico 3×3: custo mínimo 5")
+    void exemploClassico() {
+        double[][] cost = {
+                {4, 1, 3},
+                {2, 0, 5},
+                {3, 2, 2},
+        };
+
+        int[] assignment = HungarianAssignment.solve(cost);
+
+        assertThat(assignment).containsExactly(1, 0, 2);
+        assertThat(HungarianAssignment.totalCost(cost, assignment)).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("Bate com a força bruta em 300 matrizes aleatórias (quadradas, retangulares, com proibidos)")
+    void igualForcaBruta() {
+        Random random = new Random(11);
+        for (int run = 0; run < 300; run++) {
+            double[][] cost = randomMatrix(random, 1 + random.nextInt(6), 1 + random.nextInt(6), run % 3 == 0 ? 0.4 : 0);
+
+            int[] assignment = HungarianAssignment.solve(cost);
+            double[] expected = bruteForce(cost);
+
+            assertThat(pairs(assignment)).isEqualTo((int) expected[0]);
+            assertThat(HungarianAssignment.totalCost(cost, assignment)).isCloseTo(expected[1], within(1e-6));
+        }
+    }
+
+    @Test
+    @DisplayName("Mais linhas que colunas: sobra fica -1 e nenhuma coluna repete")
+    void retangular() {
+        double[][] cost = {
+                {1, 9},
+                {9, 1},
+                {5, 5},
+        };
+
+        int[] assignment = HungarianAssignment.solve(cost);
+
+        assertThat(assignment).containsExactly(0, 1, -1);
+    }
+
+    @Test
+    @DisplayName("Par proibido nunca é atribuído, mesmo sobrando linha")
+    void proibido() {
+        double[][] cost = {
+                {X, X},
+                {3, X},
+        };
+
+        assertThat(HungarianAssignment.solve(cost)).containsExactly(-1, 0);
+    }
+
+    @Test
+    @DisplayName("Custos negativos: par proibido não compensa, mesmo liberando pares baratos")
+    void custosNegativos() {
+        // O ótimo viável é a diagonal (3 pares, custo 30). Com o par proibido (2,0), as linhas
+        // 0 e 1 ficariam com -10 cada — mais barato só se o proibido custar menos que ~50.
+        double[][] cost = {
+                {10, -10, X},
+                {X, 10, -10},
+                {X, X, 10},
+        };
+
+        assertThat(HungarianAssignment.solve(cost)).containsExactly(0, 1, 2);
+    }
+
+    @Test
+    @DisplayName("200×200: pelo menos tantos pares quanto o guloso, com custo médio menor")
+    void melhorQueGuloso200x200() {
+        Random random = new Random(3);
+        double[][] cost = randomMatrix(random, 200, 200, 0.2);
+
+        int[] assignment = HungarianAssignment.solve(cost);
+        int[] greedy = greedy(cost);
+        double optimal = HungarianAssignment.totalCost(cost, assignment);
+        double greedyCost = HungarianAssignment.totalCost(cost, greedy);
+
+        assertThat(pairs(assignment)).isGreaterThanOrEqualTo(pairs(greedy));
+        assertThat(optimal / pairs(assignment)).isLessThan(greedyCost / pairs(greedy));
+    }
+}
@@ -0,0 +1,300 @@
+package com.mvt.mvt_events.service;
+
+import com.mvt.mvt_events.jpa.FoodOrder;
+import com.mvt.mvt_events.jpa.OrderItem;
+import com.mvt.mvt_events.jpa.RestaurantTable;
+import com.mvt.mvt_events.jpa.User;
+import com.mvt.mvt_events.repository.FoodOrderRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Cobre o quadro ao vivo de pedidos: carga única, aplicação de deltas,
+ * remoção de pedidos finalizados e derivação do status das mesas.
+ */
+@ExtendWith(MockitoExtension.class)
+class OrderBoardServiceTest {
+
+    @Mock private FoodOrderRepository orderRepository;
+
+    @InjectMocks
+    private OrderBoardService boardService;
+
+    private final UUID clientId = UUID.fromString("00000000-0000-0000-0000-000000000002");
+
+    // ========== Helpers ==========
+
+    private User client() {
+        User u = new User();
+        u.setId(clientId);
+        u.setName("Restaurante X");
+        u.setRole(User.Role.CLIENT);
+        return u;
+    }
+
+    private RestaurantTable table(long id, int number) {
+        RestaurantTable t = new RestaurantTable();
+        t.setId(id);
+        t.setNumber(number);
+        return t;
+    }
+
+    private FoodOrder order(long id, FoodOrder.OrderStatus status, RestaurantTable table) {
+        FoodOrder o = new FoodOrder();
+        o.setId(id);
+        o.setClient(client());
+        o.setStatus(status);
+        o.setTable(table);
+        o.setOrderType(table != null ? FoodOrder.OrderType.TABLE : FoodOrder.OrderType.DELIVERY);
+        o.setTotal(BigDecimal.valueOf(42));
+        return o;
+    }
+
+    private OrderItem item(int quantity) {
+        OrderItem i = new OrderItem();
+        i.setQuantity(quantity);
+        return i;
+    }
+
+    private OrderBoardService.BoardSnapshot openBoard(FoodOrder... existing) {
+        when(orderRepository.findBoardOrdersByClientId(clientId)).thenReturn(new ArrayList<>(List.of(existing)));
+        when(orderRepository.sumBoardItemQuantitiesByClientId(clientId)).thenReturn(List.of());
+        boardService.subscribe(clientId);
+        return boardService.currentSnapshot(clientId);
+    }
+
+    // ================================================================
+
+    @Nested
+    @DisplayName("Carga do quadro")
+    class LoadTests {
+
+        @Test
+        @DisplayName("Carrega do banco uma vez; reconexões usam o snapshot em memória")
+        void carregaUmaVez() {
+            openBoard(order(1, FoodOrder.OrderStatus.PLACED, null));
+            boardService.subscribe(clientId);
+            boardService.subscribe(clientId);
+
+            verify(orderRepository, times(1)).findBoardOrdersByClientId(clientId);
+            assertThat(boardService.currentSnapshot(clientId).orders()).hasSize(1);
+        }
+
+        @Test
+        @DisplayName("Quantidade de itens vem da query agregada")
+        void contagemDeItens() {
+            when(orderRepository.findBoardOrdersByClientId(clientId))
+                    .thenReturn(List.of(order(7, FoodOrder.OrderStatus.ACCEPTED, null)));
+            when(orderRepository.sumBoardItemQuantitiesByClientId(clientId))
+                    .thenReturn(List.<Object[]>of(new Object[]{7L, 3L}));
+
+            boardService.subscribe(clientId);
+
+            assertThat(boardService.currentSnapshot(clientId).orders().get(0).itemCount()).isEqualTo(3);
+        }
+    }
+
+    @Nested
+    @DisplayName("Deltas")
+    class DeltaTests {
+
+        @Test
+        @DisplayName("Sem tela conectada, publish não faz nada")
+        void semQuadroAberto() {
+            boardService.publish(order(1, FoodOrder.OrderStatus.PLACED, null));
+
+            assertThat(boardService.currentSnapshot(clientId)).isNull();
+            verify(orderRepository, never()).findBoardOrdersByClientId(any());
+        }
+
+        @Test
+        @DisplayName("Pedido novo entra no quadro e incrementa a versão")
+        void pedidoNovo() {
+            long before = openBoard().version();
+
+            FoodOrder created = order(10, FoodOrder.OrderStatus.PLACED, null);
+            created.getItems().add(item(2));
+            boardService.publish(created);
+
+            OrderBoardService.BoardSnapshot snap = boardService.currentSnapshot(clientId);
+            assertThat(snap.version()).isEqualTo(before + 1);
+            assertThat(snap.orders()).extracting(OrderBoardService.OrderCard::id).containsExactly(10L);
+            assertThat(snap.orders().get(0).itemCount()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("Pedido finalizado sai do quadro e libera a mesa")
+        void finalizadoSaiDoQuadro() {
+            RestaurantTable mesa = table(5, 12);
+            openBoard(order(1, FoodOrder.OrderStatus.DELIVERING, mesa));
+            assertThat(boardService.currentSnapshot(clientId).tables()).containsEntry(5L, FoodOrder.OrderStatus.DELIVERING);
+
+            boardService.publish(order(1, FoodOrder.OrderStatus.COMPLETED, mesa));
+
+            OrderBoardService.BoardSnapshot snap = boardService.currentSnapshot(clientId);
+            assertThat(snap.orders()).isEmpty();
+            assertThat(snap.tables()).doesNotContainKey(5L);
+        }
+
+        @Test
+        @DisplayName("Mudança de status atualiza o card e o status da mesa")
+        void mudancaDeStatus() {
+            RestaurantTable mesa = table(5, 12);
+            openBoard(order(1, FoodOrder.OrderStatus.PLACED, mesa));
+
+            boardService.publish(order(1, FoodOrder.OrderStatus.READY, mesa));
+
+            OrderBoardService.BoardSnapshot snap = boardService.currentSnapshot(clientId);
+            assertThat(snap.orders().get(0).status()).isEqualTo(FoodOrder.OrderStatus.READY);
+            assertThat(snap.tables()).containsEntry(5L, FoodOrder.OrderStatus.READY);
+        }
+
+        @Test
+        @DisplayName("Mesa com dois pedidos ativos mostra o mais antigo")
+        void mesaComDoisPedidos() {
+            RestaurantTable mesa = table(5, 12);
+            openBoard(order(1, FoodOrder.OrderStatus.DELIVERING, mesa));
+
+            boardService.publish(order(2, FoodOrder.OrderStatus.PLACED, mesa));
+
+            assertThat(boardService.currentSnapshot(clientId).tables()).containsEntry(5L, FoodOrder.OrderStatus.DELIVERING);
+        }
+
+        @Test
+        @DisplayName("Itens não carregados mantêm a contagem anterior")
+        void itensNaoCarregados() {
+            when(orderRepository.findBoardOrdersByClientId(clientId))
+                    .thenReturn(List.of(order(7, FoodOrder.OrderStatus.ACCEPTED, null)));
+            when(orderRepository.sumBoardItemQuantitiesByClientId(clientId))
+                    .thenReturn(List.<Object[]>of(new Object[]{7L, 4L}));
+            boardService.subscribe(clientId);
+
+            FoodOrder update = order(7, FoodOrder.OrderStatus.PREPARING, null);
+            update.setItems(null);
+            boardService.publish(update);
+
+            OrderBoardService.OrderCard card = boardService.currentSnapshot(clientId).orders().get(0);
+            assertThat(card.status()).isEqualTo(FoodOrder.OrderStatus.PREPARING);
+            assertThat(card.itemCount()).isEqualTo(4);
+        }
+    }
+
+    @Nested
+    @DisplayName("Ressincronização")
+    class ResyncTests {
+
+        @Test
+        @DisplayName("resync relê do banco e substitui os cards")
+        void resyncSubstitui() {
+            openBoard(order(1, FoodOrder.OrderStatus.PLACED, null));
+            when(orderRepository.findBoardOrdersByClientId(clientId))
+                    .thenReturn(List.of(order(2, FoodOrder.OrderStatus.ACCEPTED, null)));
+
+            boardService.resync();
+
+            assertThat(boardService.currentSnapshot(clientId).orders())
+                    .extracting(OrderBoardService.OrderCard::id).containsExactly(2L);
+        }
+    }
+
+    @Nested
+    @DisplayName("Poll entre instâncias")
+    class PollTests {
+
+        private void changedElsewhere(FoodOrder... orders) {
+            when(orderRepository.findBoardChangesByClientId(eq(clientId), any())).thenReturn(List.of(orders));
+        }
+
+        @Test
+        @DisplayName("Pedido alterado em outra instância vira delta com a contagem de itens do banco")
+        void mudancaRemota() {
+            openBoard(order(1, FoodOrder.OrderStatus.PLACED, table(10, 1)));
+            changedElsewhere(order(1, FoodOrder.OrderStatus.PREPARING, table(10, 1)));
+            when(orderRepository.sumItemQuantitiesByOrderIds(List.of(1L)))
+                    .thenReturn(List.<Object[]>of(new Object[]{1L, 3L}));
+
+            boardService.pollChanges();
+
+            OrderBoardService.BoardSnapshot snap = boardService.currentSnapshot(clientId);
+            assertThat(snap.version()).isEqualTo(1);
+            assertThat(snap.orders()).singleElement().satisfies(card -> {
+                assertThat(card.status()).isEqualTo(FoodOrder.OrderStatus.PREPARING);
+                assertThat(card.itemCount()).isEqualTo(3);
+            });
+            assertThat(snap.tables()).containsEntry(10L, FoodOrder.OrderStatus.PREPARING);
+        }
+
+        @Test
+        @DisplayName("Card igual ao do quadro (mutação local já publicada) não gera delta")
+        void semMudanca() {
+            FoodOrder existing = order(1, FoodOrder.OrderStatus.PLACED, null);
+            existing.setTotal(new BigDecimal("42.00"));
+            openBoard(order(1, FoodOrder.OrderStatus.PLACED, null));
+            changedElsewhere(existing);
+
+            boardService.pollChanges();
+
+            assertThat(boardService.currentSnapshot(clientId).version()).isZero();
+        }
+
+        @Test
+        @DisplayName("Finalizado em outra instância sai do quadro; finalizado fora do quadro é ignorado")
+        void finalizadoRemoto() {
+            openBoard(order(1, FoodOrder.OrderStatus.PLACED, null));
+            changedElsewhere(order(1, FoodOrder.OrderStatus.COMPLETED, null),
+                    order(2, FoodOrder.OrderStatus.CANCELLED, null));
+
+            boardService.pollChanges();
+
+            OrderBoardService.BoardSnapshot snap = boardService.currentSnapshot(clientId);
+            assertThat(snap.orders()).isEmpty();
+            assertThat(snap.version()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Cursor começa na carga e avança a cada poll, relendo a janela de sobreposição")
+        void cursorAvanca() {
+            OffsetDateTime beforeLoad = OffsetDateTime.now();
+            openBoard();
+            changedElsewhere();
+
+            boardService.pollChanges();
+            OffsetDateTime beforeSecondPoll = OffsetDateTime.now();
+            boardService.pollChanges();
+
+            ArgumentCaptor<OffsetDateTime> since = ArgumentCaptor.forClass(OffsetDateTime.class);
+            verify(orderRepository, times(2)).findBoardChangesByClientId(eq(clientId), since.capture());
+            assertThat(since.getAllValues().get(0))
+                    .isAfterOrEqualTo(beforeLoad.minus(OrderBoardService.POLL_OVERLAP));
+            assertThat(since.getAllValues().get(1))
+                    .isAfterOrEqualTo(since.getAllValues().get(0))
+                    .isBeforeOrEqualTo(beforeSecondPoll.minus(OrderBoardService.POLL_OVERLAP));
+            verify(orderRepository, never()).sumItemQuantitiesByOrderIds(any());
+        }
+
+        @Test
+        @DisplayName("Sem tela conectada não consulta o banco")
+        void semQuadroAberto() {
+            boardService.pollChanges();
+
+            verifyNoInteractions(orderRepository);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.mvt.mvt_events.service;
+
+import com.mvt.mvt_events.jpa.Delivery;
+import com.mvt.mvt_events.jpa.Payment;
+import com.mvt.mvt_events.jpa.PaymentMethod;
+import com.mvt.mvt_events.jpa.PaymentStatus;
+import com.mvt.mvt_events.jpa.User;
+import com.mvt.mvt_events.repository.DeliveryRepository;
+import com.mvt.mvt_events.repository.PaymentRepository;
+import com.mvt.mvt_events.repository.UserRepository;
+import com.mvt.mvt_events.sql.SqlBudget;
+import com.mvt.mvt_events.sql.SqlStats;
+import com.mvt.mvt_events.testsupport.IntegrationFixtures.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.mvt.mvt_events.testsupport.IntegrationFixtures.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Benchmark antes/depois da consolidação de 500 deliveries num único Payment contra o
+ * Postgres real: associação (linhas de payment_deliveries) + confirmação do pagamento
+ * (paymentCaptured em todas as deliveries).
+ *
+ * <ul>
+ *   <li>antes: batch JDBC desligado na sessão e paymentCaptured atualizado delivery por
+ *       delivery — um INSERT e um UPDATE por linha</li>
+ *   <li>depois: batch JDBC da configuração (INSERTs agrupados, reescritos em multi-VALUES
+ *       pelo driver) + UPDATE único via {@code markPaymentCapturedByPaymentId}</li>
+ * </ul>
+ */
+@Tag("integration")
+@SpringBootTest
+@ActiveProfiles("integration-test")
+@DisplayName("Pagamento consolidado — 500 deliveries (benchmark com Postgres real)")
+class PaymentConsolidationBenchmarkIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentConsolidationBenchmarkIntegrationTest.class);
+
+    private static final int DELIVERIES = 500;
+
+    @Autowired private DeliveryRepository deliveryRepository;
+    @Autowired private PaymentRepository paymentRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private TransactionTemplate tx;
+    private User client;
+    private final List<Long> deliveryIds = new ArrayList<>();
+    private final List<Long> paymentIds = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        tx = new TransactionTemplate(transactionManager);
+
+        client = userRepository.save(newUser("Cliente Consolidado", User.Role.CLIENT));
+
+        List<Delivery> deliveries = new ArrayList<>();
+        for (int i = 0; i < DELIVERIES; i++) {
+            Delivery d = new Delivery();
+            d.setClient(client);
+            d.setFromAddress("Origem " + i);
+            d.setToAddress("Destino " + i);
+            d.setStatus(Delivery.DeliveryStatus.COMPLETED);
+            d.setShippingFee(BigDecimal.valueOf(7.50));
+            d.setTotalAmount(BigDecimal.valueOf(7.50));
+            deliveries.add(d);
+        }
+        deliveryRepository.saveAll(deliveries).forEach(d -> deliveryIds.add(d.getId()));
+    }
+
+    @AfterEach
+    void cleanup() {
+        paymentRepository.deleteAllById(paymentIds);
+        deliveryRepository.deleteAllById(deliveryIds);
+        userRepository.delete(client);
+    }
+
+    /** Cria o Payment consolidado e confirma o pagamento, dentro de uma transação. */
+    private SqlStats.Snapshot consolidate(boolean bulk) {
+        return SqlBudget.measure(() -> tx.executeWithoutResult(status -> {
+            if (!bulk) {
+                entityManager.unwrap(Session.class).setJdbcBatchSize(1);
+            }
+            List<Delivery> deliveries = deliveryRepository.findAllById(deliveryIds);
+
+            Payment payment = new Payment();
+            payment.setPayer(client);
+            payment.setAmount(BigDecimal.valueOf(7.50).multiply(BigDecimal.valueOf(DELIVERIES)));
+            payment.setPaymentMethod(PaymentMethod.PIX);
+            payment.setStatus(PaymentStatus.PAID);
+            deliveries.forEach(payment::addDelivery);
+            paymentIds.add(paymentRepository.save(payment).getId());
+            entityManager.flush();
+
+            if (bulk) {
+                deliveryRepository.markPaymentCapturedByPaymentId(payment.getId(), true, OffsetDateTime.now());
+            } else {
+                for (Delivery d : deliveries) {
+                    d.setPaymentCaptured(true);
+                    deliveryRepository.save(d);
+                }
+            }
+        }));
+    }
+
+    private void resetCaptured() {
+        tx.executeWithoutResult(status -> deliveryRepository.findAllById(deliveryIds)
+                .forEach(d -> d.setPaymentCaptured(false)));
+    }
+
+    @Test
+    @DisplayName("Consolidar e confirmar 500 deliveries: batch + UPDATE único vs linha a linha")
+    void antesEDepois() throws Exception {
+        warmUp(1, () -> {
+            consolidate(true);
+            resetCaptured();
+        });
+
+        Timed<SqlStats.Snapshot> before = time(() -> consolidate(false));
+        resetCaptured();
+        Timed<SqlStats.Snapshot> after = time(() -> consolidate(true));
+
+        log.info("{} deliveries — linha a linha: {} SQLs, JDBC {} ms, {} ms | em lote: {} SQLs, JDBC {} ms, {} ms",
+                DELIVERIES, before.result().statements(), before.result().jdbcMillis(), Math.round(before.millis()),
+                after.result().statements(), after.result().jdbcMillis(), Math.round(after.millis()));
+
+        // Só a troca dos 500 UPDATEs pelo UPDATE único já corta mais da metade
+        assertThat(after.result().statements())
+                .as("SQLs da consolidação em lote vs linha a linha")
+                .isLessThan(before.result().statements() / 2);
+    }
+}
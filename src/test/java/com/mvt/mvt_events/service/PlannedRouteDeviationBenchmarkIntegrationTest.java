@@ -0,0 +1,128 @@
+package com.mvt.mvt_events.service;
+
+import com.mvt.mvt_events.jpa.Delivery;
+import com.mvt.mvt_events.jpa.User;
+import com.mvt.mvt_events.repository.DeliveryRepository;
+import com.mvt.mvt_events.repository.UserRepository;
+import com.mvt.mvt_events.testsupport.IntegrationFixtures.Timed;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Random;
+
+import static com.mvt.mvt_events.testsupport.IntegrationFixtures.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Benchmark da checagem de desvio por ping de GPS numa rota de 500 pontos:
+ * {@code ST_Distance} no PostGIS (antes) vs {@link RoutePolyline} em memória (depois).
+ * Também confere que as duas distâncias batem.
+ */
+@Tag("integration")
+@SpringBootTest
+@ActiveProfiles("integration-test")
+@DisplayName("Desvio da rota planejada — 500 pontos, PostGIS vs memória (Postgres real)")
+class PlannedRouteDeviationBenchmarkIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(PlannedRouteDeviationBenchmarkIntegrationTest.class);
+
+    private static final int ROUTE_POINTS = 500;
+    private static final int PINGS = 1_000;
+
+    @Autowired private DeliveryRepository deliveryRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    private User client;
+    private Delivery delivery;
+    private List<double[]> route;
+    private double[][] pings;
+
+    @BeforeEach
+    void setup() {
+        client = userRepository.save(newUser("Route Client", User.Role.CLIENT));
+
+        Delivery d = new Delivery();
+        d.setClient(client);
+        d.setFromAddress("Origem");
+        d.setToAddress("Destino");
+        d.setStatus(Delivery.DeliveryStatus.IN_TRANSIT);
+        d.setShippingFee(BigDecimal.valueOf(9));
+        delivery = deliveryRepository.save(d);
+
+        route = RoutePolylineTest.zigZagRoute(ROUTE_POINTS);
+        StringBuilder wkt = new StringBuilder("LINESTRING(");
+        for (int i = 0; i < route.size(); i++) {
+            if (i > 0) wkt.append(",");
+            wkt.append(route.get(i)[1]).append(" ").append(route.get(i)[0]);
+        }
+        wkt.append(")");
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                deliveryRepository.updatePlannedRoute(delivery.getId(), wkt.toString()));
+
+        Random random = new Random(7);
+        pings = new double[PINGS][];
+        for (int i = 0; i < PINGS; i++) {
+            double[] base = route.get(random.nextInt(route.size()));
+            pings[i] = new double[]{base[0] + (random.nextDouble() - 0.5) * 0.004,
+                    base[1] + (random.nextDouble() - 0.5) * 0.004};
+        }
+    }
+
+    @AfterEach
+    void cleanup() {
+        deliveryRepository.deleteById(delivery.getId());
+        userRepository.delete(client);
+    }
+
+    @Test
+    @DisplayName("1000 pings: distância em memória bate com o ST_Distance e sai sem ida ao banco")
+    void antesEDepois() throws Exception {
+        RoutePolyline polyline = RoutePolyline.fromGeoJson(deliveryRepository.getPlannedRouteAsGeoJson(delivery.getId()));
+        assertThat(polyline.size()).isEqualTo(ROUTE_POINTS);
+
+        int[] ping = {0};
+        warmUp(100, () -> {
+            double[] p = pings[ping[0]++];
+            deliveryRepository.getDistanceFromPlannedRouteMeters(delivery.getId(), p[0], p[1]);
+            polyline.distanceMeters(p[0], p[1]);
+        });
+
+        Timed<double[]> db = time(() -> {
+            double[] distances = new double[PINGS];
+            for (int i = 0; i < PINGS; i++) {
+                distances[i] = deliveryRepository.getDistanceFromPlannedRouteMeters(delivery.getId(), pings[i][0], pings[i][1]);
+            }
+            return distances;
+        });
+        Timed<double[]> mem = time(() -> {
+            double[] distances = new double[PINGS];
+            for (int i = 0; i < PINGS; i++) {
+                distances[i] = polyline.distanceMeters(pings[i][0], pings[i][1]);
+            }
+            return distances;
+        });
+
+        log.info("desvio ({} pings, rota de {} pontos): PostGIS {} ms | memória {} ms",
+                PINGS, ROUTE_POINTS, String.format("%.1f", db.millis()), String.format("%.2f", mem.millis()));
+
+        for (int i = 0; i < PINGS; i++) {
+            // geography (elipsoide) vs plano local: diferença bem abaixo do limiar de 100 m
+            assertThat(mem.result()[i]).isCloseTo(db.result()[i], within(db.result()[i] * 0.01 + 1.0));
+        }
+        assertThat(mem.millis()).isLessThan(db.millis());
+    }
+}
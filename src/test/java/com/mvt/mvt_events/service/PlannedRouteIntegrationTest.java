@@ -1,5 +1,7 @@
 package com.mvt.mvt_events.service;
 
+import com.mvt.mvt_events.http.OutboundHttpClients;
+import com.mvt.mvt_events.http.OutboundProvider;
 import com.mvt.mvt_events.jpa.Delivery;
 import com.mvt.mvt_events.jpa.DeliveryStop;
 import com.mvt.mvt_events.repository.DeliveryRepository;
@@ -14,6 +16,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
 
 import java.util.List;
 
@@ -65,15 +68,21 @@ class PlannedRouteIntegrationTest {
     @Mock
     private DeliveryStopRepository deliveryStopRepository;
 
+    @Mock
+    private OutboundHttpClients outboundHttpClients;
+
     @InjectMocks
     private PlannedRouteService plannedRouteService;
 
     @BeforeEach
     void setUp() {
         // Usa GoogleDirectionsService real (não mockado) com a API key do mobile
-        googleDirectionsService = new GoogleDirectionsService();
+        when(outboundHttpClients.restTemplate(OutboundProvider.GOOGLE)).thenReturn(new RestTemplate());
+        googleDirectionsService = new GoogleDirectionsService(outboundHttpClients);
         ReflectionTestUtils.setField(googleDirectionsService, "apiKey", API_KEY);
         ReflectionTestUtils.setField(plannedRouteService, "googleDirectionsService", googleDirectionsService);
+        // Instância única: o claim compartilhado (route_recalc_claims) sempre é concedido
+        lenient().when(deliveryRepository.claimRouteRecalculation(anyLong(), anyString(), anyLong())).thenReturn(1);
     }
 
     // -----------------------------------------------------------------------
@@ -4,6 +4,7 @@ import com.mvt.mvt_events.jpa.Delivery;
 import com.mvt.mvt_events.jpa.DeliveryStop;
 import com.mvt.mvt_events.repository.DeliveryRepository;
 import com.mvt.mvt_events.repository.DeliveryStopRepository;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -13,8 +14,10 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.*;
@@ -24,11 +27,12 @@ import static org.mockito.Mockito.*;
  * Unit tests for PlannedRouteService.
  *
  * Google Directions is mocked — we verify:
- *  - Nearest-neighbor stop ordering
- *  - Open-route fallback (first stop as destination fails → tries next)
+ *  - Optimized stop ordering sent as a single ordered Directions request
+ *  - Chained fallback when the ordered request fails
  *  - Cooldown: no double recalculation within 60s
  *  - Cooldown released when Google returns empty (to allow retry)
  *  - Approach route (ACCEPTED) created and updated independently of planned_route
+ *  - Shared claim (route_recalc_claims): only the instance that wins it calls Google
  */
 @ExtendWith(MockitoExtension.class)
 @ActiveProfiles("test")
@@ -57,6 +61,12 @@ class PlannedRouteServiceTest {
     private static final double COURIER_LAT = -3.850;
     private static final double COURIER_LNG = -40.920;
 
+    @BeforeEach
+    void setUp() {
+        // Single instance by default: the shared claim is always granted
+        lenient().when(deliveryRepository.claimRouteRecalculation(anyLong(), anyString(), anyLong())).thenReturn(1);
+    }
+
     // ---------------------------------------------------------------------------
     // Helpers
     // ---------------------------------------------------------------------------
@@ -82,56 +92,58 @@ class PlannedRouteServiceTest {
     }
 
     // ---------------------------------------------------------------------------
-    // Nearest-Neighbor Ordering
+    // Stop ordering
     // ---------------------------------------------------------------------------
 
     @Nested
-    @DisplayName("Nearest-neighbor ordering")
-    class NearestNeighborTests {
+    @DisplayName("Stop ordering")
+    class StopOrderingTests {
 
         @Test
-        @DisplayName("Stops são ordenados do mais próximo ao mais distante do courier")
-        void stopsOrderedByNearestNeighbor() {
-            // Stop A: 500m do courier
-            // Stop B: 200m do courier — mais próximo
-            // Stop C: 1km do courier, mas perto de B — vai depois de B pelo NN
-            DeliveryStop stopA = stop(1L, -3.854, -40.920); // ~400m south
-            DeliveryStop stopB = stop(2L, -3.852, -40.920); // ~200m south — nearest
-            DeliveryStop stopC = stop(3L, -3.856, -40.925); // ~700m SW — farthest from courier, nearest from B
+        @DisplayName("Stops seguem a ordem otimizada: waypoints em sequência, último stop como destino")
+        void stopsInOptimizedOrder() {
+            // Stop A: ~450m south
+            // Stop B: ~220m south — nearest
+            // Stop C: ~700m SW — farthest from courier, visited last
+            DeliveryStop stopA = stop(1L, -3.854, -40.920);
+            DeliveryStop stopB = stop(2L, -3.852, -40.920);
+            DeliveryStop stopC = stop(3L, -3.856, -40.925);
 
             Delivery d = delivery(1L, List.of(stopA, stopB, stopC));
 
             // No existing route → recalculates immediately
             when(deliveryRepository.getPlannedRouteAsGeoJson(1L)).thenReturn(null);
-            when(googleDirectionsService.getRoute(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyList()))
+            when(googleDirectionsService.getRoute(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyList(), anyBoolean()))
                     .thenReturn(FAKE_ROUTE);
             when(deliveryStopRepository.maxCompletionOrder(1L)).thenReturn(0);
 
             service.handleDeliveryRouteUpdate(d, COURIER_LAT, COURIER_LNG);
 
-            // Capture the destination used in the first (successful) Google call
-            ArgumentCaptor<Double> destLatCaptor = ArgumentCaptor.forClass(Double.class);
-            ArgumentCaptor<Double> destLngCaptor = ArgumentCaptor.forClass(Double.class);
-            verify(googleDirectionsService, atLeastOnce())
-                    .getRoute(anyDouble(), anyDouble(), destLatCaptor.capture(), destLngCaptor.capture(), anyList());
-
-            // The first call should use stopB (nearest) as destination
-            assertThat(destLatCaptor.getAllValues().get(0)).isEqualTo(stopB.getLatitude());
+            @SuppressWarnings("unchecked")
+            ArgumentCaptor<List<double[]>> waypoints = ArgumentCaptor.forClass(List.class);
+            verify(googleDirectionsService).getRoute(eq(COURIER_LAT), eq(COURIER_LNG),
+                    eq(stopC.getLatitude()), eq(stopC.getLongitude()), waypoints.capture(), eq(false));
+
+            assertThat(waypoints.getValue()).extracting(p -> p[0])
+                    .containsExactly(stopB.getLatitude(), stopA.getLatitude());
+            // completionOrder planejado segue a mesma ordem
+            verify(deliveryStopRepository).updatePlannedOrder(2L, 1);
+            verify(deliveryStopRepository).updatePlannedOrder(1L, 2);
+            verify(deliveryStopRepository).updatePlannedOrder(3L, 3);
         }
     }
 
     // ---------------------------------------------------------------------------
-    // Open-Route Fallback
+    // Directions requests
     // ---------------------------------------------------------------------------
 
     @Nested
-    @DisplayName("Open-route fallback")
+    @DisplayName("Directions requests")
     class OpenRouteTests {
 
         @Test
-        @DisplayName("Quando primeiro destino falha, tenta o segundo e persiste a rota")
-        void fallsBackToSecondStopWhenFirstDestinationFails() {
-            // Nearest stop (A) fails as destination; next stop (B) succeeds
+        @DisplayName("Quando a rota ordenada falha, encadeia trechos ponto a ponto e persiste")
+        void fallsBackToChainWhenOrderedRouteFails() {
             DeliveryStop stopA = stop(1L, -3.852, -40.920); // nearest
             DeliveryStop stopB = stop(2L, -3.855, -40.922); // farthest
 
@@ -139,28 +151,16 @@ class PlannedRouteServiceTest {
             when(deliveryRepository.getPlannedRouteAsGeoJson(1L)).thenReturn(null);
             when(deliveryStopRepository.maxCompletionOrder(1L)).thenReturn(0);
 
-            // First call (stopA as destination) → NOT_FOUND (empty)
-            // Second call (stopB as destination) → OK
-            when(googleDirectionsService.getRoute(
-                    anyDouble(), anyDouble(),
-                    eq(stopA.getLatitude()), eq(stopA.getLongitude()),
-                    anyList()))
-                    .thenReturn(List.of()); // NOT_FOUND simulado
-
-            when(googleDirectionsService.getRoute(
-                    anyDouble(), anyDouble(),
-                    eq(stopB.getLatitude()), eq(stopB.getLongitude()),
-                    anyList()))
-                    .thenReturn(FAKE_ROUTE); // OK
+            // Request com waypoint → NOT_FOUND; trechos sem waypoint → OK
+            when(googleDirectionsService.getRoute(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyList(), anyBoolean()))
+                    .thenAnswer(inv -> inv.<List<?>>getArgument(4).isEmpty() ? FAKE_ROUTE : List.of());
 
             service.handleDeliveryRouteUpdate(d, COURIER_LAT, COURIER_LNG);
 
-            // Rota deve ter sido persistida
             verify(deliveryRepository).updatePlannedRoute(eq(1L), anyString());
-
-            // Dois attempts ao Google: primeiro falha, segundo sucede
-            verify(googleDirectionsService, times(2))
-                    .getRoute(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyList());
+            // 1 request ordenado + 2 trechos (antes: até 2 tentativas de destino + 2 trechos)
+            verify(googleDirectionsService, times(3))
+                    .getRoute(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyList(), anyBoolean());
         }
 
         @Test
@@ -173,7 +173,7 @@ class PlannedRouteServiceTest {
             when(deliveryRepository.getPlannedRouteAsGeoJson(1L)).thenReturn(null);
 
             // Todos os destinos retornam NOT_FOUND
-            when(googleDirectionsService.getRoute(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyList()))
+            when(googleDirectionsService.getRoute(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyList(), anyBoolean()))
                     .thenReturn(List.of());
 
             service.handleDeliveryRouteUpdate(d, COURIER_LAT, COURIER_LNG);
@@ -191,12 +191,12 @@ class PlannedRouteServiceTest {
 
             // Google foi chamado novamente (cooldown não está bloqueando)
             verify(googleDirectionsService, atLeast(3))
-                    .getRoute(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyList());
+                    .getRoute(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyList(), anyBoolean());
         }
 
         @Test
-        @DisplayName("Quando primeiro destino funciona, apenas uma chamada ao Google")
-        void onlyOneGoogleCallWhenFirstDestinationSucceeds() {
+        @DisplayName("Rota ordenada funciona: apenas uma chamada ao Google")
+        void onlyOneGoogleCallWhenOrderedRouteSucceeds() {
             DeliveryStop stopA = stop(1L, -3.852, -40.920);
             DeliveryStop stopB = stop(2L, -3.855, -40.922);
             DeliveryStop stopC = stop(3L, -3.858, -40.924);
@@ -205,15 +205,15 @@ class PlannedRouteServiceTest {
             when(deliveryRepository.getPlannedRouteAsGeoJson(1L)).thenReturn(null);
             when(deliveryStopRepository.maxCompletionOrder(1L)).thenReturn(0);
 
-            // Primeiro stop como destino já funciona
-            when(googleDirectionsService.getRoute(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyList()))
+            // Request na ordem otimizada já funciona
+            when(googleDirectionsService.getRoute(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyList(), anyBoolean()))
                     .thenReturn(FAKE_ROUTE);
 
             service.handleDeliveryRouteUpdate(d, COURIER_LAT, COURIER_LNG);
 
-            // Apenas 1 chamada ao Google (parou no primeiro sucesso)
+            // Apenas 1 chamada ao Google (sem sondar destinos)
             verify(googleDirectionsService, times(1))
-                    .getRoute(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyList());
+                    .getRoute(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyList(), anyBoolean());
 
             verify(deliveryRepository).updatePlannedRoute(eq(1L), anyString());
         }
@@ -236,7 +236,7 @@ class PlannedRouteServiceTest {
             // Rota já existe
             when(deliveryRepository.getPlannedRouteAsGeoJson(1L)).thenReturn("existing");
             when(deliveryStopRepository.maxCompletionOrder(1L)).thenReturn(0);
-            when(googleDirectionsService.getRoute(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyList()))
+            when(googleDirectionsService.getRoute(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyList(), anyBoolean()))
                     .thenReturn(FAKE_ROUTE);
             // Desvio detectado → acima do threshold
             when(deliveryRepository.getDistanceFromPlannedRouteMeters(1L, COURIER_LAT, COURIER_LNG))
@@ -245,12 +245,12 @@ class PlannedRouteServiceTest {
             // Primeira chamada: recalcula e seta cooldown
             service.handleDeliveryRouteUpdate(d, COURIER_LAT, COURIER_LNG);
             verify(googleDirectionsService, times(1))
-                    .getRoute(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyList());
+                    .getRoute(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyList(), anyBoolean());
 
             // Segunda chamada imediata: cooldown ativo → Google NÃO deve ser chamado
             service.handleDeliveryRouteUpdate(d, COURIER_LAT, COURIER_LNG);
             verify(googleDirectionsService, times(1)) // ainda apenas 1
-                    .getRoute(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyList());
+                    .getRoute(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyList(), anyBoolean());
         }
 
         @Test
@@ -261,14 +261,14 @@ class PlannedRouteServiceTest {
 
             when(deliveryRepository.getPlannedRouteAsGeoJson(1L)).thenReturn("existing");
             when(deliveryStopRepository.maxCompletionOrder(1L)).thenReturn(0);
-            when(googleDirectionsService.getRoute(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyList()))
+            when(googleDirectionsService.getRoute(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyList(), anyBoolean()))
                     .thenReturn(FAKE_ROUTE);
             when(deliveryRepository.getDistanceFromPlannedRouteMeters(1L, COURIER_LAT, COURIER_LNG))
                     .thenReturn(200.0);
 
             service.handleDeliveryRouteUpdate(d, COURIER_LAT, COURIER_LNG);
             verify(googleDirectionsService, times(1))
-                    .getRoute(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyList());
+                    .getRoute(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyList(), anyBoolean());
 
             // Limpa cooldown (simula entrega concluída / reinício)
             service.clearCooldown(1L);
@@ -276,7 +276,92 @@ class PlannedRouteServiceTest {
             // Nova chamada após clear: deve recalcular
             service.handleDeliveryRouteUpdate(d, COURIER_LAT, COURIER_LNG);
             verify(googleDirectionsService, times(2))
-                    .getRoute(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyList());
+                    .getRoute(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyList(), anyBoolean());
+        }
+    }
+
+    // ---------------------------------------------------------------------------
+    // Shared claim (single-flight across instances)
+    // ---------------------------------------------------------------------------
+
+    @Nested
+    @DisplayName("Claim compartilhado entre instâncias")
+    class SharedClaimTests {
+
+        private static final String GEOJSON =
+                "{\"type\":\"LineString\",\"coordinates\":[[-40.920,-3.850],[-40.920,-3.860]]}";
+
+        @Test
+        @DisplayName("Claim com outra instância: não chama o Google e recarrega a rota persistida no próximo ping")
+        void claimPerdidoNaoChamaGoogle() {
+            DeliveryStop stopA = stop(1L, -3.852, -40.920);
+            Delivery d = delivery(1L, List.of(stopA));
+            when(deliveryRepository.getPlannedRouteAsGeoJson(1L)).thenReturn(GEOJSON);
+            when(deliveryRepository.claimRouteRecalculation(1L, PlannedRouteService.PLANNED_ROUTE, 20L)).thenReturn(0);
+
+            service.handleDeliveryRouteUpdate(d, -3.855, -40.923); // ~330 m da rota → desvio
+
+            verify(googleDirectionsService, never()).getRoute(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyList(), anyBoolean());
+            verify(deliveryRepository, never()).updatePlannedRoute(anyLong(), anyString());
+
+            // Depois do cooldown local, a rota vem de novo do banco (a outra instância já a trocou)
+            ((Map<?, ?>) ReflectionTestUtils.getField(service, "lastRecalculation")).clear();
+            service.handleDeliveryRouteUpdate(d, -3.855, -40.920);
+            verify(deliveryRepository, times(2)).getPlannedRouteAsGeoJson(1L);
+        }
+
+        @Test
+        @DisplayName("Dentro do cooldown local, nem o claim vai ao banco")
+        void cooldownLocalEvitaClaim() {
+            Delivery d = delivery(1L, List.of());
+            when(deliveryRepository.getApproachPlannedRouteAsGeoJson(1L)).thenReturn(GEOJSON);
+            when(googleDirectionsService.getRoute(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyList(), anyBoolean()))
+                    .thenReturn(FAKE_ROUTE);
+
+            service.handleApproachRouteUpdate(d, -3.855, -40.923);
+            service.handleApproachRouteUpdate(d, -3.855, -40.930);
+
+            verify(deliveryRepository, times(1))
+                    .claimRouteRecalculation(1L, PlannedRouteService.APPROACH_ROUTE, 20L);
+        }
+
+        @Test
+        @DisplayName("Directions falha → claim compartilhado é liberado para outra instância tentar")
+        void falhaLiberaClaim() {
+            Delivery d = delivery(1L, List.of());
+            when(deliveryRepository.getApproachPlannedRouteAsGeoJson(1L)).thenReturn(null);
+            when(googleDirectionsService.getRoute(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyList(), anyBoolean()))
+                    .thenReturn(List.of());
+
+            service.handleApproachRouteUpdate(d, COURIER_LAT, COURIER_LNG);
+
+            verify(deliveryRepository).releaseRouteRecalculation(1L, PlannedRouteService.APPROACH_ROUTE);
+        }
+
+        @Test
+        @DisplayName("Erro no claim (banco): recalcula com o cooldown local, como antes")
+        void erroNoClaimUsaCooldownLocal() {
+            DeliveryStop stopA = stop(1L, -3.852, -40.920);
+            Delivery d = delivery(1L, List.of(stopA));
+            when(deliveryRepository.getPlannedRouteAsGeoJson(1L)).thenReturn(null);
+            when(deliveryStopRepository.maxCompletionOrder(1L)).thenReturn(0);
+            when(deliveryRepository.claimRouteRecalculation(anyLong(), anyString(), anyLong()))
+                    .thenThrow(new IllegalStateException("relation \"route_recalc_claims\" does not exist"));
+            when(googleDirectionsService.getRoute(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyList(), anyBoolean()))
+                    .thenReturn(FAKE_ROUTE);
+
+            service.handleDeliveryRouteUpdate(d, COURIER_LAT, COURIER_LNG);
+
+            verify(deliveryRepository).updatePlannedRoute(eq(1L), anyString());
+        }
+
+        @Test
+        @DisplayName("Conclusão da delivery apaga os claims compartilhados")
+        void conclusaoApagaClaims() {
+            service.onDeliveryLifecycle(new DeliveryLifecycleEvent(1L, Delivery.DeliveryStatus.COMPLETED,
+                    null, null, null, null, null, null));
+
+            verify(deliveryRepository).deleteRouteRecalculationClaims(1L);
         }
     }
 
@@ -294,7 +379,7 @@ class PlannedRouteServiceTest {
             Delivery d = delivery(1L, List.of());
 
             when(deliveryRepository.getApproachPlannedRouteAsGeoJson(1L)).thenReturn(null);
-            when(googleDirectionsService.getRoute(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyList()))
+            when(googleDirectionsService.getRoute(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyList(), anyBoolean()))
                     .thenReturn(FAKE_ROUTE);
 
             service.handleApproachRouteUpdate(d, COURIER_LAT, COURIER_LNG);
@@ -308,7 +393,7 @@ class PlannedRouteServiceTest {
             Delivery d = delivery(1L, List.of());
 
             when(deliveryRepository.getApproachPlannedRouteAsGeoJson(1L)).thenReturn(null);
-            when(googleDirectionsService.getRoute(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyList()))
+            when(googleDirectionsService.getRoute(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyList(), anyBoolean()))
                     .thenReturn(FAKE_ROUTE);
 
             service.handleApproachRouteUpdate(d, COURIER_LAT, COURIER_LNG);
@@ -325,7 +410,7 @@ class PlannedRouteServiceTest {
             // Abastece cooldown do planned_route
             when(deliveryRepository.getPlannedRouteAsGeoJson(1L)).thenReturn(null);
             when(deliveryStopRepository.maxCompletionOrder(1L)).thenReturn(0);
-            when(googleDirectionsService.getRoute(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyList()))
+            when(googleDirectionsService.getRoute(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyList(), anyBoolean()))
                     .thenReturn(FAKE_ROUTE);
             service.handleDeliveryRouteUpdate(d, COURIER_LAT, COURIER_LNG);
 
@@ -344,7 +429,7 @@ class PlannedRouteServiceTest {
 
             when(deliveryRepository.getApproachPlannedRouteAsGeoJson(1L)).thenReturn(null);
             // Primeira tentativa falha
-            when(googleDirectionsService.getRoute(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyList()))
+            when(googleDirectionsService.getRoute(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyList(), anyBoolean()))
                     .thenReturn(List.of());
 
             service.handleApproachRouteUpdate(d, COURIER_LAT, COURIER_LNG);
@@ -353,7 +438,7 @@ class PlannedRouteServiceTest {
             verify(deliveryRepository, never()).updateApproachPlannedRoute(anyLong(), anyString());
 
             // Segunda tentativa: rota ainda null → deve tentar de novo (cooldown liberado)
-            when(googleDirectionsService.getRoute(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyList()))
+            when(googleDirectionsService.getRoute(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyList(), anyBoolean()))
                     .thenReturn(FAKE_ROUTE);
 
             service.handleApproachRouteUpdate(d, COURIER_LAT, COURIER_LNG);
@@ -378,7 +463,7 @@ class PlannedRouteServiceTest {
 
             when(deliveryRepository.getPlannedRouteAsGeoJson(1L)).thenReturn(null);
             when(deliveryStopRepository.maxCompletionOrder(1L)).thenReturn(0);
-            when(googleDirectionsService.getRoute(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyList()))
+            when(googleDirectionsService.getRoute(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyList(), anyBoolean()))
                     .thenReturn(FAKE_ROUTE);
 
             service.handleDeliveryRouteUpdate(d, COURIER_LAT, COURIER_LNG);
@@ -393,4 +478,70 @@ class PlannedRouteServiceTest {
             assertThat(wkt).contains("-40.91 -3.85");
         }
     }
+
+    // ---------------------------------------------------------------------------
+    // In-memory route cache
+    // ---------------------------------------------------------------------------
+
+    @Nested
+    @DisplayName("Cache da rota em memória")
+    class RouteCacheTests {
+
+        private static final String GEOJSON =
+                "{\"type\":\"LineString\",\"coordinates\":[[-40.920,-3.850],[-40.920,-3.860]]}";
+
+        @Test
+        @DisplayName("Após persistir a rota, pings seguintes não vão ao banco")
+        void pingsUsamCache() {
+            DeliveryStop stopA = stop(1L, -3.852, -40.920);
+            Delivery d = delivery(1L, List.of(stopA));
+            when(deliveryRepository.getPlannedRouteAsGeoJson(1L)).thenReturn(null);
+            when(deliveryStopRepository.maxCompletionOrder(1L)).thenReturn(0);
+            when(googleDirectionsService.getRoute(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyList(), anyBoolean()))
+                    .thenReturn(FAKE_ROUTE);
+
+            service.handleDeliveryRouteUpdate(d, COURIER_LAT, COURIER_LNG);
+            // zera só o cooldown, pra a checagem de desvio rodar de fato
+            ((Map<?, ?>) ReflectionTestUtils.getField(service, "lastRecalculation")).clear();
+            service.handleDeliveryRouteUpdate(d, -3.86, -40.92); // em cima da rota
+
+            verify(deliveryRepository, times(1)).getPlannedRouteAsGeoJson(1L);
+            verify(deliveryRepository, never()).getDistanceFromPlannedRouteMeters(anyLong(), anyDouble(), anyDouble());
+        }
+
+        @Test
+        @DisplayName("Rota existente é decodificada uma vez; desvio > 100m recalcula sem ST_Distance")
+        void carregaDoBancoUmaVez() {
+            DeliveryStop stopA = stop(1L, -3.852, -40.920);
+            Delivery d = delivery(1L, List.of(stopA));
+            when(deliveryRepository.getApproachPlannedRouteAsGeoJson(1L)).thenReturn(GEOJSON);
+
+            service.handleApproachRouteUpdate(d, -3.855, -40.9201); // ~11 m da rota
+            service.handleApproachRouteUpdate(d, -3.855, -40.9202);
+            verify(googleDirectionsService, never()).getRoute(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyList(), anyBoolean());
+
+            when(googleDirectionsService.getRoute(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyList(), anyBoolean()))
+                    .thenReturn(FAKE_ROUTE);
+            service.handleApproachRouteUpdate(d, -3.855, -40.923); // ~330 m da rota
+
+            verify(deliveryRepository, times(1)).getApproachPlannedRouteAsGeoJson(1L);
+            verify(deliveryRepository, never()).getDistanceFromApproachPlannedRouteMeters(anyLong(), anyDouble(), anyDouble());
+            verify(deliveryRepository).updateApproachPlannedRoute(eq(1L), anyString());
+        }
+
+        @Test
+        @DisplayName("Conclusão da delivery descarta a rota em memória")
+        void conclusaoDescarta() {
+            DeliveryStop stopA = stop(1L, -3.852, -40.920);
+            Delivery d = delivery(1L, List.of(stopA));
+            when(deliveryRepository.getPlannedRouteAsGeoJson(1L)).thenReturn(GEOJSON);
+
+            service.handleDeliveryRouteUpdate(d, -3.855, -40.920);
+            service.onDeliveryLifecycle(new DeliveryLifecycleEvent(1L, Delivery.DeliveryStatus.COMPLETED,
+                    null, null, null, null, null, null));
+            service.handleDeliveryRouteUpdate(d, -3.855, -40.920);
+
+            verify(deliveryRepository, times(2)).getPlannedRouteAsGeoJson(1L);
+        }
+    }
 }
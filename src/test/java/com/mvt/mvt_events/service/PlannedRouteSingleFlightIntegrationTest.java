@@ -0,0 +1,182 @@
+package com.mvt.mvt_events.service;
+
+import com.mvt.mvt_events.jpa.Delivery;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.mvt.mvt_events.testsupport.IntegrationFixtures.*;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Duas instâncias da aplicação (node-a e node-b) contra o mesmo Postgres e um stub local do
+ * Google Directions que conta as chamadas: pings de GPS da mesma delivery nas duas
+ * instâncias geram um único recálculo por janela de cooldown (route_recalc_claims), e uma
+ * falha no Directions libera o claim para a outra instância tentar.
+ *
+ * As deliveries usam ids negativos (inexistentes): o claim não tem FK e o UPDATE da rota
+ * simplesmente não afeta linhas.
+ */
+@Tag("integration")
+@DisplayName("PlannedRouteService — single-flight do recálculo entre duas instâncias")
+class PlannedRouteSingleFlightIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(PlannedRouteSingleFlightIntegrationTest.class);
+
+    private static final int LATENCY_MS = 200;
+    private static final int PINGS_PER_NODE = 10;
+
+    private static final String OK_ROUTE =
+            "{\"status\":\"OK\",\"routes\":[{\"legs\":[{\"steps\":[{\"polyline\":{\"points\":\"_p~iF~ps|U_ulLnnqC_mqNvxq`@\"}}]}]}]}";
+    private static final String ZERO_RESULTS = "{\"status\":\"ZERO_RESULTS\",\"routes\":[]}";
+
+    private static final AtomicInteger directionsCalls = new AtomicInteger();
+    private static final AtomicReference<String> directionsResponse = new AtomicReference<>(OK_ROUTE);
+
+    private static HttpServer stub;
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    private PlannedRouteService a;
+    private PlannedRouteService b;
+    private JdbcTemplate jdbcTemplate;
+    private final ExecutorService pool = Executors.newFixedThreadPool(2);
+
+    private static ConfigurableApplicationContext start(String instanceId, String directionsUrl) {
+        return startInstance(instanceId, Map.of(
+                "google.maps.api-key", "it-key",
+                "google.directions.url", directionsUrl));
+    }
+
+    @BeforeAll
+    static void startNodes() throws Exception {
+        stub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        stub.setExecutor(Executors.newCachedThreadPool());
+        stub.createContext("/maps/api/directions/json", exchange -> {
+            directionsCalls.incrementAndGet();
+            try {
+                Thread.sleep(LATENCY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = directionsResponse.get().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        stub.start();
+        String url = "http://127.0.0.1:" + stub.getAddress().getPort() + "/maps/api/directions/json";
+
+        nodeA = start("node-a", url);
+        nodeB = start("node-b", url);
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        nodeA.close();
+        nodeB.close();
+        stub.stop(0);
+    }
+
+    @BeforeEach
+    void setUp() {
+        a = nodeA.getBean(PlannedRouteService.class);
+        b = nodeB.getBean(PlannedRouteService.class);
+        jdbcTemplate = nodeA.getBean(JdbcTemplate.class);
+        directionsCalls.set(0);
+        directionsResponse.set(OK_ROUTE);
+    }
+
+    @AfterEach
+    void cleanup() {
+        pool.shutdownNow();
+        jdbcTemplate.update("DELETE FROM route_recalc_claims WHERE delivery_id < 0");
+    }
+
+    private static Delivery delivery(long id) {
+        Delivery d = new Delivery();
+        d.setId(id);
+        d.setFromLatitude(-3.8529807538596677);
+        d.setFromLongitude(-40.918941870331764);
+        return d;
+    }
+
+    @Test
+    @DisplayName("Pings simultâneos nas duas instâncias: uma única chamada ao Directions")
+    void umaChamadaPorJanela() throws Exception {
+        Delivery d = delivery(-48_001L);
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        List<Future<?>> results = new ArrayList<>();
+        for (PlannedRouteService node : List.of(a, b)) {
+            results.add(pool.submit(() -> {
+                barrier.await();
+                for (int i = 0; i < PINGS_PER_NODE; i++) {
+                    node.handleApproachRouteUpdate(d, -3.851236973896389, -40.91856317785552);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get(30, TimeUnit.SECONDS);
+        }
+
+        log.info("{} pings em duas instâncias → {} chamada(s) ao Directions", PINGS_PER_NODE * 2, directionsCalls.get());
+        assertThat(directionsCalls.get()).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM route_recalc_claims WHERE delivery_id = ? AND route_kind = 'approach'",
+                Integer.class, -48_001L)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Directions falha em uma instância: a outra recalcula no ping seguinte")
+    void falhaLiberaParaOutraInstancia() {
+        Delivery d = delivery(-48_002L);
+        directionsResponse.set(ZERO_RESULTS);
+
+        a.handleApproachRouteUpdate(d, -3.851236973896389, -40.91856317785552);
+        assertThat(directionsCalls.get()).isEqualTo(1);
+
+        directionsResponse.set(OK_ROUTE);
+        b.handleApproachRouteUpdate(d, -3.851236973896389, -40.91856317785552);
+        assertThat(directionsCalls.get()).isEqualTo(2);
+
+        // node-b está com o claim: node-a (sem cooldown local após a falha) não repete a chamada
+        a.handleApproachRouteUpdate(d, -3.851236973896389, -40.91856317785552);
+        assertThat(directionsCalls.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Conclusão da delivery libera o claim para a próxima fase/retomada")
+    void conclusaoLiberaClaim() {
+        Delivery d = delivery(-48_003L);
+        a.handleApproachRouteUpdate(d, -3.851236973896389, -40.91856317785552);
+
+        a.clearCooldown(-48_003L);
+
+        b.handleApproachRouteUpdate(d, -3.851236973896389, -40.91856317785552);
+        assertThat(directionsCalls.get()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,92 @@
+package com.mvt.mvt_events.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Unit tests for RoutePolyline — distance from a GPS point to the planned route,
+ * computed in memory with the segment grid.
+ */
+class RoutePolylineTest {
+
+    /** Haversine point-to-point distance, as an independent reference. */
+    private static double haversineMeters(double lat1, double lon1, double lat2, double lon2) {
+        final double R = 6_371_008.8;
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                        * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return R * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    /** Zig-zag route with the given number of points, ~50 m apart, around Ubajara-CE. */
+    static List<double[]> zigZagRoute(int points) {
+        List<double[]> route = new ArrayList<>(points);
+        for (int i = 0; i < points; i++) {
+            double lat = -3.85 - i * 0.0003;
+            double lng = -40.92 + ((i / 20) % 2 == 0 ? (i % 20) : 20 - (i % 20)) * 0.0003;
+            route.add(new double[]{lat, lng});
+        }
+        return route;
+    }
+
+    @Test
+    @DisplayName("Ponto sobre um vértice tem distância zero")
+    void pontoNoVertice() {
+        RoutePolyline route = RoutePolyline.of(zigZagRoute(50));
+
+        assertThat(route.distanceMeters(-3.85 - 10 * 0.0003, -40.92 + 10 * 0.0003)).isLessThan(0.01);
+    }
+
+    @Test
+    @DisplayName("Ponto ao lado de uma reta Norte-Sul: distância igual à do haversine")
+    void retaNorteSul() {
+        RoutePolyline route = RoutePolyline.of(List.of(new double[]{-3.85, -40.92}, new double[]{-3.87, -40.92}));
+
+        double expected = haversineMeters(-3.86, -40.92, -3.86, -40.921);
+        assertThat(route.distanceMeters(-3.86, -40.921)).isCloseTo(expected, within(expected * 0.005));
+    }
+
+    @Test
+    @DisplayName("Índice de grade dá o mesmo resultado da varredura completa (pontos perto e longe)")
+    void gradeIgualVarredura() {
+        List<double[]> coords = zigZagRoute(500);
+        RoutePolyline route = RoutePolyline.of(coords);
+        Random random = new Random(42);
+
+        for (int i = 0; i < 2_000; i++) {
+            double[] base = coords.get(random.nextInt(coords.size()));
+            double spread = i % 2 == 0 ? 0.002 : 0.05;
+            double lat = base[0] + (random.nextDouble() - 0.5) * spread;
+            double lng = base[1] + (random.nextDouble() - 0.5) * spread;
+
+            RoutePolyline single = null;
+            double brute = Double.MAX_VALUE;
+            for (int s = 0; s < coords.size() - 1; s++) {
+                single = RoutePolyline.of(List.of(coords.get(s), coords.get(s + 1)));
+                brute = Math.min(brute, single.distanceMeters(lat, lng));
+            }
+            assertThat(route.distanceMeters(lat, lng)).isCloseTo(brute, within(brute * 0.01 + 0.5));
+        }
+    }
+
+    @Test
+    @DisplayName("GeoJSON do ST_AsGeoJSON ([lng, lat]) é decodificado; lixo vira null")
+    void geoJson() {
+        RoutePolyline route = RoutePolyline.fromGeoJson(
+                "{\"type\":\"LineString\",\"coordinates\":[[-40.92,-3.85],[-40.92,-3.86],[-40.93,-3.86]]}");
+
+        assertThat(route.size()).isEqualTo(3);
+        assertThat(route.distanceMeters(-3.855, -40.92)).isLessThan(0.01);
+        assertThat(RoutePolyline.fromGeoJson("existing")).isNull();
+        assertThat(RoutePolyline.fromGeoJson("{\"type\":\"LineString\",\"coordinates\":[[-40.92,-3.85]]}")).isNull();
+    }
+}
@@ -0,0 +1,129 @@
+package com.mvt.mvt_events.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for StopSequenceOptimizer over synthetic stop sets: the optimized open path
+ * is a valid permutation, never longer than nearest-neighbor, and clearly shorter on
+ * layouts where the greedy choice backtracks.
+ */
+class StopSequenceOptimizerTest {
+
+    private static final double[] COURIER = {-3.850, -40.920};
+    private static final long BUDGET_NANOS = 50_000_000L;
+
+    /** Random stops within ~3 km of the courier. */
+    private static double[][] randomStops(Random random, int count) {
+        double[][] stops = new double[count][];
+        for (int i = 0; i < count; i++) {
+            stops[i] = new double[]{COURIER[0] + (random.nextDouble() - 0.5) * 0.05,
+                    COURIER[1] + (random.nextDouble() - 0.5) * 0.05};
+        }
+        return stops;
+    }
+
+    /** Shortest open path by brute force (small sets only). */
+    private static double optimalKm(double[][] stops) {
+        int[] order = new int[stops.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        return permute(stops, order, 0);
+    }
+
+    private static double permute(double[][] stops, int[] order, int k) {
+        if (k == order.length) return StopSequenceOptimizer.pathLengthKm(COURIER, stops, order);
+        double best = Double.MAX_VALUE;
+        for (int i = k; i < order.length; i++) {
+            swap(order, k, i);
+            best = Math.min(best, permute(stops, order, k + 1));
+            swap(order, k, i);
+        }
+        return best;
+    }
+
+    private static void swap(int[] a, int i, int j) {
+        int t = a[i];
+        a[i] = a[j];
+        a[j] = t;
+    }
+
+    @Test
+    @DisplayName("Resultado é uma permutação dos stops")
+    void permutacaoValida() {
+        double[][] stops = randomStops(new Random(1), 12);
+
+        int[] order = StopSequenceOptimizer.optimize(COURIER, stops, BUDGET_NANOS);
+
+        int[] sorted = order.clone();
+        Arrays.sort(sorted);
+        assertThat(sorted).containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11);
+    }
+
+    @Test
+    @DisplayName("200 conjuntos sintéticos: nunca mais longo que o nearest-neighbor, e mais curto no total")
+    void nuncaPiorQueNearestNeighbor() {
+        Random random = new Random(42);
+        double nnTotal = 0;
+        double optTotal = 0;
+        for (int run = 0; run < 200; run++) {
+            double[][] stops = randomStops(random, 3 + random.nextInt(10));
+
+            double nn = StopSequenceOptimizer.pathLengthKm(COURIER, stops,
+                    StopSequenceOptimizer.nearestNeighbor(COURIER, stops));
+            double opt = StopSequenceOptimizer.pathLengthKm(COURIER, stops,
+                    StopSequenceOptimizer.optimize(COURIER, stops, BUDGET_NANOS));
+
+            assertThat(opt).isLessThanOrEqualTo(nn + 1e-9);
+            nnTotal += nn;
+            optTotal += opt;
+        }
+        assertThat(optTotal).isLessThan(nnTotal * 0.97);
+    }
+
+    @Test
+    @DisplayName("Conjuntos pequenos: chega a menos de 5% do ótimo exato")
+    void pertoDoOtimo() {
+        Random random = new Random(7);
+        for (int run = 0; run < 30; run++) {
+            double[][] stops = randomStops(random, 7);
+
+            double opt = StopSequenceOptimizer.pathLengthKm(COURIER, stops,
+                    StopSequenceOptimizer.optimize(COURIER, stops, BUDGET_NANOS));
+
+            assertThat(opt).isLessThanOrEqualTo(optimalKm(stops) * 1.05);
+        }
+    }
+
+    @Test
+    @DisplayName("Stops em linha com o mais próximo no meio: evita o vai-e-volta do nearest-neighbor")
+    void evitaVaiEVolta() {
+        // Courier no km 0; stops em 0.3 (oeste), 0.35 (leste), 1.0, 1.5, 2.0 (oeste)
+        double[][] stops = {
+                {COURIER[0], COURIER[1] - 0.0027},
+                {COURIER[0], COURIER[1] + 0.00315},
+                {COURIER[0], COURIER[1] - 0.009},
+                {COURIER[0], COURIER[1] - 0.0135},
+                {COURIER[0], COURIER[1] - 0.018},
+        };
+
+        double nn = StopSequenceOptimizer.pathLengthKm(COURIER, stops,
+                StopSequenceOptimizer.nearestNeighbor(COURIER, stops));
+        int[] order = StopSequenceOptimizer.optimize(COURIER, stops, BUDGET_NANOS);
+
+        assertThat(order[0]).isEqualTo(1); // leste primeiro, depois segue reto para oeste
+        assertThat(StopSequenceOptimizer.pathLengthKm(COURIER, stops, order)).isLessThan(nn);
+    }
+
+    @Test
+    @DisplayName("Zero ou um stop não precisa de otimização")
+    void casosTriviais() {
+        assertThat(StopSequenceOptimizer.optimize(COURIER, new double[0][], BUDGET_NANOS)).isEmpty();
+        assertThat(StopSequenceOptimizer.optimize(COURIER, new double[][]{{-3.86, -40.93}}, BUDGET_NANOS))
+                .containsExactly(0);
+    }
+}
@@ -3,6 +3,7 @@ package com.mvt.mvt_events.service;
 import com.mvt.mvt_events.jpa.SupportMessage;
 import com.mvt.mvt_events.jpa.User;
 import com.mvt.mvt_events.repository.SupportMessageRepository;
+import com.mvt.mvt_events.repository.SupportUnreadCounterRepository;
 import com.mvt.mvt_events.repository.UserRepository;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -22,6 +23,8 @@ import java.util.UUID;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
@@ -41,6 +44,8 @@ class SupportMessageServiceTest {
     @Mock private SupportMessageRepository repository;
     @Mock private UserRepository userRepository;
     @Mock private PushNotificationService pushNotificationService;
+    @Mock private SupportUnreadCounterRepository unreadCounterRepository;
+    @Mock private SupportStreamService streamService;
 
     @InjectMocks
     private SupportMessageService service;
@@ -107,7 +112,7 @@ class SupportMessageServiceTest {
             when(userRepository.findById(userId)).thenReturn(Optional.of(user));
             when(repository.save(any(SupportMessage.class))).thenAnswer(inv -> inv.getArgument(0));
             when(repository.lastMessageAt(userId, false)).thenReturn(null); // sem msg anterior → não debounca
-            when(repository.countUnread(userId, false)).thenReturn(1L);
+            when(unreadCounterRepository.findAdminUnread(userId)).thenReturn(Optional.of(1));
             when(userRepository.findActiveAdmins()).thenReturn(List.of(admin));
 
             SupportMessage saved = service.sendFromUser(userId, "preciso de ajuda");
@@ -120,6 +125,8 @@ class SupportMessageServiceTest {
             assertThat(persisted.getText()).isEqualTo("preciso de ajuda");
 
             verify(pushNotificationService).sendHybridNotificationToUser(eq(adminId), anyString(), anyString(), anyMap());
+            verify(unreadCounterRepository).incrementAdminUnread(userId);
+            verify(streamService).publishMessage(saved);
             assertThat(saved.getText()).isEqualTo("preciso de ajuda");
         }
 
@@ -150,7 +157,7 @@ class SupportMessageServiceTest {
             when(userRepository.findById(userId)).thenReturn(Optional.of(user));
             when(repository.save(any(SupportMessage.class))).thenAnswer(inv -> inv.getArgument(0));
             when(repository.lastMessageAt(userId, true)).thenReturn(null);
-            when(repository.countUnread(userId, true)).thenReturn(1L);
+            when(unreadCounterRepository.findUserUnread(userId)).thenReturn(Optional.of(1));
 
             service.sendFromAdmin(userId, "vou te ajudar");
 
@@ -160,6 +167,8 @@ class SupportMessageServiceTest {
             assertThat(persisted.getFromAdmin()).isTrue();
 
             verify(pushNotificationService).sendHybridNotificationToUser(eq(userId), eq("Suporte Zapi10"), anyString(), anyMap());
+            verify(unreadCounterRepository).incrementUserUnread(userId);
+            verify(streamService).publishUserUnread(userId, 1L);
         }
     }
 
@@ -176,7 +185,7 @@ class SupportMessageServiceTest {
             when(userRepository.findById(userId)).thenReturn(Optional.of(user));
             when(repository.save(any(SupportMessage.class))).thenAnswer(inv -> inv.getArgument(0));
             lenient().when(repository.lastMessageAt(userId, false)).thenReturn(null);
-            when(repository.countUnread(userId, false)).thenReturn(1L);
+            when(unreadCounterRepository.findAdminUnread(userId)).thenReturn(Optional.of(1));
             when(userRepository.findActiveAdmins()).thenReturn(List.of(admin));
 
             service.sendFromUser(userId, "primeira");
@@ -195,7 +204,7 @@ class SupportMessageServiceTest {
             when(userRepository.findById(userId)).thenReturn(Optional.of(user));
             when(repository.save(any(SupportMessage.class))).thenAnswer(inv -> inv.getArgument(0));
             lenient().when(repository.lastMessageAt(userId, false)).thenReturn(null);
-            when(repository.countUnread(userId, false)).thenReturn(3L);
+            when(unreadCounterRepository.findAdminUnread(userId)).thenReturn(Optional.of(3));
             when(userRepository.findActiveAdmins()).thenReturn(List.of(admin));
 
             service.sendFromUser(userId, "terceira");
@@ -211,17 +220,56 @@ class SupportMessageServiceTest {
     class ReadStatusTests {
 
         @Test
-        @DisplayName("markAdminMessagesRead delega ao repo com fromAdmin=true")
+        @DisplayName("markAdminMessagesRead delega ao repo com fromAdmin=true e zera o badge do user")
         void markAdminAsRead() {
             when(repository.markAsRead(eq(userId), eq(true), any(OffsetDateTime.class))).thenReturn(2);
+            when(unreadCounterRepository.resetUserUnread(userId)).thenReturn(1);
+
             assertThat(service.markAdminMessagesRead(userId)).isEqualTo(2);
+            verify(streamService).publishUserUnread(userId, 0L);
+        }
+
+        @Test
+        @DisplayName("markUserMessagesRead zera o contador do admin e republica o badge da inbox")
+        void markUserAsRead() {
+            when(repository.markAsRead(eq(userId), eq(false), any(OffsetDateTime.class))).thenReturn(3);
+            when(unreadCounterRepository.resetAdminUnread(userId)).thenReturn(1);
+            when(unreadCounterRepository.countConversationsWithAdminUnread()).thenReturn(4L);
+
+            assertThat(service.markUserMessagesRead(userId)).isEqualTo(3);
+            verify(streamService).publishAdminUnread(4L);
+        }
+
+        @Test
+        @DisplayName("Mark-read sem nada pendente não republica badge")
+        void markReadNoopDoesNotPublish() {
+            when(unreadCounterRepository.resetUserUnread(userId)).thenReturn(0);
+
+            service.markAdminMessagesRead(userId);
+
+            verify(streamService, never()).publishUserUnread(any(), anyLong());
         }
 
         @Test
-        @DisplayName("countMyUnread retorna count de mensagens do admin (fromAdmin=true)")
+        @DisplayName("countMyUnread lê o contador do thread (sem agregação)")
         void countMyUnread() {
-            when(repository.countUnread(userId, true)).thenReturn(5L);
+            when(unreadCounterRepository.findUserUnread(userId)).thenReturn(Optional.of(5));
             assertThat(service.countMyUnread(userId)).isEqualTo(5L);
+            verify(repository, never()).countUnread(any(), anyBoolean());
+        }
+
+        @Test
+        @DisplayName("countMyUnread = 0 quando o thread ainda não tem contador")
+        void countMyUnreadWithoutRow() {
+            when(unreadCounterRepository.findUserUnread(userId)).thenReturn(Optional.empty());
+            assertThat(service.countMyUnread(userId)).isZero();
+        }
+
+        @Test
+        @DisplayName("countAdminUnreadConversations lê os contadores")
+        void countAdminUnread() {
+            when(unreadCounterRepository.countConversationsWithAdminUnread()).thenReturn(7L);
+            assertThat(service.countAdminUnreadConversations()).isEqualTo(7L);
         }
     }
 
@@ -235,5 +283,22 @@ class SupportMessageServiceTest {
             when(repository.findByUserIdOrderByCreatedAtAsc(userId)).thenReturn(Collections.emptyList());
             assertThat(service.listMyMessages(userId)).isEmpty();
         }
+
+        @Test
+        @DisplayName("sinceId busca só as mensagens mais novas que o cursor")
+        void sinceIdCursor() {
+            SupportMessage newer = SupportMessage.builder().id(11L).text("nova").fromAdmin(true).build();
+            when(repository.findByUserIdAndIdGreaterThanOrderByIdAsc(userId, 10L)).thenReturn(List.of(newer));
+
+            assertThat(service.listMyMessages(userId, 10L)).containsExactly(newer);
+            verify(repository, never()).findByUserIdOrderByCreatedAtAsc(any());
+        }
+
+        @Test
+        @DisplayName("sinceId nulo devolve o thread completo")
+        void nullSinceIdReturnsAll() {
+            when(repository.findByUserIdOrderByCreatedAtAsc(userId)).thenReturn(Collections.emptyList());
+            assertThat(service.getConversation(userId, null)).isEmpty();
+        }
     }
 }
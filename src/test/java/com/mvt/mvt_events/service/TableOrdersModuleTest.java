@@ -135,6 +135,8 @@ class TableOrdersModuleTest {
         @Mock private PushNotificationService pushNotificationService;
         @Mock private SiteConfigurationService siteConfigurationService;
         @Mock private GoogleDirectionsService googleDirectionsService;
+        @Mock private OrderBoardService orderBoardService;
+        @Mock private CashRegisterService cashRegisterService;
         @Mock private RestaurantTableRepository restaurantTableRepository;
         @InjectMocks private FoodOrderService foodOrderService;
 
@@ -176,7 +178,7 @@ class TableOrdersModuleTest {
             when(userRepository.findById(clientId)).thenReturn(Optional.of(client));
             when(storeProfileRepository.findByUserId(clientId)).thenReturn(Optional.of(store));
             when(restaurantTableRepository.findById(1L)).thenReturn(Optional.of(table));
-            when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+            when(productRepository.findByClientIdAndIdIn(eq(clientId), any())).thenReturn(List.of(product));
             when(orderRepository.save(any())).thenAnswer(inv -> {
                 FoodOrder o = inv.getArgument(0);
                 o.setId(1L);
@@ -1079,4 +1079,45 @@ class UserServiceTest {
                     .hasMessageContaining("Apenas administradores podem deletar usuários");
         }
     }
+
+    // ================================================================
+    // TYPEAHEAD
+    // ================================================================
+
+    @Nested
+    @DisplayName("search*ForTypeahead() — Normalização e tamanho mínimo do termo")
+    class TypeaheadTests {
+
+        @Test
+        @DisplayName("Termo curto ou vazio não consulta o banco")
+        void termoCurto() {
+            assertThat(userService.searchCouriersForTypeahead("jo", 10, mockAuth("admin@zapi10.com"))).isEmpty();
+            assertThat(userService.searchClientsForTypeahead(null, 10, mockAuth("admin@zapi10.com"))).isEmpty();
+            assertThat(userService.searchWaitersForTypeahead("  a ", 10, mockAuth("admin@zapi10.com"))).isEmpty();
+
+            verifyNoInteractions(userRepository, organizationRepository);
+        }
+
+        @Test
+        @DisplayName("Termo vai minúsculo e sem espaços; telefone vira só dígitos")
+        void normalizacao() {
+            assertThat(userService.typeaheadTerm("  João Silva ")).isEqualTo("joão silva");
+            assertThat(userService.typeaheadTerm("(88) 99912-3456")).isEqualTo("88999123456");
+            assertThat(userService.typeaheadTerm("joao99")).isEqualTo("joao99");
+            assertThat(userService.typeaheadTerm("(8)")).isNull();
+        }
+
+        @Test
+        @DisplayName("Sem organização busca todos os motoboys com o termo normalizado")
+        void semOrganizacao() {
+            User admin = makeUser(adminId, "Admin", User.Role.ADMIN);
+            when(userRepository.findByUsername("admin@zapi10.com")).thenReturn(Optional.of(admin));
+            when(organizationRepository.findByOwner(admin)).thenReturn(Optional.empty());
+            when(userRepository.searchCouriersWithLimit("maria", 10)).thenReturn(List.of());
+
+            userService.searchCouriersForTypeahead(" Maria ", null, mockAuth("admin@zapi10.com"));
+
+            verify(userRepository).searchCouriersWithLimit("maria", 10);
+        }
+    }
 }
@@ -0,0 +1,87 @@
+package com.mvt.mvt_events.sql;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * Utilitário de teste pra travar orçamento de SQL.
+ *
+ * <p>Na mesma thread (service/repository em teste de integração):
+ * <pre>
+ *   List&lt;Delivery&gt; result = SqlBudget.assertAtMost(5, () -&gt; service.findPending(...));
+ * </pre>
+ * Via HTTP (o request roda na thread do servidor), lê a métrica publicada pelo
+ * {@link SqlBudgetFilter}:
+ * <pre>
+ *   SqlBudget.assertHandlerAtMost(meterRegistry, "AuthController.register", 20);
+ * </pre>
+ */
+public final class SqlBudget {
+
+    private SqlBudget() {
+    }
+
+    /** Executa o bloco e falha se ele rodar mais de {@code maxStatements} SQLs. */
+    public static <T> T assertAtMost(int maxStatements, Supplier<T> block) {
+        SqlStats stats = SqlStats.begin();
+        T result;
+        SqlStats.Snapshot snapshot;
+        try {
+            result = block.get();
+        } finally {
+            snapshot = stats.end();
+        }
+        assertThat(snapshot.statements())
+                .as("Orçamento de SQL estourado (mais repetido %dx: %s)",
+                        snapshot.mostRepeatedCount(), snapshot.mostRepeated())
+                .isLessThanOrEqualTo(maxStatements);
+        return result;
+    }
+
+    public static void assertAtMost(int maxStatements, Runnable block) {
+        assertAtMost(maxStatements, () -> {
+            block.run();
+            return null;
+        });
+    }
+
+    /** Executa o bloco e devolve o que foi medido, pra asserções próprias. */
+    public static SqlStats.Snapshot measure(Runnable block) {
+        SqlStats stats = SqlStats.begin();
+        try {
+            block.run();
+        } finally {
+            stats.end();
+        }
+        return stats.snapshot();
+    }
+
+    /**
+     * Maior contagem de SQL já registrada pro handler HTTP. A métrica é publicada depois
+     * que a resposta sai, então espera até 2s ela aparecer.
+     */
+    public static void assertHandlerAtMost(MeterRegistry registry, String handler, int maxStatements) {
+        long deadline = System.currentTimeMillis() + 2_000;
+        DistributionSummary summary;
+        while ((summary = registry.find(SqlBudgetRecorder.METRIC_STATEMENTS)
+                .tags("kind", "http", "handler", handler).summary()) == null) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Nenhuma métrica de SQL registrada para " + handler);
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail("Interrompido aguardando métrica de " + handler);
+            }
+        }
+        assertThat(summary.max())
+                .as("Orçamento de SQL de %s", handler)
+                .isLessThanOrEqualTo(maxStatements);
+    }
+}
@@ -0,0 +1,138 @@
+package com.mvt.mvt_events.sql;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Cobre os contadores por escopo, a detecção de SQL repetido e a publicação das métricas.
+ */
+class SqlStatsTest {
+
+    private final SqlStatsInspector inspector = new SqlStatsInspector();
+
+    @AfterEach
+    void cleanup() {
+        while (SqlStats.current() != null) {
+            SqlStats.current().end();
+        }
+    }
+
+    @Nested
+    @DisplayName("SqlStats")
+    class ScopeTests {
+
+        @Test
+        @DisplayName("Fora de escopo os hooks não contam nada")
+        void foraDeEscopo() {
+            assertThat(inspector.inspect("select 1")).isEqualTo("select 1");
+            assertThat(SqlStats.current()).isNull();
+        }
+
+        @Test
+        @DisplayName("Conta SQLs e aponta o mais repetido")
+        void contaEMaisRepetido() {
+            SqlStats stats = SqlStats.begin();
+            inspector.inspect("select * from users where id=?");
+            for (int i = 0; i < 3; i++) {
+                inspector.inspect("select * from products where id=?");
+            }
+            SqlStats.Snapshot s = stats.end();
+
+            assertThat(s.statements()).isEqualTo(4);
+            assertThat(s.mostRepeated()).isEqualTo("select * from products where id=?");
+            assertThat(s.mostRepeatedCount()).isEqualTo(3);
+            assertThat(SqlStats.current()).isNull();
+        }
+
+        @Test
+        @DisplayName("Escopo aninhado soma também no escopo de fora")
+        void aninhado() {
+            SqlStats outer = SqlStats.begin();
+            inspector.inspect("a");
+            SqlStats inner = SqlStats.begin();
+            inspector.inspect("b");
+            SqlStats.current().onEntityLoaded();
+            assertThat(inner.end().statements()).isEqualTo(1);
+            assertThat(SqlStats.current()).isSameAs(outer);
+
+            SqlStats.Snapshot s = outer.end();
+            assertThat(s.statements()).isEqualTo(2);
+            assertThat(s.entities()).isEqualTo(1);
+        }
+    }
+
+    @Nested
+    @DisplayName("SqlBudget")
+    class BudgetTests {
+
+        @Test
+        @DisplayName("Dentro do orçamento devolve o resultado do bloco")
+        void dentroDoOrcamento() {
+            String result = SqlBudget.assertAtMost(2, () -> {
+                inspector.inspect("select 1");
+                return "ok";
+            });
+
+            assertThat(result).isEqualTo("ok");
+        }
+
+        @Test
+        @DisplayName("Estouro falha mostrando o SQL repetido")
+        void estouro() {
+            assertThatThrownBy(() -> SqlBudget.assertAtMost(2, () -> {
+                for (int i = 0; i < 3; i++) inspector.inspect("select * from addons where id=?");
+            }))
+                    .isInstanceOf(AssertionError.class)
+                    .hasMessageContaining("addons");
+            assertThat(SqlStats.current()).isNull();
+        }
+    }
+
+    @Nested
+    @DisplayName("SqlBudgetRecorder")
+    class RecorderTests {
+
+        private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        private final SqlBudgetRecorder recorder = new SqlBudgetRecorder(registry, 100, 3);
+
+        @Test
+        @DisplayName("Publica contagens tagueadas por handler e conta N+1")
+        void publica() {
+            recorder.record("http", "FoodOrderController.create",
+                    new SqlStats.Snapshot(12, 30, 5_000_000, "select * from products where id=?", 8));
+
+            assertThat(registry.get(SqlBudgetRecorder.METRIC_STATEMENTS)
+                    .tags("kind", "http", "handler", "FoodOrderController.create").summary().max()).isEqualTo(12);
+            assertThat(registry.get(SqlBudgetRecorder.METRIC_ENTITIES).summary().totalAmount()).isEqualTo(30);
+            assertThat(registry.get(SqlBudgetRecorder.METRIC_REPEATED).counter().count()).isEqualTo(1);
+            SqlBudget.assertHandlerAtMost(registry, "FoodOrderController.create", 12);
+        }
+
+        @Test
+        @DisplayName("Unidade sem SQL não gera métrica")
+        void semSql() {
+            recorder.record("scheduled", "X.job", new SqlStats.Snapshot(0, 0, 0, null, 0));
+
+            assertThat(registry.find(SqlBudgetRecorder.METRIC_STATEMENTS).summary()).isNull();
+        }
+
+        @Test
+        @DisplayName("Handler vem do método resolvido pelo Spring MVC")
+        void nomeDoHandler() throws Exception {
+            MockHttpServletRequest request = new MockHttpServletRequest();
+            assertThat(SqlBudgetFilter.handlerName(request)).isEqualTo("unmapped");
+
+            request.setAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE,
+                    new HandlerMethod(new SqlStatsTest(), SqlStatsTest.class.getDeclaredMethod("cleanup")));
+            assertThat(SqlBudgetFilter.handlerName(request)).isEqualTo("SqlStatsTest.cleanup");
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.mvt.mvt_events.startup;
+
+import com.mvt.mvt_events.http.OutboundHttpClients;
+import com.mvt.mvt_events.jpa.City;
+import com.mvt.mvt_events.repository.CityRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Cold start do CityDataLoader: o snapshot empacotado em src/main/resources precisa
+ * semear a tabela inteira sem nenhuma chamada ao IBGE.
+ */
+@ExtendWith(MockitoExtension.class)
+class CityDataLoaderTest {
+
+    @Mock
+    private CityRepository cityRepository;
+
+    @Spy
+    private CitySnapshotImporter citySnapshotImporter = new CitySnapshotImporter(mock(JdbcTemplate.class));
+
+    @Mock
+    private OutboundHttpClients outboundHttpClients;
+
+    @Mock
+    private Executor taskExecutor;
+
+    @InjectMocks
+    private CityDataLoader loader;
+
+    @Test
+    @DisplayName("Snapshot empacotado semeia os ~5570 municipios sem tocar na rede")
+    @SuppressWarnings("unchecked")
+    void snapshotEmpacotadoSemRede() {
+        assumeTrue(citySnapshotImporter.isSnapshotAvailable(),
+                "src/main/resources/data/ibge-cities.tsv.gz ausente - gere com scripts/generate-cities-snapshot.sh");
+        ArgumentCaptor<List<City>> upserted = ArgumentCaptor.forClass(List.class);
+        when(cityRepository.count()).thenReturn(0L).thenAnswer(inv -> (long) upserted.getValue().size());
+
+        loader.loadCities();
+
+        verify(citySnapshotImporter).upsert(upserted.capture());
+        assertThat(upserted.getValue()).hasSizeGreaterThanOrEqualTo(5570);
+        assertThat(upserted.getValue()).extracting(City::getIbgeCode)
+                .doesNotHaveDuplicates()
+                .contains("2312908", "2304400", "3550308", "5300108");
+        assertThat(upserted.getValue()).extracting(City::getStateCode).containsOnly(
+                "AC", "AL", "AM", "AP", "BA", "CE", "DF", "ES", "GO", "MA", "MG", "MS", "MT", "PA",
+                "PB", "PE", "PI", "PR", "RJ", "RN", "RO", "RR", "RS", "SC", "SE", "SP", "TO");
+        verifyNoInteractions(outboundHttpClients);
+    }
+
+    @Test
+    @DisplayName("Tabela ja completa: nem snapshot nem IBGE")
+    void tabelaCompleta() throws Exception {
+        when(cityRepository.count()).thenReturn(5570L);
+
+        loader.loadCities();
+
+        verify(citySnapshotImporter, never()).importSnapshot();
+        verify(citySnapshotImporter, never()).upsert(anyList());
+        verifyNoInteractions(outboundHttpClients);
+    }
+
+    @Test
+    @DisplayName("run() so agenda a carga no executor, sem bloquear o startup")
+    void runEmBackground() {
+        loader.run(null);
+
+        verify(taskExecutor).execute(any(Runnable.class));
+        verifyNoInteractions(cityRepository, outboundHttpClients);
+    }
+}
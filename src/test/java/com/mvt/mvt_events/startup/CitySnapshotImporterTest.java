@@ -0,0 +1,178 @@
+package com.mvt.mvt_events.startup;
+
+import com.mvt.mvt_events.jpa.City;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Testes unitarios do CitySnapshotImporter - parser das linhas do snapshot (TSV),
+ * leitura do .tsv.gz do classpath e upsert em lotes de INSERT multi-linha.
+ */
+class CitySnapshotImporterTest {
+
+    private static final String SAMPLE = "data/ibge-cities-sample.tsv.gz";
+    private static final String ROW = "(?, ?, ?, ?, NOW(), NOW())";
+
+    /** Registra os updates em vez de ir ao banco. */
+    private static class RecordingJdbcTemplate extends JdbcTemplate {
+        final List<String> sqls = new ArrayList<>();
+        final List<Object[]> args = new ArrayList<>();
+
+        @Override
+        public int update(String sql, Object... params) {
+            sqls.add(sql);
+            args.add(params);
+            return 0;
+        }
+    }
+
+    private final RecordingJdbcTemplate jdbc = new RecordingJdbcTemplate();
+
+    private static int countRows(String sql) {
+        return sql.split(Pattern.quote(ROW), -1).length - 1;
+    }
+
+    private static List<City> cities(int n) {
+        List<City> cities = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            cities.add(new City("Cidade " + i, "Ceará", "CE", String.valueOf(2300000 + i)));
+        }
+        return cities;
+    }
+
+    // ================================================================
+    // parseLine
+    // ================================================================
+
+    @Nested
+    @DisplayName("parseLine() -- Linha do snapshot")
+    class ParseLineTests {
+
+        @Test
+        @DisplayName("Linha valida vira City com campos sem espacos nas pontas")
+        void linhaValida() {
+            City city = CitySnapshotImporter.parseLine("2312908\t Sobral \tCeará\tCE");
+
+            assertThat(city).isNotNull();
+            assertThat(city.getIbgeCode()).isEqualTo("2312908");
+            assertThat(city.getName()).isEqualTo("Sobral");
+            assertThat(city.getState()).isEqualTo("Ceará");
+            assertThat(city.getStateCode()).isEqualTo("CE");
+        }
+
+        @Test
+        @DisplayName("Colunas extras sao ignoradas")
+        void colunasExtras() {
+            City city = CitySnapshotImporter.parseLine("2304400\tFortaleza\tCeará\tCE\textra");
+
+            assertThat(city).isNotNull();
+            assertThat(city.getName()).isEqualTo("Fortaleza");
+        }
+
+        @Test
+        @DisplayName("Linha nula ou em branco e ignorada")
+        void linhaVazia() {
+            assertThat(CitySnapshotImporter.parseLine(null)).isNull();
+            assertThat(CitySnapshotImporter.parseLine("")).isNull();
+            assertThat(CitySnapshotImporter.parseLine("   ")).isNull();
+        }
+
+        @Test
+        @DisplayName("Linha com menos de 4 colunas e ignorada")
+        void colunasFaltando() {
+            assertThat(CitySnapshotImporter.parseLine("linha sem tabs")).isNull();
+            assertThat(CitySnapshotImporter.parseLine("5300108\tBrasília\tDistrito Federal")).isNull();
+        }
+
+        @Test
+        @DisplayName("Campo obrigatorio vazio invalida a linha")
+        void campoVazio() {
+            assertThat(CitySnapshotImporter.parseLine("9999999\t\tCeará\tCE")).isNull();
+            assertThat(CitySnapshotImporter.parseLine(" \tSobral\tCeará\tCE")).isNull();
+            assertThat(CitySnapshotImporter.parseLine("2312908\tSobral\tCeará\t ")).isNull();
+        }
+    }
+
+    // ================================================================
+    // importSnapshot
+    // ================================================================
+
+    @Nested
+    @DisplayName("importSnapshot() -- Leitura do .tsv.gz")
+    class ImportSnapshotTests {
+
+        @Test
+        @DisplayName("Importa as linhas validas e descarta as malformadas")
+        void importaLinhasValidas() throws Exception {
+            CitySnapshotImporter importer = new CitySnapshotImporter(jdbc, SAMPLE);
+
+            int imported = importer.importSnapshot();
+
+            assertThat(imported).isEqualTo(4);
+            assertThat(jdbc.sqls).hasSize(1);
+            assertThat(countRows(jdbc.sqls.get(0))).isEqualTo(4);
+            assertThat(jdbc.args.get(0)).containsExactly(
+                    "2304400", "Fortaleza", "Ceará", "CE",
+                    "2312908", "Sobral", "Ceará", "CE",
+                    "3304557", "Rio de Janeiro", "Rio de Janeiro", "RJ",
+                    "3550308", "São Paulo", "São Paulo", "SP");
+        }
+
+        @Test
+        @DisplayName("Snapshot ausente: retorna 0 sem tocar no banco")
+        void snapshotAusente() throws Exception {
+            CitySnapshotImporter importer = new CitySnapshotImporter(jdbc, "data/nao-existe.tsv.gz");
+
+            assertThat(importer.isSnapshotAvailable()).isFalse();
+            assertThat(importer.importSnapshot()).isZero();
+            assertThat(jdbc.sqls).isEmpty();
+        }
+    }
+
+    // ================================================================
+    // upsert
+    // ================================================================
+
+    @Nested
+    @DisplayName("upsert() -- INSERT multi-linha por ibge_code")
+    class UpsertTests {
+
+        @Test
+        @DisplayName("Divide em statements de 500 linhas com 4 parametros cada")
+        void divideEmLotes() {
+            new CitySnapshotImporter(jdbc).upsert(cities(1201));
+
+            assertThat(jdbc.sqls).hasSize(3);
+            assertThat(jdbc.sqls).extracting(CitySnapshotImporterTest::countRows).containsExactly(500, 500, 201);
+            assertThat(jdbc.args).extracting(a -> a.length).containsExactly(2000, 2000, 804);
+            assertThat(jdbc.args.get(2)).startsWith("2301000", "Cidade 1000", "Ceará", "CE");
+        }
+
+        @Test
+        @DisplayName("Upsert por ibge_code so atualiza quando algo mudou")
+        void upsertCondicional() {
+            new CitySnapshotImporter(jdbc).upsert(cities(1));
+
+            String sql = jdbc.sqls.get(0);
+            assertThat(sql).startsWith("INSERT INTO cities (ibge_code, name, state, state_code, created_at, updated_at) VALUES ");
+            assertThat(sql).contains("ON CONFLICT (ibge_code) DO UPDATE SET");
+            assertThat(sql).contains("WHERE cities.name IS DISTINCT FROM EXCLUDED.name");
+        }
+
+        @Test
+        @DisplayName("Lista vazia nao gera statement")
+        void listaVazia() {
+            new CitySnapshotImporter(jdbc).upsert(List.of());
+
+            assertThat(jdbc.sqls).isEmpty();
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.mvt.mvt_events.tenant;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import com.mvt.mvt_events.common.JwtAuthenticationFilter;
+import com.mvt.mvt_events.common.JwtUtil;
+import com.mvt.mvt_events.jpa.User;
+import com.mvt.mvt_events.service.CustomUserDetailsService;
+import jakarta.servlet.Filter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.logging.logback.StructuredLogEncoder;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.mvt.mvt_events.testsupport.IntegrationFixtures.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Benchmark de um request autenticado passando por JwtAuthenticationFilter → TenantFilter →
+ * "controller" (que loga uma linha INFO), com o logging configurado como em produção:
+ * JSON (logstash) via StructuredLogEncoder, escrevendo num arquivo real.
+ *
+ * Cenários:
+ * - antes: appender síncrono e com.mvt.mvt_events.tenant em DEBUG (o DEBUG do
+ *   application.properties valia também em prod), diagnóstico do TenantFilter por request
+ * - appender síncrono, tenant em INFO
+ * - depois: AsyncAppender (logback-spring.xml) com tenant em INFO
+ *
+ * Também confere que a linha JSON leva os campos de MDC tenant, user e deliveryId.
+ * Sem banco: a tag integration só o tira do build padrão, pelo tempo de execução.
+ */
+@Tag("integration")
+@DisplayName("Filtros de request — custo do logging em configuração de produção")
+class FilterChainLoggingBenchmarkIntegrationTest {
+
+    private static final int REQUEST_THREADS = 8;
+    private static final int REQUESTS_PER_THREAD = 5_000;
+
+    @TempDir
+    Path tempDir;
+
+    private final LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+    private final Logger root = context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+    private final Logger tenantLogger = context.getLogger("com.mvt.mvt_events.tenant");
+    private final Logger controllerLogger = context.getLogger("com.mvt.mvt_events.controller.DeliveryController");
+
+    private List<Appender<ILoggingEvent>> originalAppenders;
+    private Level originalRootLevel;
+    private Filter[] filters;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        originalRootLevel = root.getLevel();
+        originalAppenders = new ArrayList<>();
+        root.iteratorForAppenders().forEachRemaining(originalAppenders::add);
+        root.detachAndStopAllAppenders();
+        root.setLevel(Level.INFO);
+        context.putObject(Environment.class.getName(), new StandardEnvironment());
+
+        user = newUser("Log Courier", User.Role.COURIER);
+        user.setId(UUID.randomUUID());
+
+        JwtUtil jwtUtil = mock(JwtUtil.class);
+        when(jwtUtil.getUsernameFromToken(anyString())).thenReturn(user.getUsername());
+        when(jwtUtil.validateToken(anyString(), any())).thenReturn(true);
+        CustomUserDetailsService userDetailsService = mock(CustomUserDetailsService.class);
+        when(userDetailsService.loadUserByUsername(anyString())).thenReturn(user);
+
+        JwtAuthenticationFilter jwtFilter = new JwtAuthenticationFilter();
+        ReflectionTestUtils.setField(jwtFilter, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(jwtFilter, "userDetailsService", userDetailsService);
+        filters = new Filter[]{jwtFilter, new TenantFilter()};
+    }
+
+    @AfterEach
+    void tearDown() {
+        root.detachAndStopAllAppenders();
+        originalAppenders.forEach(root::addAppender);
+        root.setLevel(originalRootLevel);
+        tenantLogger.setLevel(null);
+    }
+
+    private FileAppender<ILoggingEvent> jsonFileAppender(Path file) {
+        StructuredLogEncoder encoder = new StructuredLogEncoder();
+        encoder.setContext(context);
+        encoder.setFormat("logstash");
+        encoder.start();
+
+        FileAppender<ILoggingEvent> appender = new FileAppender<>();
+        appender.setContext(context);
+        appender.setName("JSON");
+        appender.setFile(file.toString());
+        appender.setEncoder(encoder);
+        appender.start();
+        return appender;
+    }
+
+    private AsyncAppender async(Appender<ILoggingEvent> delegate) {
+        AsyncAppender appender = new AsyncAppender();
+        appender.setContext(context);
+        appender.setName("ASYNC");
+        appender.setQueueSize(8192);
+        appender.setIncludeCallerData(false);
+        appender.setNeverBlock(false);
+        appender.addAppender(delegate);
+        appender.start();
+        return appender;
+    }
+
+    private void request(long deliveryId) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/deliveries/" + deliveryId);
+        request.addHeader("Authorization", "Bearer token");
+        MockFilterChain chain = new MockFilterChain(new jakarta.servlet.http.HttpServlet() {
+            @Override
+            protected void service(jakarta.servlet.http.HttpServletRequest req,
+                    jakarta.servlet.http.HttpServletResponse resp) {
+                controllerLogger.info("📦 Delivery #{} consultada", deliveryId);
+            }
+        }, filters);
+        try {
+            chain.doFilter(request, new MockHttpServletResponse());
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    /** Média de microssegundos por request, REQUEST_THREADS threads em paralelo. */
+    private double run(Appender<ILoggingEvent> appender, Level tenantLevel) throws Exception {
+        root.detachAndStopAllAppenders();
+        root.addAppender(appender);
+        tenantLogger.setLevel(tenantLevel);
+
+        warmUp(2_000, () -> request(1L));
+
+        ExecutorService pool = Executors.newFixedThreadPool(REQUEST_THREADS);
+        List<Future<Long>> results = new ArrayList<>();
+        for (int t = 0; t < REQUEST_THREADS; t++) {
+            results.add(pool.submit(() -> {
+                long start = System.nanoTime();
+                for (int i = 0; i < REQUESTS_PER_THREAD; i++) {
+                    request(i);
+                }
+                return System.nanoTime() - start;
+            }));
+        }
+        long totalNanos = 0;
+        for (Future<Long> result : results) {
+            totalNanos += result.get();
+        }
+        pool.shutdown();
+        root.detachAndStopAllAppenders(); // AsyncAppender esvazia a fila ao parar
+        return TimeUnit.NANOSECONDS.toMicros(totalNanos) / (double) (REQUEST_THREADS * REQUESTS_PER_THREAD);
+    }
+
+    @Test
+    @DisplayName("AsyncAppender + diagnóstico em DEBUG: request mais barato que o logging síncrono anterior")
+    void loggingSincronoVsAssincrono() throws Exception {
+        double before = run(jsonFileAppender(tempDir.resolve("sync-debug.json")), Level.DEBUG);
+        double syncInfo = run(jsonFileAppender(tempDir.resolve("sync-info.json")), Level.INFO);
+        Path asyncFile = tempDir.resolve("async-info.json");
+        double after = run(async(jsonFileAppender(asyncFile)), Level.INFO);
+
+        long linesBefore = Files.lines(tempDir.resolve("sync-debug.json")).count();
+        long linesAfter = Files.lines(asyncFile).count();
+        assertThat(after)
+                .as("µs/request: async INFO %.1f, síncrono INFO %.1f, síncrono DEBUG %.1f", after, syncInfo, before)
+                .isLessThan(before);
+        assertThat(linesAfter).as("linhas de log, async INFO vs síncrono DEBUG").isLessThan(linesBefore);
+
+        String line = Files.lines(asyncFile).filter(l -> l.contains("consultada")).findFirst().orElseThrow();
+        assertThat(line)
+                .contains("\"user\":\"" + user.getId() + "\"")
+                .contains("\"tenant\":\"" + (user.getId().hashCode() % 1000L) + "\"")
+                .containsPattern("\"deliveryId\":\"\\d+\"");
+    }
+}
@@ -0,0 +1,119 @@
+package com.mvt.mvt_events.testsupport;
+
+import com.mvt.mvt_events.MvtEventsApplication;
+import com.mvt.mvt_events.jpa.User;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Fixtures compartilhadas dos testes de integração (@Tag("integration")) contra o
+ * Postgres real, no perfil integration-test.
+ *
+ * Setup do banco (uma vez), o mesmo de AuthRegisterIntegrationTest: container
+ * mvt-events-db na porta 5436 com a database "mvt-events-test" e a extensão postgis.
+ * O Flyway aplica todas as migrations ao subir o contexto.
+ *
+ * Usuários são criados com username e CPF únicos por chamada, para que testes
+ * repetidos ou em paralelo não colidam no UNIQUE de users.
+ */
+public final class IntegrationFixtures {
+
+    private IntegrationFixtures() {
+    }
+
+    /** Resultado de um bloco cronometrado com {@link #time}. */
+    public record Timed<T>(T result, double millis) {
+    }
+
+    @FunctionalInterface
+    public interface Block {
+        void run() throws Exception;
+    }
+
+    /** Usuário ainda não salvo: username e documento únicos, senha fixa. */
+    public static User newUser(String name, User.Role role) {
+        User u = new User();
+        u.setName(name);
+        u.setUsername(name.toLowerCase().replaceAll("[^a-z0-9]+", "-")
+                + "-" + UUID.randomUUID().toString().substring(0, 8) + "@it.test");
+        u.setPassword("x");
+        u.setRole(role);
+        u.setDocumentNumber(cpf());
+        return u;
+    }
+
+    /** CPF válido (dígitos verificadores calculados) com base aleatória. */
+    public static String cpf() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int[] d = new int[11];
+        do {
+            for (int i = 0; i < 9; i++) {
+                d[i] = random.nextInt(10);
+            }
+        } while (allEqual(d));
+        d[9] = checkDigit(d, 9);
+        d[10] = checkDigit(d, 10);
+        StringBuilder cpf = new StringBuilder(11);
+        for (int digit : d) {
+            cpf.append(digit);
+        }
+        return cpf.toString();
+    }
+
+    private static int checkDigit(int[] d, int length) {
+        int sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += d[i] * (length + 1 - i);
+        }
+        int rest = sum % 11;
+        return rest < 2 ? 0 : 11 - rest;
+    }
+
+    private static boolean allEqual(int[] d) {
+        for (int i = 1; i < 9; i++) {
+            if (d[i] != d[0]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Sobe uma instância completa da aplicação (porta aleatória) com o instance-id dos
+     * leases — para testes que simulam duas réplicas no mesmo Postgres.
+     */
+    public static ConfigurableApplicationContext startInstance(String instanceId, Map<String, String> properties) {
+        return startInstance(instanceId, properties, new Class<?>[0]);
+    }
+
+    /** Idem, com configurações de teste extras ({@code @TestConfiguration}) registradas no contexto. */
+    public static ConfigurableApplicationContext startInstance(String instanceId, Map<String, String> properties,
+                                                               Class<?>... extraSources) {
+        Map<String, Object> all = new HashMap<>(properties);
+        all.put("server.port", "0");
+        all.put("scheduling.leases.instance-id", instanceId);
+        return new SpringApplicationBuilder(MvtEventsApplication.class)
+                .sources(extraSources)
+                .profiles("integration-test")
+                .properties(all)
+                .run();
+    }
+
+    /** Roda o bloco sem medir, para JIT, pool de conexões e caches de statement. */
+    public static void warmUp(int times, Block block) throws Exception {
+        for (int i = 0; i < times; i++) {
+            block.run();
+        }
+    }
+
+    /** Executa o bloco e devolve o resultado com o tempo de parede em ms. */
+    public static <T> Timed<T> time(Callable<T> block) throws Exception {
+        long start = System.nanoTime();
+        T result = block.call();
+        return new Timed<>(result, (System.nanoTime() - start) / 1e6);
+    }
+}
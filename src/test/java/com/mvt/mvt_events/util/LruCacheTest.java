@@ -0,0 +1,77 @@
+package com.mvt.mvt_events.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Testes unitarios do LruCache - limite de entradas com despejo da menos usada.
+ */
+class LruCacheTest {
+
+    @Test
+    @DisplayName("No limite, despeja so a entrada menos usada e mantem as demais")
+    void despejaSoAMaisAntiga() {
+        LruCache<Integer, String> cache = new LruCache<>(3);
+        cache.put(1, "a");
+        cache.put(2, "b");
+        cache.put(3, "c");
+
+        cache.put(4, "d");
+
+        assertThat(cache.size()).isEqualTo(3);
+        assertThat(cache.get(1)).isNull();
+        assertThat(cache.get(2)).isEqualTo("b");
+        assertThat(cache.get(3)).isEqualTo("c");
+        assertThat(cache.get(4)).isEqualTo("d");
+    }
+
+    @Test
+    @DisplayName("Leitura renova a entrada: a despejada e a nao acessada")
+    void leituraRenova() {
+        LruCache<Integer, String> cache = new LruCache<>(2);
+        cache.put(1, "a");
+        cache.put(2, "b");
+        cache.get(1);
+
+        cache.put(3, "c");
+
+        assertThat(cache.get(1)).isEqualTo("a");
+        assertThat(cache.get(2)).isNull();
+    }
+
+    @Test
+    @DisplayName("Sobrescrever chave existente nao despeja nada")
+    void sobrescreverNaoDespeja() {
+        LruCache<Integer, String> cache = new LruCache<>(2);
+        cache.put(1, "a");
+        cache.put(2, "b");
+
+        cache.put(1, "a2");
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get(1)).isEqualTo("a2");
+        assertThat(cache.get(2)).isEqualTo("b");
+    }
+
+    @Test
+    @DisplayName("computeIfPresent so atualiza chave em cache")
+    void computeIfPresent() {
+        LruCache<Integer, String> cache = new LruCache<>(2);
+        cache.put(1, "a");
+
+        cache.computeIfPresent(1, (k, v) -> v + "!");
+        cache.computeIfPresent(2, (k, v) -> "nunca");
+
+        assertThat(cache.get(1)).isEqualTo("a!");
+        assertThat(cache.get(2)).isNull();
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Limite nao positivo e rejeitado")
+    void limiteInvalido() {
+        assertThatThrownBy(() -> new LruCache<>(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}